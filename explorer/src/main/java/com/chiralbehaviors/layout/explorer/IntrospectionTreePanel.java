@@ -1,7 +1,6 @@
 // SPDX-License-Identifier: Apache-2.0
 package com.chiralbehaviors.layout.explorer;
 
-import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -156,7 +155,7 @@ public final class IntrospectionTreePanel extends VBox {
      * Resolve the SchemaPath for a field within a given type, by finding
      * which top-level query field leads to this type.
      */
-    private SchemaPath resolveParentPath(String parentTypeName, Document doc) {
+    static SchemaPath resolveParentPath(String parentTypeName, Document doc) {
         if (doc == null || "Query".equals(parentTypeName)) {
             return null; // top-level fields — parent is the operation root
         }
@@ -169,7 +168,7 @@ public final class IntrospectionTreePanel extends VBox {
         for (var def : doc.getDefinitions()) {
             if (def instanceof OperationDefinition op) {
                 SchemaPath found = findPathToType(
-                    op.getSelectionSet(), parentTypeName, new SchemaPath(List.of()));
+                    op.getSelectionSet(), parentTypeName, null);
                 if (found != null) {
                     return found;
                 }
@@ -181,16 +180,17 @@ public final class IntrospectionTreePanel extends VBox {
     /**
      * Recursively search for a selection set that likely corresponds to the
      * target type. Uses the heuristic that field names often match type names
-     * (lowercased/pluralized).
+     * (lowercased/pluralized). {@code currentPath} is null at the operation
+     * root, which has no path of its own.
      */
-    private SchemaPath findPathToType(SelectionSet ss, String typeName,
+    private static SchemaPath findPathToType(SelectionSet ss, String typeName,
                                        SchemaPath currentPath) {
         if (ss == null) {
             return null;
         }
         for (Selection<?> sel : ss.getSelections()) {
             if (sel instanceof Field f && f.getSelectionSet() != null) {
-                SchemaPath fieldPath = currentPath.segments().isEmpty()
+                SchemaPath fieldPath = currentPath == null
                     ? new SchemaPath(f.getName())
                     : currentPath.child(f.getName());
                 // Check if this field's sub-fields match the target type's fields
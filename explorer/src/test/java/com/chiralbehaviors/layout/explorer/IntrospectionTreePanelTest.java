@@ -211,6 +211,21 @@ class IntrospectionTreePanelTest {
             "Existing field preserved: " + capturedQueries.get(0));
     }
 
+    // -----------------------------------------------------------------------
+    // Parent path resolution walks the query from the operation root
+    // -----------------------------------------------------------------------
+
+    @Test
+    void testResolveParentPathFromOperationRoot() {
+        Document doc = Parser.parse("{ employees { name projects { title } } }");
+        assertEquals(new com.chiralbehaviors.layout.SchemaPath("employees"),
+            IntrospectionTreePanel.resolveParentPath("Employee", doc));
+        assertEquals(new com.chiralbehaviors.layout.SchemaPath("employees", "projects"),
+            IntrospectionTreePanel.resolveParentPath("Project", doc));
+        assertNull(IntrospectionTreePanel.resolveParentPath("Query", doc));
+        assertNull(IntrospectionTreePanel.resolveParentPath("Unrelated", doc));
+    }
+
     // -----------------------------------------------------------------------
     // Remove field modifies query
     // -----------------------------------------------------------------------
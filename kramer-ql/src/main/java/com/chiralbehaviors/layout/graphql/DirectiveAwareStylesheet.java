@@ -6,6 +6,7 @@ import java.util.Map;
 
 import com.chiralbehaviors.layout.LayoutStylesheet;
 import com.chiralbehaviors.layout.SchemaPath;
+import com.chiralbehaviors.layout.StylesheetSnapshot;
 import com.chiralbehaviors.layout.style.PrimitiveStyle;
 import com.chiralbehaviors.layout.style.RelationStyle;
 
@@ -25,6 +26,7 @@ public final class DirectiveAwareStylesheet implements LayoutStylesheet {
     private final DirectiveReader  reader;
     private final SchemaContext    ctx;
     private final Map<SchemaPath, Map<String, Object>> directiveCache = new HashMap<>();
+    private volatile StylesheetSnapshot snapshot;
 
     /**
      * @param inner  the wrapped stylesheet (fallback for all lookups)
@@ -44,6 +46,16 @@ public final class DirectiveAwareStylesheet implements LayoutStylesheet {
         return inner.getVersion();
     }
 
+    @Override
+    public long getVersion(SchemaPath path) {
+        return inner.getVersion(path);
+    }
+
+    @Override
+    public long getSubtreeVersion(SchemaPath path) {
+        return inner.getSubtreeVersion(path);
+    }
+
     @Override
     public boolean getBoolean(SchemaPath path, String property, boolean defaultValue) {
         Map<String, Object> overrides = cachedDirectives(path);
@@ -76,6 +88,20 @@ public final class DirectiveAwareStylesheet implements LayoutStylesheet {
         return inner.getInt(path, property, defaultValue);
     }
 
+    /**
+     * Directives are fixed for the life of this decorator, so the snapshot is
+     * recompiled only when the inner stylesheet's version changes.
+     */
+    @Override
+    public StylesheetSnapshot snapshot() {
+        StylesheetSnapshot current = snapshot;
+        if (current == null || current.getVersion() != getVersion()) {
+            current = new StylesheetSnapshot(this);
+            snapshot = current;
+        }
+        return current;
+    }
+
     @Override
     public PrimitiveStyle primitiveStyle(SchemaPath path) {
         return inner.primitiveStyle(path);
@@ -17,6 +17,7 @@
 package com.chiralbehaviors.layout;
 
 import java.net.URL;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -24,9 +25,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.chiralbehaviors.layout.StylesheetSnapshot.PathProperties;
 import com.chiralbehaviors.layout.cell.Hit;
 import com.chiralbehaviors.layout.cell.LayoutCell;
 import com.chiralbehaviors.layout.cell.LayoutContainer;
@@ -42,6 +45,7 @@ import javafx.beans.property.Property;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.ListChangeListener;
 import javafx.geometry.Point2D;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.AnchorPane;
@@ -52,30 +56,58 @@ import javafx.scene.layout.Region;
  *
  */
 public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
+    /**
+     * Result of a layout pipeline prepare stage, installed on the FX thread.
+     *
+     * @param measured true if the tree was measured for this request
+     * @param snapshot data snapshot to adopt, or null to keep the current one
+     * @param p90 p90 snapshot to adopt, or null to keep the current one
+     * @param relayout false to rebind the data to the existing control only
+     */
+    private record PreparedLayout(SchemaNodeLayout tree, JsonNode data,
+                                  double width, boolean measured,
+                                  Map<SchemaPath, DataSnapshot.Fingerprint> snapshot,
+                                  Map<SchemaPath, Double> p90, boolean relayout) {
+        PreparedLayout(SchemaNodeLayout tree, JsonNode data, double width,
+                       boolean measured,
+                       Map<SchemaPath, DataSnapshot.Fingerprint> snapshot) {
+            this(tree, data, width, measured, snapshot, null, true);
+        }
+    }
+
     /**
      * 
      */
     private static final String                    AUTO_LAYOUT = "auto-layout";
     private static final String                    DEFAULT_CSS = "default.css";
+    /** Overscan of the outermost flow unless {@link #setOverscan(int)} says otherwise */
+    static final int                               DEFAULT_OVERSCAN = 2;
     private static final java.util.logging.Logger  log         = Logger.getLogger(AutoLayout.class.getCanonicalName());
     private static final String                    STYLE_SHEET = "auto-layout.css";
 
     private LayoutCell<? extends Region>                  control;
+    // Stands in for the control while a prepare stage mutates its layout tree
+    private javafx.scene.Node                             parked;
     private final FocusController<AutoLayout>             controller;
-    private ConstraintSolver                              constraintSolver = new ExhaustiveConstraintSolver();
+    private ConstraintSolver                              constraintSolver = new TreeConstraintSolver();
     private SimpleObjectProperty<JsonNode>                data         = new SimpleObjectProperty<>();
-    private final Map<LayoutDecisionKey, LayoutResult>    decisionCache = new HashMap<>();
+    private LayoutDecisionCache                           decisionCache = new BoundedLayoutDecisionCache();
     private SchemaNodeLayout                              layout;
     private MeasureResult                                 measureResult;
     private double                                        layoutWidth  = 0.0;
+    private int                                           overscan     = DEFAULT_OVERSCAN;
+    private final LayoutPipeline                          pipeline     = new LayoutPipeline(Platform::runLater);
     private Style                                        model;
     private final SimpleObjectProperty<SchemaNode>        root         = new SimpleObjectProperty<>();
     private final String                                  stylesheet;
 
-    // Data snapshot state (Kramer-eyr): tracks primitive values across setContent() calls
+    // Data snapshot state (Kramer-eyr): fingerprints primitive values across setContent() calls
     // to invalidate frozenResult on PrimitiveLayouts whose data has changed.
-    private Map<SchemaPath, List<String>>                 dataSnapshot = DataSnapshot.EMPTY;
+    private Map<SchemaPath, DataSnapshot.Fingerprint>     dataSnapshot = DataSnapshot.EMPTY;
     private Map<SchemaPath, Double>                       p90Snapshot  = Map.of();
+    // Stylesheet properties of the layout tree's paths when the control was
+    // built; a later change to sort-fields alone is applied by rebinding.
+    private Map<SchemaPath, PathProperties>               laidOutProperties = Map.of();
 
     // Search
     private SearchBar                                     searchBar;
@@ -104,6 +136,7 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
         this.model = model;
         this.root.set(root);
         this.root.addListener((o, p, c) -> {
+            pipeline.cancel();
             layout = null;
             measureResult = null;
             decisionCache.clear();
@@ -117,6 +150,7 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
             var newList = getStylesheets();
             if (newList.equals(model.styleSheets())) return;
             model.setStyleSheets(newList, this);
+            pipeline.cancel();
             layout = null;
             measureResult = null;
             decisionCache.clear();
@@ -127,10 +161,14 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
         });
         getStylesheets().add(getClass().getResource(DEFAULT_CSS)
                                        .toExternalForm());
+        pipeline.setIdleListener(this::unparkControl);
         installSearchKeyBindings();
     }
 
     public void autoLayout() {
+        if (Platform.isFxApplicationThread() && applySortChange()) {
+            return;
+        }
         layoutWidth = 0.0;
         decisionCache.clear();
         Platform.runLater(() -> autoLayout(getData(), getWidth()));
@@ -174,13 +212,12 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
     }
 
     public void measure(JsonNode data) {
-        SchemaNode top = root.get();
-        if (top == null || data == null || data.isNull() || data.size() == 0) {
+        SchemaNodeLayout tree = resolveLayoutTree(data);
+        if (tree == null) {
             return;
         }
         try {
-            layout = model.layout(top);
-            layout.buildPaths(new SchemaPath(top.getField()), model);
+            layout = tree;
             layout.measure(data, model);
             measureResult = layout.getMeasureResult();
         } catch (Throwable e) {
@@ -188,6 +225,36 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
         }
     }
 
+    /**
+     * Run measure, solve, layout and compress on {@code executor}, building
+     * and installing the control on the FX thread; superseded requests are
+     * cancelled. Null restores synchronous layout on the FX thread.
+     */
+    public void setLayoutExecutor(Executor executor) {
+        pipeline.setWorker(executor);
+    }
+
+    /**
+     * Resolves the root layout and its schema paths. Style resolution touches
+     * the scene graph, so this stays on the FX thread.
+     *
+     * @return the root layout, or null when there is nothing to lay out
+     */
+    private SchemaNodeLayout resolveLayoutTree(JsonNode data) {
+        SchemaNode top = root.get();
+        if (top == null || data == null || data.isNull() || data.size() == 0) {
+            return null;
+        }
+        try {
+            SchemaNodeLayout tree = model.layout(top);
+            tree.buildPaths(new SchemaPath(top.getField()), model);
+            return tree;
+        } catch (Throwable e) {
+            log.log(Level.SEVERE, "cannot measure data", e);
+            return null;
+        }
+    }
+
     public MeasureResult getMeasureResult() {
         return measureResult;
     }
@@ -365,7 +432,7 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
 
     /** Returns true when a layout has been measured and all primitives have converged. */
     public boolean allConverged() {
-        return layout != null && layout.isConverged();
+        return layout != null && !pipeline.isBusy() && layout.isConverged();
     }
 
     /**
@@ -381,7 +448,9 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
      * @return the decision tree rooted at the top-level schema node, or empty
      */
     public Optional<LayoutDecisionNode> getLayoutDecisionTree() {
-        if (layout == null || !layout.isConverged()) return Optional.empty();
+        if (layout == null || pipeline.isBusy() || !layout.isConverged()) {
+            return Optional.empty();
+        }
         return Optional.of(layout.snapshotDecisionTree());
     }
 
@@ -399,14 +468,40 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
     }
 
     /**
-     * Replaces the default {@link ExhaustiveConstraintSolver} with a custom
-     * implementation.  Useful for testing or for plugging in a heuristic solver
-     * when the schema is too large for exhaustive enumeration.
+     * Overscan of the outermost flow of the control: cells kept bound, hidden,
+     * beyond each edge of its viewport, see {@link VirtualFlow#setOverscan(int)}.
+     * Nested flows are sized to their rows and keep none. 0 disables it.
+     */
+    public void setOverscan(int cells) {
+        overscan = Math.max(0, cells);
+        getOutermostVirtualFlow().ifPresent(vf -> vf.setOverscan(overscan));
+    }
+
+    /**
+     * Replaces the default {@link TreeConstraintSolver} with a custom
+     * implementation.  Useful for testing, e.g. cross-checking against
+     * {@link ExhaustiveConstraintSolver}.
      */
     public void setConstraintSolver(ConstraintSolver solver) {
         this.constraintSolver = Objects.requireNonNull(solver, "solver");
     }
 
+    /**
+     * @return hit, miss and eviction counters of the layout decision cache
+     */
+    public LayoutDecisionCache.Stats getDecisionCacheStats() {
+        return decisionCache.stats();
+    }
+
+    /**
+     * Replaces the default {@link BoundedLayoutDecisionCache}. The current
+     * cache's entries are discarded.
+     */
+    public void setDecisionCache(LayoutDecisionCache cache) {
+        decisionCache.clear();
+        this.decisionCache = Objects.requireNonNull(cache, "cache");
+    }
+
     /**
      * Builds a {@link RelationConstraint} tree from the already-measured layout
      * tree so the solver can determine render modes globally before layout().
@@ -478,90 +573,263 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
         if (width < 10.0) {
             return;
         }
+        if (pipeline.isAsync()) {
+            autoLayoutAsync(zeeData, width);
+            return;
+        }
         if (layout == null) {
             measure(zeeData);
         }
         if (layout == null) {
             return;
         }
+        if (installCachedDecision(zeeData, width)) {
+            return;
+        }
+        SchemaNodeLayout tree = layout;
+        double height = getHeight();
+        pipeline.submit(ticket -> solveAndLayout(ticket, tree, width, height)
+                                  ? new PreparedLayout(tree, zeeData, width, false, null)
+                                  : null,
+                        this::installLayout);
+    }
 
-        // Convergence short-circuit: if all primitives have stable widths AND
-        // the decision cache has a result for this width bucket, skip layout+compress
-        // and go straight to buildControl using the existing layout tree state.
-        // Cache entries are only written for RelationLayout roots (see below), so
-        // restrict the read to that case as well to avoid a spurious cache miss branch.
-        int dataCardinality = zeeData != null ? zeeData.size() : 0;
-        SchemaPath rootPath = layout.getSchemaPath();
-        if (allConverged() && rootPath != null && layout instanceof RelationLayout) {
-            LayoutDecisionKey key = LayoutDecisionKey.of(rootPath, width, dataCardinality,
-                                                         model.getStylesheet().getVersion());
-            if (decisionCache.containsKey(key)) {
-                buildAndInstallControl(zeeData, width);
+    /**
+     * Asynchronous mode: resolves the layout tree (and its styles) on the FX
+     * thread, then measures, solves, lays out and compresses on the layout
+     * executor. Only the control build and install return to the FX thread.
+     */
+    private void autoLayoutAsync(JsonNode zeeData, double width) {
+        pipeline.cancel();
+        SchemaNodeLayout tree = layout;
+        boolean measure = tree == null;
+        if (measure) {
+            tree = resolveLayoutTree(zeeData);
+            if (tree == null) {
                 return;
             }
+        } else if (installCachedDecision(zeeData, width)) {
+            return;
         }
+        SchemaNodeLayout target = tree;
+        double height = getHeight();
+        parkControl();
+        pipeline.submit(ticket -> {
+            Map<SchemaPath, DataSnapshot.Fingerprint> snapshot = null;
+            if (measure) {
+                target.measure(zeeData, model);
+                snapshot = DataSnapshot.buildSnapshot(target, zeeData);
+            }
+            return solveAndLayout(ticket, target, width, height)
+                   ? new PreparedLayout(target, zeeData, width, measure, snapshot)
+                   : null;
+        }, this::installLayout);
+    }
 
-        LayoutCell<?> old = control;
-        // Save cursor state before unbind (which nulls it)
-        var savedCursor = controller.getCursorState();
-        // Clear old keyboard bindings before rebuilding the control tree;
-        // new VirtualFlows will re-register via bindKeyboard in their constructors.
-        controller.unbind();
+    /**
+     * Convergence short-circuit: if all primitives have stable widths AND the
+     * decision cache has a result for this width bucket, skip layout+compress
+     * and go straight to buildControl using the existing layout tree state.
+     * Cache entries are only written for RelationLayout roots (see
+     * {@link #installLayout}), so restrict the read to that case as well to
+     * avoid a spurious cache miss branch. Keyed by the root's subtree stamp:
+     * render-only overrides keep the entry. Not while a (cancelled) prepare
+     * stage may still be mutating the tree.
+     *
+     * @return true if the cached decision was installed
+     */
+    private boolean installCachedDecision(JsonNode zeeData, double width) {
+        SchemaPath rootPath = layout.getSchemaPath();
+        if (!allConverged() || rootPath == null
+            || !(layout instanceof RelationLayout)) {
+            return false;
+        }
+        int dataCardinality = zeeData != null ? zeeData.size() : 0;
+        LayoutDecisionKey key = LayoutDecisionKey.of(rootPath, width, dataCardinality,
+                                                     model.getStylesheet().getSubtreeVersion(rootPath));
+        if (decisionCache.get(key) == null) {
+            return false;
+        }
+        pipeline.cancel();
+        buildAndInstallControl(zeeData, width);
+        return true;
+    }
 
+    /**
+     * The FX-independent phases: solve, layout, compress and height. Checks
+     * for cancellation between phases.
+     *
+     * @return false if the request was superseded
+     */
+    private boolean solveAndLayout(LayoutPipeline.Ticket ticket,
+                                   SchemaNodeLayout tree, double width,
+                                   double height) {
+        if (ticket.isCancelled()) {
+            return false;
+        }
+        double justified = Style.snap(width);
         // Solver pre-pass: build constraint tree from post-measure state and
         // inject render-mode assignments into the RelationLayout tree so that
         // layout() uses global decisions instead of the greedy per-node check.
-        if (layout instanceof RelationLayout rootRl) {
-            RelationConstraint constraintRoot = buildConstraintTree(rootRl, width, Double.MAX_VALUE);
-            if (constraintRoot != null) {
-                Map<SchemaPath, RelationRenderMode> solverMap = constraintSolver.solve(constraintRoot);
-                rootRl.setSolverResults(solverMap);
-                try {
-                    control = layout.autoLayout(width, getHeight(), controller, model);
-                } finally {
-                    rootRl.setSolverResults(null);
-                }
-            } else {
-                control = layout.autoLayout(width, getHeight(), controller, model);
+        RelationConstraint constraintRoot = tree instanceof RelationLayout rootRl
+                                            ? buildConstraintTree(rootRl, width,
+                                                                  Double.MAX_VALUE)
+                                            : null;
+        if (constraintRoot != null) {
+            RelationLayout rootRl = (RelationLayout) tree;
+            Map<SchemaPath, RelationRenderMode> solverMap = constraintSolver.solve(constraintRoot);
+            if (ticket.isCancelled()) {
+                return false;
+            }
+            rootRl.setSolverResults(solverMap);
+            try {
+                tree.layout(justified);
+            } finally {
+                rootRl.setSolverResults(null);
             }
         } else {
-            control = layout.autoLayout(width, getHeight(), controller, model);
+            tree.layout(justified);
         }
-        Region node = control.getNode();
-
-        setTopAnchor(node, 0d);
-        setRightAnchor(node, 0d);
-        setBottomAnchor(node, 0d);
-        setLeftAnchor(node, 0d);
+        if (ticket.isCancelled()) {
+            return false;
+        }
+        tree.compress(justified);
+        tree.calculateRootHeight();
+        tree.distributeExtraHeight(height);
+        return !ticket.isCancelled();
+    }
 
-        getChildren().setAll(node);
-        if (searchBar != null && searchBar.isVisible()) {
-            if (!getChildren().contains(searchBar)) {
-                getChildren().add(searchBar);
-            }
+    /**
+     * Install a prepared layout on the FX thread: build the control and cache
+     * the layout decision for this width bucket.
+     */
+    private void installLayout(PreparedLayout prepared) {
+        layout = prepared.tree();
+        if (prepared.measured()) {
+            measureResult = layout.getMeasureResult();
         }
-        if (old != null) {
-            old.dispose();
+        if (prepared.snapshot() != null) {
+            dataSnapshot = prepared.snapshot();
         }
-        node.setMinWidth(0);
-        node.setPrefWidth(width);
-        node.setMaxWidth(width);
-        control.updateItem(zeeData);
+        if (prepared.p90() != null) {
+            p90Snapshot = prepared.p90();
+        }
+        if (!prepared.relayout()) {
+            restoreControl();
+            if (control != null) {
+                control.updateItem(rootRows(prepared.data()));
+            }
+            return;
+        }
+        JsonNode zeeData = prepared.data();
+        double width = prepared.width();
+        buildAndInstallControl(zeeData, width);
 
         // Cache the layout decision for this width bucket.
         // Use snapshotLayoutResult() to read existing state without re-running layout().
+        SchemaPath rootPath = layout.getSchemaPath();
         if (rootPath != null) {
+            int dataCardinality = zeeData != null ? zeeData.size() : 0;
             LayoutDecisionKey key = LayoutDecisionKey.of(rootPath, width, dataCardinality,
-                                                         model.getStylesheet().getVersion());
+                                                         model.getStylesheet().getSubtreeVersion(rootPath));
             if (!decisionCache.containsKey(key) && layout instanceof RelationLayout rl) {
                 decisionCache.put(key, rl.snapshotLayoutResult());
             }
         }
+    }
 
-        // Recover cursor position after layout rebuild.
-        // Find the first VirtualFlow in the new tree for cursor recovery.
-        findVirtualFlow(node).ifPresent(vf -> controller.recoverCursor(savedCursor, vf));
-        if (postLayoutCallback != null) postLayoutCallback.run();
+    /**
+     * Apply a stylesheet change that only changes sort-fields. Row order does
+     * not enter measurement, so the layout stays valid: the relations adopt
+     * their new sort and the control is rebound, re-sorting rows through the
+     * relations' cached sort permutations. A sort change that can affect
+     * measurement drops the layout tree, so that the relayout remeasures it.
+     *
+     * @return true if the change was applied by rebinding
+     */
+    private boolean applySortChange() {
+        if (control == null || !(layout instanceof RelationLayout root)
+            || laidOutProperties.isEmpty() || pipeline.isBusy()) {
+            return false;
+        }
+        StylesheetSnapshot current = StylesheetSnapshot.of(model.getStylesheet());
+        if (current == null) {
+            return false;
+        }
+        boolean sortChanged = false;
+        for (var entry : laidOutProperties.entrySet()) {
+            PathProperties before = entry.getValue();
+            PathProperties after = current.properties(entry.getKey());
+            if (before.equals(after)) {
+                continue;
+            }
+            if (!before.withSortFields(List.of())
+                       .equals(after.withSortFields(List.of()))) {
+                return false;
+            }
+            sortChanged = true;
+        }
+        if (!sortChanged) {
+            return false;
+        }
+        // A prepare may have finished with its install still queued here;
+        // drop it so it can't overwrite the resorted tree
+        pipeline.cancel();
+        if (!root.resort(model)) {
+            layout = null;
+            return false;
+        }
+        laidOutProperties = laidOutProperties(layout);
+        // Every row may have moved, and nested rows re-sort only when their
+        // cells extract them again, so rebind rather than diff
+        control.rebind(rootRows(getData()));
+        return true;
+    }
+
+    /**
+     * The rows the root control shows: {@code datum} run through the root
+     * relation's row pipeline, as the rows of a nested relation are when its
+     * cell extracts them. A folded root lays out rows the raw data does not
+     * contain, so those are passed through as they are.
+     */
+    private JsonNode rootRows(JsonNode datum) {
+        return layout instanceof RelationLayout rl && rl.getNode() == getRoot()
+               ? rl.processRows(datum)
+               : datum;
+    }
+
+    /**
+     * @return the current stylesheet properties of every path of the tree,
+     *         including hidden children of its relations
+     */
+    private Map<SchemaPath, PathProperties> laidOutProperties(SchemaNodeLayout tree) {
+        StylesheetSnapshot snapshot = StylesheetSnapshot.of(model.getStylesheet());
+        if (snapshot == null) {
+            return Map.of();
+        }
+        Map<SchemaPath, PathProperties> properties = new HashMap<>();
+        collectProperties(tree, snapshot, properties);
+        return properties;
+    }
+
+    private static void collectProperties(SchemaNodeLayout snl,
+                                          StylesheetSnapshot snapshot,
+                                          Map<SchemaPath, PathProperties> out) {
+        SchemaPath path = snl.getSchemaPath();
+        if (path == null) {
+            return;
+        }
+        out.put(path, snapshot.properties(path));
+        if (snl instanceof RelationLayout rl) {
+            for (SchemaNode child : rl.getNode()
+                                      .getChildren()) {
+                SchemaPath childPath = path.child(child.getField());
+                out.put(childPath, snapshot.properties(childPath));
+            }
+            for (SchemaNodeLayout child : rl.getChildren()) {
+                collectProperties(child, snapshot, out);
+            }
+        }
     }
 
     /**
@@ -586,6 +854,7 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
         setBottomAnchor(node, 0d);
         setLeftAnchor(node, 0d);
 
+        parked = null;
         getChildren().setAll(node);
         if (searchBar != null && searchBar.isVisible()) {
             if (!getChildren().contains(searchBar)) {
@@ -598,12 +867,67 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
         node.setMinWidth(0);
         node.setPrefWidth(width);
         node.setMaxWidth(width);
-        control.updateItem(zeeData);
-
-        findVirtualFlow(node).ifPresent(vf -> controller.recoverCursor(savedCursor, vf));
+        control.updateItem(rootRows(zeeData));
+        laidOutProperties = laidOutProperties(layout);
+
+        findVirtualFlow(node).ifPresent(vf -> {
+            vf.setOverscan(overscan);
+            // The first layout pass and the first scroll reuse pooled cells
+            vf.prewarmCells(getHeight(), overscan);
+            controller.recoverCursor(savedCursor, vf);
+        });
         if (postLayoutCallback != null) postLayoutCallback.run();
     }
 
+    /**
+     * Block control reads before a prepare stage mutates the layout tree the
+     * control was built from: its cells read that tree on every layout pass
+     * and scroll. The control leaves the scene graph, so it receives neither,
+     * and an image of it stands in until the result is installed or the
+     * pipeline is idle again.
+     */
+    private void parkControl() {
+        if (control == null || parked != null) {
+            return;
+        }
+        Region node = control.getNode();
+        int index = getChildren().indexOf(node);
+        if (index < 0) {
+            return;
+        }
+        javafx.scene.Node standIn;
+        if (node.getScene() != null && node.getWidth() > 0 && node.getHeight() > 0) {
+            standIn = new ImageView(node.snapshot(null, null));
+        } else {
+            standIn = new Region();
+        }
+        setTopAnchor(standIn, 0d);
+        setLeftAnchor(standIn, 0d);
+        parked = standIn;
+        getChildren().set(index, standIn);
+    }
+
+    /**
+     * Idle listener of the pipeline: return the control to the scene graph if
+     * no prepare stage installed a new one.
+     */
+    private void unparkControl() {
+        if (!pipeline.isBusy()) {
+            restoreControl();
+        }
+    }
+
+    private void restoreControl() {
+        if (parked == null || control == null) {
+            return;
+        }
+        int index = getChildren().indexOf(parked);
+        parked = null;
+        if (index >= 0) {
+            getChildren().set(index, control.getNode());
+        }
+    }
+
     /**
      * Root-level hit dispatch using scene coordinates. Walks the current
      * control tree to find which container (VirtualFlow, OutlineCell, etc.)
@@ -638,7 +962,7 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
      * Returns {@code null} if no layout exists.
      */
     public SchemaPath hitSchemaPath(double x, double y) {
-        if (layout == null) return null;
+        if (layout == null || parked != null) return null;
         javafx.geometry.Point2D scenePoint = localToScene(x, y);
         // Walk the layout tree and find the deepest child whose bounds contain the point
         return hitSchemaPathRecursive(layout, scenePoint);
@@ -745,23 +1069,31 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
             return;
         }
         JsonNode datum = data.get();
+        if (pipeline.isAsync()) {
+            setContentAsync(datum);
+            return;
+        }
         try {
             // Phase 3b: selective re-measure with bucket comparison
             if (layout != null && datum != null) {
-                Set<SchemaPath> changedPaths = detectChangedPaths(datum);
+                var current = DataSnapshot.buildSnapshot(layout, datum);
+                if (!current.equals(dataSnapshot) && layout instanceof RelationLayout rl) {
+                    rl.rowsChanged();
+                }
+                Map<SchemaPath, BitSet> changedRows = DataSnapshot.diff(current, dataSnapshot,
+                                                                        datum);
+                Set<SchemaPath> changedPaths = changedRows.keySet();
 
                 if (changedPaths.isEmpty()) {
                     // Case (a): no data changes — just rebind and update snapshot
                     if (control != null) {
-                        control.updateItem(datum);
-                    }
-                    if (layout != null) {
-                        dataSnapshot = DataSnapshot.buildSnapshot(layout, datum);
+                        control.updateItem(rootRows(datum));
                     }
+                    dataSnapshot = current;
                     return;
                 }
 
-                clearFrozenResultForPaths(changedPaths);
+                clearFrozenResultForPaths(changedRows);
 
                 // Re-measure only affected primitives and compare p90 buckets
                 Set<SchemaPath> bucketChangedPaths = remeasureChanged(changedPaths, datum);
@@ -779,22 +1111,22 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
                     return;
                 } else if (bucketChangedPaths.isEmpty()) {
                     // P90 shifted but stayed in same bucket — just rebind, no re-layout
-                    control.updateItem(datum);
-                    dataSnapshot = DataSnapshot.buildSnapshot(layout, datum);
+                    control.updateItem(rootRows(datum));
+                    dataSnapshot = current;
                     return;
                 } else if (detectModeFlip(bucketChangedPaths)) {
                     // Phase 3c: bucket change flips a TABLE/OUTLINE decision
                     autoLayout(datum, getWidth());
                 } else {
                     // Width shifted but mode unchanged — rebind only
-                    control.updateItem(datum);
+                    control.updateItem(rootRows(datum));
                 }
                 updateSnapshots(datum);
                 return;
             } else if (control == null) {
                 Platform.runLater(() -> autoLayout(datum, getWidth()));
             } else {
-                control.updateItem(datum);
+                control.updateItem(rootRows(datum));
             }
             layout();
             // Update snapshot after successful pipeline
@@ -810,14 +1142,60 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
     }
 
     /**
-     * Compares {@code data} against the last captured {@link #dataSnapshot} and
-     * returns the set of {@link SchemaPath}s whose primitive values have changed.
-     *
-     * <p>On cold start (empty snapshot) or row-count change, all known paths are
-     * returned. On an identical repeat, an empty set is returned.
+     * Asynchronous counterpart of {@link #setContent()}: the snapshot diff,
+     * selective re-measure and mode-flip check run on the layout executor, and
+     * the resulting rebind or relayout is installed on the FX thread.
      */
-    private Set<SchemaPath> detectChangedPaths(JsonNode data) {
-        return DataSnapshot.detectChangedPaths(layout, data, dataSnapshot);
+    private void setContentAsync(JsonNode datum) {
+        SchemaNodeLayout tree = layout;
+        if (tree == null || datum == null) {
+            if (control == null) {
+                autoLayout(datum, getWidth());
+            } else {
+                control.updateItem(rootRows(datum));
+            }
+            return;
+        }
+        Map<SchemaPath, DataSnapshot.Fingerprint> prior = dataSnapshot;
+        Map<SchemaPath, Double> priorP90 = p90Snapshot;
+        boolean cold = control == null;
+        boolean hasDecisions = !decisionCache.isEmpty();
+        double width = getWidth();
+        double height = getHeight();
+        parkControl();
+        pipeline.submit(ticket -> {
+            var current = DataSnapshot.buildSnapshot(tree, datum);
+            if (!current.equals(prior) && tree instanceof RelationLayout rl) {
+                rl.rowsChanged();
+            }
+            Map<SchemaPath, BitSet> changedRows = DataSnapshot.diff(current, prior, datum);
+            if (changedRows.isEmpty()) {
+                return new PreparedLayout(tree, datum, width, false, current, null,
+                                          false);
+            }
+            Map<SchemaPath, Double> collected = new HashMap<>(priorP90);
+            clearFrozenResultInTree(tree, changedRows.keySet(), changedRows, collected,
+                                    datum, model);
+            Map<SchemaPath, Double> p90 = Map.copyOf(collected);
+            Set<SchemaPath> bucketChangedPaths = remeasureChangedImpl(changedRows.keySet(),
+                                                                      tree, datum, model,
+                                                                      p90);
+            // Same decisions as setContent(): a cold start lays out once sized,
+            // otherwise only a bucket change that flips a mode relayouts.
+            boolean relayout = cold ? width >= 10.0
+                                    : !bucketChangedPaths.isEmpty()
+                                      && (!hasDecisions
+                                          || detectModeFlipInTree(bucketChangedPaths,
+                                                                  tree, width));
+            if (!relayout) {
+                return new PreparedLayout(tree, datum, width, false,
+                                          cold ? null : current, p90, false);
+            }
+            return solveAndLayout(ticket, tree, width, height)
+                   ? new PreparedLayout(tree, datum, width, false, current, p90,
+                                        true)
+                   : null;
+        }, this::installLayout);
     }
 
     /**
@@ -831,11 +1209,15 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
      * snapshot p90, clearing is skipped entirely — the frozen result remains valid.
      *
      * <p>PrimitiveLayouts with no frozen result are silently skipped.
+     *
+     * @param changedRows changed paths mapped to their changed rows, as
+     *                    reported by {@link DataSnapshot#diff}
      */
-    private void clearFrozenResultForPaths(Set<SchemaPath> paths) {
-        if (paths.isEmpty() || layout == null) return;
+    private void clearFrozenResultForPaths(Map<SchemaPath, BitSet> changedRows) {
+        if (changedRows.isEmpty() || layout == null) return;
         Map<SchemaPath, Double> newP90 = new HashMap<>(p90Snapshot);
-        clearFrozenResultInTree(layout, paths, newP90, data.get(), model);
+        clearFrozenResultInTree(layout, changedRows.keySet(), changedRows, newP90,
+                                data.get(), model);
         p90Snapshot = Map.copyOf(newP90);
     }
 
@@ -858,9 +1240,14 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
      * produces a max value width {@code <= p90Snapshot[path]}, skip clearing so
      * the frozen result stays valid.  The fast-path only fires when {@code datum}
      * is non-null and a snapshot value exists for the path.
+     *
+     * <p>When {@code changedRows} has an entry for a path whose rows are the
+     * top-level data rows, only those rows are scanned: rows that did not
+     * change already fit the frozen result.
      */
     private static void clearFrozenResultInTree(SchemaNodeLayout snl,
                                                 Set<SchemaPath> paths,
+                                                Map<SchemaPath, BitSet> changedRows,
                                                 Map<SchemaPath, Double> p90Out,
                                                 JsonNode datum,
                                                 Style model) {
@@ -873,7 +1260,8 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
                         && datum != null) {
                     Double snapshotP90 = p90Out.get(path);
                     if (snapshotP90 != null) {
-                        double newMaxWidth = computeMaxWidthForPath(pl, datum, model);
+                        BitSet rows = changedRows == null ? null : changedRows.get(path);
+                        double newMaxWidth = computeMaxWidthForPath(pl, datum, rows);
                         if (newMaxWidth <= snapshotP90) {
                             // New data fits within previous p90 — frozen result stays valid
                             return;
@@ -887,28 +1275,35 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
                 pl.clearFrozenResult();
             }
         } else if (snl instanceof RelationLayout rl) {
+            // Rows below a nested relation are flattened, so they do not
+            // line up with the top-level data rows scanned by the fast-path
             for (SchemaNodeLayout child : rl.getChildren()) {
-                clearFrozenResultInTree(child, paths, p90Out, datum, model);
+                clearFrozenResultInTree(child, paths,
+                                        child instanceof PrimitiveLayout ? changedRows : null,
+                                        p90Out, datum, model);
             }
         }
     }
 
     /**
      * Compute the maximum rendered width for {@code pl}'s field values in
-     * {@code datum} by extracting the field from each data row.  Returns 0.0
-     * when the data is null or contains no rows with this field.
+     * {@code datum} by extracting the field from each data row, or from only
+     * the rows in {@code only} when it is non-null.  Returns 0.0 when the data
+     * is null or contains no rows with this field.
      *
      * <p>This is a lightweight scan used only for the convergence fast-path —
      * it does NOT call {@code measure()} and has no side-effects on the layout.
      */
     private static double computeMaxWidthForPath(PrimitiveLayout pl,
                                                   JsonNode datum,
-                                                  Style model) {
+                                                  BitSet only) {
         if (datum == null) return 0.0;
         double max = 0.0;
         List<JsonNode> rows = SchemaNode.asList(datum);
-        for (JsonNode row : rows) {
-            JsonNode value = pl.extractFrom(row);
+        for (int i = only == null ? 0 : only.nextSetBit(0);
+             i >= 0 && i < rows.size();
+             i = only == null ? i + 1 : only.nextSetBit(i + 1)) {
+            JsonNode value = pl.extractFrom(rows.get(i));
             if (value == null || value.isNull() || value.isMissingNode()) continue;
             if (value.isArray()) {
                 for (JsonNode elem : value) {
@@ -1019,11 +1414,8 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
      */
     private static boolean isAncestorOfAny(SchemaPath candidate,
                                             Set<SchemaPath> paths) {
-        List<String> candSegs = candidate.segments();
         for (SchemaPath p : paths) {
-            List<String> segs = p.segments();
-            if (segs.size() > candSegs.size()
-                    && segs.subList(0, candSegs.size()).equals(candSegs)) {
+            if (p.isDescendantOf(candidate)) {
                 return true;
             }
         }
@@ -1184,7 +1576,7 @@ public class AutoLayout extends AnchorPane implements LayoutCell<AutoLayout> {
                                                   Map<SchemaPath, Double> p90Snapshot) {
         if (paths.isEmpty() || rootLayout == null) return;
         Map<SchemaPath, Double> p90Out = new HashMap<>(p90Snapshot);
-        clearFrozenResultInTree(rootLayout, paths, p90Out, datum, model);
+        clearFrozenResultInTree(rootLayout, paths, null, p90Out, datum, model);
         p90Snapshot.putAll(p90Out);
     }
 }
@@ -0,0 +1,115 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU {@link LayoutDecisionCache} bounded by entry count and by total weight,
+ * where an entry's weight is the number of {@link LayoutResult} nodes it
+ * retains. Storing a decision for a new stylesheet version evicts every entry
+ * recorded under an older one, so resize-heavy sessions stay flat in memory.
+ */
+public class BoundedLayoutDecisionCache implements LayoutDecisionCache {
+
+    public static final int  DEFAULT_MAX_ENTRIES = 64;
+    public static final long DEFAULT_MAX_WEIGHT  = 16_384;
+
+    static long weigh(LayoutResult result) {
+        long weight = 1;
+        for (LayoutResult child : result.childResults()) {
+            weight += weigh(child);
+        }
+        return weight;
+    }
+
+    private final LinkedHashMap<LayoutDecisionKey, LayoutResult> entries = new LinkedHashMap<>(16,
+                                                                                                0.75f,
+                                                                                                true);
+    private final int                                            maxEntries;
+    private final long                                           maxWeight;
+    private long                                                 evictions;
+    private long                                                 hits;
+    private long                                                 misses;
+    private long                                                 weight;
+
+    public BoundedLayoutDecisionCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
+
+    public BoundedLayoutDecisionCache(int maxEntries, long maxWeight) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException(String.format("Cache bounds must be positive: %s entries, %s weight",
+                                                             maxEntries,
+                                                             maxWeight));
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    @Override
+    public boolean containsKey(LayoutDecisionKey key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public LayoutResult get(LayoutDecisionKey key) {
+        LayoutResult result = entries.get(key);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    @Override
+    public void put(LayoutDecisionKey key, LayoutResult result) {
+        evictStale(key.stylesheetVersion());
+        LayoutResult previous = entries.put(key, result);
+        if (previous != null) {
+            weight -= weigh(previous);
+        }
+        weight += weigh(result);
+        Iterator<Map.Entry<LayoutDecisionKey, LayoutResult>> eldest = entries.entrySet()
+                                                                             .iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight)
+               && entries.size() > 1) {
+            Map.Entry<LayoutDecisionKey, LayoutResult> entry = eldest.next();
+            weight -= weigh(entry.getValue());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size(), weight);
+    }
+
+    private void evictStale(long version) {
+        Iterator<Map.Entry<LayoutDecisionKey, LayoutResult>> i = entries.entrySet()
+                                                                        .iterator();
+        while (i.hasNext()) {
+            Map.Entry<LayoutDecisionKey, LayoutResult> entry = i.next();
+            if (entry.getKey()
+                     .stylesheetVersion() != version) {
+                weight -= weigh(entry.getValue());
+                i.remove();
+                evictions++;
+            }
+        }
+    }
+}
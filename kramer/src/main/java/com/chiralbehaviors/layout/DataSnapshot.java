@@ -2,6 +2,7 @@
 package com.chiralbehaviors.layout;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -13,20 +14,31 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 
 /**
- * Captures a snapshot of primitive field values from a JSON data tree against
- * the schema layout tree, and computes which paths changed between snapshots.
+ * Captures a fingerprint of primitive field values from a JSON data tree
+ * against the schema layout tree, and computes which paths changed between
+ * snapshots.
  *
- * <p>Snapshot entries map each {@link SchemaPath} (of a primitive leaf) to the
- * ordered list of text values seen at that path across all data rows. A path is
- * considered changed when:
+ * <p>Snapshot entries map each {@link SchemaPath} (of a primitive leaf) to a
+ * {@link Fingerprint}: a 64-bit hash of the text of each value seen at that
+ * path across all data rows, in order, plus a rolling hash over those row
+ * hashes. No value text is retained, so a snapshot costs one {@code long} per
+ * value regardless of value length. A path is considered changed when:
  * <ul>
  *   <li>it is absent from the prior snapshot (cold start), or</li>
- *   <li>its value list differs (different length or any element differs).</li>
+ *   <li>its path hash differs (different length or any row hash differs).</li>
  * </ul>
+ * Row hashes are only compared for paths whose path hash differs, which is how
+ * {@link #detectChangedRows} reports the changed rows.
  *
- * <p>Row-count changes (i.e. the top-level array size changed) are a special
- * case: the method returns ALL known paths so that every {@link PrimitiveLayout}
- * is invalidated for a full rebuild.
+ * <p><b>Keyed rows</b>: when the root relation has a key field (see
+ * {@link RelationLayout#keyField}), the fingerprints of its direct primitive
+ * children also record the hash of each row's key. Rows of those paths are
+ * then matched by key rather than by position, so inserting, removing or
+ * reordering rows only reports the inserted or edited rows.
+ *
+ * <p>Row-count changes (i.e. the top-level array size changed) of unkeyed
+ * data are a special case: the method returns ALL known paths so that every
+ * {@link PrimitiveLayout} is invalidated for a full rebuild.
  *
  * <p><b>Traversal semantics</b>: the root layout's rows ARE the data rows —
  * the root relation's field name is not a key in the data.  Nested relation
@@ -34,8 +46,93 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
  */
 final class DataSnapshot {
 
+    /**
+     * The hashes of the values at one primitive path, in row order. Two
+     * fingerprints are equal when their path hashes are equal; a 64-bit
+     * collision would mask a change, which is accepted.
+     */
+    static final class Fingerprint {
+        private final long   hash;
+        /** Key hash of each row, or null when the rows are not keyed. */
+        private final long[] keys;
+        private final long[] rows;
+
+        private Fingerprint(long[] rows, long[] keys) {
+            this.rows = rows;
+            this.keys = keys;
+            long h = rows.length;
+            for (long row : rows) {
+                h = h * MULTIPLIER + row;
+            }
+            this.hash = mix(h);
+        }
+
+        /**
+         * @return the indices of rows whose hashes differ from {@code prior},
+         *         including rows present in only one of the two
+         */
+        BitSet changedRows(Fingerprint prior) {
+            BitSet changed = new BitSet();
+            if (prior.hash == hash) {
+                return changed;
+            }
+            int common = Math.min(rows.length, prior.rows.length);
+            for (int i = 0; i < common; i++) {
+                if (rows[i] != prior.rows[i]) {
+                    changed.set(i);
+                }
+            }
+            changed.set(common, Math.max(rows.length, prior.rows.length));
+            return changed;
+        }
+
+        /**
+         * @return the indices of rows whose key is absent from {@code prior},
+         *         or whose hash differs from the prior row with the same key
+         */
+        BitSet changedRows(Fingerprint prior, Map<Long, Integer> priorKeys) {
+            BitSet changed = new BitSet();
+            if (prior.hash == hash) {
+                return changed;
+            }
+            for (int i = 0; i < rows.length; i++) {
+                Integer j = priorKeys.get(keys[i]);
+                if (j == null || prior.rows[j] != rows[i]) {
+                    changed.set(i);
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Fingerprint other && hash == other.hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+
+        long hash() {
+            return hash;
+        }
+
+        long rowHash(int row) {
+            return rows[row];
+        }
+
+        int size() {
+            return rows.length;
+        }
+    }
+
     /** Sentinel empty snapshot used on cold start. */
-    static final Map<SchemaPath, List<String>> EMPTY = Map.of();
+    static final Map<SchemaPath, Fingerprint> EMPTY = Map.of();
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME  = 0x100000001b3L;
+    private static final long MULTIPLIER = 0x9e3779b97f4a7c15L;
 
     private DataSnapshot() {}
 
@@ -53,45 +150,75 @@ final class DataSnapshot {
      */
     static Set<SchemaPath> detectChangedPaths(SchemaNodeLayout rootLayout,
                                               JsonNode data,
-                                              Map<SchemaPath, List<String>> prior) {
+                                              Map<SchemaPath, Fingerprint> prior) {
         if (prior.isEmpty()) {
             // Cold start: everything is "changed"
             Set<SchemaPath> allPaths = new HashSet<>();
             collectPaths(rootLayout, allPaths);
             return allPaths;
         }
+        return new HashSet<>(detectChangedRows(rootLayout, data,
+                                               prior).keySet());
+    }
 
-        // Row-count change: full rebuild
-        int newRowCount = (data != null && data.isArray()) ? data.size() : 1;
-        int priorRowCount = priorRowCount(prior);
-        if (priorRowCount >= 0 && newRowCount != priorRowCount) {
-            Set<SchemaPath> allPaths = new HashSet<>();
-            collectPaths(rootLayout, allPaths);
-            return allPaths;
-        }
+    /**
+     * Like {@link #detectChangedPaths}, but also reports which rows of each
+     * changed path differ. Rows are indexed as in {@link #buildSnapshot}: for
+     * paths below nested relations, child rows are flattened across parents.
+     *
+     * <p>On cold start, or when the top-level row count of unkeyed data
+     * changed, every row of every path is reported. For keyed paths the row
+     * indices are those of the new data; a path whose only change is removed
+     * or reordered rows is reported with no rows set.
+     *
+     * @return changed paths mapped to their changed row indices; never null
+     */
+    static Map<SchemaPath, BitSet> detectChangedRows(SchemaNodeLayout rootLayout,
+                                                     JsonNode data,
+                                                     Map<SchemaPath, Fingerprint> prior) {
+        return diff(buildSnapshot(rootLayout, data), prior, data);
+    }
 
-        // Element-level comparison
-        Map<SchemaPath, List<String>> current = buildSnapshot(rootLayout, data);
-        Set<SchemaPath> changed = new HashSet<>();
-        for (Map.Entry<SchemaPath, List<String>> entry : current.entrySet()) {
-            SchemaPath path = entry.getKey();
-            List<String> newValues = entry.getValue();
-            List<String> oldValues = prior.get(path);
-            if (oldValues == null || !oldValues.equals(newValues)) {
-                changed.add(path);
+    /**
+     * Compare a snapshot already built from {@code data} against
+     * {@code prior}, as {@link #detectChangedRows} does. Lets callers keep
+     * {@code current} as the next prior snapshot without rebuilding it.
+     */
+    static Map<SchemaPath, BitSet> diff(Map<SchemaPath, Fingerprint> current,
+                                        Map<SchemaPath, Fingerprint> prior,
+                                        JsonNode data) {
+        Map<Long, Integer> priorKeys = keyIndex(prior);
+        boolean keyed = priorKeys != null && keys(current) != null;
+        boolean all = prior.isEmpty() || (!keyed && rowCountChanged(data, prior));
+        Map<SchemaPath, BitSet> changed = new HashMap<>();
+        for (Map.Entry<SchemaPath, Fingerprint> entry : current.entrySet()) {
+            Fingerprint now = entry.getValue();
+            Fingerprint before = prior.get(entry.getKey());
+            if (all || before == null) {
+                BitSet rows = new BitSet();
+                rows.set(0, Math.max(now.size(),
+                                     before == null ? 0 : before.size()));
+                changed.put(entry.getKey(), rows);
+            } else if (!now.equals(before)) {
+                boolean byKey = keyed && now.keys != null && before.keys != null;
+                changed.put(entry.getKey(), byKey ? now.changedRows(before, priorKeys)
+                                                  : now.changedRows(before));
             }
         }
         // Also mark paths that were in prior but are no longer present
-        for (SchemaPath path : prior.keySet()) {
-            if (!current.containsKey(path)) {
-                changed.add(path);
+        for (Map.Entry<SchemaPath, Fingerprint> entry : prior.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                BitSet rows = new BitSet();
+                rows.set(0, entry.getValue()
+                                 .size());
+                changed.put(entry.getKey(), rows);
             }
         }
         return changed;
     }
 
     /**
-     * Build a fresh snapshot by walking the layout tree and extracting all
+     * Build a fresh snapshot by walking the layout tree and fingerprinting all
      * primitive field values from {@code data}.
      *
      * <p>The root layout's rows are the top-level data rows (the root relation's
@@ -100,11 +227,11 @@ final class DataSnapshot {
      *
      * @param rootLayout the measured layout tree root
      * @param data       the JSON data (array of rows or single object)
-     * @return map of SchemaPath to ordered list of text values; never null
+     * @return map of SchemaPath to the fingerprint of its values; never null
      */
-    static Map<SchemaPath, List<String>> buildSnapshot(SchemaNodeLayout rootLayout,
-                                                       JsonNode data) {
-        Map<SchemaPath, List<String>> snapshot = new HashMap<>();
+    static Map<SchemaPath, Fingerprint> buildSnapshot(SchemaNodeLayout rootLayout,
+                                                      JsonNode data) {
+        Map<SchemaPath, Fingerprint> snapshot = new HashMap<>();
         if (rootLayout == null || data == null) {
             return snapshot;
         }
@@ -115,10 +242,34 @@ final class DataSnapshot {
         } else if (rootLayout instanceof RelationLayout rl) {
             // Root relation: rows ARE the data rows; recurse children with same rows
             collectRelationChildren(rl, rows, snapshot);
+            long[] keys = keyHashes(rows,
+                                    RelationLayout.keyField(rl.getNode()));
+            if (keys != null) {
+                for (SchemaNodeLayout child : rl.getChildren()) {
+                    if (child instanceof PrimitiveLayout pl) {
+                        snapshot.computeIfPresent(pl.getSchemaPath(),
+                                                  (p, f) -> new Fingerprint(f.rows,
+                                                                            keys));
+                    }
+                }
+            }
         }
         return snapshot;
     }
 
+    /**
+     * @return the 64-bit row hash of {@code text}: FNV-1a over its chars,
+     *         finished with a 64-bit mix so that nearby strings spread
+     */
+    static long hash(String text) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return mix(h);
+    }
+
     // -----------------------------------------------------------------------
     // Private helpers
     // -----------------------------------------------------------------------
@@ -148,7 +299,7 @@ final class DataSnapshot {
      */
     private static void collectValues(SchemaNodeLayout snl,
                                       List<JsonNode> parentRows,
-                                      Map<SchemaPath, List<String>> snapshot) {
+                                      Map<SchemaPath, Fingerprint> snapshot) {
         if (snl instanceof PrimitiveLayout pl) {
             collectPrimitiveValues(pl, parentRows, snapshot);
         } else if (snl instanceof RelationLayout rl) {
@@ -163,19 +314,16 @@ final class DataSnapshot {
      */
     private static void collectPrimitiveValues(PrimitiveLayout pl,
                                                List<JsonNode> parentRows,
-                                               Map<SchemaPath, List<String>> snapshot) {
+                                               Map<SchemaPath, Fingerprint> snapshot) {
         SchemaPath path = pl.getSchemaPath();
         if (path == null) return;
-        List<String> values = new ArrayList<>(parentRows.size());
+        long[] values = new long[parentRows.size()];
+        int i = 0;
         for (JsonNode row : parentRows) {
-            if (row == null) {
-                values.add("");
-            } else {
-                JsonNode extracted = pl.extractFrom(row);
-                values.add(SchemaNode.asText(extracted));
-            }
+            values[i++] = hash(row == null ? ""
+                                           : SchemaNode.asText(pl.extractFrom(row)));
         }
-        snapshot.put(path, values);
+        snapshot.put(path, new Fingerprint(values, null));
     }
 
     /**
@@ -184,7 +332,7 @@ final class DataSnapshot {
      */
     private static void collectRelationChildren(RelationLayout rl,
                                                 List<JsonNode> rows,
-                                                Map<SchemaPath, List<String>> snapshot) {
+                                                Map<SchemaPath, Fingerprint> snapshot) {
         for (SchemaNodeLayout child : rl.getChildren()) {
             collectValues(child, rows, snapshot);
         }
@@ -211,17 +359,81 @@ final class DataSnapshot {
         return result;
     }
 
+    /**
+     * @return the key hash of each row, or null if there is no key field or
+     *         a row has no key
+     */
+    private static long[] keyHashes(List<JsonNode> rows, String keyField) {
+        if (keyField == null) {
+            return null;
+        }
+        long[] keys = new long[rows.size()];
+        int i = 0;
+        for (JsonNode row : rows) {
+            String key = RowDiff.key(row, keyField);
+            if (key == null) {
+                return null;
+            }
+            keys[i++] = hash(key);
+        }
+        return keys;
+    }
+
+    /**
+     * @return the row index of each key hash in {@code snapshot}, or null if
+     *         the snapshot is not keyed or two rows share a key hash
+     */
+    private static Map<Long, Integer> keyIndex(Map<SchemaPath, Fingerprint> snapshot) {
+        long[] keys = keys(snapshot);
+        if (keys == null) {
+            return null;
+        }
+        Map<Long, Integer> index = new HashMap<>(keys.length * 4 / 3 + 1);
+        for (int i = 0; i < keys.length; i++) {
+            if (index.put(keys[i], i) != null) {
+                return null;
+            }
+        }
+        return index;
+    }
+
+    private static long[] keys(Map<SchemaPath, Fingerprint> snapshot) {
+        for (Fingerprint fingerprint : snapshot.values()) {
+            if (fingerprint.keys != null) {
+                return fingerprint.keys;
+            }
+        }
+        return null;
+    }
+
+    /** Murmur3 fmix64 finalizer. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
     /**
      * Infer the prior row count from the snapshot. Returns the length of any
-     * value list (all should be equal for top-level rows), or -1 if empty.
+     * fingerprint (all should be equal for top-level rows), or -1 if empty.
      */
-    private static int priorRowCount(Map<SchemaPath, List<String>> prior) {
-        for (List<String> values : prior.values()) {
+    private static int priorRowCount(Map<SchemaPath, Fingerprint> prior) {
+        for (Fingerprint values : prior.values()) {
             return values.size();
         }
         return -1;
     }
 
+    private static boolean rowCountChanged(JsonNode data,
+                                           Map<SchemaPath, Fingerprint> prior) {
+        int newRowCount = (data != null && data.isArray()) ? data.size() : 1;
+        int priorRowCount = priorRowCount(prior);
+        return priorRowCount >= 0 && newRowCount != priorRowCount;
+    }
+
     /** Returns the number of top-level rows in data. */
     static int rowCount(JsonNode data) {
         if (data == null) return 0;
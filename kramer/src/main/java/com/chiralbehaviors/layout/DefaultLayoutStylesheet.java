@@ -13,12 +13,24 @@ import com.chiralbehaviors.layout.style.Style;
 /**
  * Default implementation that delegates to the existing {@link Style} for
  * CSS-derived styles and supports per-path property overrides.
+ *
+ * <p>Besides the global version, each overridden path records the version of
+ * its last measure-affecting change, and every ancestor records it as a
+ * subtree stamp; see {@link #getVersion(SchemaPath)}.
  */
 public class DefaultLayoutStylesheet implements LayoutStylesheet {
 
+    /** Version stamps of one path. */
+    private static final class Stamps {
+        long own;
+        long subtree;
+    }
+
     private final Style style;
-    private final Map<SchemaPath, Map<String, Object>> overrides = new HashMap<>();
+    private final SchemaPathMap<Map<String, Object>> overrides = new SchemaPathMap<>();
+    private final SchemaPathMap<Stamps> stamps = new SchemaPathMap<>();
     private long version = 0;
+    private volatile StylesheetSnapshot snapshot;
 
     public DefaultLayoutStylesheet(Style style) {
         this.style = style;
@@ -33,13 +45,63 @@ public class DefaultLayoutStylesheet implements LayoutStylesheet {
         if (!(value instanceof Number || value instanceof Boolean || value instanceof String)) {
             throw new IllegalArgumentException("Override value must be Number, Boolean, or String");
         }
-        overrides.computeIfAbsent(path, k -> new HashMap<>()).put(property, value);
+        Object previous = overrides.computeIfAbsent(path, k -> new HashMap<>())
+                                   .put(property, value);
         version++;
+        if (LayoutPropertyKeys.affectsMeasure(property)
+            && !value.equals(previous)) {
+            stamp(path, version);
+        }
+    }
+
+    /**
+     * Remove one override of {@code path}; only that path and its ancestors
+     * are restamped, and only if the property affects measurement.
+     */
+    public void removeOverride(SchemaPath path, String property) {
+        var pathOverrides = overrides.get(path);
+        if (pathOverrides == null || !pathOverrides.containsKey(property)) {
+            return;
+        }
+        pathOverrides.remove(property);
+        if (pathOverrides.isEmpty()) {
+            overrides.remove(path);
+        }
+        version++;
+        if (LayoutPropertyKeys.affectsMeasure(property)) {
+            stamp(path, version);
+        }
     }
 
     public void clearOverrides() {
+        long next = version + 1;
+        overrides.forEach((path, properties) -> {
+            if (properties.keySet()
+                          .stream()
+                          .anyMatch(LayoutPropertyKeys::affectsMeasure)) {
+                stamp(path, next);
+            }
+        });
         overrides.clear();
-        version++;
+        version = next;
+    }
+
+    @Override
+    public long getVersion(SchemaPath path) {
+        long latest = 0;
+        for (SchemaPath p = path; p != null; p = p.parent()) {
+            Stamps s = stamps.get(p);
+            if (s != null && s.own > latest) {
+                latest = s.own;
+            }
+        }
+        return latest;
+    }
+
+    @Override
+    public long getSubtreeVersion(SchemaPath path) {
+        Stamps s = stamps.get(path);
+        return s == null ? 0 : s.subtree;
     }
 
     @Override
@@ -81,6 +143,16 @@ public class DefaultLayoutStylesheet implements LayoutStylesheet {
         return defaultValue;
     }
 
+    @Override
+    public StylesheetSnapshot snapshot() {
+        StylesheetSnapshot current = snapshot;
+        if (current == null || current.getVersion() != version) {
+            current = new StylesheetSnapshot(this);
+            snapshot = current;
+        }
+        return current;
+    }
+
     @Override
     public PrimitiveStyle primitiveStyle(SchemaPath path) {
         return style.style(new Primitive(path.leaf()));
@@ -90,4 +162,11 @@ public class DefaultLayoutStylesheet implements LayoutStylesheet {
     public RelationStyle relationStyle(SchemaPath path) {
         return style.style(new Relation(path.leaf()));
     }
+
+    private void stamp(SchemaPath path, long at) {
+        stamps.computeIfAbsent(path, k -> new Stamps()).own = at;
+        for (SchemaPath p = path; p != null; p = p.parent()) {
+            stamps.computeIfAbsent(p, k -> new Stamps()).subtree = at;
+        }
+    }
 }
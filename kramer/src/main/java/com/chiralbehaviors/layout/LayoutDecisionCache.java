@@ -0,0 +1,51 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+/**
+ * Cache of root layout decisions keyed by {@link LayoutDecisionKey}. Used by
+ * {@link AutoLayout} to short-circuit layout and compress when a converged
+ * tree is re-laid out at a previously seen width bucket.
+ *
+ * @see BoundedLayoutDecisionCache
+ */
+public interface LayoutDecisionCache {
+
+    /**
+     * Hit, miss and eviction counters plus current occupancy.
+     *
+     * @param hits      lookups that found an entry
+     * @param misses    lookups that found nothing
+     * @param evictions entries dropped for capacity or staleness
+     * @param size      current number of entries
+     * @param weight    current total weight (layout result nodes retained)
+     */
+    record Stats(long hits, long misses, long evictions, int size, long weight) {
+    }
+
+    void clear();
+
+    /**
+     * @return true if a decision is cached for the key; does not count as a
+     *         lookup and does not refresh recency
+     */
+    boolean containsKey(LayoutDecisionKey key);
+
+    /**
+     * @return the cached decision, or null; counts a hit or a miss
+     */
+    LayoutResult get(LayoutDecisionKey key);
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Store a decision. Entries recorded under a different stylesheet version
+     * than {@code key} can never be hit again and may be evicted.
+     */
+    void put(LayoutDecisionKey key, LayoutResult result);
+
+    int size();
+
+    Stats stats();
+}
@@ -0,0 +1,155 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs layout requests in two stages: a prepare stage, which may run on a
+ * background executor, and an install stage, which always runs on the
+ * installer executor (the FX thread in {@link AutoLayout}).
+ *
+ * <p>Every request supersedes the ones before it. A superseded request stops
+ * at the next {@link Ticket#isCancelled()} checkpoint in its prepare stage and
+ * is never installed. Prepare stages run one at a time, so a superseded run
+ * can't interleave with its successor on shared layout state. A cancelled
+ * prepare still runs to its next checkpoint, so the pipeline is
+ * {@link #isBusy() busy} until every submitted prepare stage has returned;
+ * the idle listener runs on the installer once it is not.
+ *
+ * <p>With no worker executor, requests prepare and install on the calling
+ * thread, which is the synchronous behavior.
+ */
+final class LayoutPipeline {
+
+    /** One request; checked by the prepare stage between phases. */
+    final class Ticket {
+        private final long generation;
+
+        private Ticket(long generation) {
+            this.generation = generation;
+        }
+
+        boolean isCancelled() {
+            return generation != current.get();
+        }
+    }
+
+    private static final Logger log = Logger.getLogger(LayoutPipeline.class.getCanonicalName());
+
+    private final AtomicLong    current = new AtomicLong();
+    private volatile Runnable   idle;
+    private final Executor      installer;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object        prepareLock = new Object();
+    private volatile Executor   worker;
+
+    LayoutPipeline(Executor installer) {
+        this.installer = installer;
+    }
+
+    /** Supersedes every outstanding request. */
+    void cancel() {
+        current.incrementAndGet();
+    }
+
+    boolean isAsync() {
+        return worker != null;
+    }
+
+    /**
+     * @return true while a prepare stage submitted to the worker has not
+     *         returned, cancelled or not
+     */
+    boolean isBusy() {
+        return pending.get() > 0;
+    }
+
+    /**
+     * @param idle
+     *            run on the installer after the last outstanding prepare stage
+     *            returns, following its install; may find the pipeline busy
+     *            again
+     */
+    void setIdleListener(Runnable idle) {
+        this.idle = idle;
+    }
+
+    /**
+     * @param worker
+     *            executor for prepare stages; null to run synchronously
+     */
+    void setWorker(Executor worker) {
+        cancel();
+        this.worker = worker;
+    }
+
+    /**
+     * Submit a request, superseding any outstanding one.
+     *
+     * @param prepare
+     *            computes the result; returns null to install nothing
+     * @param install
+     *            applies the result; skipped if superseded meanwhile
+     */
+    <T> void submit(Function<Ticket, T> prepare, Consumer<T> install) {
+        Ticket ticket = new Ticket(current.incrementAndGet());
+        Executor executor = worker;
+        if (executor == null) {
+            T result = prepare.apply(ticket);
+            if (result != null && !ticket.isCancelled()) {
+                install.accept(result);
+            }
+            return;
+        }
+        pending.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    prepare(ticket, prepare, install);
+                } finally {
+                    finished();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            finished();
+            throw e;
+        }
+    }
+
+    private void finished() {
+        Runnable listener = idle;
+        if (pending.decrementAndGet() == 0 && listener != null) {
+            installer.execute(listener);
+        }
+    }
+
+    private <T> void prepare(Ticket ticket, Function<Ticket, T> prepare,
+                             Consumer<T> install) {
+        T result;
+        synchronized (prepareLock) {
+            if (ticket.isCancelled()) {
+                return;
+            }
+            try {
+                result = prepare.apply(ticket);
+            } catch (Throwable e) {
+                log.log(Level.SEVERE, "layout pipeline failed", e);
+                return;
+            }
+        }
+        if (result != null) {
+            installer.execute(() -> {
+                if (!ticket.isCancelled()) {
+                    install.accept(result);
+                }
+            });
+        }
+    }
+}
@@ -1,13 +1,12 @@
 // SPDX-License-Identifier: Apache-2.0
 package com.chiralbehaviors.layout;
 
+import java.util.Set;
+
 /**
  * CSS / schema property key constants used by the Kramer layout engine.
  *
- * <p>Deferred consolidation: the following additional property keys exist in
- * the codebase but have not been centralised here yet:
- * {@code stat-min-samples}, {@code stat-convergence-epsilon},
- * {@code stat-convergence-k}, {@code badge-cardinality-threshold}.
+ * @see StylesheetSnapshot.PathProperties
  */
 public final class LayoutPropertyKeys {
 
@@ -45,6 +44,18 @@ public final class LayoutPropertyKeys {
     /** Hide consecutive duplicate rows in a Relation (SIEUFERD COLLAPSEDUPLICATEROWS). */
     public static final String COLLAPSE_DUPLICATES = "collapse-duplicates";
 
+    // Measure-phase statistics properties
+    /** Minimum sample count before percentile width statistics are used. */
+    public static final String STAT_MIN_SAMPLES            = "stat-min-samples";
+    /** Width change (px) under which a measure pass counts as stable. */
+    public static final String STAT_CONVERGENCE_EPSILON    = "stat-convergence-epsilon";
+    /** Consecutive stable passes before a primitive's measurement freezes. */
+    public static final String STAT_CONVERGENCE_K          = "stat-convergence-k";
+    /** Accuracy parameter of the width quantile sketch. */
+    public static final String STAT_SKETCH_K               = "stat-sketch-k";
+    /** Distinct-value count at or below which text renders as badges. */
+    public static final String BADGE_CARDINALITY_THRESHOLD = "badge-cardinality-threshold";
+
     // Sparkline rendering properties
     public static final String SPARKLINE_BAND_VISIBLE    = "sparkline-band-visible";
     public static final String SPARKLINE_END_MARKER      = "sparkline-end-marker";
@@ -53,5 +64,23 @@ public final class LayoutPropertyKeys {
     public static final String SPARKLINE_BAND_OPACITY    = "sparkline-band-opacity";
     public static final String SPARKLINE_MIN_WIDTH       = "sparkline-min-width";
 
+    /**
+     * Properties read only when cells render. Changing one never invalidates
+     * measurement, so it does not advance per-path version stamps.
+     */
+    public static final Set<String> RENDER_ONLY = Set.of(FROZEN, CELL_FORMAT,
+                                                         SPARKLINE_BAND_VISIBLE,
+                                                         SPARKLINE_END_MARKER,
+                                                         SPARKLINE_MIN_MAX_MARKERS,
+                                                         SPARKLINE_LINE_WIDTH,
+                                                         SPARKLINE_BAND_OPACITY);
+
+    /**
+     * @return true unless {@code property} is known to be {@link #RENDER_ONLY}
+     */
+    public static boolean affectsMeasure(String property) {
+        return !RENDER_ONLY.contains(property);
+    }
+
     private LayoutPropertyKeys() {}
 }
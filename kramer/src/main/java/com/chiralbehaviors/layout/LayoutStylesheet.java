@@ -15,6 +15,26 @@ public interface LayoutStylesheet {
 
     long getVersion();
 
+    /**
+     * Per-path version stamp: the latest {@link #getVersion() version} at
+     * which a measure-affecting property of {@code path} or any of its
+     * ancestors changed. Unchanged while only other subtrees, or only
+     * {@link LayoutPropertyKeys#RENDER_ONLY render-only} properties, change.
+     * The default treats every change as affecting every path.
+     */
+    default long getVersion(SchemaPath path) {
+        return getVersion();
+    }
+
+    /**
+     * @return the latest version at which a measure-affecting property of
+     *         {@code path} or any of its descendants changed
+     * @see #getVersion(SchemaPath)
+     */
+    default long getSubtreeVersion(SchemaPath path) {
+        return getVersion();
+    }
+
     double getDouble(SchemaPath path, String property, double defaultValue);
 
     int getInt(SchemaPath path, String property, int defaultValue);
@@ -26,4 +46,13 @@ public interface LayoutStylesheet {
     PrimitiveStyle primitiveStyle(SchemaPath path);
 
     RelationStyle relationStyle(SchemaPath path);
+
+    /**
+     * @return the compiled snapshot of this stylesheet at its current version.
+     *         Implementations should return the same snapshot until the
+     *         version changes; the default compiles a fresh one per call.
+     */
+    default StylesheetSnapshot snapshot() {
+        return new StylesheetSnapshot(this);
+    }
 }
@@ -64,6 +64,8 @@ public interface LayoutView {
     // --- Aggregate ---
     String getAggregatePosition();
     Map<String, Object> getAggregateResults();
+    boolean updateAggregates(RowDiff diff, List<JsonNode> before,
+                             List<JsonNode> after);
 
     // --- Label ---
     double getLabelHeight();
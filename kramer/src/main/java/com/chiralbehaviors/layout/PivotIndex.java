@@ -0,0 +1,156 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * Dictionary-encoded pivot values of a crosstab, plus the sparse row × pivot
+ * cell matrix built in the same pass.
+ *
+ * <p>Each distinct value of the pivot field gets a dense code in first-seen
+ * order, so a pivot column is addressed by an int rather than by its string.
+ * Row {@code r} of the matrix is item {@code r} of the sorted and filtered
+ * datum; its entries map pivot codes to the item found at that code. The
+ * matrix is stored row-compressed (offsets, codes, cells), so it costs one
+ * slot per present entry, not one per row × pivot, and
+ * {@link #cell(int, int)} probes only the entries of one row: a single
+ * comparison in the common case of one pivot value per item.
+ */
+public final class PivotIndex {
+
+    /**
+     * Encode the pivot field of every item of {@code datum}. Items without a
+     * value for the field get no entry.
+     */
+    public static PivotIndex build(ArrayNode datum, String pivotField) {
+        int rows = datum.size();
+        Map<String, Integer> codes = new HashMap<>();
+        String[] values = new String[Math.min(rows, 16)];
+        int[] rowCodes = new int[rows];
+        int entries = 0;
+        for (int r = 0; r < rows; r++) {
+            JsonNode fieldNode = datum.get(r)
+                                      .get(pivotField);
+            if (fieldNode == null || fieldNode.isNull()) {
+                rowCodes[r] = -1;
+                continue;
+            }
+            String value = fieldNode.asText();
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                codes.put(value, code);
+                if (code == values.length) {
+                    values = Arrays.copyOf(values, Math.max(16, code * 2));
+                }
+                values[code] = value;
+            }
+            rowCodes[r] = code;
+            entries++;
+        }
+
+        int[] rowStart = new int[rows + 1];
+        int[] cellCodes = new int[entries];
+        JsonNode[] cells = new JsonNode[entries];
+        int e = 0;
+        for (int r = 0; r < rows; r++) {
+            rowStart[r] = e;
+            if (rowCodes[r] >= 0) {
+                cellCodes[e] = rowCodes[r];
+                cells[e++] = datum.get(r);
+            }
+        }
+        rowStart[rows] = e;
+        return new PivotIndex(Arrays.copyOf(values, codes.size()), codes,
+                              rowStart, cellCodes, cells);
+    }
+
+    private final int[]                cellCodes;
+    private final JsonNode[]           cells;
+    private final Map<String, Integer> codes;
+    private final int[]                rowStart;
+    private final String[]             values;
+
+    private PivotIndex(String[] values, Map<String, Integer> codes,
+                       int[] rowStart, int[] cellCodes, JsonNode[] cells) {
+        this.values = values;
+        this.codes = codes;
+        this.rowStart = rowStart;
+        this.cellCodes = cellCodes;
+        this.cells = cells;
+    }
+
+    /**
+     * @return the item of row {@code row} at pivot column {@code code}, or
+     *         null if that cell is empty
+     */
+    public JsonNode cell(int row, int code) {
+        if (row < 0 || row >= rowCount()) {
+            return null;
+        }
+        for (int e = rowStart[row]; e < rowStart[row + 1]; e++) {
+            if (cellCodes[e] == code) {
+                return cells[e];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the code of pivot value {@code value}, or -1 if it does not
+     *         occur
+     */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * @return the number of non-empty cells
+     */
+    public int entryCount() {
+        return cells.length;
+    }
+
+    /**
+     * @return the number of distinct pivot values
+     */
+    public int pivotCount() {
+        return values.length;
+    }
+
+    public int rowCount() {
+        return rowStart.length - 1;
+    }
+
+    /**
+     * @return the pivot value with code {@code code}
+     */
+    public String value(int code) {
+        return values[code];
+    }
+
+    /**
+     * @return the pivot values in code order, as a read-only view
+     */
+    public List<String> values() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return values[index];
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}
@@ -19,12 +19,12 @@ package com.chiralbehaviors.layout;
 import static com.chiralbehaviors.layout.schema.SchemaNode.asList;
 import static com.chiralbehaviors.layout.style.Style.snap;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.TreeSet;
 import java.util.function.Function;
 
+import com.chiralbehaviors.layout.StylesheetSnapshot.PathProperties;
 import com.chiralbehaviors.layout.cell.LayoutCell;
 import com.chiralbehaviors.layout.cell.PrimitiveList;
 import com.chiralbehaviors.layout.cell.control.FocusTraversal;
@@ -224,15 +224,20 @@ public final class PrimitiveLayout extends SchemaNodeLayout {
     }
 
     /** Phase 1: minimum sample count required to compute percentile stats. */
-    private static final int MIN_SAMPLES = 30;
+    static final int MIN_SAMPLES = 30;
 
     @Override
     public double measure(JsonNode data, Function<JsonNode, JsonNode> extractor,
                           Style model) {
         // Version-change detection: runs unconditionally before the frozen short-circuit
-        // so that a stylesheet change mid-convergence always resets counters.
+        // so that a stylesheet change mid-convergence always resets counters. The
+        // per-path stamp only moves when a measure-affecting property of this
+        // path or an ancestor changes; overrides elsewhere keep convergence.
         LayoutStylesheet stylesheet = (model != null) ? model.getStylesheet() : null;
-        long currentVersion = (stylesheet != null) ? stylesheet.getVersion() : -1L;
+        SchemaPath path = getSchemaPath();
+        long currentVersion = stylesheet == null ? -1L
+                            : path == null ? stylesheet.getVersion()
+                            : stylesheet.getVersion(path);
         if (currentVersion != lastSeenStylesheetVersion) {
             frozenResult = null;
             frozenStylesheetVersion = -1;
@@ -240,54 +245,62 @@ public final class PrimitiveLayout extends SchemaNodeLayout {
             consecutiveStableCount = 0;
             lastSeenStylesheetVersion = currentVersion;
         }
+        // Every property the scan depends on comes from one compiled record,
+        // read up front so the data is traversed exactly once.
+        StylesheetSnapshot snapshot = StylesheetSnapshot.of(stylesheet);
+        PathProperties props = (snapshot != null && path != null)
+                               ? snapshot.properties(path)
+                               : null;
+        // Render-only: refreshed even while the measurement stays frozen.
+        cellFormat = props != null ? props.cellFormat() : null;
         if (frozenResult != null && currentVersion == frozenStylesheetVersion) {
             return frozenResult.columnWidth();
         }
 
         // Invisible primitives produce no width contribution.
-        SchemaPath path = getSchemaPath();
-        if (stylesheet != null && path != null
-                && !stylesheet.getBoolean(path, LayoutPropertyKeys.VISIBLE, true)) {
+        if (props != null && !props.visible()) {
             measureResult = new MeasureResult(0, 0, 0, 0, 0, false, 0, 0, null, List.of(), null, null, null, null);
             return 0;
         }
 
         clear();
         labelWidth = labelWidth(node.getLabel());
-        double summedDataWidth = 0;
-        maxWidth = 0;
         columnWidth = 0;
         List<JsonNode> normalized = asList(data);
-        int cardSum = 0;
-
-        // Collect all individual widths for percentile computation.
-        List<Double> allWidths = new ArrayList<>();
 
+        int minSamples = props != null ? props.statMinSamples() : MIN_SAMPLES;
+        double epsilon = props != null ? props.statConvergenceEpsilon() : 1.0;
+        int k = props != null ? props.statConvergenceK() : 3;
+        int sketchK = props != null ? props.statSketchK() : QuantileSketch.DEFAULT_K;
+        if (sketchK < QuantileSketch.MIN_K) {
+            sketchK = QuantileSketch.DEFAULT_K;
+        }
+        columnWidthOverride = props != null ? props.columnWidth() : -1.0;
+        String renderModeOverride = props != null ? props.renderMode() : "auto";
+        boolean autoMode = "auto".equals(renderModeOverride);
+        PrimitiveRenderMode overrideMode = autoMode ? null
+                                                    : switch (renderModeOverride.toUpperCase()) {
+                                                        case "BAR"       -> PrimitiveRenderMode.BAR;
+                                                        case "BADGE"     -> PrimitiveRenderMode.BADGE;
+                                                        case "SPARKLINE" -> PrimitiveRenderMode.SPARKLINE;
+                                                        default          -> PrimitiveRenderMode.TEXT;
+                                                    };
+        // Badge detection applies whenever the mode may end up TEXT
+        boolean badgeCandidate = autoMode || overrideMode == PrimitiveRenderMode.TEXT;
+        int badgeThreshold = props != null ? props.badgeCardinalityThreshold() : 10;
+
+        FieldScan scan = new FieldScan(sketchK, autoMode,
+                                       badgeCandidate ? badgeThreshold : -1);
         for (JsonNode prim : normalized) {
-            if (prim.isArray()) {
-                cardSum += prim.size();
-                double summedWidth = 0;
-                for (JsonNode row : prim) {
-                    double w = width(row);
-                    allWidths.add(w);
-                    summedWidth += w;
-                    maxWidth = Math.max(maxWidth, w);
-                }
-                summedDataWidth += prim.size() == 0 ? 1
-                                                    : summedWidth / prim.size();
-            } else {
-                cardSum += 1;
-                double w = width(prim);
-                allWidths.add(w);
-                summedDataWidth += w;
-                maxWidth = Math.max(maxWidth, w);
-            }
+            scan.accept(prim);
         }
+        maxWidth = scan.widest;
+
         double averageWidth = 0;
         averageCardinality = 1;
         if (data.size() > 0) {
-            averageCardinality = (int) Math.round((double) cardSum / data.size());
-            averageWidth = summedDataWidth / data.size();
+            averageCardinality = (int) Math.round((double) scan.cardSum / data.size());
+            averageWidth = scan.summedDataWidth / data.size();
         }
 
         // Paper §Table 1: IsVariableLength determines width strategy
@@ -298,22 +311,11 @@ public final class PrimitiveLayout extends SchemaNodeLayout {
         }
 
         // Compute percentile stats when sample count is sufficient.
-        // Read minSamples from stylesheet if available; fall back to compile-time default.
-        int minSamples = MIN_SAMPLES;
-        double epsilon = 1.0;
-        int k = 3;
-        if (stylesheet != null && path != null) {
-            minSamples = stylesheet.getInt(path, "stat-min-samples", MIN_SAMPLES);
-            epsilon    = stylesheet.getDouble(path, "stat-convergence-epsilon", 1.0);
-            k          = stylesheet.getInt(path, "stat-convergence-k", 3);
-        }
-
         ContentWidthStats contentStats = null;
-        int sampleCount = allWidths.size();
+        int sampleCount = (int) scan.widths.count();
         if (sampleCount >= minSamples) {
-            Collections.sort(allWidths);
-            double p50 = allWidths.get(sampleCount / 2);
-            double p90 = allWidths.get(sampleCount * 9 / 10);
+            double p50 = scan.widths.valueAtRank(sampleCount / 2);
+            double p90 = scan.widths.valueAtRank((long) sampleCount * 9 / 10);
 
             // Convergence detection: track consecutive calls where p90 is stable.
             // The first qualifying call (lastP90Width == NaN) starts the stable run at 1.
@@ -333,114 +335,41 @@ public final class PrimitiveLayout extends SchemaNodeLayout {
             contentStats = new ContentWidthStats(p50, p90, sampleCount, converged);
         }
 
-        // Numeric auto-detection: scan all raw values to determine if the field is entirely numeric.
-        // Tracks isArrayValued separately from allNumeric to distinguish:
+        // Numeric auto-detection: isArrayValued is tracked separately from allNumeric
+        // to distinguish:
         //   scalar numeric values → BAR
         //   array-of-numbers      → SPARKLINE
         // This is independent of the MIN_SAMPLES requirement for percentile stats.
         NumericStats numericStats = null;
         SparklineStats sparklineStats = null;
-        cellFormat = (stylesheet != null && path != null)
-                     ? stylesheet.getString(path, LayoutPropertyKeys.CELL_FORMAT, null)
-                     : null;
-        columnWidthOverride = (stylesheet != null && path != null)
-                              ? stylesheet.getDouble(path, LayoutPropertyKeys.COLUMN_WIDTH, -1.0)
-                              : -1.0;
-        String renderModeOverride = (stylesheet != null && path != null)
-                                    ? stylesheet.getString(path, "render-mode", "auto")
-                                    : "auto";
-        if ("auto".equals(renderModeOverride)) {
-            boolean allNumeric = !normalized.isEmpty();
-            boolean isArrayValued = false;
-            boolean hasScalar = false;
-            double nMin = Double.POSITIVE_INFINITY;
-            double nMax = Double.NEGATIVE_INFINITY;
-            outer:
-            for (JsonNode prim : normalized) {
-                if (prim.isArray()) {
-                    if (prim.isEmpty()) {
-                        // treat empty arrays as non-numeric
-                        allNumeric = false;
-                        break;
-                    }
-                    isArrayValued = true;
-                    for (JsonNode row : prim) {
-                        if (!row.isNumber()) {
-                            allNumeric = false;
-                            break outer;
-                        }
-                        double v = row.doubleValue();
-                        if (v < nMin) nMin = v;
-                        if (v > nMax) nMax = v;
-                    }
-                } else {
-                    hasScalar = true;
-                    if (!prim.isNumber()) {
-                        allNumeric = false;
-                        break;
-                    }
-                    double v = prim.doubleValue();
-                    if (v < nMin) nMin = v;
-                    if (v > nMax) nMax = v;
-                }
-            }
+        if (autoMode) {
             // Mixed scalar+array → not purely one type → fall through to TEXT
-            if (allNumeric && !normalized.isEmpty() && !(isArrayValued && hasScalar)) {
-                if (isArrayValued) {
-                    // Compute SparklineStats: flatten all array values, sort for quartiles
-                    List<Double> allValues = new ArrayList<>();
-                    for (JsonNode prim : normalized) {
-                        if (prim.isArray()) {
-                            for (JsonNode row : prim) {
-                                allValues.add(row.doubleValue());
-                            }
-                        }
-                    }
-                    Collections.sort(allValues);
-                    int n = allValues.size();
-                    double q1 = n > 0 ? allValues.get(n / 4) : 0.0;
-                    double q3 = n > 0 ? allValues.get(n * 3 / 4) : 0.0;
-                    sparklineStats = new SparklineStats(nMin, nMax, q1, q3, n);
+            if (scan.allNumeric && !normalized.isEmpty()
+                && !(scan.isArrayValued && scan.hasScalar)) {
+                if (scan.isArrayValued) {
+                    int n = (int) scan.values.count();
+                    double q1 = n > 0 ? scan.values.valueAtRank(n / 4) : 0.0;
+                    double q3 = n > 0 ? scan.values.valueAtRank((long) n * 3 / 4) : 0.0;
+                    sparklineStats = new SparklineStats(scan.nMin, scan.nMax, q1, q3, n);
                     renderMode = PrimitiveRenderMode.SPARKLINE;
                 } else {
-                    numericStats = new NumericStats(nMin, nMax);
+                    numericStats = new NumericStats(scan.nMin, scan.nMax);
                     renderMode = PrimitiveRenderMode.BAR;
                 }
             } else {
                 renderMode = PrimitiveRenderMode.TEXT;
             }
         } else {
-            renderMode = switch (renderModeOverride.toUpperCase()) {
-                case "BAR"       -> PrimitiveRenderMode.BAR;
-                case "BADGE"     -> PrimitiveRenderMode.BADGE;
-                case "SPARKLINE" -> PrimitiveRenderMode.SPARKLINE;
-                default          -> PrimitiveRenderMode.TEXT;
-            };
+            renderMode = overrideMode;
         }
 
         // Badge auto-detection: when renderMode is still TEXT after numeric check,
-        // count distinct string values and promote to BADGE if below cardinality threshold.
-        // Two-pass approach is intentional: numeric width computation (pass 1) is independent
-        // of badge cardinality detection (pass 2), so merging them would not reduce complexity.
+        // promote to BADGE if the distinct value count stayed below the threshold.
         badgeValues = null;
-        if (renderMode == PrimitiveRenderMode.TEXT) {
-            int badgeThreshold = (stylesheet != null && path != null)
-                                 ? stylesheet.getInt(path, "badge-cardinality-threshold", 10)
-                                 : 10;
-            TreeSet<String> distinct = new TreeSet<>();
-            for (JsonNode prim : normalized) {
-                if (prim.isArray()) {
-                    for (JsonNode row : prim) {
-                        distinct.add(row.asText());
-                    }
-                } else if (!prim.isNull() && !prim.isMissingNode()) {
-                    distinct.add(prim.asText());
-                }
-            }
-            if (!distinct.isEmpty() && distinct.size() < badgeThreshold) {
-                renderMode = PrimitiveRenderMode.BADGE;
-                badgeValues = List.copyOf(distinct); // TreeSet is already sorted
-            }
+        if (renderMode == PrimitiveRenderMode.TEXT && scan.distinct != null
+            && !scan.distinct.isEmpty() && scan.distinct.size() < badgeThreshold) {
+            renderMode = PrimitiveRenderMode.BADGE;
+            badgeValues = List.copyOf(scan.distinct); // TreeSet is already sorted
         }
 
         // RF-3: p90 replaces averageWidth ONLY in isVariableLength==true branch,
@@ -464,7 +393,7 @@ public final class PrimitiveLayout extends SchemaNodeLayout {
         // Freeze result when convergence is achieved.
         if (contentStats != null && contentStats.converged()) {
             frozenResult = measureResult;
-            frozenStylesheetVersion = (stylesheet != null) ? stylesheet.getVersion() : -1;
+            frozenStylesheetVersion = currentVersion;
         }
 
         return columnWidth;
@@ -706,4 +635,101 @@ public final class PrimitiveLayout extends SchemaNodeLayout {
     protected double width(JsonNode row) {
         return style.width(row);
     }
+
+    /**
+     * Fused single-pass statistics over the normalized data of a primitive:
+     * width distribution, numeric range and shape, sparkline quartiles and a
+     * capped distinct-value set for badge detection. Each value is visited
+     * once; numeric tracking stops at the first non-numeric value and the
+     * distinct set is dropped as soon as it reaches the badge threshold.
+     */
+    private final class FieldScan {
+        final QuantileSketch widths;
+        final QuantileSketch values;
+        /** Distinct text values; null once the badge threshold is exceeded. */
+        TreeSet<String>      distinct;
+        final int            badgeThreshold;
+
+        int     cardSum;
+        double  summedDataWidth;
+        double  widest;
+
+        boolean allNumeric;
+        boolean isArrayValued;
+        boolean hasScalar;
+        double  nMin = Double.POSITIVE_INFINITY;
+        double  nMax = Double.NEGATIVE_INFINITY;
+
+        FieldScan(int sketchK, boolean numeric, int badgeThreshold) {
+            this.widths = new QuantileSketch(sketchK);
+            this.values = new QuantileSketch(sketchK);
+            this.allNumeric = numeric;
+            this.badgeThreshold = badgeThreshold;
+            this.distinct = badgeThreshold >= 0 ? new TreeSet<>() : null;
+        }
+
+        void accept(JsonNode prim) {
+            if (prim.isArray()) {
+                cardSum += prim.size();
+                if (prim.isEmpty()) {
+                    // treat empty arrays as non-numeric
+                    allNumeric = false;
+                    summedDataWidth += 1;
+                    return;
+                }
+                isArrayValued = true;
+                double summedWidth = 0;
+                for (JsonNode row : prim) {
+                    summedWidth += sample(row);
+                    if (allNumeric) {
+                        if (row.isNumber()) {
+                            double v = row.doubleValue();
+                            range(v);
+                            values.add(v);
+                        } else {
+                            allNumeric = false;
+                        }
+                    }
+                    distinct(row);
+                }
+                summedDataWidth += summedWidth / prim.size();
+            } else {
+                cardSum += 1;
+                summedDataWidth += sample(prim);
+                hasScalar = true;
+                if (allNumeric) {
+                    if (prim.isNumber()) {
+                        range(prim.doubleValue());
+                    } else {
+                        allNumeric = false;
+                    }
+                }
+                if (!prim.isNull() && !prim.isMissingNode()) {
+                    distinct(prim);
+                }
+            }
+        }
+
+        private void distinct(JsonNode value) {
+            if (distinct == null) {
+                return;
+            }
+            distinct.add(value.asText());
+            if (distinct.size() >= badgeThreshold) {
+                distinct = null;
+            }
+        }
+
+        private void range(double v) {
+            if (v < nMin) nMin = v;
+            if (v > nMax) nMax = v;
+        }
+
+        private double sample(JsonNode value) {
+            double w = width(value);
+            widths.add(w);
+            widest = Math.max(widest, w);
+            return w;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,237 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable streaming quantile sketch (KLL style) over primitive doubles.
+ * Replaces "collect everything into a {@code List<Double>} and sort" in the
+ * measure phase: memory is {@code O(k log(n/k))} and each update is amortized
+ * O(1).
+ *
+ * <p>While no more than {@code k} values have been added the sketch is exact
+ * and {@link #valueAtRank(long)} returns precisely the element a full sort
+ * would. Beyond that, the rank error is roughly {@code n * 1.7 / k}.
+ * Compaction is deterministic (alternating offsets) so identical input
+ * sequences always produce identical layouts.
+ *
+ * <p>Not thread safe; merge per-chunk sketches with {@link #merge}.
+ */
+public final class QuantileSketch {
+
+    /** Default accuracy parameter; 200 gives ~1% rank error. */
+    public static final int DEFAULT_K = 200;
+    /** Smallest accepted accuracy parameter. */
+    public static final int MIN_K     = 8;
+
+    private static final double DECAY = 2.0 / 3.0;
+
+    private final int  k;
+    private double[][] levels;
+    private int[]      sizes;
+    private long       count;
+    private int        retained;
+    private int        capacity;
+    private double     min = Double.POSITIVE_INFINITY;
+    private double     max = Double.NEGATIVE_INFINITY;
+    private boolean    coin;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        if (k < MIN_K) {
+            throw new IllegalArgumentException("k must be >= " + MIN_K
+                                               + ": " + k);
+        }
+        this.k = k;
+        this.levels = new double[][] { new double[k] };
+        this.sizes = new int[1];
+        this.capacity = k;
+    }
+
+    public void add(double value) {
+        if (sizes[0] == levels[0].length) {
+            levels[0] = Arrays.copyOf(levels[0], levels[0].length * 2);
+        }
+        levels[0][sizes[0]++] = value;
+        retained++;
+        count++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        if (retained > capacity) {
+            compress();
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return true while every added value is retained unweighted
+     */
+    public boolean isExact() {
+        return levels.length == 1;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Fold another sketch into this one. The other sketch is unchanged.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        while (levels.length < other.levels.length) {
+            grow();
+        }
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                if (sizes[h] == levels[h].length) {
+                    levels[h] = Arrays.copyOf(levels[h], levels[h].length * 2);
+                }
+                levels[h][sizes[h]++] = other.levels[h][i];
+            }
+            retained += other.sizes[h];
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        while (retained > capacity) {
+            compress();
+        }
+    }
+
+    public double min() {
+        return min;
+    }
+
+    /**
+     * @return the value at fractional rank {@code q} in [0, 1], i.e.
+     *         {@code valueAtRank(floor(q * count))}
+     */
+    public double quantile(double q) {
+        return valueAtRank((long) Math.floor(q * count));
+    }
+
+    /**
+     * @param rank zero-based rank into the sorted input, clamped to
+     *             [0, count)
+     * @return the (approximate) value at that rank; NaN when empty
+     */
+    public double valueAtRank(long rank) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long r = Math.max(0, Math.min(rank, count - 1));
+        if (isExact()) {
+            double[] sorted = Arrays.copyOf(levels[0], sizes[0]);
+            Arrays.sort(sorted);
+            return sorted[(int) r];
+        }
+        int height = levels.length;
+        double[][] sorted = new double[height][];
+        for (int h = 0; h < height; h++) {
+            sorted[h] = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(sorted[h]);
+        }
+        // Multi-way merge across levels; level h items carry weight 2^h
+        int[] cursors = new int[height];
+        long cumulative = 0;
+        double last = max;
+        while (true) {
+            int next = -1;
+            for (int h = 0; h < height; h++) {
+                if (cursors[h] < sorted[h].length
+                    && (next < 0
+                        || sorted[h][cursors[h]] < sorted[next][cursors[next]])) {
+                    next = h;
+                }
+            }
+            if (next < 0) {
+                return last;
+            }
+            last = sorted[next][cursors[next]++];
+            cumulative += 1L << next;
+            if (cumulative > r) {
+                return last;
+            }
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_K,
+                        (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    /**
+     * Compact the lowest level that is over its capacity.
+     */
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] >= capacity(h)) {
+                if (h + 1 == levels.length) {
+                    grow();
+                }
+                compact(h);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sort level h and promote every other element (weight doubles) to
+     * level h + 1. An odd element out stays behind at level h.
+     */
+    private void compact(int h) {
+        double[] buf = levels[h];
+        int size = sizes[h];
+        Arrays.sort(buf, 0, size);
+        int leftover = size % 2;
+        int start = leftover;
+        int offset = coin ? 1 : 0;
+        coin = !coin;
+        int up = h + 1;
+        int promoted = (size - start) / 2;
+        if (sizes[up] + promoted > levels[up].length) {
+            levels[up] = Arrays.copyOf(levels[up],
+                                       Math.max(levels[up].length * 2,
+                                                sizes[up] + promoted));
+        }
+        for (int i = start + offset; i < size; i += 2) {
+            levels[up][sizes[up]++] = buf[i];
+        }
+        sizes[h] = leftover;
+        retained -= size - leftover - promoted;
+    }
+
+    private void grow() {
+        int height = levels.length;
+        levels = Arrays.copyOf(levels, height + 1);
+        sizes = Arrays.copyOf(sizes, height + 1);
+        levels[height] = new double[MIN_K];
+        int c = 0;
+        for (int h = 0; h <= height; h++) {
+            c += capacity(h);
+        }
+        capacity = c;
+    }
+}
@@ -26,20 +26,24 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import com.chiralbehaviors.layout.SchemaPath;
+import com.chiralbehaviors.layout.StylesheetSnapshot.PathProperties;
 import com.chiralbehaviors.layout.cell.LayoutCell;
 import com.chiralbehaviors.layout.cell.control.FocusTraversal;
+import com.chiralbehaviors.layout.expression.AggregatePlan;
 import com.chiralbehaviors.layout.expression.ExpressionEvaluator;
 import com.chiralbehaviors.layout.expression.Expr;
 import com.chiralbehaviors.layout.expression.ParseException;
 import com.chiralbehaviors.layout.outline.Outline;
+import com.chiralbehaviors.layout.schema.Primitive;
 import com.chiralbehaviors.layout.schema.Relation;
 import com.chiralbehaviors.layout.schema.SchemaNode;
 import com.chiralbehaviors.layout.style.Style;
@@ -52,7 +56,6 @@ import com.chiralbehaviors.layout.table.TableHeader;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import javafx.geometry.Insets;
 import javafx.scene.layout.Region;
@@ -82,24 +85,28 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
      * Build a stable comparator for a single sort field. Numeric JSON nodes are
      * compared numerically; all other values are compared lexicographically on
      * their text representation. Null/missing values sort last.
+     * Comparators of several fields chain with
+     * {@link Comparator#thenComparing(Comparator)} into a single
+     * {@link SortKeys}, which sorts on key columns extracted once per row.
      */
     static Comparator<JsonNode> fieldComparator(String field) {
-        boolean descending = field.startsWith("-");
-        String key = descending ? field.substring(1) : field;
-        int dir = descending ? -1 : 1;
-        return (a, b) -> {
-            JsonNode va = a == null ? null : a.get(key);
-            JsonNode vb = b == null ? null : b.get(key);
-            boolean missingA = va == null || va.isNull();
-            boolean missingB = vb == null || vb.isNull();
-            if (missingA && missingB) return 0;
-            if (missingA)             return 1;   // nulls last (direction-independent)
-            if (missingB)             return -1;
-            if (va.isNumber() && vb.isNumber()) {
-                return dir * Double.compare(va.asDouble(), vb.asDouble());
+        return SortKeys.field(field);
+    }
+
+    /**
+     * The field that identifies the rows of {@code relation}: the first child
+     * named id, key or name, in that order. Used by the autoSort heuristic and
+     * for keyed row diffing ({@link RowDiff}).
+     *
+     * @return the key field, or null when the relation has no candidate child
+     */
+    public static String keyField(Relation relation) {
+        for (String candidate : AUTO_SORT_CANDIDATES) {
+            if (relation.getChild(candidate) != null) {
+                return candidate;
             }
-            return dir * va.asText().compareTo(vb.asText());
-        };
+        }
+        return null;
     }
 
     /**
@@ -109,32 +116,34 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
      * Heuristic for autoSort with no sortFields: id > key > name > first primitive field.
      */
     static Comparator<JsonNode> buildSortComparator(Relation relation) {
+        return SortKeys.fields(sortFields(relation));
+    }
+
+    /**
+     * The sort fields of the relation's sortFields / autoSort configuration;
+     * empty when no sort is needed. See {@link #buildSortComparator(Relation)}.
+     */
+    static List<String> sortFields(Relation relation) {
         // Priority: explicit sortFields always take effect (regardless of autoSort flag).
         // autoSort only applies when sortFields is empty.
         List<String> fields = relation.getSortFields();
         if (!fields.isEmpty()) {
-            Comparator<JsonNode> cmp = fieldComparator(fields.get(0));
-            for (int i = 1; i < fields.size(); i++) {
-                cmp = cmp.thenComparing(fieldComparator(fields.get(i)));
-            }
-            return cmp;
+            return fields;
         }
         if (!relation.isAutoSort()) {
-            return null;
+            return List.of();
         }
         // Heuristic: pick first child primitive matching id > key > name
-        List<String> candidates = AUTO_SORT_CANDIDATES;
-        for (String candidate : candidates) {
-            if (relation.getChild(candidate) != null) {
-                return fieldComparator(candidate);
-            }
+        String key = keyField(relation);
+        if (key != null) {
+            return List.of(key);
         }
         // Fallback: first primitive child
         return relation.getChildren().stream()
-                       .filter(c -> c instanceof com.chiralbehaviors.layout.schema.Primitive)
-                       .map(c -> fieldComparator(c.getField()))
+                       .filter(c -> c instanceof Primitive)
+                       .map(c -> List.of(c.getField()))
                        .findFirst()
-                       .orElse(null);
+                       .orElse(List.of());
     }
 
     /**
@@ -144,11 +153,15 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
         if (cmp == null || array == null || array.size() <= 1) {
             return array;
         }
-        List<JsonNode> list = new ArrayList<>(array.size());
-        array.forEach(list::add);
-        list.sort(cmp);   // List.sort is stable
-        array.removeAll();
-        list.forEach(array::add);
+        JsonNode[] rows = new JsonNode[array.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = array.get(i);
+        }
+        int[] order = new RowView(array).sort(cmp)
+                                        .permutation();
+        for (int i = 0; i < order.length; i++) {
+            array.set(i, rows[order[i]]);
+        }
         return array;
     }
 
@@ -165,40 +178,6 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
         return a.toString().compareTo(b.toString());
     }
 
-    /**
-     * Evaluate an expression that mixes aggregate and scalar operations.
-     * Creates a synthetic row where each AggregateCall is pre-evaluated and
-     * injected as a literal, then evaluates the remaining expression per-row.
-     */
-    static Object evaluateWithAggregates(ExpressionEvaluator evaluator,
-                                          Expr expr, List<JsonNode> rows) {
-        // Replace AggregateCall nodes with their computed literal values
-        Expr resolved = resolveAggregates(evaluator, expr, rows);
-        // Evaluate the resolved (aggregate-free) expression with an empty row
-        return evaluator.evaluate(resolved, JsonNodeFactory.instance.objectNode());
-    }
-
-    private static Expr resolveAggregates(ExpressionEvaluator evaluator,
-                                           Expr expr, List<JsonNode> rows) {
-        return switch (expr) {
-            case Expr.AggregateCall agg -> {
-                Object result = evaluator.evaluateAggregate(agg, rows);
-                yield new Expr.Literal(result);
-            }
-            case Expr.BinaryOp(var op, var l, var r) ->
-                new Expr.BinaryOp(op,
-                    resolveAggregates(evaluator, l, rows),
-                    resolveAggregates(evaluator, r, rows));
-            case Expr.UnaryOp(var op, var operand) ->
-                new Expr.UnaryOp(op, resolveAggregates(evaluator, operand, rows));
-            case Expr.ScalarCall(var name, var args) ->
-                new Expr.ScalarCall(name,
-                    args.stream().map(a -> resolveAggregates(evaluator, a, rows)).toList());
-            case Expr.Literal l -> l;
-            case Expr.FieldRef f -> f;
-        };
-    }
-
     private static final int MAX_EMPTY_CHECK_DEPTH = 10;
 
     /**
@@ -237,36 +216,10 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
     }
 
     /**
-     * Filter an ArrayNode, keeping only items that pass the given predicate.
-     * Returns a new ArrayNode containing the survivors.
+     * Two rows are duplicates if all their top-level field values are equal
+     * (compared as text). Matches SIEUFERD COLLAPSEDUPLICATEROWS.
      */
-    static ArrayNode filterArrayNode(JsonNode source, Predicate<JsonNode> pred) {
-        if (source == null) return JsonNodeFactory.instance.arrayNode();
-        ArrayNode result = JsonNodeFactory.instance.arrayNode();
-        StreamSupport.stream(source.spliterator(), false)
-                     .filter(pred)
-                     .forEach(result::add);
-        return result;
-    }
-
-    /**
-     * Remove consecutive duplicate rows. Two adjacent rows are duplicates if all
-     * their top-level field values are equal (compared as text). Returns a new
-     * ArrayNode with duplicates removed. Matches SIEUFERD COLLAPSEDUPLICATEROWS.
-     */
-    static ArrayNode collapseDuplicateRows(ArrayNode source) {
-        ArrayNode result = JsonNodeFactory.instance.arrayNode();
-        JsonNode prev = null;
-        for (JsonNode row : source) {
-            if (prev == null || !rowsEqual(prev, row)) {
-                result.add(row);
-            }
-            prev = row;
-        }
-        return result;
-    }
-
-    private static boolean rowsEqual(JsonNode a, JsonNode b) {
+    static boolean rowsEqual(JsonNode a, JsonNode b) {
         if (a.size() != b.size()) return false;
         // Check all fields in a against b
         var aFields = a.fieldNames();
@@ -308,12 +261,22 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
     private MeasureResult                  measureResult;
     /** Comparator derived from sortFields / autoSort; null when no sort is needed. */
     private Comparator<JsonNode>           sortComparator;
+    /** The effective sort fields behind sortComparator; empty when unsorted. */
+    private List<String>                   sortSpec = List.of();
+    /** Sorted row orders by source array identity and sort fields; see sortRows(). */
+    private final SortPermutationCache     sortPermutations = new SortPermutationCache();
     /** Filter predicate for hide-if-empty; null when filtering is disabled. */
     private Predicate<JsonNode>            hideIfEmptyFilter;
     /** Aggregate expression results keyed by child field name. Populated during measure(). */
     private Map<String, Object>            aggregateResults;
     /** Cached aggregate-position from stylesheet; null = hidden. Root-level only. */
     private String                         aggregatePosition;
+    /** Aggregate expression ASTs keyed by child field name; empty when none are set. */
+    private Map<String, Expr>              aggregateExprs = Map.of();
+    /** Plan of aggregateExprs from the last measure; null when there are none. */
+    private AggregatePlan                  aggregatePlan;
+    /** Footer aggregates kept current under keyed row deltas; see updateAggregates(). */
+    private AggregatePlan.Live             liveAggregates;
     /** Compiled filter expression AST; null when no filter-expression is set. */
     private Expr                           filterExprAst;
     /** Ordered list of (field, ast) pairs for formula overlay; empty when no formulas. */
@@ -322,6 +285,10 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
     private Expr                           sortExprAst;
     /** The ExpressionEvaluator from the last measure pass; held for extractFrom(). */
     private ExpressionEvaluator            cachedEvaluator;
+    /** Row-pipeline results by source array identity; see extractFrom(). */
+    private final RowPipelineCache         pipelineCache = new RowPipelineCache();
+    /** Stylesheet version of the last measure pass; part of the pipeline cache key. */
+    private long                           pipelineVersion;
     /**
      * Solver-driven render-mode assignments. When non-null, layout() consults
      * this map instead of the greedy width check. Set by AutoLayout before the
@@ -558,55 +525,169 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
     public JsonNode extractFrom(JsonNode datum) {
         Function<JsonNode, JsonNode> ex = extractor != null ? extractor : n -> n;
         JsonNode extracted = ex.apply(datum);
-        JsonNode result = node.extractFrom(extracted);
+        return processRows(node.extractFrom(extracted));
+    }
+
+    /**
+     * Run this relation's row pipeline (sort, hide-if-empty, filter, formulas,
+     * sort-expression) over {@code rows}, the relation's own rows rather than
+     * its parent's. {@link #extractFrom(JsonNode)} applies it to the rows it
+     * extracts; the root control, which is handed its rows directly, applies
+     * it through this.
+     *
+     * @return the processed rows, or {@code rows} if no pipeline is active
+     */
+    public JsonNode processRows(JsonNode rows) {
+        if (!(rows instanceof ArrayNode arr) || !isPipelineActive()) {
+            return rows;
+        }
+        // Cells are rebound on every scroll; each source array is processed
+        // once per measure pass.
+        JsonNode cached = pipelineCache.get(arr, pipelineVersion);
+        if (cached != null) {
+            return cached;
+        }
+        // Replay the measure pipeline over a view of the rows; the extracted
+        // array itself is never copied or reordered.
+        RowView view = new RowView(arr);
         // Apply base sort (sort-fields / Relation.sortFields) unless
         // sort-expression is present — in that case, sort happens after formulas.
-        if (sortComparator != null && sortExprAst == null && result instanceof ArrayNode arr) {
-            sortArrayNode(arr, sortComparator);
+        if (sortExprAst == null) {
+            sortRows(view, arr);
         }
-        if (hideIfEmptyFilter != null && result instanceof ArrayNode arr) {
-            result = filterArrayNode(arr, hideIfEmptyFilter);
+        if (hideIfEmptyFilter != null) {
+            view.filter(hideIfEmptyFilter);
         }
         // Expression pipeline replay (filter → formula → sort-expression)
         if (cachedEvaluator != null) {
-            if (filterExprAst != null && result instanceof ArrayNode arr) {
-                final ExpressionEvaluator ev = cachedEvaluator;
-                final Expr fAst = filterExprAst;
-                result = filterArrayNode(arr, row -> ev.toBoolean(ev.evaluate(fAst, row)));
+            if (filterExprAst != null) {
+                view.filter(cachedEvaluator.specialize(filterExprAst));
+            }
+            view.applyFormulas(formulaEntries, cachedEvaluator);
+        }
+        // Sort after formulas only when sort-expression is active (may reference
+        // formula fields); the comparator persists even without an evaluator
+        if (sortExprAst != null) {
+            view.sort(sortComparator);
+        }
+        JsonNode processed = view.toJsonNode();
+        pipelineCache.put(arr, pipelineVersion, processed);
+        return processed;
+    }
+
+    /**
+     * Drop the cached row orders and pipeline results of this relation and
+     * its nested relations. Both caches key rows by array identity, so a
+     * caller that changes an array's contents in place calls this before the
+     * arrays are extracted again; {@link AutoLayout} does whenever the
+     * fingerprint of its data changes.
+     */
+    void rowsChanged() {
+        sortPermutations.clear();
+        pipelineCache.clear();
+        for (SchemaNodeLayout child : children) {
+            if (child instanceof RelationLayout rl) {
+                rl.rowsChanged();
             }
-            if (!formulaEntries.isEmpty() && result instanceof ArrayNode arr) {
-                result = applyFormulas(arr, cachedEvaluator);
+        }
+    }
+
+    /** Package-private for tests: the sorted row order cache. */
+    SortPermutationCache getSortPermutations() {
+        return sortPermutations;
+    }
+
+    /** Package-private for tests: the extractFrom() pipeline result cache. */
+    RowPipelineCache getPipelineCache() {
+        return pipelineCache;
+    }
+
+    /**
+     * Re-resolve the sort of this relation and its nested relations from the
+     * stylesheet after a change that only re-sorts. Row order does not enter
+     * measurement unless a relation collapses duplicates, pivots, or sorts by
+     * expression; any other relation adopts its new sort directly, and its
+     * rows are re-sorted by the next extractFrom(), so rebinding the control
+     * is enough.
+     *
+     * @return false if a changed sort can affect measurement and the tree
+     *         must be remeasured
+     */
+    boolean resort(Style model) {
+        StylesheetSnapshot snapshot = StylesheetSnapshot.of(model != null ? model.getStylesheet()
+                                                                          : null);
+        SchemaPath myPath = getSchemaPath();
+        PathProperties props = (snapshot != null && myPath != null)
+            ? snapshot.properties(myPath) : null;
+        List<String> spec = resolveSortFields(props, snapshot);
+        if (!spec.equals(sortSpec)) {
+            if (sortExprAst != null || (props != null
+                                        && (props.collapseDuplicates()
+                                            || !props.pivotField().isEmpty()))) {
+                return false;
             }
-            // Sort after formulas only when sort-expression is active (may reference formula fields)
-            if (sortComparator != null && sortExprAst != null && result instanceof ArrayNode arr) {
-                sortArrayNode(arr, sortComparator);
+            sortSpec = spec;
+            sortComparator = SortKeys.fields(spec);
+            pipelineCache.clear();
+        }
+        for (SchemaNodeLayout child : children) {
+            if (child instanceof RelationLayout rl && !rl.resort(model)) {
+                return false;
             }
-        } else if (sortComparator != null && sortExprAst != null
-                   && result instanceof ArrayNode arr) {
-            // Expression evaluator gone but sort comparator persists
-            sortArrayNode(arr, sortComparator);
         }
-        return result;
+        return true;
     }
 
     /**
-     * Apply formula overlays to each row in the array.
-     * Returns a new ArrayNode with formula results injected.
+     * The effective sort fields: the relation's explicit sortFields, else the
+     * stylesheet's sort-fields for this path, else those set on its primitive
+     * columns in column order (a column header sorts by its own path), else
+     * the autoSort heuristic.
      */
-    private ArrayNode applyFormulas(ArrayNode data, ExpressionEvaluator evaluator) {
-        ArrayNode overlaid = JsonNodeFactory.instance.arrayNode();
-        for (JsonNode row : data) {
-            ObjectNode newRow = JsonNodeFactory.instance.objectNode();
-            if (row.isObject()) {
-                newRow.setAll((ObjectNode) row);
+    private List<String> resolveSortFields(PathProperties props,
+                                           StylesheetSnapshot snapshot) {
+        Relation relation = getNode();
+        if (!relation.getSortFields().isEmpty()) {
+            return relation.getSortFields();
+        }
+        if (props != null && !props.sortFields().isEmpty()) {
+            return props.sortFields();
+        }
+        SchemaPath myPath = getSchemaPath();
+        if (snapshot != null && myPath != null) {
+            List<String> columns = new ArrayList<>();
+            for (SchemaNode child : relation.getChildren()) {
+                if (child instanceof Primitive) {
+                    columns.addAll(snapshot.properties(myPath.child(child.getField()))
+                                           .sortFields());
+                }
             }
-            for (var entry : formulaEntries) {
-                Object result = evaluator.evaluate(entry.getValue(), newRow);
-                newRow.set(entry.getKey(), ExpressionEvaluator.toJsonNode(result));
+            if (!columns.isEmpty()) {
+                return List.copyOf(columns);
             }
-            overlaid.add(newRow);
         }
-        return overlaid;
+        return sortFields(relation);
+    }
+
+    /**
+     * Sort a fresh view of {@code source}; a large array reuses the cached
+     * order of its current sort fields.
+     */
+    private void sortRows(RowView view, JsonNode source) {
+        if (sortComparator instanceof SortKeys keys
+            && source instanceof ArrayNode array
+            && array.size() >= SortPermutationCache.MIN_ROWS) {
+            view.reorder(sortPermutations.permutation(array, sortSpec, keys));
+        } else {
+            view.sort(sortComparator);
+        }
+    }
+
+    /** True when extractFrom() transforms extracted arrays at all. */
+    private boolean isPipelineActive() {
+        return sortComparator != null || hideIfEmptyFilter != null
+               || (cachedEvaluator != null
+                   && (filterExprAst != null || !formulaEntries.isEmpty()));
     }
 
     public void forEach(Consumer<? super SchemaNodeLayout> action) {
@@ -676,6 +757,71 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
         return aggregatePosition;
     }
 
+    /**
+     * Bring the aggregate results up to date for the rendered rows changing
+     * from {@code before} to {@code after}, both as produced by
+     * {@link #extractFrom}. When the footer aggregates are maintained (a
+     * keyed relation with {@code aggregate-position: footer}) each inserted,
+     * removed, updated or moved and changed row of {@code diff} costs
+     * constant time for sum/count/avg and O(log n) for min/max, whatever the
+     * number of rows; moves of unchanged rows cost nothing. Without a usable
+     * diff, or if the tracked rows do not match {@code before}, the aggregates
+     * are rebuilt from {@code after}.
+     *
+     * @return true if {@link #getAggregateResults()} now reflects
+     *         {@code after}; false when no aggregates are maintained
+     */
+    @Override
+    public boolean updateAggregates(RowDiff diff, List<JsonNode> before,
+                                    List<JsonNode> after) {
+        if (liveAggregates == null) {
+            return false;
+        }
+        String key = keyField(getNode());
+        boolean applied = diff != null;
+        if (applied) {
+            for (RowDiff.Op op : diff.getOperations()) {
+                applied = switch (op) {
+                    case RowDiff.Insert insert -> liveAggregates.insert(RowDiff.key(insert.row(),
+                                                                                    key),
+                                                                        insert.row());
+                    case RowDiff.Remove remove -> liveAggregates.remove(RowDiff.key(before.get(remove.from()),
+                                                                                    key));
+                    case RowDiff.Update update -> liveAggregates.update(RowDiff.key(update.row(),
+                                                                                    key),
+                                                                        update.row());
+                    // A keyed row that moves may also have changed; RowDiff
+                    // reports only the move
+                    case RowDiff.Move move -> before.get(move.from())
+                                                    .equals(move.row())
+                                              || liveAggregates.update(RowDiff.key(move.row(),
+                                                                                   key),
+                                                                       move.row());
+                };
+                if (!applied) {
+                    break;
+                }
+            }
+        }
+        if (!applied || liveAggregates.size() != after.size()) {
+            liveAggregates = aggregatePlan.maintain(after, row -> RowDiff.key(row, key));
+            if (liveAggregates == null) {
+                aggregateResults = aggregateResults(aggregatePlan.evaluate(after));
+                return true;
+            }
+        }
+        aggregateResults = aggregateResults(liveAggregates.results());
+        return true;
+    }
+
+    private Map<String, Object> aggregateResults(AggregatePlan.Results results) {
+        Map<String, Object> values = new HashMap<>();
+        for (var entry : aggregateExprs.entrySet()) {
+            values.put(entry.getKey(), results.evaluate(entry.getValue()));
+        }
+        return values;
+    }
+
     /** Returns true when every descendant PrimitiveLayout has converged.
      *  allMatch on empty stream is vacuously true — a relation with no children is trivially stable. */
     @Override
@@ -870,40 +1016,29 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
         if (this.extractor == null) {
             this.extractor = extractor;
         }
+        // Every stylesheet property this pass reads comes from the compiled
+        // snapshot: one record for this path, one per child path.
+        SchemaPath myPath = getSchemaPath();
+        LayoutStylesheet stylesheet = (model != null) ? model.getStylesheet() : null;
+        StylesheetSnapshot snapshot = StylesheetSnapshot.of(stylesheet);
+        // The pipeline reads this path and its children's properties only, so
+        // it is stale exactly when the subtree stamp moves.
+        long subtreeVersion = stylesheet == null ? 0L
+                            : myPath == null ? stylesheet.getVersion()
+                            : stylesheet.getSubtreeVersion(myPath);
+        PathProperties props = (snapshot != null && myPath != null)
+            ? snapshot.properties(myPath) : null;
         // Compute sort comparator once per measure phase; stored for extractFrom().
-        // Check stylesheet for sort-fields override; Relation is the fallback.
-        {
-            LayoutStylesheet _ss = (model != null) ? model.getStylesheet() : null;
-            SchemaPath _path = getSchemaPath();
-            Relation _relation = getNode();
-            List<String> _relFields = _relation.getSortFields();
-            if (!_relFields.isEmpty()) {
-                // Relation has explicit sortFields — use them directly (highest priority)
-                sortComparator = buildSortComparator(_relation);
-            } else {
-                // Check stylesheet for sort-fields
-                String _stylesheetSort = (_ss != null && _path != null)
-                    ? _ss.getString(_path, LayoutPropertyKeys.SORT_FIELDS, "") : "";
-                if (!_stylesheetSort.isEmpty()) {
-                    List<String> _fields = List.of(_stylesheetSort.split(","));
-                    Comparator<JsonNode> _cmp = fieldComparator(_fields.get(0));
-                    for (int _i = 1; _i < _fields.size(); _i++) {
-                        _cmp = _cmp.thenComparing(fieldComparator(_fields.get(_i)));
-                    }
-                    sortComparator = _cmp;
-                } else {
-                    sortComparator = buildSortComparator(_relation);
-                }
-            }
-        }
+        sortSpec = resolveSortFields(props, snapshot);
+        sortComparator = SortKeys.fields(sortSpec);
         // Sort the datum array before measuring children so that measurement
-        // reflects data order consistent with the build phase.
-        // Copy before sorting to avoid mutating the caller's datum in-place.
-        if (sortComparator != null && datum instanceof ArrayNode datumArray) {
-            ArrayNode sorted = datumArray.deepCopy();
-            sortArrayNode(sorted, sortComparator);
-            datum = sorted;
-        }
+        // reflects data order consistent with the build phase. The pipeline
+        // runs over a row view: the caller's datum is never copied or mutated.
+        JsonNode source = datum;
+        // A remeasure may follow an in-place change of the rows
+        sortPermutations.clear();
+        RowView view = new RowView(datum);
+        sortRows(view, datum);
         // Resolve hide-if-empty filter: only active when hideIfEmpty=true and
         // autoFoldable is null (filtering is incompatible with autoFold).
         // Priority: Relation.getHideIfEmpty() (when non-null) > stylesheet > false.
@@ -912,45 +1047,39 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
         if (hideOverride != null) {
             shouldHide = hideOverride;
         } else {
-            LayoutStylesheet _hideSheet = (model != null) ? model.getStylesheet() : null;
-            SchemaPath _hidePath = getSchemaPath();
-            shouldHide = (_hideSheet != null && _hidePath != null)
-                && _hideSheet.getBoolean(_hidePath, LayoutPropertyKeys.HIDE_IF_EMPTY, false);
+            shouldHide = props != null && props.hideIfEmpty();
         }
         boolean shouldFilter = shouldHide && getNode().getAutoFoldable() == null;
         if (shouldFilter) {
             hideIfEmptyFilter = item -> hasNonEmptyChildren(item, getNode());
-            datum = filterArrayNode(datum, hideIfEmptyFilter);
+            view.filter(hideIfEmptyFilter);
         } else {
             hideIfEmptyFilter = null;
         }
 
         // --- Expression pipeline (RDR-021): filter → formula → aggregate → sort ---
-        SchemaPath myPath = getSchemaPath();
-        LayoutStylesheet stylesheet = (model != null) ? model.getStylesheet() : null;
         ExpressionEvaluator evaluator = (model != null) ? model.getExpressionEvaluator() : null;
         if (evaluator != null && stylesheet != null) {
-            evaluator.syncVersion(stylesheet.getVersion());
+            evaluator.syncVersion(subtreeVersion);
         }
         // Reset expression state from previous measure
         filterExprAst = null;
         formulaEntries = List.of();
-        aggregatePosition = (stylesheet != null && myPath != null)
-            ? stylesheet.getString(myPath, LayoutPropertyKeys.AGGREGATE_POSITION, null)
-            : null;
+        aggregatePosition = props != null ? props.aggregatePosition() : null;
         sortExprAst = null;
         cachedEvaluator = evaluator;
         aggregateResults = null;
+        aggregateExprs = Map.of();
+        aggregatePlan = null;
+        liveAggregates = null;
 
         // 1. filter-expression: per-row boolean predicate; false/null rows excluded
-        if (evaluator != null && stylesheet != null && myPath != null) {
-            String filterExpr = stylesheet.getString(myPath, LayoutPropertyKeys.FILTER_EXPRESSION, null);
+        if (evaluator != null && props != null) {
+            String filterExpr = props.filterExpression();
             if (filterExpr != null) {
                 try {
                     filterExprAst = evaluator.compile(filterExpr);
-                    final ExpressionEvaluator ev = evaluator;
-                    final Expr fAst = filterExprAst;
-                    datum = filterArrayNode(datum, row -> ev.toBoolean(ev.evaluate(fAst, row)));
+                    view.filter(evaluator.specialize(filterExprAst));
                 } catch (ParseException e) {
                     LOG.warning(() -> "Invalid filter-expression at " + myPath + ": " + e.getMessage());
                 }
@@ -958,15 +1087,13 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
         }
 
         // 2. formula-expression: per-row virtual field computation
-        if (evaluator != null && stylesheet != null && myPath != null
-                && datum instanceof ArrayNode datumArray) {
+        if (evaluator != null && props != null && view.isArrayValued()) {
             Map<String, Expr> formulas = new LinkedHashMap<>();
             Map<String, Set<String>> deps = new LinkedHashMap<>();
             for (var child : getNode().getChildren()) {
                 if (child instanceof com.chiralbehaviors.layout.schema.Primitive) {
                     SchemaPath childPath = myPath.child(child.getField());
-                    String formulaExpr = stylesheet.getString(childPath,
-                        LayoutPropertyKeys.FORMULA_EXPRESSION, null);
+                    String formulaExpr = snapshot.properties(childPath).formulaExpression();
                     if (formulaExpr != null) {
                         try {
                             Expr ast = evaluator.compile(formulaExpr);
@@ -1004,35 +1131,29 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
                 }
                 formulaEntries = List.copyOf(entries);
                 // Overlay formula results on each row
-                datum = applyFormulas(datumArray, evaluator);
+                view.applyFormulas(formulaEntries, evaluator);
             }
         }
 
-        // 3. aggregate-expression: compute aggregates (rendering deferred)
-        if (evaluator != null && stylesheet != null && myPath != null) {
+        // 3. aggregate-expression: compute aggregates (rendering deferred).
+        // Every column's aggregate calls are planned together and accumulated
+        // in a single pass over the rows.
+        if (evaluator != null && props != null) {
             Map<String, Object> aggResults = null;
+            AggregatePlan plan = new AggregatePlan(evaluator);
+            Map<String, Expr> aggExprs = new LinkedHashMap<>();
             for (var child : getNode().getChildren()) {
-                if (child instanceof com.chiralbehaviors.layout.schema.Primitive) {
+                if (child instanceof Primitive) {
                     SchemaPath childPath = myPath.child(child.getField());
-                    String aggExpr = stylesheet.getString(childPath,
-                        LayoutPropertyKeys.AGGREGATE_EXPRESSION, null);
+                    String aggExpr = snapshot.properties(childPath).aggregateExpression();
                     if (aggExpr != null) {
                         try {
                             Expr ast = evaluator.compile(aggExpr);
-                            if (!ExpressionEvaluator.containsAggregate(ast)) {
+                            if (!plan.add(ast)) {
                                 LOG.warning(() -> "aggregate-expression at " + childPath
                                     + " has no aggregate call; treating as absent");
                             } else {
-                                List<JsonNode> rows = new ArrayList<>();
-                                datum.forEach(rows::add);
-                                Object result;
-                                if (ast instanceof Expr.AggregateCall agg) {
-                                    result = evaluator.evaluateAggregate(agg, rows);
-                                } else {
-                                    result = evaluateWithAggregates(evaluator, ast, rows);
-                                }
-                                if (aggResults == null) aggResults = new HashMap<>();
-                                aggResults.put(child.getField(), result);
+                                aggExprs.put(child.getField(), ast);
                             }
                         } catch (ParseException e) {
                             LOG.warning(() -> "Invalid aggregate-expression at " + childPath
@@ -1041,33 +1162,37 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
                     }
                 }
             }
+            if (!aggExprs.isEmpty()) {
+                aggregateExprs = aggExprs;
+                aggregatePlan = plan;
+                // A keyed footer is maintained from row deltas by updateAggregates()
+                String key = keyField(getNode());
+                if ("footer".equals(aggregatePosition) && key != null
+                    && !props.collapseDuplicates()) {
+                    liveAggregates = plan.maintain(view.rows(), row -> RowDiff.key(row, key));
+                }
+                aggResults = aggregateResults(liveAggregates != null
+                                              ? liveAggregates.results()
+                                              : plan.evaluate(view.rows(),
+                                                              model.getMeasurePool()));
+            }
             aggregateResults = aggResults;
         }
 
         // 4. sort-expression: per-row sort key, takes precedence over sort-fields
-        if (evaluator != null && stylesheet != null && myPath != null) {
-            String sortExpr = stylesheet.getString(myPath,
-                LayoutPropertyKeys.SORT_EXPRESSION, null);
+        if (evaluator != null && props != null) {
+            String sortExpr = props.sortExpression();
             if (sortExpr != null) {
                 try {
                     sortExprAst = evaluator.compile(sortExpr);
-                    final ExpressionEvaluator ev = evaluator;
-                    final Expr sAst = sortExprAst;
-                    Comparator<JsonNode> exprCmp = (a, b) -> {
-                        Object va = ev.evaluate(sAst, a);
-                        Object vb = ev.evaluate(sAst, b);
-                        return compareValues(va, vb);
-                    };
+                    // Evaluated once per row when the view extracts its keys
+                    Comparator<JsonNode> exprCmp = SortKeys.expression(evaluator.specialize(sortExprAst));
                     if (sortComparator != null) {
                         sortComparator = exprCmp.thenComparing(sortComparator);
                     } else {
                         sortComparator = exprCmp;
                     }
-                    if (datum instanceof ArrayNode sortArray) {
-                        ArrayNode sorted = sortArray.deepCopy();
-                        sortArrayNode(sorted, sortComparator);
-                        datum = sorted;
-                    }
+                    view.sort(sortComparator);
                 } catch (ParseException e) {
                     LOG.warning(() -> "Invalid sort-expression at " + myPath
                         + ": " + e.getMessage());
@@ -1077,17 +1202,24 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
         // --- End expression pipeline ---
 
         // 5. collapse-duplicates: remove consecutive duplicate rows (SIEUFERD COLLAPSEDUPLICATEROWS)
-        if (stylesheet != null && myPath != null
-            && stylesheet.getBoolean(myPath, LayoutPropertyKeys.COLLAPSE_DUPLICATES, false)
-            && datum instanceof ArrayNode arr && arr.size() > 1) {
-            datum = collapseDuplicateRows(arr);
+        boolean collapse = props != null && props.collapseDuplicates();
+        if (collapse) {
+            view.collapseDuplicates();
+        }
+        datum = view.toJsonNode();
+        // Seed the build-phase cache; extractFrom() does not collapse duplicates,
+        // so a collapsed result is not what it would compute for this source.
+        pipelineCache.clear();
+        pipelineVersion = subtreeVersion;
+        if (!collapse && source instanceof ArrayNode) {
+            pipelineCache.put(source, pipelineVersion, datum);
         }
 
         // Collect pivot values AFTER sort+filter, BEFORE child iteration.
         // Reads pivot-field from stylesheet; if non-empty, scans datum for distinct values.
         PivotStats pivotStats = null;
-        if (stylesheet != null && myPath != null) {
-            String pivotField = stylesheet.getString(myPath, "pivot-field", "");
+        if (props != null) {
+            String pivotField = props.pivotField();
             if (!pivotField.isEmpty()) {
                 LinkedHashSet<String> seen = new LinkedHashSet<>();
                 if (datum instanceof ArrayNode pivotArray) {
@@ -1108,6 +1240,7 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
         maxCardinality = datum.size();
 
         SchemaPath parentPath = myPath;
+        List<Fold> folds = new ArrayList<>();
         for (SchemaNode child : getNode().getChildren()) {
             Fold fold = model.layout(child)
                              .fold(datum, extractor, model);
@@ -1118,15 +1251,20 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
                 childLayout.setSchemaPath(childPath);
             }
             // Skip invisible children — visible defaults to true.
-            if (stylesheet != null && childPath != null
-                    && !stylesheet.getBoolean(childPath, LayoutPropertyKeys.VISIBLE, true)) {
+            if (snapshot != null && childPath != null
+                    && !snapshot.properties(childPath).visible()) {
                 continue;
             }
             children.add(childLayout);
-            columnWidth = Style.snap(Math.max(columnWidth, childLayout
-                                                               .measure(fold.datum(),
-                                                                        n -> n,
-                                                                        model)));
+            folds.add(fold);
+        }
+        // Sibling subtrees are independent once the datum is sorted and
+        // filtered; measure them in parallel when the model opts in. Results
+        // are merged in child order so the outcome matches sequential measure.
+        double[] childWidths = measureChildren(folds, model);
+        for (int i = 0; i < folds.size(); i++) {
+            columnWidth = Style.snap(Math.max(columnWidth, childWidths[i]));
+            Fold fold = folds.get(i);
             if (fold.averageCardinality() == 1) {
                 singularChildren++;
             } else {
@@ -1171,6 +1309,39 @@ public final class RelationLayout extends SchemaNodeLayout implements LayoutView
                + style.getOutlineCellHorizontalInset();
     }
 
+    /**
+     * Measure each folded child, returning the widths in child order. Runs on
+     * the model's measure pool when one is configured and there is more than
+     * one child; otherwise measures sequentially on the calling thread.
+     */
+    private static double[] measureChildren(List<Fold> folds, Style model) {
+        double[] widths = new double[folds.size()];
+        ForkJoinPool pool = (model != null) ? model.getMeasurePool() : null;
+        if (pool == null || folds.size() < 2) {
+            for (int i = 0; i < widths.length; i++) {
+                Fold fold = folds.get(i);
+                widths[i] = fold.layout()
+                                .measure(fold.datum(), n -> n, model);
+            }
+            return widths;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(folds.size());
+        for (int i = 0; i < widths.length; i++) {
+            final int index = i;
+            final Fold fold = folds.get(i);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                widths[index] = fold.layout()
+                                    .measure(fold.datum(), n -> n, model);
+            }));
+        }
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        }
+        return widths;
+    }
+
     @Override
     public double nestTableColumn(Indent indent, Insets indentation) {
         useTable = true;
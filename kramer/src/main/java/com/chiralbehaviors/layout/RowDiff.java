@@ -0,0 +1,311 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import javafx.collections.ObservableList;
+
+/**
+ * Keyed diff between two row lists, expressed as insert / remove / move /
+ * update operations.
+ *
+ * <p>Rows are matched by the value of a key field (see
+ * {@link RelationLayout#keyField}). Matched rows whose relative order is
+ * preserved — the longest increasing run of old positions — stay in place and
+ * are updated when their content differs; other matched rows are moved.
+ * Unmatched old rows are removed and unmatched new rows are inserted.
+ *
+ * <p>Positions follow the convention of the operation: {@code from} indexes
+ * the old list and {@code to} indexes the new one. {@link #applyTo} performs
+ * all removals (highest first), then all insertions (lowest first), then
+ * updates, so a {@link javafx.collections.ObservableList} sees one small
+ * change per contiguous run instead of a full replacement.
+ */
+public final class RowDiff {
+
+    public sealed interface Op permits Insert, Move, Remove, Update {
+    }
+
+    public record Insert(int to, JsonNode row) implements Op {
+    }
+
+    public record Move(int from, int to, JsonNode row) implements Op {
+    }
+
+    public record Remove(int from) implements Op {
+    }
+
+    public record Update(int to, JsonNode row) implements Op {
+    }
+
+    /**
+     * Apply the keyed diff from the current {@code items} to {@code rows}.
+     * Nothing is changed, and false returned, when the rows cannot be keyed
+     * (no key field, a missing key or a duplicate key) or when more than half
+     * of the rows would move, in which case a full replacement is cheaper.
+     *
+     * @return true if {@code items} now holds {@code rows}
+     */
+    public static boolean applyKeyed(ObservableList<JsonNode> items,
+                                     List<JsonNode> rows, String keyField) {
+        RowDiff diff = compute(items, rows, keyField);
+        if (diff == null || !diff.isIncremental()) {
+            return false;
+        }
+        diff.applyTo(items);
+        return true;
+    }
+
+    /**
+     * @return the keyed diff from {@code before} to {@code after}, or null if
+     *         either list has a row without a key, or a duplicate key
+     */
+    public static RowDiff compute(List<JsonNode> before, List<JsonNode> after,
+                                  String keyField) {
+        if (keyField == null) {
+            return null;
+        }
+        Map<String, Integer> index = new HashMap<>(before.size() * 4 / 3
+                                                   + 1);
+        for (int i = 0; i < before.size(); i++) {
+            String key = key(before.get(i), keyField);
+            if (key == null || index.put(key, i) != null) {
+                return null;
+            }
+        }
+        boolean[] kept = new boolean[before.size()];
+        int[] source = new int[after.size()];
+        Set<String> inserted = new HashSet<>();
+        for (int j = 0; j < after.size(); j++) {
+            String key = key(after.get(j), keyField);
+            if (key == null) {
+                return null;
+            }
+            Integer i = index.get(key);
+            if (i == null) {
+                if (!inserted.add(key)) {
+                    return null;
+                }
+                source[j] = -1;
+            } else if (kept[i]) {
+                return null;
+            } else {
+                kept[i] = true;
+                source[j] = i;
+            }
+        }
+        boolean[] stable = longestIncreasingRun(source);
+
+        List<Op> ops = new ArrayList<>();
+        for (int i = before.size() - 1; i >= 0; i--) {
+            if (!kept[i]) {
+                ops.add(new Remove(i));
+            }
+        }
+        List<Op> updates = new ArrayList<>();
+        for (int j = 0; j < after.size(); j++) {
+            JsonNode row = after.get(j);
+            if (source[j] < 0) {
+                ops.add(new Insert(j, row));
+            } else if (!stable[j]) {
+                ops.add(new Move(source[j], j, row));
+            } else {
+                JsonNode old = before.get(source[j]);
+                if (old != row && !old.equals(row)) {
+                    updates.add(new Update(j, row));
+                }
+            }
+        }
+        ops.addAll(updates);
+        return new RowDiff(ops, before.size(), after.size());
+    }
+
+    /**
+     * The key of {@code row} in {@code keyField}, normalized to its text so
+     * that numerically equal keys of different node types (an int and a long
+     * 1) match. {@link DataSnapshot} hashes the same text, so both agree on
+     * which rows are the same row.
+     *
+     * @return the key, or null if the row has no value for the key field
+     */
+    static String key(JsonNode row, String keyField) {
+        JsonNode key = row == null ? null : row.get(keyField);
+        return key == null || key.isNull() ? null : key.asText();
+    }
+
+    /**
+     * @return for each position, whether it belongs to a longest strictly
+     *         increasing subsequence of the non-negative entries of
+     *         {@code source}
+     */
+    private static boolean[] longestIncreasingRun(int[] source) {
+        int n = source.length;
+        int[] tails = new int[n];   // position of the last element of each run length
+        int[] previous = new int[n];
+        int length = 0;
+        for (int j = 0; j < n; j++) {
+            if (source[j] < 0) {
+                continue;
+            }
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (source[tails[mid]] < source[j]) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            previous[j] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = j;
+            if (lo == length) {
+                length++;
+            }
+        }
+        boolean[] stable = new boolean[n];
+        for (int j = length > 0 ? tails[length - 1] : -1; j >= 0; j = previous[j]) {
+            stable[j] = true;
+        }
+        return stable;
+    }
+
+    private final int      afterSize;
+    private final int      beforeSize;
+    private final List<Op> operations;
+
+    private RowDiff(List<Op> operations, int beforeSize, int afterSize) {
+        this.operations = Collections.unmodifiableList(operations);
+        this.beforeSize = beforeSize;
+        this.afterSize = afterSize;
+    }
+
+    /**
+     * Transform {@code items}, which must hold the old rows, into the new
+     * rows. Contiguous removals and insertions are applied as single range
+     * operations.
+     */
+    public void applyTo(List<JsonNode> items) {
+        if (items.size() != beforeSize) {
+            throw new IllegalStateException(String.format("Expected %s rows, found %s",
+                                                          beforeSize,
+                                                          items.size()));
+        }
+        int[] removals = operations.stream()
+                                   .mapToInt(op -> switch (op) {
+                                       case Remove r -> r.from();
+                                       case Move m -> m.from();
+                                       default -> -1;
+                                   })
+                                   .filter(i -> i >= 0)
+                                   .sorted()
+                                   .toArray();
+        for (int end = removals.length; end > 0;) {
+            int start = end - 1;
+            while (start > 0 && removals[start - 1] == removals[start] - 1) {
+                start--;
+            }
+            removeRange(items, removals[start], removals[end - 1] + 1);
+            end = start;
+        }
+
+        List<Op> insertions = new ArrayList<>();
+        for (Op op : operations) {
+            if (op instanceof Insert || op instanceof Move) {
+                insertions.add(op);
+            }
+        }
+        insertions.sort((a, b) -> Integer.compare(to(a), to(b)));
+        for (int start = 0; start < insertions.size();) {
+            int end = start + 1;
+            while (end < insertions.size()
+                   && to(insertions.get(end)) == to(insertions.get(end - 1)) + 1) {
+                end++;
+            }
+            JsonNode[] run = new JsonNode[end - start];
+            for (int k = start; k < end; k++) {
+                run[k - start] = row(insertions.get(k));
+            }
+            items.addAll(to(insertions.get(start)), Arrays.asList(run));
+            start = end;
+        }
+
+        for (Op op : operations) {
+            if (op instanceof Update u) {
+                items.set(u.to(), u.row());
+            }
+        }
+        assert items.size() == afterSize;
+    }
+
+    public List<Op> getOperations() {
+        return operations;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * @return true if at most half of the rows are inserted, removed or
+     *         moved, so applying the diff is cheaper than a full replacement
+     */
+    public boolean isIncremental() {
+        return structuralChanges() <= Math.max(beforeSize, afterSize) / 2;
+    }
+
+    /**
+     * @return the number of inserted, removed and moved rows
+     */
+    public int structuralChanges() {
+        int count = 0;
+        for (Op op : operations) {
+            if (!(op instanceof Update)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RowDiff %s -> %s %s", beforeSize, afterSize,
+                             operations);
+    }
+
+    private static void removeRange(List<JsonNode> items, int from, int to) {
+        if (items instanceof ObservableList<JsonNode> observable) {
+            observable.remove(from, to);
+        } else {
+            items.subList(from, to)
+                 .clear();
+        }
+    }
+
+    private static JsonNode row(Op op) {
+        return switch (op) {
+            case Insert i -> i.row();
+            case Move m -> m.row();
+            case Update u -> u.row();
+            case Remove r -> throw new IllegalArgumentException(r.toString());
+        };
+    }
+
+    private static int to(Op op) {
+        return switch (op) {
+            case Insert i -> i.to();
+            case Move m -> m.to();
+            case Update u -> u.to();
+            case Remove r -> throw new IllegalArgumentException(r.toString());
+        };
+    }
+}
@@ -0,0 +1,130 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Bounded cache of {@link RelationLayout} row-pipeline results, keyed weakly
+ * by the identity of the source {@link JsonNode} and by stylesheet version.
+ *
+ * <p>{@code extractFrom()} runs the sort / filter / formula pipeline each time
+ * a cell is bound, which happens on every scroll of a nested relation. With
+ * this cache each child array is processed once per measure pass. Keys are
+ * held weakly so arrays of data that has been replaced can be collected;
+ * values never reference their key (an unchanged result is stored as a
+ * marker), and the least recently used entries are dropped beyond
+ * {@code capacity}.
+ *
+ * <p>Identity keys can't see a source array changed in place, so the owning
+ * layout clears the cache on every measure pass and whenever
+ * {@link AutoLayout} sees the fingerprint of its data change (see
+ * {@code RelationLayout.rowsChanged()}). Instances are thread safe.
+ */
+final class RowPipelineCache {
+
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private static final class Key extends WeakReference<JsonNode> {
+        private final int  hash;
+        private final long version;
+
+        Key(JsonNode referent, long version, ReferenceQueue<JsonNode> queue) {
+            super(referent, queue);
+            this.version = version;
+            this.hash = System.identityHashCode(referent) * 31
+                        + Long.hashCode(version);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            return obj instanceof Key other && version == other.version
+                   && get() != null && get() == other.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** Stored in place of a result that is the source node itself. */
+    private static final Object UNCHANGED = new Object();
+
+    private final LinkedHashMap<Key, Object> entries;
+    private long                             hits;
+    private long                             misses;
+    private final ReferenceQueue<JsonNode>   queue = new ReferenceQueue<>();
+
+    RowPipelineCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    RowPipelineCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: "
+                                               + capacity);
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        expunge();
+    }
+
+    /**
+     * @return the cached pipeline result for {@code source}, or null
+     */
+    synchronized JsonNode get(JsonNode source, long version) {
+        expunge();
+        Object result = entries.get(new Key(source, version, null));
+        if (result == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return result == UNCHANGED ? source : (JsonNode) result;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized void put(JsonNode source, long version, JsonNode result) {
+        expunge();
+        entries.put(new Key(source, version, queue),
+                    result == source ? UNCHANGED : result);
+    }
+
+    synchronized int size() {
+        expunge();
+        return entries.size();
+    }
+
+    private void expunge() {
+        Reference<? extends JsonNode> ref;
+        while ((ref = queue.poll()) != null) {
+            entries.remove(ref);
+        }
+    }
+}
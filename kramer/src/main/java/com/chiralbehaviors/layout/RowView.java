@@ -0,0 +1,305 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.chiralbehaviors.layout.expression.CompiledExpression;
+import com.chiralbehaviors.layout.expression.Expr;
+import com.chiralbehaviors.layout.expression.ExpressionEvaluator;
+import com.chiralbehaviors.layout.expression.RowBatch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * Zero-copy view over the rows of a relation datum, used by the
+ * {@link RelationLayout} expression pipeline (sort → hide-if-empty →
+ * filter-expression → formulas → sort-expression → collapse-duplicates).
+ *
+ * <p>The view holds a permutation of source row indices and a selection
+ * bitmap; sorting and filtering only rearrange {@code int[]} indices and clear
+ * bits, and never copy or mutate the source rows. Filter expressions and
+ * formulas are evaluated over all visible rows at once, as a
+ * {@link RowBatch}. Formula values live in that batch as overlay columns, one
+ * array per formula indexed by row; a row carrying its formula fields is
+ * materialized only when it is read, by a later sort, a duplicate check or
+ * {@link #toJsonNode()}, which collects the visible rows into a single array
+ * at the end of the pipeline.
+ *
+ * <p>Operations other than filtering apply only when the datum is array
+ * valued; filtering a non-array datum yields an array of its elements. Not
+ * thread safe.
+ */
+final class RowView {
+
+    private boolean          arrayValued;
+    private RowBatch         formulas;
+    private int[]            formulaRows;
+    private boolean          modified;
+    private int[]            order;
+    private final JsonNode[] rows;
+    private final BitSet     selected;
+    private final JsonNode   source;
+
+    RowView(JsonNode source) {
+        this.source = source;
+        this.arrayValued = source instanceof ArrayNode;
+        int n = source == null ? 0 : source.size();
+        if (source != null && !arrayValued) {
+            // Non-array containers are only ever filtered; snapshot their
+            // elements so they can be addressed by index like an array.
+            rows = new JsonNode[n];
+            int i = 0;
+            for (JsonNode element : source) {
+                rows[i++] = element;
+            }
+        } else {
+            rows = null;
+        }
+        order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        selected = new BitSet(n);
+        selected.set(0, n);
+    }
+
+    /**
+     * Overlay formula results on every visible row. Formulas are evaluated in
+     * the given order against the row including earlier formula results.
+     */
+    RowView applyFormulas(List<Map.Entry<String, Expr>> formulas,
+                          ExpressionEvaluator evaluator) {
+        if (!arrayValued || formulas.isEmpty()) {
+            return this;
+        }
+        List<Map.Entry<String, CompiledExpression>> compiled = new ArrayList<>(formulas.size());
+        for (var entry : formulas) {
+            compiled.add(Map.entry(entry.getKey(),
+                                   evaluator.specialize(entry.getValue())));
+        }
+        int[] visible = permutation();
+        // Each formula is evaluated over all rows at once and overlaid as a
+        // typed column, which a later formula reads like a field of the rows;
+        // a numeric formula stays a double[] until a row is materialized
+        RowBatch batch = new RowBatch(rows(visible));
+        for (var entry : compiled) {
+            batch.put(entry.getKey(), entry.getValue()
+                                           .evaluateColumn(batch));
+        }
+        int[] positions = new int[order.length];
+        Arrays.fill(positions, -1);
+        for (int k = 0; k < visible.length; k++) {
+            positions[visible[k]] = k;
+        }
+        this.formulas = batch;
+        formulaRows = positions;
+        modified = true;
+        return this;
+    }
+
+    /**
+     * Deselect consecutive visible rows whose top-level fields are all equal
+     * as text to the preceding visible row.
+     */
+    RowView collapseDuplicates() {
+        if (!arrayValued) {
+            return this;
+        }
+        JsonNode prev = null;
+        for (int p = 0; p < order.length; p++) {
+            int i = order[p];
+            if (!selected.get(i)) {
+                continue;
+            }
+            JsonNode row = row(i);
+            if (prev != null && RelationLayout.rowsEqual(prev, row)) {
+                selected.clear(i);
+                modified = true;
+            }
+            prev = row;
+        }
+        return this;
+    }
+
+    /**
+     * Deselect visible rows that fail {@code predicate}, evaluated over all
+     * visible rows at once; see {@link CompiledExpression#select(RowBatch)}.
+     */
+    RowView filter(CompiledExpression predicate) {
+        int[] visible = permutation();
+        BitSet pass = predicate.select(new RowBatch(rows(visible)));
+        for (int k = pass.nextClearBit(0); k < visible.length; k = pass.nextClearBit(k + 1)) {
+            selected.clear(visible[k]);
+        }
+        arrayValued = true;
+        modified = true;
+        return this;
+    }
+
+    /**
+     * Deselect visible rows that fail the predicate.
+     */
+    RowView filter(Predicate<JsonNode> predicate) {
+        for (int p = 0; p < order.length; p++) {
+            int i = order[p];
+            if (selected.get(i) && !predicate.test(row(i))) {
+                selected.clear(i);
+            }
+        }
+        // A filtered datum is always array valued, even if nothing was removed
+        arrayValued = true;
+        modified = true;
+        return this;
+    }
+
+    /**
+     * @return true if the datum is an array, or has been filtered into one
+     */
+    boolean isArrayValued() {
+        return arrayValued;
+    }
+
+    /**
+     * @return true if the source row at {@code index} is visible
+     */
+    boolean isSelected(int index) {
+        return selected.get(index);
+    }
+
+    /**
+     * @return the source row indices of the visible rows, in view order
+     */
+    int[] permutation() {
+        int[] visible = new int[size()];
+        int k = 0;
+        for (int i : order) {
+            if (selected.get(i)) {
+                visible[k++] = i;
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Order the visible rows as they appear in {@code sorted}, a sorted
+     * permutation of every source row such as a {@link SortPermutationCache}
+     * entry; deselected rows keep their relative order after them. Only valid
+     * before any other reordering, when it matches the stable sort that
+     * produced {@code sorted}.
+     */
+    RowView reorder(int[] sorted) {
+        if (!arrayValued || size() <= 1) {
+            return this;
+        }
+        int[] reordered = new int[order.length];
+        int k = 0;
+        for (int i : sorted) {
+            if (selected.get(i)) {
+                reordered[k++] = i;
+            }
+        }
+        for (int i : order) {
+            if (!selected.get(i)) {
+                reordered[k++] = i;
+            }
+        }
+        order = reordered;
+        modified = true;
+        return this;
+    }
+
+    /**
+     * @return the visible rows in view order, as an unmodifiable list backed
+     *         by a snapshot of the current permutation
+     */
+    List<JsonNode> rows() {
+        return rows(permutation());
+    }
+
+    int size() {
+        return selected.cardinality();
+    }
+
+    /**
+     * Stable sort of the visible rows; deselected rows keep their relative
+     * order after them. A {@link SortKeys} comparator sorts on key columns
+     * extracted once per row, in parallel for large views; any other
+     * comparator is applied to the rows themselves.
+     */
+    RowView sort(Comparator<JsonNode> comparator) {
+        if (comparator == null || !arrayValued || size() <= 1) {
+            return this;
+        }
+        int[] visible = permutation();
+        if (comparator instanceof SortKeys keys) {
+            SortKeys.sort(visible,
+                          keys.columns(visible, order.length, this::row),
+                          true);
+        } else {
+            SortKeys.sort(visible,
+                          (a, b) -> comparator.compare(row(a), row(b)),
+                          false);
+        }
+        int k = visible.length;
+        int[] reordered = new int[order.length];
+        System.arraycopy(visible, 0, reordered, 0, k);
+        for (int i : order) {
+            if (!selected.get(i)) {
+                reordered[k++] = i;
+            }
+        }
+        order = reordered;
+        modified = true;
+        return this;
+    }
+
+    /**
+     * @return the source datum itself if no operation changed it, otherwise a
+     *         new array referencing the visible (overlaid) rows in view order
+     */
+    JsonNode toJsonNode() {
+        if (!modified) {
+            return source;
+        }
+        ArrayNode result = JsonNodeFactory.instance.arrayNode(size());
+        for (int i : order) {
+            if (selected.get(i)) {
+                result.add(row(i));
+            }
+        }
+        return result;
+    }
+
+    private JsonNode base(int index) {
+        return rows != null ? rows[index] : source.get(index);
+    }
+
+    private JsonNode row(int index) {
+        if (formulas != null && formulaRows[index] >= 0) {
+            return formulas.row(formulaRows[index]);
+        }
+        return base(index);
+    }
+
+    private List<JsonNode> rows(int[] visible) {
+        return new AbstractList<>() {
+            @Override
+            public JsonNode get(int index) {
+                return row(visible[index]);
+            }
+
+            @Override
+            public int size() {
+                return visible.length;
+            }
+        };
+    }
+}
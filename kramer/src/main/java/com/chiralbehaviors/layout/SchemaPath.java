@@ -1,29 +1,88 @@
 // SPDX-License-Identifier: Apache-2.0
 package com.chiralbehaviors.layout;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Immutable path addressing a schema node within a schema tree.
  * Solves the field-name uniqueness problem (RF-3): the same field name
  * can appear at multiple nesting levels, but each SchemaPath is unique.
  *
+ * <p>Paths are interned in a process-wide path table: each distinct path has
+ * one canonical node with a dense int {@link #id()}, a precomputed hash and a
+ * {@link #parent()} pointer, and {@link #child(String)} returns that canonical
+ * node without allocating once the child has been seen. Equality and hashing
+ * are by id, so path-keyed hash maps never walk the segments, and
+ * {@link SchemaPathMap} can index by id directly. Paths built with the public
+ * constructors are resolved against the table and share the canonical id.
+ *
+ * <p>The table holds its nodes weakly: a node is kept alive by the paths that
+ * reference it, its descendants among them, and is dropped with the schema
+ * that used it. The id of a dropped node is reused, so ids stay dense over
+ * the paths in use and id-indexed maps are bounded by them rather than by
+ * every path ever seen.
+ *
  * @see com.chiralbehaviors.layout.schema.SchemaNode
  */
-public record SchemaPath(List<String> segments) {
+public final class SchemaPath {
 
-    public SchemaPath {
-        segments = List.copyOf(Objects.requireNonNull(segments));
+    /** Weak table entry; remembers where it is stored and its node's id. */
+    private static final class Entry extends WeakReference<SchemaPath> {
+        private final String                           field;
+        private final int                              id;
+        private final ConcurrentHashMap<String, Entry> table;
+
+        Entry(SchemaPath node, ConcurrentHashMap<String, Entry> table) {
+            super(node, QUEUE);
+            this.field = node.leaf;
+            this.id = node.id;
+            this.table = table;
+        }
     }
 
-    public SchemaPath(String root) {
-        this(List.of(root));
+    /**
+     * Every table entry, so that an entry is still enqueued when the table
+     * holding it, a dropped parent's, is collected along with its node.
+     */
+    private static final Set<Entry>                       ENTRIES = ConcurrentHashMap.newKeySet();
+    private static final ReferenceQueue<SchemaPath>       QUEUE   = new ReferenceQueue<>();
+    private static final AtomicInteger                    NEXT_ID = new AtomicInteger();
+    private static final ConcurrentHashMap<String, Entry> ROOTS   = new ConcurrentHashMap<>();
+    /** Ids of dropped nodes, reused before new ids; guarded by the class lock. */
+    private static int[]                                  freeIds = new int[16];
+    private static int                                    freeCount;
+
+    /**
+     * @return an upper bound of the ids of interned paths: every {@link #id()}
+     *         is below it
+     */
+    public static int internedCount() {
+        return NEXT_ID.get();
     }
 
-    public SchemaPath(String first, String... rest) {
-        this(buildSegments(first, rest));
+    /**
+     * Sanitizes a raw field name into a valid CSS identifier token.
+     */
+    public static String sanitize(String raw) {
+        if (raw == null || raw.isEmpty()) {
+            return "_unknown";
+        }
+        String cleaned = raw.replaceAll("[^a-zA-Z0-9_-]", "_");
+        if (Character.isDigit(cleaned.charAt(0))) {
+            cleaned = "_" + cleaned;
+        }
+        return cleaned;
     }
 
     private static List<String> buildSegments(String first, String[] rest) {
@@ -35,14 +94,122 @@ public record SchemaPath(List<String> segments) {
         return list;
     }
 
-    public SchemaPath child(String field) {
-        var extended = new ArrayList<>(segments);
-        extended.add(field);
-        return new SchemaPath(extended);
+    private static SchemaPath intern(List<String> segments) {
+        Objects.requireNonNull(segments);
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("A schema path needs at least one segment");
+        }
+        SchemaPath path = root(segments.get(0));
+        for (int i = 1; i < segments.size(); i++) {
+            path = path.child(segments.get(i));
+        }
+        return path;
     }
 
-    public String leaf() {
-        return segments.getLast();
+    /**
+     * @return the live node of {@code field} in {@code table}, interning a new
+     *         node below {@code parent} when there is none
+     */
+    private static SchemaPath lookup(ConcurrentHashMap<String, Entry> table,
+                                     SchemaPath parent, String field) {
+        Entry entry = table.get(Objects.requireNonNull(field));
+        SchemaPath node = entry == null ? null : entry.get();
+        if (node != null) {
+            return node;
+        }
+        synchronized (SchemaPath.class) {
+            expunge();
+            entry = table.get(field);
+            node = entry == null ? null : entry.get();
+            if (node == null) {
+                int id = freeCount > 0 ? freeIds[--freeCount]
+                                       : NEXT_ID.getAndIncrement();
+                node = new SchemaPath(parent, field, id);
+                entry = new Entry(node, table);
+                ENTRIES.add(entry);
+                table.put(field, entry);
+            }
+            return node;
+        }
+    }
+
+    /** Drop the entries of collected nodes and free their ids. */
+    private static void expunge() {
+        Entry entry;
+        while ((entry = (Entry) QUEUE.poll()) != null) {
+            ENTRIES.remove(entry);
+            entry.table.remove(entry.field, entry);
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            }
+            freeIds[freeCount++] = entry.id;
+        }
+    }
+
+    private static SchemaPath root(String field) {
+        return lookup(ROOTS, null, field);
+    }
+
+    /** Canonical child nodes by field; null on non-canonical instances. */
+    private final ConcurrentHashMap<String, Entry>      children;
+    private final SchemaPath                            canonical;
+    private final int                                   depth;
+    private final int                                   hash;
+    private final int                                   id;
+    private final String                                leaf;
+    private final SchemaPath                            parent;
+    private final List<String>                          segments;
+
+    @JsonCreator
+    public SchemaPath(@JsonProperty("segments") List<String> segments) {
+        this(intern(segments));
+    }
+
+    public SchemaPath(String root) {
+        this(root(root));
+    }
+
+    public SchemaPath(String first, String... rest) {
+        this(buildSegments(first, rest));
+    }
+
+    /** Interned node constructor. */
+    private SchemaPath(SchemaPath parent, String leaf, int id) {
+        this.canonical = this;
+        this.children = new ConcurrentHashMap<>();
+        this.parent = parent;
+        this.leaf = Objects.requireNonNull(leaf);
+        this.id = id;
+        this.hash = id * 0x9e3779b9;
+        if (parent == null) {
+            this.depth = 1;
+            this.segments = List.of(leaf);
+        } else {
+            this.depth = parent.depth + 1;
+            var list = new ArrayList<String>(depth);
+            list.addAll(parent.segments);
+            list.add(leaf);
+            this.segments = List.copyOf(list);
+        }
+    }
+
+    /** A public-constructor view of an interned node. */
+    private SchemaPath(SchemaPath canonical) {
+        this.canonical = canonical;
+        this.children = null;
+        this.parent = canonical.parent;
+        this.leaf = canonical.leaf;
+        this.id = canonical.id;
+        this.hash = canonical.hash;
+        this.depth = canonical.depth;
+        this.segments = canonical.segments;
+    }
+
+    /**
+     * @return the interned path of {@code field} below this one
+     */
+    public SchemaPath child(String field) {
+        return lookup(canonical.children, canonical, field);
     }
 
     /**
@@ -58,17 +225,57 @@ public record SchemaPath(List<String> segments) {
     }
 
     /**
-     * Sanitizes a raw field name into a valid CSS identifier token.
+     * @return the number of segments in this path
      */
-    public static String sanitize(String raw) {
-        if (raw == null || raw.isEmpty()) {
-            return "_unknown";
-        }
-        String cleaned = raw.replaceAll("[^a-zA-Z0-9_-]", "_");
-        if (Character.isDigit(cleaned.charAt(0))) {
-            cleaned = "_" + cleaned;
+    public int depth() {
+        return depth;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SchemaPath other && other.id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * @return the dense id of this path in the path table
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * @return true if {@code ancestor} is a proper prefix of this path
+     */
+    public boolean isDescendantOf(SchemaPath ancestor) {
+        SchemaPath p = parent;
+        while (p != null && p.depth >= ancestor.depth) {
+            if (p.id == ancestor.id) {
+                return true;
+            }
+            p = p.parent;
         }
-        return cleaned;
+        return false;
+    }
+
+    public String leaf() {
+        return leaf;
+    }
+
+    /**
+     * @return the path without its leaf segment, or null for a root path
+     */
+    public SchemaPath parent() {
+        return parent;
+    }
+
+    @JsonProperty
+    public List<String> segments() {
+        return segments;
     }
 
     @Override
@@ -0,0 +1,102 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Map keyed by {@link SchemaPath}, stored as an array indexed by
+ * {@link SchemaPath#id()}. Lookups are an array read: no hashing, no
+ * allocation. Sized by the largest id stored, so it suits maps over the paths
+ * of one schema, such as stylesheet overrides. Not thread safe.
+ */
+final class SchemaPathMap<V> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private SchemaPath[] keys   = new SchemaPath[0];
+    private int          size;
+    private Object[]     values = EMPTY;
+
+    void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    V computeIfAbsent(SchemaPath path, Function<SchemaPath, V> factory) {
+        V value = get(path);
+        if (value == null) {
+            value = factory.apply(path);
+            put(path, value);
+        }
+        return value;
+    }
+
+    boolean containsKey(SchemaPath path) {
+        return get(path) != null;
+    }
+
+    void forEach(BiConsumer<SchemaPath, V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], value(i));
+            }
+        }
+    }
+
+    V get(SchemaPath path) {
+        int id = path.id();
+        return id < values.length ? value(id) : null;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param value
+     *            the value; null removes the mapping
+     * @return the previous value, or null
+     */
+    V put(SchemaPath path, V value) {
+        if (value == null) {
+            return remove(path);
+        }
+        int id = path.id();
+        if (id >= values.length) {
+            int capacity = Math.max(id + 1, values.length * 2);
+            values = Arrays.copyOf(values, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+        V previous = value(id);
+        if (previous == null) {
+            size++;
+        }
+        keys[id] = path;
+        values[id] = value;
+        return previous;
+    }
+
+    V remove(SchemaPath path) {
+        int id = path.id();
+        if (id >= values.length || values[id] == null) {
+            return null;
+        }
+        V previous = value(id);
+        keys[id] = null;
+        values[id] = null;
+        size--;
+        return previous;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int id) {
+        return (V) values[id];
+    }
+}
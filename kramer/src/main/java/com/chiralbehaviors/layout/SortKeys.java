@@ -0,0 +1,415 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+import com.chiralbehaviors.layout.expression.CompiledExpression;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Row sort specification whose keys are extracted once per row.
+ *
+ * <p>As a {@link Comparator} it orders rows exactly like the chained
+ * {@link RelationLayout#fieldComparator(String) field} and sort-expression
+ * comparators it replaces. {@link RowView} does not use it that way: it calls
+ * {@link #columns(int[], int, IntFunction)} to extract every key of every
+ * visible row into typed columns up front — a {@code double[]} for numeric
+ * values, a {@code String[]} of text only when a field holds text, and the
+ * evaluated result of a sort expression — and then merge sorts an
+ * {@code int[]} permutation of row indices against those columns. A
+ * comparison is then a few array reads instead of field lookups, text
+ * conversion and expression evaluation for both operands.
+ *
+ * <p>Immutable; the extracted columns are read only, so large permutations
+ * are sorted by a parallel merge sort with the same stable order.
+ */
+final class SortKeys implements Comparator<JsonNode> {
+
+    /**
+     * Compares two rows by index.
+     */
+    @FunctionalInterface
+    interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    /** One sort key: compares rows directly, or extracts a key column. */
+    private interface Key {
+        int compare(JsonNode a, JsonNode b);
+
+        IndexComparator extract(int[] rows, int size, IntFunction<JsonNode> row);
+    }
+
+    private record ExpressionKey(CompiledExpression expression) implements Key {
+        @Override
+        public int compare(JsonNode a, JsonNode b) {
+            return RelationLayout.compareValues(expression.evaluate(a),
+                                                expression.evaluate(b));
+        }
+
+        @Override
+        public IndexComparator extract(int[] rows, int size,
+                                       IntFunction<JsonNode> row) {
+            Object[] values = new Object[size];
+            boolean numeric = true;
+            for (int i : rows) {
+                Object value = expression.evaluate(row.apply(i));
+                values[i] = value;
+                numeric &= value == null || value instanceof Double;
+            }
+            if (!numeric) {
+                return (a, b) -> RelationLayout.compareValues(values[a],
+                                                              values[b]);
+            }
+            boolean[] missing = new boolean[size];
+            double[] numbers = new double[size];
+            for (int i : rows) {
+                if (values[i] == null) {
+                    missing[i] = true;
+                } else {
+                    numbers[i] = (Double) values[i];
+                }
+            }
+            return (a, b) -> {
+                if (missing[a] || missing[b]) {
+                    return missing[a] == missing[b] ? 0 : missing[a] ? 1 : -1;
+                }
+                return Double.compare(numbers[a], numbers[b]);
+            };
+        }
+    }
+
+    private record FieldKey(String key, int dir) implements Key {
+        private static final byte MISSING = 0;
+        private static final byte NUMBER  = 1;
+        private static final byte TEXT    = 2;
+
+        @Override
+        public int compare(JsonNode a, JsonNode b) {
+            JsonNode va = valueOf(a);
+            JsonNode vb = valueOf(b);
+            if (va == null && vb == null) return 0;
+            if (va == null)               return 1;   // nulls last (direction-independent)
+            if (vb == null)               return -1;
+            if (va.isNumber() && vb.isNumber()) {
+                return dir * Double.compare(va.asDouble(), vb.asDouble());
+            }
+            return dir * va.asText().compareTo(vb.asText());
+        }
+
+        @Override
+        public IndexComparator extract(int[] rows, int size,
+                                       IntFunction<JsonNode> row) {
+            byte[] kind = new byte[size];
+            double[] numbers = new double[size];
+            String[] texts = null;
+            boolean anyNumber = false;
+            for (int i : rows) {
+                JsonNode v = valueOf(row.apply(i));
+                if (v == null) {
+                    continue;
+                }
+                if (v.isNumber()) {
+                    kind[i] = NUMBER;
+                    numbers[i] = v.asDouble();
+                    anyNumber = true;
+                } else {
+                    if (texts == null) {
+                        texts = new String[size];
+                    }
+                    kind[i] = TEXT;
+                    texts[i] = v.asText();
+                }
+            }
+            if (texts != null && anyNumber) {
+                // Mixed column: numbers compare as text against text values
+                for (int i : rows) {
+                    if (kind[i] == NUMBER) {
+                        texts[i] = valueOf(row.apply(i)).asText();
+                    }
+                }
+            }
+            String[] text = texts;
+            int d = dir;
+            return (a, b) -> {
+                byte ka = kind[a];
+                byte kb = kind[b];
+                if (ka == MISSING || kb == MISSING) {
+                    return ka == kb ? 0 : ka == MISSING ? 1 : -1;
+                }
+                if (ka == NUMBER && kb == NUMBER) {
+                    return d * Double.compare(numbers[a], numbers[b]);
+                }
+                return d * text[a].compareTo(text[b]);
+            };
+        }
+
+        /**
+         * @return the key's value in {@code row}, or null if it is missing
+         */
+        JsonNode valueOf(JsonNode row) {
+            JsonNode v = row == null ? null : row.get(key);
+            return v == null || v.isNull() ? null : v;
+        }
+    }
+
+    /**
+     * Parallel stable merge sort of one range: halves are sorted
+     * concurrently and merged by the task that forked them.
+     */
+    @SuppressWarnings("serial")
+    private static final class MergeTask extends RecursiveAction {
+        private final int[]           a;
+        private final IndexComparator cmp;
+        private final int             from;
+        private final int[]           tmp;
+        private final int             to;
+
+        MergeTask(int[] a, int[] tmp, int from, int to, IndexComparator cmp) {
+            this.a = a;
+            this.tmp = tmp;
+            this.from = from;
+            this.to = to;
+            this.cmp = cmp;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                mergeSort(a, tmp, from, to, cmp);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MergeTask(a, tmp, from, mid, cmp),
+                      new MergeTask(a, tmp, mid, to, cmp));
+            merge(a, tmp, from, mid, to, cmp);
+        }
+    }
+
+    /** Ranges longer than this are sorted in parallel. */
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * @return a key on the sort field {@code field}; a leading {@code -}
+     *         sorts it descending
+     */
+    static SortKeys field(String field) {
+        boolean descending = field.startsWith("-");
+        return new SortKeys(new FieldKey(descending ? field.substring(1)
+                                                    : field,
+                                         descending ? -1 : 1));
+    }
+
+    /**
+     * @return keys on {@code fields} in order, each as
+     *         {@link #field(String)}; null when there are none
+     */
+    static SortKeys fields(List<String> fields) {
+        if (fields.isEmpty()) {
+            return null;
+        }
+        Key[] keys = new Key[fields.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = field(fields.get(i)).keys[0];
+        }
+        return new SortKeys(keys);
+    }
+
+    /**
+     * @return a key on the value of {@code expression}, ascending
+     */
+    static SortKeys expression(CompiledExpression expression) {
+        return new SortKeys(new ExpressionKey(expression));
+    }
+
+    /**
+     * Stable sort of {@code a}. Sorts in parallel when {@code parallel} is set,
+     * the array is large and there is more than one worker; {@code cmp} must
+     * then be safe to call concurrently.
+     */
+    static void sort(int[] a, IndexComparator cmp, boolean parallel) {
+        int[] tmp = new int[a.length];
+        if (parallel && a.length > PARALLEL_THRESHOLD
+            && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            new MergeTask(a, tmp, 0, a.length, cmp).invoke();
+        } else {
+            mergeSort(a, tmp, 0, a.length, cmp);
+        }
+    }
+
+    private static void merge(int[] a, int[] tmp, int from, int mid, int to,
+                              IndexComparator cmp) {
+        if (cmp.compare(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            a[k++] = cmp.compare(tmp[j], tmp[i]) < 0 ? tmp[j++] : tmp[i++];
+        }
+        while (i < mid) {
+            a[k++] = tmp[i++];
+        }
+        while (j < to) {
+            a[k++] = tmp[j++];
+        }
+    }
+
+    /**
+     * Stable merge sort of {@code a[from, to)} using {@code tmp} as scratch.
+     */
+    private static void mergeSort(int[] a, int[] tmp, int from, int to,
+                                  IndexComparator cmp) {
+        if (to - from < 2) {
+            return;
+        }
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int v = a[i];
+                int j = i - 1;
+                while (j >= from && cmp.compare(a[j], v) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, cmp);
+        mergeSort(a, tmp, mid, to, cmp);
+        merge(a, tmp, from, mid, to, cmp);
+    }
+
+    private final Key[] keys;
+
+    private SortKeys(Key... keys) {
+        this.keys = keys;
+    }
+
+    @Override
+    public int compare(JsonNode a, JsonNode b) {
+        for (Key key : keys) {
+            int c = key.compare(a, b);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Extract the key columns of {@code rows}.
+     *
+     * @param rows
+     *            indices of the rows to be sorted
+     * @param size
+     *            one past the largest row index
+     * @param row
+     *            the row at an index
+     * @return a comparator of row indices over the extracted columns, only
+     *         valid for {@code rows}
+     */
+    IndexComparator columns(int[] rows, int size, IntFunction<JsonNode> row) {
+        if (keys.length == 1) {
+            return keys[0].extract(rows, size, row);
+        }
+        IndexComparator[] columns = new IndexComparator[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            columns[k] = keys[k].extract(rows, size, row);
+        }
+        return (a, b) -> {
+            for (IndexComparator column : columns) {
+                int c = column.compare(a, b);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * Derive the order of the opposite sort from {@code order}, this sort's
+     * stable order of every row of a source, without comparing keys beyond
+     * adjacent rows: runs of equal keys are reversed as blocks, each keeping
+     * its source order, and rows missing the key stay last.
+     *
+     * @return the order a stable sort on the field in the opposite direction
+     *         produces, or null if it cannot be derived: the sort has more
+     *         than one key, or the field mixes numbers and text, whose
+     *         ordering is not a total order
+     */
+    int[] reverse(int[] order, IntFunction<JsonNode> row) {
+        if (keys.length != 1 || !(keys[0] instanceof FieldKey key)) {
+            return null;
+        }
+        int keyed = order.length;
+        while (keyed > 0 && key.valueOf(row.apply(order[keyed - 1])) == null) {
+            keyed--;
+        }
+        boolean numbers = false;
+        boolean text = false;
+        for (int p = 0; p < keyed; p++) {
+            if (key.valueOf(row.apply(order[p]))
+                   .isNumber()) {
+                numbers = true;
+            } else {
+                text = true;
+            }
+        }
+        if (numbers && text) {
+            return null;
+        }
+        int[] reversed = new int[order.length];
+        int k = 0;
+        int end = keyed;
+        while (end > 0) {
+            int start = end - 1;
+            while (start > 0 && key.compare(row.apply(order[start - 1]),
+                                            row.apply(order[start])) == 0) {
+                start--;
+            }
+            System.arraycopy(order, start, reversed, k, end - start);
+            k += end - start;
+            end = start;
+        }
+        System.arraycopy(order, keyed, reversed, keyed, order.length - keyed);
+        return reversed;
+    }
+
+    /**
+     * @return the keys with every field's direction flipped, or null if a key
+     *         is an expression
+     */
+    List<String> reversedFields() {
+        String[] fields = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            if (!(keys[i] instanceof FieldKey key)) {
+                return null;
+            }
+            fields[i] = key.dir() < 0 ? key.key() : "-" + key.key();
+        }
+        return List.of(fields);
+    }
+
+    /**
+     * Chaining another {@code SortKeys} concatenates the keys, so the result
+     * still extracts columns; any other comparator chains as usual.
+     */
+    @Override
+    public Comparator<JsonNode> thenComparing(Comparator<? super JsonNode> other) {
+        if (other instanceof SortKeys next) {
+            Key[] chained = Arrays.copyOf(keys, keys.length + next.keys.length);
+            System.arraycopy(next.keys, 0, chained, keys.length,
+                             next.keys.length);
+            return new SortKeys(chained);
+        }
+        return Comparator.super.thenComparing(other);
+    }
+}
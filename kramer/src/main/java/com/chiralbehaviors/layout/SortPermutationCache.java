@@ -0,0 +1,166 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * Bounded cache of the sorted order of {@link RelationLayout} rows, keyed
+ * weakly by the identity of the source array and by sort specification (the
+ * effective {@code sort-fields}).
+ *
+ * <p>Sorting by a column header only changes the sort specification, so each
+ * order a user visits is computed once per source array: returning to an
+ * earlier sort reuses its stored permutation, and the opposite direction of a
+ * cached single-field sort is derived from it by
+ * {@link SortKeys#reverse(int[], java.util.function.IntFunction)} instead of
+ * being sorted again. Entries do not depend on the stylesheet version, so
+ * a sort change applied without a remeasure keeps them. Identity keys can't
+ * see an array changed in place, so the owning layout clears the cache on
+ * every measure and whenever {@link AutoLayout} sees the fingerprint of its
+ * data change; a permutation whose length no longer matches its array is
+ * still treated as a miss rather than handed out to index past the rows.
+ * Permutations handed out are shared and must not be modified. Instances
+ * are thread safe.
+ */
+final class SortPermutationCache {
+
+    static final int DEFAULT_CAPACITY = 256;
+    /** Arrays shorter than this sort faster than a cache lookup pays off. */
+    static final int MIN_ROWS         = 64;
+
+    private static final class Key extends WeakReference<JsonNode> {
+        private final int          hash;
+        private final List<String> spec;
+
+        Key(JsonNode referent, List<String> spec,
+            ReferenceQueue<JsonNode> queue) {
+            super(referent, queue);
+            this.spec = spec;
+            this.hash = System.identityHashCode(referent) * 31
+                        + spec.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            return obj instanceof Key other && get() != null
+                   && get() == other.get() && spec.equals(other.spec);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final LinkedHashMap<Key, int[]> entries;
+    private long                            hits;
+    private long                            misses;
+    private final ReferenceQueue<JsonNode>  queue = new ReferenceQueue<>();
+    private long                            reversals;
+
+    SortPermutationCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    SortPermutationCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: "
+                                               + capacity);
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        expunge();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of permutations derived by reversing a cached one
+     */
+    synchronized long getReversals() {
+        return reversals;
+    }
+
+    /**
+     * @return the source row indices of {@code source} in the order of
+     *         {@code keys}, which sort on {@code spec}; computed on a miss
+     */
+    int[] permutation(ArrayNode source, List<String> spec, SortKeys keys) {
+        int[] order;
+        List<String> opposite = keys.reversedFields();
+        int[] reversible;
+        synchronized (this) {
+            expunge();
+            order = entries.get(new Key(source, spec, null));
+            if (order != null && order.length == source.size()) {
+                hits++;
+                return order;
+            }
+            // An array mutated in place since it was cached is a miss
+            order = null;
+            misses++;
+            reversible = opposite == null ? null
+                                          : entries.get(new Key(source,
+                                                                opposite,
+                                                                null));
+            if (reversible != null && reversible.length != source.size()) {
+                reversible = null;
+            }
+        }
+        // Sort outside the lock; concurrent misses compute the same order
+        if (reversible != null) {
+            order = keys.reverse(reversible, source::get);
+        }
+        boolean reversed = order != null;
+        if (order == null) {
+            order = new RowView(source).sort(keys)
+                                       .permutation();
+        }
+        synchronized (this) {
+            if (reversed) {
+                reversals++;
+            }
+            entries.put(new Key(source, spec, queue), order);
+        }
+        return order;
+    }
+
+    synchronized int size() {
+        expunge();
+        return entries.size();
+    }
+
+    private void expunge() {
+        Reference<? extends JsonNode> ref;
+        while ((ref = queue.poll()) != null) {
+            entries.remove(ref);
+        }
+    }
+}
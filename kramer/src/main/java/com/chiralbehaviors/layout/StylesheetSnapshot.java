@@ -0,0 +1,137 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static com.chiralbehaviors.layout.LayoutPropertyKeys.*;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled view of a {@link LayoutStylesheet} at one version. Each schema path
+ * resolves to an immutable {@link PathProperties} record holding every
+ * property the measure phase reads, typed and with defaults applied. The
+ * record is compiled through the stylesheet's own getters the first time the
+ * path is asked for, so decorators are resolved once per path per version and
+ * measure reads fields instead of issuing a lookup per property.
+ *
+ * <p>A snapshot is only meaningful for the {@link #getVersion() version} it
+ * was built at; stylesheets hand out a new one when their version changes.
+ *
+ * @see LayoutStylesheet#snapshot()
+ */
+public final class StylesheetSnapshot {
+
+    /**
+     * Typed properties of one schema path.
+     *
+     * @param sortFields
+     *            parsed {@code sort-fields}; empty when unset
+     * @param renderMode
+     *            {@code render-mode}; "auto" when unset
+     * @param pivotField
+     *            {@code pivot-field}; empty when unset
+     * @param columnWidth
+     *            {@code column-width}; -1 when unset
+     */
+    public record PathProperties(boolean visible, String renderMode,
+                                 boolean hideIfEmpty, List<String> sortFields,
+                                 String filterExpression,
+                                 String formulaExpression,
+                                 String aggregateExpression,
+                                 String sortExpression, String pivotField,
+                                 String aggregatePosition,
+                                 boolean collapseDuplicates, String cellFormat,
+                                 double columnWidth, int statMinSamples,
+                                 double statConvergenceEpsilon,
+                                 int statConvergenceK, int statSketchK,
+                                 int badgeCardinalityThreshold) {
+
+        static PathProperties compile(LayoutStylesheet s, SchemaPath path) {
+            String sortFields = s.getString(path, SORT_FIELDS, "");
+            return new PathProperties(s.getBoolean(path, VISIBLE, true),
+                                      s.getString(path, RENDER_MODE, "auto"),
+                                      s.getBoolean(path, HIDE_IF_EMPTY, false),
+                                      sortFields == null
+                                      || sortFields.isEmpty() ? List.of()
+                                                              : List.of(sortFields.split(",")),
+                                      s.getString(path, FILTER_EXPRESSION, null),
+                                      s.getString(path, FORMULA_EXPRESSION, null),
+                                      s.getString(path, AGGREGATE_EXPRESSION, null),
+                                      s.getString(path, SORT_EXPRESSION, null),
+                                      s.getString(path, PIVOT_FIELD, ""),
+                                      s.getString(path, AGGREGATE_POSITION, null),
+                                      s.getBoolean(path, COLLAPSE_DUPLICATES, false),
+                                      s.getString(path, CELL_FORMAT, null),
+                                      s.getDouble(path, COLUMN_WIDTH, -1.0),
+                                      s.getInt(path, STAT_MIN_SAMPLES,
+                                               PrimitiveLayout.MIN_SAMPLES),
+                                      s.getDouble(path, STAT_CONVERGENCE_EPSILON, 1.0),
+                                      s.getInt(path, STAT_CONVERGENCE_K, 3),
+                                      s.getInt(path, STAT_SKETCH_K,
+                                               QuantileSketch.DEFAULT_K),
+                                      s.getInt(path, BADGE_CARDINALITY_THRESHOLD, 10));
+        }
+
+        /**
+         * @return these properties with {@code sortFields} replaced
+         */
+        public PathProperties withSortFields(List<String> sortFields) {
+            return new PathProperties(visible, renderMode, hideIfEmpty,
+                                      sortFields, filterExpression,
+                                      formulaExpression, aggregateExpression,
+                                      sortExpression, pivotField,
+                                      aggregatePosition, collapseDuplicates,
+                                      cellFormat, columnWidth, statMinSamples,
+                                      statConvergenceEpsilon, statConvergenceK,
+                                      statSketchK, badgeCardinalityThreshold);
+        }
+    }
+
+    /**
+     * @return the snapshot of {@code stylesheet}, or null when there is no
+     *         stylesheet. A stylesheet that supplies no snapshot is compiled
+     *         uncached.
+     */
+    public static StylesheetSnapshot of(LayoutStylesheet stylesheet) {
+        if (stylesheet == null) {
+            return null;
+        }
+        StylesheetSnapshot snapshot = stylesheet.snapshot();
+        return snapshot != null ? snapshot : new StylesheetSnapshot(stylesheet);
+    }
+
+    private final ConcurrentHashMap<SchemaPath, PathProperties> properties = new ConcurrentHashMap<>();
+    private final LayoutStylesheet                              source;
+    private final long                                          version;
+
+    public StylesheetSnapshot(LayoutStylesheet source) {
+        this.source = source;
+        this.version = source.getVersion();
+    }
+
+    /**
+     * @return the stylesheet version this snapshot was compiled at
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the compiled properties of {@code path}; lookups after the
+     *         first are a single map read
+     */
+    public PathProperties properties(SchemaPath path) {
+        PathProperties compiled = properties.get(path);
+        return compiled != null ? compiled
+                                : properties.computeIfAbsent(path,
+                                                             p -> PathProperties.compile(source,
+                                                                                         p));
+    }
+
+    /**
+     * @return the number of paths compiled so far
+     */
+    int size() {
+        return properties.size();
+    }
+}
@@ -0,0 +1,253 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Constraint solver that finds the same optimum as
+ * {@link ExhaustiveConstraintSolver} by dynamic programming over the
+ * {@link RelationConstraint} tree, in time linear in the number of Relation
+ * nodes and without a size threshold.
+ *
+ * <h3>Why a tree DP is exact</h3>
+ * Feasibility of a node's mode depends only on whether its parent renders as
+ * TABLE (which bounds it by {@code availableWidthAsTable}) or not, and the
+ * objective (maximise column-oriented nodes, then TABLE nodes) is a sum over
+ * nodes. So for every node and both parent contexts the best subtree score is
+ * the best own mode plus the independent best score of each child under the
+ * context that mode induces.
+ *
+ * <h3>Algorithm</h3>
+ * <ol>
+ *   <li>Post-order: for each node compute {@code best(node, bounded)} for
+ *       {@code bounded} in {false, true}, along with the first mode in TABLE,
+ *       OUTLINE, CROSSTAB order attaining it. Hard-crosstab nodes are pinned to
+ *       {@link RelationRenderMode#CROSSTAB}, score nothing and give their
+ *       children an unbounded context.</li>
+ *   <li>Pre-order: starting at the root in the unbounded context, emit each
+ *       node's chosen mode and recurse. Because each subtree is contiguous in
+ *       DFS order, this reproduces the exhaustive solver's tie-break (the first
+ *       optimal assignment in mixed-radix enumeration order).</li>
+ * </ol>
+ * OUTLINE is always feasible, so every node has at least one choice.
+ *
+ * <h3>Incremental re-solve</h3>
+ * {@link AutoLayout} rebuilds the constraint tree on every layout pass, so
+ * per-subtree results are memoised across calls in a bounded LRU keyed by the
+ * subtree's path and a 64-bit structural hash of its fit outcomes. The DP
+ * never reads a width except through the {@code fits*} predicates and the
+ * unknown-width test of {@link #childContext}, so hashing those outcomes
+ * instead of the widths is exact, and a resize that moves widths without
+ * flipping a predicate is served entirely from the memo. When one subtree
+ * does flip, only the nodes on the path from it to the root hash differently
+ * and are re-evaluated. Instances are thread safe.
+ */
+public final class TreeConstraintSolver implements ConstraintSolver {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** Memoised DP state for one subtree, per parent context. */
+    private static final class Entry {
+        final long[]               best   = { UNSOLVED, UNSOLVED };
+        final RelationRenderMode[] chosen = new RelationRenderMode[2];
+    }
+
+    private record SubtreeKey(SchemaPath path, long hash) {
+    }
+
+    private static final long UNSOLVED = Long.MIN_VALUE;
+
+    private static final RelationRenderMode[] ORDER = { RelationRenderMode.TABLE,
+                                                        RelationRenderMode.OUTLINE,
+                                                        RelationRenderMode.CROSSTAB };
+
+    private static long mix(long h, long v) {
+        h ^= v;
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Packs (column-oriented count, TABLE count) so that plain long comparison
+     * is lexicographic.
+     */
+    private static long score(RelationRenderMode mode) {
+        return switch (mode) {
+            case TABLE -> (1L << 32) + 1;
+            case CROSSTAB -> 1L << 32;
+            default -> 0;
+        };
+    }
+
+    private final LinkedHashMap<SubtreeKey, Entry> memo;
+    private long                                   hits;
+    private long                                   misses;
+
+    public TreeConstraintSolver() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximum number of subtree results memoised across calls
+     */
+    public TreeConstraintSolver(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: "
+                                               + capacity);
+        }
+        this.memo = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SubtreeKey, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return number of (subtree, context) results served from the memo
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of (subtree, context) results that had to be evaluated
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        memo.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    @Override
+    public synchronized Map<SchemaPath, RelationRenderMode> solve(RelationConstraint root) {
+        // Pin this call's entries so LRU eviction cannot drop them mid-solve
+        var entries = new IdentityHashMap<RelationConstraint, Entry>();
+        resolve(root, entries);
+        best(root, false, entries);
+        Map<SchemaPath, RelationRenderMode> result = new LinkedHashMap<>();
+        assign(root, false, entries, result);
+        return Map.copyOf(result);
+    }
+
+    /**
+     * Writes the tie-broken optimal mode for {@code node} and its subtree.
+     */
+    private void assign(RelationConstraint node, boolean bounded,
+                        Map<RelationConstraint, Entry> entries,
+                        Map<SchemaPath, RelationRenderMode> result) {
+        int slot = bounded ? 1 : 0;
+        Entry entry = entries.get(node);
+        if (entry.chosen[slot] == null) {
+            // Only when LRU eviction separated this entry from its parent's
+            best(node, bounded, entries);
+        }
+        RelationRenderMode chosen = entry.chosen[slot];
+        result.put(node.path(), chosen);
+        boolean childBounded = childContext(node, chosen);
+        for (RelationConstraint child : node.children()) {
+            assign(child, childBounded, entries, result);
+        }
+    }
+
+    private long best(RelationConstraint node, boolean bounded,
+                      Map<RelationConstraint, Entry> entries) {
+        Entry entry = entries.get(node);
+        int slot = bounded ? 1 : 0;
+        if (entry.best[slot] != UNSOLVED) {
+            hits++;
+            return entry.best[slot];
+        }
+        misses++;
+        if (node.hardCrosstab()) {
+            entry.best[slot] = childrenScore(node, false, entries);
+            entry.chosen[slot] = RelationRenderMode.CROSSTAB;
+            return entry.best[slot];
+        }
+        long best = UNSOLVED;
+        for (RelationRenderMode mode : ORDER) {
+            long value = evaluate(node, mode, bounded, entries);
+            if (value > best) {
+                best = value;
+                entry.chosen[slot] = mode;
+            }
+        }
+        entry.best[slot] = best;
+        return best;
+    }
+
+    /**
+     * Children of a TABLE node are bounded by its column width; the exhaustive
+     * solver treats an unknown ({@code Double.MAX_VALUE}) width as unbounded.
+     */
+    private boolean childContext(RelationConstraint node,
+                                 RelationRenderMode mode) {
+        return mode == RelationRenderMode.TABLE
+               && node.tableWidth() < Double.MAX_VALUE;
+    }
+
+    private long childrenScore(RelationConstraint node, boolean bounded,
+                               Map<RelationConstraint, Entry> entries) {
+        long sum = 0;
+        for (RelationConstraint child : node.children()) {
+            sum += best(child, bounded, entries);
+        }
+        return sum;
+    }
+
+    /**
+     * @return the best subtree score with {@code node} rendered as
+     *         {@code mode}, or {@link #UNSOLVED} if infeasible
+     */
+    private long evaluate(RelationConstraint node, RelationRenderMode mode,
+                          boolean bounded,
+                          Map<RelationConstraint, Entry> entries) {
+        boolean fits = switch (mode) {
+            case TABLE -> bounded ? node.fitsTableInParentTable()
+                                  : node.fitsTable();
+            case CROSSTAB -> node.crosstabEligible()
+                             && (bounded ? node.fitsCrosstabInParentTable()
+                                         : node.fitsCrosstab());
+            default -> true;
+        };
+        if (!fits) {
+            return UNSOLVED;
+        }
+        return score(mode)
+               + childrenScore(node, childContext(node, mode), entries);
+    }
+
+    /**
+     * Hash the subtree bottom-up and bind every node to its memo entry.
+     *
+     * @return the structural hash of {@code node}'s subtree
+     */
+    private long resolve(RelationConstraint node,
+                         Map<RelationConstraint, Entry> entries) {
+        long h = node.path()
+                     .hashCode();
+        h = mix(h, (node.hardCrosstab() ? 1 : 0)
+                   | (node.crosstabEligible() ? 2 : 0)
+                   | (node.fitsTable() ? 4 : 0)
+                   | (node.fitsTableInParentTable() ? 8 : 0)
+                   | (node.fitsCrosstab() ? 16 : 0)
+                   | (node.fitsCrosstabInParentTable() ? 32 : 0)
+                   | (node.tableWidth() < Double.MAX_VALUE ? 64 : 0));
+        for (RelationConstraint child : node.children()) {
+            h = mix(h, resolve(child, entries));
+        }
+        h = mix(h, node.children()
+                       .size());
+        entries.put(node, memo.computeIfAbsent(new SubtreeKey(node.path(), h),
+                                               k -> new Entry()));
+        return h;
+    }
+}
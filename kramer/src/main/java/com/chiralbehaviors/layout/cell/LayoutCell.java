@@ -103,6 +103,16 @@ public interface LayoutCell<T extends Region> extends Cell<JsonNode, T> {
         node.pseudoClassStateChanged(EXTERNAL_PSEUDOCLASS_STATE, externalFocus);
     }
 
+    /**
+     * Bind {@code item} and re-bind every row shown, even when the rows are
+     * the same as those already bound; a keyed {@link #updateItem(JsonNode)}
+     * leaves unchanged rows alone, so a caller whose rows now extract
+     * differently (a new sort order, say) rebinds instead.
+     */
+    default void rebind(JsonNode item) {
+        updateItem(item);
+    }
+
     default void unselect() {
     }
 
@@ -0,0 +1,436 @@
+/**
+ * Copyright (c) 2016 Chiral Behaviors, LLC, all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chiralbehaviors.layout.expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+import com.chiralbehaviors.layout.expression.Expr.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * Single-pass evaluation of every {@link AggregateCall} in a set of
+ * expressions, such as the {@code aggregate-expression}s of a relation's
+ * columns, including calls nested in scalar expressions like
+ * {@code sum($a) / count()}.
+ * <p>
+ * Each distinct aggregate argument is compiled once and evaluated once per
+ * row, as an unboxed double, into a {@link DoubleSummaryStatistics}: a
+ * primitive sum/count/min/max accumulator that every aggregate function over
+ * that argument reads, so {@code sum($x)}, {@code avg($x)} and
+ * {@code max($x)} share one accumulation. Results equal those of
+ * {@link ExpressionEvaluator#evaluateAggregate}: non-numeric and null values
+ * are skipped, {@code count()} counts rows, and an aggregate over no values
+ * is null.
+ * <p>
+ * Given a pool, large row sets are split into chunks accumulated in parallel
+ * and merged in order; the merged compensated sum may round differently in
+ * the last place than a sequential pass.
+ * <p>
+ * {@link #maintain} keeps the planned aggregates current under row inserts,
+ * removes and updates instead, see {@link Live}.
+ */
+public final class AggregatePlan {
+
+    /**
+     * Aggregate values of one evaluation, from which planned expressions are
+     * computed.
+     */
+    public final class Results {
+        private final long[]   counts;
+        private final double[] maxima;
+        private final double[] minima;
+        private final int      rows;
+        private final double[] sums;
+
+        private Results(int rows, DoubleSummaryStatistics[] stats) {
+            this(rows, new long[stats.length], new double[stats.length],
+                 new double[stats.length], new double[stats.length]);
+            for (int a = 0; a < stats.length; a++) {
+                counts[a] = stats[a].getCount();
+                sums[a] = stats[a].getSum();
+                minima[a] = stats[a].getMin();
+                maxima[a] = stats[a].getMax();
+            }
+        }
+
+        private Results(int rows, long[] counts, double[] sums,
+                        double[] minima, double[] maxima) {
+            this.rows = rows;
+            this.counts = counts;
+            this.sums = sums;
+            this.minima = minima;
+            this.maxima = maxima;
+        }
+
+        /**
+         * @return the value of {@code expr}, a planned expression, with every
+         *         aggregate call replaced by its value
+         */
+        public Object evaluate(Expr expr) {
+            if (expr instanceof AggregateCall call) {
+                return value(call);
+            }
+            return evaluator.evaluate(resolve(expr),
+                                      JsonNodeFactory.instance.objectNode());
+        }
+
+        /**
+         * @return the value of {@code call}, a planned aggregate call: a
+         *         Double, or null
+         */
+        public Object value(AggregateCall call) {
+            if ("count".equals(call.fn())) {
+                return (double) rows;
+            }
+            Integer argument = call.arg() == null ? null
+                                                  : arguments.get(call.arg());
+            if (argument == null || counts[argument] == 0) {
+                return null;
+            }
+            int a = argument;
+            return switch (call.fn()) {
+                case "sum" -> sums[a];
+                case "avg" -> sums[a] / counts[a];
+                case "min" -> minima[a];
+                case "max" -> maxima[a];
+                default -> null;
+            };
+        }
+
+        private Expr resolve(Expr expr) {
+            return switch (expr) {
+                case AggregateCall call -> new Literal(value(call));
+                case BinaryOp(var op, var l, var r) -> new BinaryOp(op,
+                                                                    resolve(l),
+                                                                    resolve(r));
+                case UnaryOp(var op, var operand) -> new UnaryOp(op,
+                                                                 resolve(operand));
+                case ScalarCall(var name, var args) -> new ScalarCall(name,
+                                                                      args.stream()
+                                                                          .map(this::resolve)
+                                                                          .toList());
+                case Literal l -> l;
+                case FieldRef f -> f;
+            };
+        }
+    }
+
+    /**
+     * Aggregate values maintained under row deltas. Rows are tracked by a
+     * caller-supplied key; each row's argument values are kept so that it can
+     * be removed or replaced without rescanning the others. Sum, count and
+     * average are updated in constant time per changed row, with a
+     * compensated running sum, and min and max in O(log n) through
+     * {@link IndexedDoubleHeap}s. After removals the sum may round
+     * differently in the last place than a fresh pass over the same rows. Not
+     * thread safe.
+     */
+    public final class Live {
+        private final CompiledExpression[]  args;
+        private final double[]              compensations;
+        private final long[]                counts;
+        private int[]                       free = new int[16];
+        private int                         freeCount;
+        private final IndexedDoubleHeap[]   maxima;
+        private final IndexedDoubleHeap[]   minima;
+        private int                         nextSlot;
+        private final Map<Object, Integer>  slots = new HashMap<>();
+        private final double[]              sums;
+        /** Argument values by argument, then slot. */
+        private final double[][]            values;
+
+        private Live(CompiledExpression[] args) {
+            this.args = args;
+            counts = new long[args.length];
+            sums = new double[args.length];
+            compensations = new double[args.length];
+            minima = new IndexedDoubleHeap[args.length];
+            maxima = new IndexedDoubleHeap[args.length];
+            values = new double[args.length][16];
+            for (int a = 0; a < args.length; a++) {
+                minima[a] = new IndexedDoubleHeap(false);
+                maxima[a] = new IndexedDoubleHeap(true);
+            }
+        }
+
+        /**
+         * Add {@code row} under {@code key}.
+         *
+         * @return false, changing nothing, if {@code key} is already tracked
+         */
+        public boolean insert(Object key, JsonNode row) {
+            if (slots.containsKey(key)) {
+                return false;
+            }
+            int slot = freeCount > 0 ? free[--freeCount] : nextSlot++;
+            slots.put(key, slot);
+            for (int a = 0; a < values.length; a++) {
+                if (slot >= values[a].length) {
+                    values[a] = Arrays.copyOf(values[a], slot * 2);
+                }
+            }
+            accept(slot, row);
+            return true;
+        }
+
+        /**
+         * Remove the row tracked under {@code key}.
+         *
+         * @return false if {@code key} is not tracked
+         */
+        public boolean remove(Object key) {
+            Integer slot = slots.remove(key);
+            if (slot == null) {
+                return false;
+            }
+            retract(slot);
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount * 2);
+            }
+            free[freeCount++] = slot;
+            return true;
+        }
+
+        /**
+         * @return the current aggregate values, computed in time proportional
+         *         to the number of planned arguments
+         */
+        public Results results() {
+            int n = args.length;
+            long[] count = counts.clone();
+            double[] sum = new double[n];
+            double[] min = new double[n];
+            double[] max = new double[n];
+            for (int a = 0; a < n; a++) {
+                sum[a] = sums[a] + compensations[a];
+                if (count[a] > 0) {
+                    min[a] = minima[a].peek();
+                    max[a] = maxima[a].peek();
+                }
+            }
+            return new Results(slots.size(), count, sum, min, max);
+        }
+
+        /**
+         * @return the number of tracked rows
+         */
+        public int size() {
+            return slots.size();
+        }
+
+        /**
+         * Replace the row tracked under {@code key} with {@code row}.
+         *
+         * @return false if {@code key} is not tracked
+         */
+        public boolean update(Object key, JsonNode row) {
+            Integer slot = slots.get(key);
+            if (slot == null) {
+                return false;
+            }
+            retract(slot);
+            accept(slot, row);
+            return true;
+        }
+
+        private void accept(int slot, JsonNode row) {
+            for (int a = 0; a < args.length; a++) {
+                double value = args[a].evaluateNumber(row);
+                values[a][slot] = value;
+                if (!CompiledExpression.isNullNumber(value)) {
+                    counts[a]++;
+                    add(a, value);
+                    minima[a].add(slot, value);
+                    maxima[a].add(slot, value);
+                }
+            }
+        }
+
+        /** Neumaier summation, which also compensates subtracted values. */
+        private void add(int a, double value) {
+            double sum = sums[a];
+            double t = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensations[a] += (sum - t) + value;
+            } else {
+                compensations[a] += (value - t) + sum;
+            }
+            sums[a] = t;
+        }
+
+        private void retract(int slot) {
+            for (int a = 0; a < args.length; a++) {
+                double value = values[a][slot];
+                if (!CompiledExpression.isNullNumber(value)) {
+                    minima[a].remove(slot);
+                    maxima[a].remove(slot);
+                    if (--counts[a] == 0) {
+                        // Drop accumulated rounding error with the last value
+                        sums[a] = 0;
+                        compensations[a] = 0;
+                    } else {
+                        add(a, -value);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Rows per chunk when accumulating in parallel. */
+    static final int CHUNK_ROWS = 1 << 14;
+
+    private static DoubleSummaryStatistics[] accumulate(CompiledExpression[] args,
+                                                        List<JsonNode> rows,
+                                                        int from, int to) {
+        DoubleSummaryStatistics[] stats = new DoubleSummaryStatistics[args.length];
+        for (int a = 0; a < args.length; a++) {
+            stats[a] = new DoubleSummaryStatistics();
+        }
+        for (int r = from; r < to; r++) {
+            JsonNode row = rows.get(r);
+            for (int a = 0; a < args.length; a++) {
+                double value = args[a].evaluateNumber(row);
+                if (!CompiledExpression.isNullNumber(value)) {
+                    stats[a].accept(value);
+                }
+            }
+        }
+        return stats;
+    }
+
+    /** Distinct aggregate arguments, by accumulator index. */
+    private final Map<Expr, Integer>  arguments = new LinkedHashMap<>();
+    private final ExpressionEvaluator evaluator;
+
+    public AggregatePlan(ExpressionEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Plan the aggregate calls of {@code expr}, wherever they are nested. The
+     * argument of an aggregate call is evaluated per row, so aggregates within
+     * it are not planned; evaluating them fails as
+     * {@link ExpressionEvaluator#evaluate(Expr, JsonNode)} does.
+     *
+     * @return true if {@code expr} contains an aggregate call
+     */
+    public boolean add(Expr expr) {
+        return switch (expr) {
+            case AggregateCall call -> {
+                if (!"count".equals(call.fn()) && call.arg() != null) {
+                    arguments.putIfAbsent(call.arg(), arguments.size());
+                }
+                yield true;
+            }
+            case BinaryOp(_, var l, var r) -> add(l) | add(r);
+            case UnaryOp(_, var operand) -> add(operand);
+            case ScalarCall(_, var args) -> {
+                boolean any = false;
+                for (Expr arg : args) {
+                    any |= add(arg);
+                }
+                yield any;
+            }
+            case Literal _, FieldRef _ -> false;
+        };
+    }
+
+    /**
+     * @return the number of distinct aggregate arguments, each accumulated
+     *         once per row
+     */
+    public int argumentCount() {
+        return arguments.size();
+    }
+
+    /**
+     * Accumulate every planned aggregate in one sequential pass over
+     * {@code rows}.
+     */
+    public Results evaluate(List<JsonNode> rows) {
+        return evaluate(rows, null);
+    }
+
+    /**
+     * Accumulate every planned aggregate in one pass over {@code rows}, split
+     * into chunks on {@code pool} when it is non-null and there is more than
+     * one chunk.
+     */
+    public Results evaluate(List<JsonNode> rows, ForkJoinPool pool) {
+        CompiledExpression[] args = compileArguments();
+        int size = rows.size();
+        if (pool == null || size <= CHUNK_ROWS || args.length == 0) {
+            return new Results(size, accumulate(args, rows, 0, size));
+        }
+        List<ForkJoinTask<DoubleSummaryStatistics[]>> chunks = new ArrayList<>();
+        for (int from = 0; from < size; from += CHUNK_ROWS) {
+            int start = from;
+            int end = Math.min(size, from + CHUNK_ROWS);
+            chunks.add(ForkJoinTask.adapt(() -> accumulate(args, rows, start,
+                                                           end)));
+        }
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(chunks);
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(chunks)));
+        }
+        DoubleSummaryStatistics[] stats = chunks.get(0)
+                                                .join();
+        for (int c = 1; c < chunks.size(); c++) {
+            DoubleSummaryStatistics[] chunk = chunks.get(c)
+                                                    .join();
+            for (int a = 0; a < stats.length; a++) {
+                stats[a].combine(chunk[a]);
+            }
+        }
+        return new Results(size, stats);
+    }
+
+    /**
+     * Start maintaining every planned aggregate under row deltas, from the
+     * rows of {@code rows} keyed by {@code key}.
+     *
+     * @return the live aggregates, or null if a row has no key (a null
+     *         {@code key} result) or shares its key with another row
+     */
+    public Live maintain(List<JsonNode> rows, Function<JsonNode, Object> key) {
+        Live live = new Live(compileArguments());
+        for (JsonNode row : rows) {
+            Object k = key.apply(row);
+            if (k == null || !live.insert(k, row)) {
+                return null;
+            }
+        }
+        return live;
+    }
+
+    private CompiledExpression[] compileArguments() {
+        CompiledExpression[] args = new CompiledExpression[arguments.size()];
+        arguments.forEach((arg, index) -> args[index] = evaluator.specialize(arg));
+        return args;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2016 Chiral Behaviors, LLC, all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chiralbehaviors.layout.expression;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * The values of a field over the rows of a {@link RowBatch}, by row, such as
+ * {@link CompiledExpression#evaluateColumn(RowBatch)} returns: a primitive
+ * {@code double[]} for a numeric expression, JSON nodes otherwise. A numeric
+ * value becomes a node only when {@link #get(int)} asks for it. Immutable;
+ * the arrays are referenced, not copied, and never modified.
+ */
+public final class ColumnValues {
+
+    /**
+     * @param values
+     *            the values by row; referenced, not copied
+     */
+    public static ColumnValues of(JsonNode... values) {
+        return new ColumnValues(values, null);
+    }
+
+    /**
+     * @param values
+     *            the values by row, null as the sentinel of
+     *            {@link CompiledExpression#isNullNumber(double)}
+     */
+    static ColumnValues ofNumbers(double[] values) {
+        return new ColumnValues(null, values);
+    }
+
+    private final JsonNode[] nodes;
+    private final double[]   numbers;
+
+    private ColumnValues(JsonNode[] nodes, double[] numbers) {
+        this.nodes = nodes;
+        this.numbers = numbers;
+    }
+
+    /**
+     * @return the value at {@code row} as a node; a null value is a null node
+     */
+    public JsonNode get(int row) {
+        if (nodes != null) {
+            return nodes[row];
+        }
+        double d = numbers[row];
+        return CompiledExpression.isNullNumber(d) ? JsonNodeFactory.instance.nullNode()
+                                                  : JsonNodeFactory.instance.numberNode(d);
+    }
+
+    /**
+     * @return the numeric value at {@code row}, or {@code ifNull} when it is
+     *         null or not a number; no boxing on a numeric column
+     */
+    public double getDouble(int row, double ifNull) {
+        if (numbers == null) {
+            JsonNode node = nodes[row];
+            return node != null && node.isNumber() ? node.doubleValue() : ifNull;
+        }
+        double d = numbers[row];
+        return CompiledExpression.isNullNumber(d) ? ifNull : d;
+    }
+
+    /**
+     * @return true if the values are held as primitive doubles
+     */
+    public boolean isNumeric() {
+        return numbers != null;
+    }
+
+    public int size() {
+        return nodes != null ? nodes.length : numbers.length;
+    }
+
+    /**
+     * @return the primitive values, null as the null sentinel, or null if the
+     *         column is not numeric
+     */
+    double[] numbers() {
+        return numbers;
+    }
+}
@@ -0,0 +1,983 @@
+/**
+ * Copyright (c) 2016 Chiral Behaviors, LLC, all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chiralbehaviors.layout.expression;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import com.chiralbehaviors.layout.expression.Expr.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * An {@link Expr} compiled to a tree of specialized closures, for per-row
+ * evaluation over large row sets. Obtain one from
+ * {@link ExpressionEvaluator#specialize(Expr)}.
+ * <p>
+ * Compared to {@link ExpressionEvaluator#evaluate(Expr, JsonNode)}, dispatch
+ * on node type and scalar function name happens once at compile time, field
+ * paths are pre-split, and numeric sub-expressions are evaluated as primitive
+ * doubles: arithmetic, negation, {@code abs}/{@code round} and comparisons
+ * between numeric operands (including numeric JSON fields) never box. A value
+ * is boxed only when it leaves through {@link #evaluate(JsonNode)}.
+ * <p>
+ * The batch forms evaluate a whole {@link RowBatch} column-at-a-time: field
+ * references read primitive columns extracted once per batch, and
+ * arithmetic, comparisons and logical operators run as loops over
+ * {@code double[]} columns and {@link BitSet}s. Nodes without a columnar path,
+ * and rows whose operands are not numeric, are evaluated row at a time.
+ * <p>
+ * Results are identical to the interpreter's; the interpreter's coercion
+ * helpers are reused for every mixed-type case. Instances are immutable and
+ * thread safe.
+ */
+public final class CompiledExpression {
+
+    private static final int ANY     = 0;
+    private static final int BOOLEAN = 2;
+    private static final int NUMBER  = 1;
+
+    /**
+     * Quiet NaN with a private payload standing in for a null numeric result.
+     * Never produced by arithmetic: null operands are checked before use.
+     */
+    private static final long   NULL_BITS = 0x7ff80000_0badc0deL;
+    static final double         NULL      = Double.longBitsToDouble(NULL_BITS);
+
+    private static boolean isNull(double d) {
+        return Double.doubleToRawLongBits(d) == NULL_BITS;
+    }
+
+    private static double unbox(Double d) {
+        return d == null ? NULL : d;
+    }
+
+    /** @return the node at {@code path} in {@code row}, or null */
+    static JsonNode resolve(JsonNode row, String[] path) {
+        return resolve(row, path, 0);
+    }
+
+    /**
+     * @return the node at the segments of {@code path} from {@code from} on
+     *         in {@code node}, or null
+     */
+    static JsonNode resolve(JsonNode node, String[] path, int from) {
+        JsonNode current = node;
+        for (int i = from; i < path.length; i++) {
+            if (current == null || !current.isObject()) {
+                return null;
+            }
+            current = current.get(path[i]);
+        }
+        return current;
+    }
+
+    /** @return the numeric coercion of a field value, or the null sentinel */
+    static double number(JsonNode node) {
+        if (node == null) {
+            return NULL;
+        }
+        if (node.isNumber()) {
+            return node.doubleValue();
+        }
+        if (node.isTextual()) {
+            return unbox(ExpressionEvaluator.toNumber(node.textValue()));
+        }
+        return NULL;
+    }
+
+    private static long[] words(int n) {
+        return new long[(n + 63) >>> 6];
+    }
+
+    // --- Node hierarchy ---
+
+    /**
+     * A compiled sub-expression. {@link #eval} is the interpreter value;
+     * {@link #num} and {@link #bool} are its numeric and boolean coercions,
+     * overridden with primitive paths where the node allows.
+     */
+    private abstract static class Node {
+        final int kind;
+
+        Node(int kind) {
+            this.kind = kind;
+        }
+
+        boolean bool(JsonNode row) {
+            return ExpressionEvaluator.toBool(eval(row));
+        }
+
+        /**
+         * Batch form of {@link #bool(JsonNode)}; row at a time unless
+         * overridden with a column-at-a-time path.
+         *
+         * @return a new set of the rows whose value is true
+         */
+        BitSet bool(RowBatch batch) {
+            int n = batch.size();
+            long[] words = words(n);
+            for (int i = 0; i < n; i++) {
+                if (bool(batch.row(i))) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+            return BitSet.valueOf(words);
+        }
+
+        abstract Object eval(JsonNode row);
+
+        /** Batch form of {@link #eval(JsonNode)}; a new array. */
+        Object[] eval(RowBatch batch) {
+            Object[] values = new Object[batch.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = eval(batch.row(i));
+            }
+            return values;
+        }
+
+        double num(JsonNode row) {
+            return unbox(ExpressionEvaluator.toNumber(eval(row)));
+        }
+
+        /**
+         * Batch form of {@link #num(JsonNode)}.
+         *
+         * @return the values by row; may be a shared column, never modified
+         */
+        double[] num(RowBatch batch) {
+            double[] values = new double[batch.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = num(batch.row(i));
+            }
+            return values;
+        }
+    }
+
+    /** Value is a Double or null; {@link #num} is authoritative. */
+    private abstract static class NumberNode extends Node {
+        NumberNode() {
+            super(NUMBER);
+        }
+
+        @Override
+        boolean bool(JsonNode row) {
+            double d = num(row);
+            return !isNull(d) && d != 0.0;
+        }
+
+        @Override
+        BitSet bool(RowBatch batch) {
+            double[] values = num(batch);
+            long[] words = words(values.length);
+            for (int i = 0; i < values.length; i++) {
+                double d = values[i];
+                if (!isNull(d) && d != 0.0) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+            return BitSet.valueOf(words);
+        }
+
+        @Override
+        Object eval(JsonNode row) {
+            double d = num(row);
+            return isNull(d) ? null : d;
+        }
+
+        @Override
+        Object[] eval(RowBatch batch) {
+            double[] values = num(batch);
+            Object[] boxed = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                boxed[i] = isNull(values[i]) ? null : values[i];
+            }
+            return boxed;
+        }
+
+        @Override
+        abstract double num(JsonNode row);
+    }
+
+    /** Value is a non-null Boolean; {@link #bool} is authoritative. */
+    private abstract static class BooleanNode extends Node {
+        BooleanNode() {
+            super(BOOLEAN);
+        }
+
+        @Override
+        abstract boolean bool(JsonNode row);
+
+        @Override
+        Object eval(JsonNode row) {
+            return bool(row);
+        }
+
+        @Override
+        Object[] eval(RowBatch batch) {
+            BitSet values = bool(batch);
+            Object[] boxed = new Object[batch.size()];
+            for (int i = 0; i < boxed.length; i++) {
+                boxed[i] = values.get(i);
+            }
+            return boxed;
+        }
+
+        @Override
+        double num(JsonNode row) {
+            return NULL;
+        }
+
+        @Override
+        double[] num(RowBatch batch) {
+            double[] values = new double[batch.size()];
+            Arrays.fill(values, NULL);
+            return values;
+        }
+    }
+
+    private static final class Const extends Node {
+        private final boolean bool;
+        private final double  num;
+        private final Object  value;
+
+        Const(Object value) {
+            super(value instanceof Double ? NUMBER
+                                          : value instanceof Boolean ? BOOLEAN
+                                                                     : ANY);
+            this.value = value;
+            this.num = unbox(ExpressionEvaluator.toNumber(value));
+            this.bool = ExpressionEvaluator.toBool(value);
+        }
+
+        @Override
+        boolean bool(JsonNode row) {
+            return bool;
+        }
+
+        @Override
+        BitSet bool(RowBatch batch) {
+            BitSet values = new BitSet(batch.size());
+            if (bool) {
+                values.set(0, batch.size());
+            }
+            return values;
+        }
+
+        @Override
+        Object eval(JsonNode row) {
+            return value;
+        }
+
+        @Override
+        Object[] eval(RowBatch batch) {
+            Object[] values = new Object[batch.size()];
+            Arrays.fill(values, value);
+            return values;
+        }
+
+        @Override
+        double num(JsonNode row) {
+            return num;
+        }
+
+        @Override
+        double[] num(RowBatch batch) {
+            double[] values = new double[batch.size()];
+            Arrays.fill(values, num);
+            return values;
+        }
+    }
+
+    private static final class Field extends Node {
+        private final List<String> key;
+        private final String[]     path;
+
+        Field(List<String> path) {
+            super(ANY);
+            this.key = List.copyOf(path);
+            this.path = path.toArray(String[]::new);
+        }
+
+        @Override
+        boolean bool(JsonNode row) {
+            JsonNode node = resolve(row);
+            if (node == null) {
+                return false;
+            }
+            if (node.isBoolean()) {
+                return node.booleanValue();
+            }
+            if (node.isNumber()) {
+                return node.doubleValue() != 0.0;
+            }
+            if (node.isTextual()) {
+                return !node.textValue()
+                            .isEmpty();
+            }
+            return false;
+        }
+
+        @Override
+        Object eval(JsonNode row) {
+            return ExpressionEvaluator.materialize(resolve(row));
+        }
+
+        /**
+         * @return the values of numeric JSON nodes by row, the null sentinel
+         *         otherwise; a shared column
+         */
+        double[] exact(RowBatch batch) {
+            return batch.column(key, path)
+                        .exact();
+        }
+
+        @Override
+        double num(JsonNode row) {
+            return number(resolve(row));
+        }
+
+        @Override
+        double[] num(RowBatch batch) {
+            return batch.column(key, path)
+                        .numbers();
+        }
+
+        JsonNode resolve(JsonNode row) {
+            return CompiledExpression.resolve(row, path);
+        }
+    }
+
+    private static final class Arith extends NumberNode {
+        private final Node      left;
+        private final BinaryOp.Op op;
+        private final Node      right;
+
+        Arith(BinaryOp.Op op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double num(JsonNode row) {
+            double a = left.num(row);
+            double b = right.num(row);
+            if (isNull(a) || isNull(b)) {
+                return NULL;
+            }
+            return switch (op) {
+                case ADD -> a + b;
+                case SUB -> a - b;
+                case MUL -> a * b;
+                case DIV -> b == 0.0 ? NULL : a / b;
+                default -> throw new AssertionError(op);
+            };
+        }
+
+        @Override
+        double[] num(RowBatch batch) {
+            double[] a = left.num(batch);
+            double[] b = right.num(batch);
+            double[] values = new double[a.length];
+            // One loop per operator, hoisting the dispatch out of the rows
+            switch (op) {
+                case ADD -> {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = isNull(a[i]) || isNull(b[i]) ? NULL
+                                                                 : a[i] + b[i];
+                    }
+                }
+                case SUB -> {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = isNull(a[i]) || isNull(b[i]) ? NULL
+                                                                 : a[i] - b[i];
+                    }
+                }
+                case MUL -> {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = isNull(a[i]) || isNull(b[i]) ? NULL
+                                                                 : a[i] * b[i];
+                    }
+                }
+                case DIV -> {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = isNull(a[i]) || isNull(b[i])
+                                    || b[i] == 0.0 ? NULL : a[i] / b[i];
+                    }
+                }
+                default -> throw new AssertionError(op);
+            }
+            return values;
+        }
+    }
+
+    /** String-or-numeric {@code +}; see ExpressionEvaluator.evalAdd. */
+    private static final class Add extends Node {
+        private final Node left;
+        private final Node right;
+
+        Add(Node left, Node right) {
+            super(ANY);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(JsonNode row) {
+            return ExpressionEvaluator.evalAdd(left.eval(row), right.eval(row));
+        }
+    }
+
+    private static final class Logical extends BooleanNode {
+        private final boolean and;
+        /**
+         * Whether the right operand must only be evaluated where the left one
+         * does not decide, because it can fail (an aggregate in row context).
+         */
+        private final boolean lazy;
+        private final Node    left;
+        private final Node    right;
+
+        Logical(boolean and, Node left, Node right, boolean lazy) {
+            this.and = and;
+            this.left = left;
+            this.right = right;
+            this.lazy = lazy;
+        }
+
+        @Override
+        boolean bool(JsonNode row) {
+            return and ? left.bool(row) && right.bool(row)
+                       : left.bool(row) || right.bool(row);
+        }
+
+        @Override
+        BitSet bool(RowBatch batch) {
+            BitSet values = left.bool(batch);
+            if (!lazy) {
+                if (and) {
+                    values.and(right.bool(batch));
+                } else {
+                    values.or(right.bool(batch));
+                }
+            } else if (and) {
+                for (int i = values.nextSetBit(0); i >= 0; i = values.nextSetBit(i + 1)) {
+                    if (!right.bool(batch.row(i))) {
+                        values.clear(i);
+                    }
+                }
+            } else {
+                int n = batch.size();
+                for (int i = values.nextClearBit(0); i < n; i = values.nextClearBit(i + 1)) {
+                    if (right.bool(batch.row(i))) {
+                        values.set(i);
+                    }
+                }
+            }
+            return values;
+        }
+    }
+
+    private static final class Not extends BooleanNode {
+        private final Node operand;
+
+        Not(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean bool(JsonNode row) {
+            return !operand.bool(row);
+        }
+
+        @Override
+        BitSet bool(RowBatch batch) {
+            BitSet values = operand.bool(batch);
+            values.flip(0, batch.size());
+            return values;
+        }
+    }
+
+    /**
+     * Equality and ordering. Each operand is read as a primitive double when
+     * it is numeric (a numeric node or a numeric JSON field); only mixed or
+     * non-numeric operands go through the interpreter's boxed comparison.
+     */
+    private static final class Compare extends BooleanNode {
+        private final Node         left;
+        private final BinaryOp.Op  op;
+        private final IntPredicate ordering = this::test;
+        private final Node         right;
+
+        Compare(BinaryOp.Op op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean bool(JsonNode row) {
+            double a = 0;
+            Object lo = null;
+            boolean lnum;
+            if (left instanceof Field f) {
+                JsonNode node = f.resolve(row);
+                lnum = node != null && node.isNumber();
+                if (lnum) {
+                    a = node.doubleValue();
+                } else {
+                    lo = ExpressionEvaluator.materialize(node);
+                }
+            } else if (left.kind == NUMBER) {
+                a = left.num(row);
+                lnum = !isNull(a);
+            } else {
+                lo = left.eval(row);
+                lnum = false;
+            }
+            double b = 0;
+            Object ro = null;
+            boolean rnum;
+            if (right instanceof Field f) {
+                JsonNode node = f.resolve(row);
+                rnum = node != null && node.isNumber();
+                if (rnum) {
+                    b = node.doubleValue();
+                } else {
+                    ro = ExpressionEvaluator.materialize(node);
+                }
+            } else if (right.kind == NUMBER) {
+                b = right.num(row);
+                rnum = !isNull(b);
+            } else {
+                ro = right.eval(row);
+                rnum = false;
+            }
+            if (lnum && rnum) {
+                return switch (op) {
+                    // Double.equals semantics: NaN == NaN, 0.0 != -0.0
+                    case EQ -> Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+                    case NEQ -> Double.doubleToLongBits(a) != Double.doubleToLongBits(b);
+                    default -> test(Double.compare(a, b));
+                };
+            }
+            if (lnum) {
+                lo = a;
+            }
+            if (rnum) {
+                ro = b;
+            }
+            return switch (op) {
+                case EQ -> Boolean.TRUE.equals(ExpressionEvaluator.evalEq(lo, ro));
+                case NEQ -> !Boolean.TRUE.equals(ExpressionEvaluator.evalEq(lo, ro));
+                default -> (Boolean) ExpressionEvaluator.evalOrdering(lo, ro,
+                                                                      ordering);
+            };
+        }
+
+        /**
+         * Rows where both operands are numeric are compared in one loop over
+         * their columns; the rest take the row path above.
+         */
+        @Override
+        BitSet bool(RowBatch batch) {
+            double[] a = operand(left, batch);
+            double[] b = operand(right, batch);
+            if (a == null || b == null) {
+                return super.bool(batch);
+            }
+            long[] words = words(a.length);
+            for (int i = 0; i < a.length; i++) {
+                double x = a[i];
+                double y = b[i];
+                boolean hit;
+                if (isNull(x) || isNull(y)) {
+                    hit = bool(batch.row(i));
+                } else {
+                    hit = switch (op) {
+                        case EQ -> Double.doubleToLongBits(x) == Double.doubleToLongBits(y);
+                        case NEQ -> Double.doubleToLongBits(x) != Double.doubleToLongBits(y);
+                        default -> test(Double.compare(x, y));
+                    };
+                }
+                if (hit) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+            return BitSet.valueOf(words);
+        }
+
+        /**
+         * @return the operand's numeric values by row, with the null sentinel
+         *         where the row path applies, or null if it always does
+         */
+        private static double[] operand(Node node, RowBatch batch) {
+            if (node instanceof Field f) {
+                return f.exact(batch);
+            }
+            return node.kind == NUMBER ? node.num(batch) : null;
+        }
+
+        private boolean test(int c) {
+            return switch (op) {
+                case LT -> c < 0;
+                case GT -> c > 0;
+                case LTE -> c <= 0;
+                case GTE -> c >= 0;
+                default -> throw new AssertionError(op);
+            };
+        }
+    }
+
+    private static final class Negate extends NumberNode {
+        private final Node operand;
+
+        Negate(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        double num(JsonNode row) {
+            double d = operand.num(row);
+            return isNull(d) ? NULL : -d;
+        }
+
+        @Override
+        double[] num(RowBatch batch) {
+            double[] operands = operand.num(batch);
+            double[] values = new double[operands.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = isNull(operands[i]) ? NULL : -operands[i];
+            }
+            return values;
+        }
+    }
+
+    private static final class MathCall extends NumberNode {
+        private final Node    arg;
+        private final boolean round;
+
+        MathCall(boolean round, Node arg) {
+            this.round = round;
+            this.arg = arg;
+        }
+
+        @Override
+        double num(JsonNode row) {
+            double d = arg.num(row);
+            if (isNull(d)) {
+                return NULL;
+            }
+            return round ? (double) Math.round(d) : Math.abs(d);
+        }
+
+        @Override
+        double[] num(RowBatch batch) {
+            double[] args = arg.num(batch);
+            double[] values = new double[args.length];
+            for (int i = 0; i < values.length; i++) {
+                double d = args[i];
+                values[i] = isNull(d) ? NULL
+                                      : round ? (double) Math.round(d)
+                                              : Math.abs(d);
+            }
+            return values;
+        }
+    }
+
+    private static final class Len extends NumberNode {
+        private final Node arg;
+
+        Len(Node arg) {
+            this.arg = arg;
+        }
+
+        @Override
+        double num(JsonNode row) {
+            Object value = arg.eval(row);
+            return value == null ? NULL
+                                 : value.toString()
+                                        .length();
+        }
+    }
+
+    private static final class Case extends Node {
+        private final Node    arg;
+        private final boolean upper;
+
+        Case(boolean upper, Node arg) {
+            super(ANY);
+            this.upper = upper;
+            this.arg = arg;
+        }
+
+        @Override
+        Object eval(JsonNode row) {
+            Object value = arg.eval(row);
+            if (value == null) {
+                return null;
+            }
+            return upper ? value.toString()
+                                .toUpperCase()
+                         : value.toString()
+                                .toLowerCase();
+        }
+    }
+
+    private static final class If extends Node {
+        private final Node condition;
+        private final Node otherwise;
+        private final Node then;
+
+        If(Node condition, Node then, Node otherwise) {
+            super(then.kind == otherwise.kind ? then.kind : ANY);
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        boolean bool(JsonNode row) {
+            return condition.bool(row) ? then.bool(row) : otherwise.bool(row);
+        }
+
+        @Override
+        Object eval(JsonNode row) {
+            return condition.bool(row) ? then.eval(row) : otherwise.eval(row);
+        }
+
+        @Override
+        double num(JsonNode row) {
+            return condition.bool(row) ? then.num(row) : otherwise.num(row);
+        }
+    }
+
+    /** Falls back to the interpreter, e.g. for aggregates in row context. */
+    private static final class Interpreted extends Node {
+        private final Expr                expr;
+        private final ExpressionEvaluator interpreter;
+
+        Interpreted(Expr expr, ExpressionEvaluator interpreter) {
+            super(ANY);
+            this.expr = expr;
+            this.interpreter = interpreter;
+        }
+
+        @Override
+        Object eval(JsonNode row) {
+            return interpreter.evaluate(expr, row);
+        }
+    }
+
+    // --- Compilation ---
+
+    static CompiledExpression compile(Expr expr,
+                                      ExpressionEvaluator interpreter) {
+        return new CompiledExpression(expr, node(expr, interpreter));
+    }
+
+    private static Node node(Expr expr, ExpressionEvaluator interpreter) {
+        return switch (expr) {
+            case Literal(var v) -> new Const(v);
+            case FieldRef(var path) -> new Field(path);
+            case BinaryOp(var op, var l, var r) -> {
+                Node left = node(l, interpreter);
+                Node right = node(r, interpreter);
+                yield switch (op) {
+                    case ADD -> left.kind == NUMBER && right.kind == NUMBER
+                                ? new Arith(op, left, right)
+                                : new Add(left, right);
+                    case SUB, MUL, DIV -> new Arith(op, left, right);
+                    case AND -> new Logical(true, left, right,
+                                            ExpressionEvaluator.containsAggregate(r));
+                    case OR -> new Logical(false, left, right,
+                                           ExpressionEvaluator.containsAggregate(r));
+                    case EQ, NEQ, LT, GT, LTE, GTE -> new Compare(op, left, right);
+                };
+            }
+            case UnaryOp(var op, var operand) -> switch (op) {
+                case NEG -> new Negate(node(operand, interpreter));
+                case NOT -> new Not(node(operand, interpreter));
+            };
+            case ScalarCall(var name, var args) -> scalar(expr, name, args,
+                                                          interpreter);
+            case AggregateCall(_, _) -> new Interpreted(expr, interpreter);
+        };
+    }
+
+    private static Node scalar(Expr expr, String name, List<Expr> args,
+                               ExpressionEvaluator interpreter) {
+        int arity = switch (name) {
+            case "if" -> 3;
+            case "len", "upper", "lower", "abs", "round" -> 1;
+            default -> -1;
+        };
+        if (arity < 0) {
+            // Unknown functions evaluate to null without touching their arguments
+            return new Const(null);
+        }
+        if (args.size() < arity) {
+            // Malformed (hand-built) AST: keep the interpreter's failure mode
+            return new Interpreted(expr, interpreter);
+        }
+        Node first = node(args.get(0), interpreter);
+        return switch (name) {
+            case "if" -> new If(first, node(args.get(1), interpreter),
+                                node(args.get(2), interpreter));
+            case "len" -> new Len(first);
+            case "upper" -> new Case(true, first);
+            case "lower" -> new Case(false, first);
+            case "abs" -> new MathCall(false, first);
+            default -> new MathCall(true, first);
+        };
+    }
+
+    private final Expr expr;
+    private final Node root;
+
+    private CompiledExpression(Expr expr, Node root) {
+        this.expr = expr;
+        this.root = root;
+    }
+
+    /**
+     * @return the expression value for the row: Double, String, Boolean, or
+     *         null, exactly as {@link ExpressionEvaluator#evaluate} returns
+     */
+    public Object evaluate(JsonNode row) {
+        return root.eval(row);
+    }
+
+    /**
+     * Batch form of {@link #evaluate(JsonNode)}.
+     *
+     * @return the expression values of the rows of {@code batch}, by row
+     */
+    public Object[] evaluate(RowBatch batch) {
+        return root.eval(batch);
+    }
+
+    /**
+     * Typed batch form of {@link #evaluate(JsonNode)}: a numeric expression
+     * yields its primitive column, a boolean one its bits as boolean nodes;
+     * only other expressions box their values, as
+     * {@link ExpressionEvaluator#toJsonNode} of {@link #evaluate(RowBatch)}.
+     *
+     * @return the expression values of the rows of {@code batch}, by row
+     */
+    public ColumnValues evaluateColumn(RowBatch batch) {
+        return switch (root.kind) {
+            case NUMBER -> ColumnValues.ofNumbers(root.num(batch));
+            case BOOLEAN -> {
+                BitSet values = root.bool(batch);
+                JsonNode[] nodes = new JsonNode[batch.size()];
+                for (int i = 0; i < nodes.length; i++) {
+                    nodes[i] = JsonNodeFactory.instance.booleanNode(values.get(i));
+                }
+                yield ColumnValues.of(nodes);
+            }
+            default -> {
+                Object[] values = root.eval(batch);
+                JsonNode[] nodes = new JsonNode[values.length];
+                for (int i = 0; i < nodes.length; i++) {
+                    nodes[i] = ExpressionEvaluator.toJsonNode(values[i]);
+                }
+                yield ColumnValues.of(nodes);
+            }
+        };
+    }
+
+    /**
+     * @return the numeric coercion of the value, or {@code ifNull} when the
+     *         value is null or not numeric; no boxing on numeric expressions
+     */
+    public double evaluateDouble(JsonNode row, double ifNull) {
+        double d = root.num(row);
+        return isNull(d) ? ifNull : d;
+    }
+
+    /**
+     * Batch form of {@link #evaluateDouble(JsonNode, double)}: numeric
+     * sub-expressions are evaluated column-at-a-time over the batch's field
+     * columns.
+     *
+     * @return a new array of the values of the rows of {@code batch}, by row
+     */
+    public double[] evaluateDoubles(RowBatch batch, double ifNull) {
+        double[] values = root.num(batch);
+        double[] result = new double[values.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = isNull(values[i]) ? ifNull : values[i];
+        }
+        return result;
+    }
+
+    /**
+     * @return the numeric coercion of the value, as
+     *         {@link ExpressionEvaluator#toNumber} of {@link #evaluate}, with
+     *         null as a sentinel NaN that {@link #isNullNumber(double)}
+     *         detects; no boxing on numeric expressions
+     */
+    double evaluateNumber(JsonNode row) {
+        return root.num(row);
+    }
+
+    /**
+     * @return true if {@code d} is the null sentinel of
+     *         {@link #evaluateNumber(JsonNode)}
+     */
+    static boolean isNullNumber(double d) {
+        return isNull(d);
+    }
+
+    /**
+     * @return the source AST
+     */
+    public Expr getExpr() {
+        return expr;
+    }
+
+    /**
+     * @return true if the value is always a Double or null
+     */
+    public boolean isNumeric() {
+        return root.kind == NUMBER;
+    }
+
+    /**
+     * Batch form of {@link #test(JsonNode)}: comparisons of numeric operands
+     * and the logical operators are evaluated column-at-a-time, so a filter
+     * such as {@code $price > 100 && $qty < 5} is a few loops over primitive
+     * columns and bitsets.
+     *
+     * @return a new set of the indices of the rows of {@code batch} that pass
+     */
+    public BitSet select(RowBatch batch) {
+        return root.bool(batch);
+    }
+
+    /**
+     * @return the boolean coercion of the value, as
+     *         {@link ExpressionEvaluator#toBoolean} of {@link #evaluate}
+     */
+    public boolean test(JsonNode row) {
+        return root.bool(row);
+    }
+}
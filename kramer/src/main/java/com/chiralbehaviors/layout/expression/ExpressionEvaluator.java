@@ -29,11 +29,13 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 
 /**
  * Tree-walking evaluator over the sealed {@link Expr} hierarchy. Uses Java 25
- * pattern matching switch for dispatch.
+ * pattern matching switch for dispatch. Hot per-row paths should use
+ * {@link #specialize(Expr)}, which compiles the tree to closures once.
  * <p>
  * Per-row evaluation for filter, formula, and sort expressions. Aggregate
  * evaluation for cross-row reduction. Includes AST caching and cycle detection
- * for formula dependency graphs.
+ * for formula dependency graphs. The AST cache is synchronized and evaluation
+ * is stateless, so one evaluator may serve parallel measurement.
  *
  * @author hhildebrand
  */
@@ -48,13 +50,20 @@ public final class ExpressionEvaluator {
             return size() > MAX_CACHE_SIZE;
         }
     };
+    @SuppressWarnings("serial")
+    private final Map<Expr, CompiledExpression> specialized = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Expr, CompiledExpression> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
     private long lastVersion = -1;
 
     /**
      * Parse and cache an expression string. Returns cached AST on subsequent
      * calls with the same string.
      */
-    public Expr compile(String expression) throws ParseException {
+    public synchronized Expr compile(String expression) throws ParseException {
         var cached = cache.get(expression);
         if (cached != null) {
             return cached;
@@ -64,17 +73,37 @@ public final class ExpressionEvaluator {
         return ast;
     }
 
+    /**
+     * Compile an AST to closures for fast per-row evaluation. Cached like
+     * {@link #compile(String)}; the result has the same semantics as
+     * {@link #evaluate(Expr, JsonNode)}.
+     */
+    public synchronized CompiledExpression specialize(Expr expr) {
+        var cached = specialized.get(expr);
+        if (cached != null) {
+            return cached;
+        }
+        var compiled = CompiledExpression.compile(expr, this);
+        specialized.put(expr, compiled);
+        return compiled;
+    }
+
     /** Clear all cached ASTs. Call when stylesheet version changes. */
-    public void invalidateCache() {
+    public synchronized void invalidateCache() {
         cache.clear();
+        specialized.clear();
     }
 
     /**
-     * Sync with stylesheet version. Clears cache if version has changed.
+     * Sync with stylesheet version. Clears cache when a newer version is seen.
+     * Callers may pass per-path stamps, which differ between relations of one
+     * tree; an older stamp than the last one seen never clears, so sibling
+     * relations do not evict each other's entries.
      */
-    public void syncVersion(long version) {
-        if (version != lastVersion) {
+    public synchronized void syncVersion(long version) {
+        if (version > lastVersion) {
             cache.clear();
+            specialized.clear();
             lastVersion = version;
         }
     }
@@ -99,38 +128,17 @@ public final class ExpressionEvaluator {
     }
 
     /**
-     * Evaluate an aggregate expression over a set of rows.
+     * Evaluate an aggregate expression over a set of rows. To evaluate several
+     * aggregates over the same rows, plan them together in one
+     * {@link AggregatePlan}.
      *
      * @return the aggregated value (Double or null)
      */
     public Object evaluateAggregate(AggregateCall call, List<JsonNode> rows) {
-        if ("count".equals(call.fn())) {
-            return (double) rows.size();
-        }
-
-        // Map the argument expression over all rows, collect non-null numeric values
-        var values = new ArrayList<Double>();
-        for (var row : rows) {
-            var val = call.arg() != null ? evaluate(call.arg(), row) : null;
-            if (val != null) {
-                var num = toNumber(val);
-                if (num != null) {
-                    values.add(num);
-                }
-            }
-        }
-
-        if (values.isEmpty()) {
-            return null;
-        }
-
-        return switch (call.fn()) {
-            case "sum" -> values.stream().mapToDouble(Double::doubleValue).sum();
-            case "avg" -> values.stream().mapToDouble(Double::doubleValue).average().getAsDouble();
-            case "min" -> values.stream().mapToDouble(Double::doubleValue).min().getAsDouble();
-            case "max" -> values.stream().mapToDouble(Double::doubleValue).max().getAsDouble();
-            default -> null;
-        };
+        var plan = new AggregatePlan(this);
+        plan.add(call);
+        return plan.evaluate(rows)
+                   .value(call);
     }
 
     // --- Binary operations ---
@@ -166,7 +174,7 @@ public final class ExpressionEvaluator {
         };
     }
 
-    private Object evalAdd(Object lv, Object rv) {
+    static Object evalAdd(Object lv, Object rv) {
         if (lv == null || rv == null) return null;
         // String + String → concat
         if (lv instanceof String ls && rv instanceof String rs) {
@@ -207,7 +215,7 @@ public final class ExpressionEvaluator {
         double apply(double a, double b);
     }
 
-    private Object evalEq(Object lv, Object rv) {
+    static Object evalEq(Object lv, Object rv) {
         if (lv == null && rv == null) return true;
         if (lv == null || rv == null) return false;
         if (lv instanceof Double ld && rv instanceof Double rd) {
@@ -228,7 +236,7 @@ public final class ExpressionEvaluator {
         return lv.toString().equals(rv.toString());
     }
 
-    private Object evalOrdering(Object lv, Object rv, java.util.function.IntPredicate test) {
+    static Object evalOrdering(Object lv, Object rv, java.util.function.IntPredicate test) {
         if (lv == null || rv == null) return false;
         if (lv instanceof Double ld && rv instanceof Double rd) {
             return test.test(Double.compare(ld, rd));
@@ -315,7 +323,7 @@ public final class ExpressionEvaluator {
     }
 
     /** Materialize a JsonNode to an expression value per the spec type table. */
-    private Object materialize(JsonNode node) {
+    static Object materialize(JsonNode node) {
         if (node == null || node.isNull() || node.isMissingNode()) {
             return null;
         }
@@ -335,7 +343,7 @@ public final class ExpressionEvaluator {
     // --- Type coercion helpers ---
 
     /** Coerce to boolean per spec: null→false, 0→false, ""→false. */
-    private boolean toBool(Object val) {
+    static boolean toBool(Object val) {
         if (val == null) return false;
         if (val instanceof Boolean b) return b;
         if (val instanceof Double d) return d != 0.0;
@@ -344,7 +352,7 @@ public final class ExpressionEvaluator {
     }
 
     /** Try to coerce to Double. Returns null if not possible. */
-    private Double toNumber(Object val) {
+    static Double toNumber(Object val) {
         if (val instanceof Double d) return d;
         if (val instanceof String s) {
             try {
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2016 Chiral Behaviors, LLC, all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chiralbehaviors.layout.expression;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of unboxed doubles addressed by slot, so that any value, not
+ * only the top, can be removed in O(log n). Keeps the minimum (or, for a max
+ * heap, the maximum) of a multiset under inserts and removes, which a plain
+ * running min/max cannot. Values are ordered by {@link Double#compare}. Not
+ * thread safe.
+ */
+final class IndexedDoubleHeap {
+
+    private int[]         heap     = new int[16];
+    private final boolean max;
+    /** Heap index of each slot; -1 when the slot is absent. */
+    private int[]         position = new int[0];
+    private int           size;
+    private double[]      values   = new double[0];
+
+    IndexedDoubleHeap(boolean max) {
+        this.max = max;
+    }
+
+    /**
+     * Add {@code value} under {@code slot}, which must not be present.
+     */
+    void add(int slot, double value) {
+        if (slot >= position.length) {
+            int length = Math.max(slot + 1, position.length * 2);
+            int from = position.length;
+            position = Arrays.copyOf(position, length);
+            Arrays.fill(position, from, length, -1);
+            values = Arrays.copyOf(values, length);
+        }
+        assert position[slot] < 0 : "slot present: " + slot;
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        values[slot] = value;
+        heap[size] = slot;
+        position[slot] = size;
+        up(size++);
+    }
+
+    boolean contains(int slot) {
+        return slot < position.length && position[slot] >= 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the minimum, or for a max heap the maximum; the heap must not be
+     *         empty
+     */
+    double peek() {
+        assert size > 0;
+        return values[heap[0]];
+    }
+
+    /**
+     * Remove the value under {@code slot}.
+     *
+     * @return false if the slot was not present
+     */
+    boolean remove(int slot) {
+        if (!contains(slot)) {
+            return false;
+        }
+        int index = position[slot];
+        position[slot] = -1;
+        int last = heap[--size];
+        if (index < size) {
+            heap[index] = last;
+            position[last] = index;
+            if (index > 0 && before(last, heap[(index - 1) >>> 1])) {
+                up(index);
+            } else {
+                down(index);
+            }
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private boolean before(int a, int b) {
+        int c = Double.compare(values[a], values[b]);
+        return max ? c > 0 : c < 0;
+    }
+
+    private void down(int index) {
+        int slot = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], slot)) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+
+    private void up(int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(slot, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            position[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+}
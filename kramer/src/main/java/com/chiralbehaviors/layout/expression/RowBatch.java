@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2016 Chiral Behaviors, LLC, all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chiralbehaviors.layout.expression;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A set of rows evaluated column-at-a-time by
+ * {@link CompiledExpression#select(RowBatch)},
+ * {@link CompiledExpression#evaluateDoubles(RowBatch, double)} and
+ * {@link CompiledExpression#evaluate(RowBatch)}.
+ * <p>
+ * Each field referenced by an expression is extracted once from the rows into
+ * primitive {@code double[]} columns and cached, so several expressions over
+ * the same batch, such as a filter and the formulas of the rows it keeps,
+ * share the extraction. Rows are referenced, not copied; a caller that
+ * changes a field of the rows must {@link #invalidate(String)} it. Not thread
+ * safe.
+ * <p>
+ * Computed fields, such as formula results, are
+ * {@link #put(String, ColumnValues) put} as overlay columns rather than
+ * written into the rows: later expressions read them like any other field, a
+ * numeric column straight from its {@code double[]}, and a row carrying them
+ * is only materialized, once, when {@link #row(int)} asks for it.
+ */
+public final class RowBatch {
+
+    /**
+     * The values of one field path. {@code numbers} is the numeric coercion
+     * of the field as {@link ExpressionEvaluator#toNumber} reads it, including
+     * numeric text; {@code exact} holds only values of numeric JSON nodes,
+     * as comparisons read them. Absent values are the null sentinel of
+     * {@link CompiledExpression#isNullNumber(double)}.
+     */
+    record Column(double[] numbers, double[] exact) {
+    }
+
+    public static RowBatch of(ArrayNode rows) {
+        JsonNode[] array = new JsonNode[rows.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = rows.get(i);
+        }
+        return new RowBatch(array);
+    }
+
+    private final Map<List<String>, Column> columns = new HashMap<>();
+    private ObjectNode[]                    merged;
+    private final Map<String, ColumnValues> overlay = new LinkedHashMap<>();
+    private final JsonNode[]                rows;
+
+    public RowBatch(List<JsonNode> rows) {
+        this(rows.toArray(JsonNode[]::new));
+    }
+
+    private RowBatch(JsonNode[] rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Drop the cached columns of {@code field} and of paths below it, after
+     * the rows' values of it have changed.
+     */
+    public void invalidate(String field) {
+        columns.keySet()
+               .removeIf(path -> path.get(0)
+                                     .equals(field));
+    }
+
+    /**
+     * Overlay the values of a computed field on the rows, replacing any
+     * value of {@code field} the rows carry. The rows themselves are not
+     * changed. A numeric column is itself the field's extracted column.
+     *
+     * @param values
+     *            the field's values by row; referenced, not copied
+     */
+    public void put(String field, ColumnValues values) {
+        if (values.size() != rows.length) {
+            throw new IllegalArgumentException("Expected " + rows.length
+                                               + " values, got "
+                                               + values.size());
+        }
+        invalidate(field);
+        overlay.put(field, values);
+        if (values.isNumeric()) {
+            double[] numbers = values.numbers();
+            columns.put(List.of(field), new Column(numbers, numbers));
+        }
+        if (merged != null) {
+            for (int i = 0; i < merged.length; i++) {
+                if (merged[i] != null) {
+                    merged[i].set(field, values.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the row at {@code index}: the source row itself, or, once
+     *         fields have been {@link #put(String, ColumnValues) put}, a copy
+     *         of its fields with the overlay fields after them, made on the
+     *         first request and kept up to date
+     */
+    public JsonNode row(int index) {
+        if (overlay.isEmpty()) {
+            return rows[index];
+        }
+        if (merged == null) {
+            merged = new ObjectNode[rows.length];
+        }
+        ObjectNode row = merged[index];
+        if (row == null) {
+            row = JsonNodeFactory.instance.objectNode();
+            if (rows[index] instanceof ObjectNode base) {
+                row.setAll(base);
+            }
+            for (Map.Entry<String, ColumnValues> field : overlay.entrySet()) {
+                row.set(field.getKey(), field.getValue()
+                                             .get(index));
+            }
+            merged[index] = row;
+        }
+        return row;
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    Column column(List<String> path, String[] segments) {
+        Column column = columns.get(path);
+        if (column == null) {
+            int n = rows.length;
+            double[] numbers = new double[n];
+            double[] exact = new double[n];
+            ColumnValues values = overlay.get(segments[0]);
+            for (int i = 0; i < n; i++) {
+                JsonNode node = values == null ? CompiledExpression.resolve(rows[i],
+                                                                            segments)
+                                               : CompiledExpression.resolve(values.get(i),
+                                                                            segments,
+                                                                            1);
+                numbers[i] = CompiledExpression.number(node);
+                exact[i] = node != null && node.isNumber() ? node.doubleValue()
+                                                           : CompiledExpression.NULL;
+            }
+            column = new Column(numbers, exact);
+            columns.put(path, column);
+        }
+        return column;
+    }
+}
@@ -30,7 +30,18 @@ final class CellListManager<C extends LayoutCell<?>> {
 
     public CellListManager(ObservableList<JsonNode> items,
                            Function<? super JsonNode, ? extends C> cellFactory) {
-        this.cellPool = new CellPool<>(cellFactory);
+        this(items, cellFactory, item -> null);
+    }
+
+    /**
+     * @param kindOf
+     *            maps an item to the kind of cell the factory builds for it;
+     *            cells are only reused for items of their own kind
+     */
+    public CellListManager(ObservableList<JsonNode> items,
+                           Function<? super JsonNode, ? extends C> cellFactory,
+                           Function<? super JsonNode, ?> kindOf) {
+        this.cellPool = new CellPool<>(cellFactory, kindOf);
         this.cells = LiveList.map(items, this::cellForItem)
                              .memoize();
         this.presentCells = cells.memoizedItems();
@@ -61,6 +72,11 @@ final class CellListManager<C extends LayoutCell<?>> {
         cellPool.dispose();
     }
 
+    /** Gets the reuse counters of the cell pool */
+    public CellPoolStats getPoolStats() {
+        return cellPool.getStats();
+    }
+
     public C getCell(int itemIndex) {
         return cells.get(itemIndex);
     }
@@ -88,6 +104,19 @@ final class CellListManager<C extends LayoutCell<?>> {
         return cells.isMemoized(itemIndex);
     }
 
+    /**
+     * Pool up to {@code count} cells, built from {@code item}, ahead of use
+     *
+     * @return the number of cells created
+     */
+    public int prewarm(JsonNode item, int count) {
+        return cellPool.prewarm(item, count);
+    }
+
+    public void setPoolCapacity(int capacity) {
+        cellPool.setCapacity(capacity);
+    }
+
     private C cellForItem(JsonNode item) {
         C cell = cellPool.getCell(item);
 
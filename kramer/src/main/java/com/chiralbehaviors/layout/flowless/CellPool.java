@@ -1,7 +1,9 @@
 package com.chiralbehaviors.layout.flowless;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 import com.chiralbehaviors.layout.cell.LayoutCell;
@@ -11,51 +13,159 @@ import com.fasterxml.jackson.databind.JsonNode;
  * Helper class that stores a pool of reusable cells that can be updated via
  * {@link Cell#updateItem(Object)} or creates new ones via its
  * {@link #cellFactory} if the pool is empty.
+ *
+ * <p>Cells are pooled by kind: {@link #kindOf} maps an item to the kind of
+ * cell the factory builds for it, and a cell only returns to its own kind's
+ * queue, so a flow of heterogeneous cells never hands an item a cell built
+ * for another kind. Each queue holds at most {@link #getCapacity()} cells;
+ * surplus cells are disposed. The pool counts created, reused and disposed
+ * cells, see {@link #getStats()}.
  */
 final class CellPool<C extends LayoutCell<?>> {
+    static final int                                      DEFAULT_CAPACITY = 128;
+    private static final Object                           SINGLE_KIND      = new Object();
+
+    private int                                           capacity         = DEFAULT_CAPACITY;
     private final Function<? super JsonNode, ? extends C> cellFactory;
-    private final Queue<C>                                pool = new LinkedList<>();
+    private long                                          created;
+    private long                                          disposed;
+    private final Function<? super JsonNode, ?>           kindOf;
+    /**
+     * Kind of every cell created by this pool and not yet disposed
+     */
+    private final Map<C, Object>                          kinds            = new IdentityHashMap<>();
+    private final Map<Object, ArrayDeque<C>>              pools            = new HashMap<>();
+    private long                                          reused;
 
     public CellPool(Function<? super JsonNode, ? extends C> cellFactory) {
+        this(cellFactory, item -> SINGLE_KIND);
+    }
+
+    public CellPool(Function<? super JsonNode, ? extends C> cellFactory,
+                    Function<? super JsonNode, ?> kindOf) {
         this.cellFactory = cellFactory;
+        this.kindOf = kindOf;
     }
 
     /**
      * Adds the cell to the pool of reusable cells if {@link Cell#isReusable()}
-     * is true, or {@link Cell#dispose() disposes} the cell if it's not.
+     * is true and its kind's queue has room, or {@link Cell#dispose()
+     * disposes} the cell if not.
      */
     public void acceptCell(C cell) {
         cell.reset();
-        if (cell.isReusable()) {
-            pool.add(cell);
-        } else {
-            cell.dispose();
+        Object kind = kinds.get(cell);
+        if (kind != null && cell.isReusable()) {
+            ArrayDeque<C> pool = pools.computeIfAbsent(kind,
+                                                       k -> new ArrayDeque<>());
+            if (pool.size() < capacity) {
+                pool.addLast(cell);
+                return;
+            }
         }
+        dispose(cell);
     }
 
     /**
      * Disposes the cell pool and prevents any memory leaks.
      */
     public void dispose() {
-        for (C cell : pool) {
-            cell.dispose();
+        for (ArrayDeque<C> pool : pools.values()) {
+            for (C cell : pool) {
+                dispose(cell);
+            }
         }
+        pools.clear();
+    }
 
-        pool.clear();
+    public int getCapacity() {
+        return capacity;
     }
 
     /**
      * Returns a reusable cell that has been updated with the current item if
-     * the pool has one, or returns a newly-created one via its
-     * {@link #cellFactory}.
+     * the pool has one of the item's kind, or returns a newly-created one via
+     * its {@link #cellFactory}.
      */
     public C getCell(JsonNode item) {
-        C cell = pool.poll();
+        Object kind = kindOf(item);
+        ArrayDeque<C> pool = pools.get(kind);
+        C cell = pool == null ? null : pool.pollLast();
         if (cell != null) {
+            reused++;
             cell.updateItem(item);
         } else {
-            cell = cellFactory.apply(item);
+            cell = create(item, kind);
+        }
+        return cell;
+    }
+
+    public CellPoolStats getStats() {
+        int pooled = 0;
+        for (ArrayDeque<C> pool : pools.values()) {
+            pooled += pool.size();
+        }
+        return new CellPoolStats(created, reused, disposed, pooled);
+    }
+
+    /**
+     * Fill the queue for {@code item}'s kind with up to {@code count} cells,
+     * built from {@code item} and reset, so that the first screens of
+     * scrolling reuse rather than create.
+     *
+     * @return the number of cells created
+     */
+    public int prewarm(JsonNode item, int count) {
+        Object kind = kindOf(item);
+        ArrayDeque<C> pool = pools.computeIfAbsent(kind,
+                                                   k -> new ArrayDeque<>());
+        int target = Math.min(count, capacity);
+        int made = 0;
+        while (pool.size() < target) {
+            C cell = create(item, kind);
+            cell.reset();
+            if (!cell.isReusable()) {
+                dispose(cell);
+                break;
+            }
+            pool.addLast(cell);
+            made++;
+        }
+        return made;
+    }
+
+    /**
+     * Bound each kind's queue to {@code capacity} cells, disposing any
+     * surplus.
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0: "
+                                               + capacity);
         }
+        this.capacity = capacity;
+        for (ArrayDeque<C> pool : pools.values()) {
+            while (pool.size() > capacity) {
+                dispose(pool.pollFirst());
+            }
+        }
+    }
+
+    private C create(JsonNode item, Object kind) {
+        C cell = cellFactory.apply(item);
+        created++;
+        kinds.put(cell, kind);
         return cell;
     }
-}
\ No newline at end of file
+
+    private void dispose(C cell) {
+        kinds.remove(cell);
+        disposed++;
+        cell.dispose();
+    }
+
+    private Object kindOf(JsonNode item) {
+        Object kind = kindOf.apply(item);
+        return kind == null ? SINGLE_KIND : kind;
+    }
+}
@@ -0,0 +1,18 @@
+package com.chiralbehaviors.layout.flowless;
+
+/**
+ * Reuse counters of a {@link VirtualFlow}'s cell pool.
+ *
+ * @param created
+ *            cells built by the cell factory, including pre-warmed ones
+ * @param reused
+ *            cells handed out again from the pool
+ * @param disposed
+ *            cells disposed because they were not reusable, the pool was
+ *            full, or the flow was disposed
+ * @param pooled
+ *            cells currently waiting in the pool
+ */
+public record CellPoolStats(long created, long reused, long disposed,
+                            int pooled) {
+}
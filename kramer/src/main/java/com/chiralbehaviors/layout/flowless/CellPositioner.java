@@ -18,6 +18,7 @@ import javafx.scene.Node;
  */
 final class CellPositioner<C extends LayoutCell<?>> {
     private final CellListManager<C> cellManager;
+    private boolean                  measureLengths;
     private final SizeTracker        sizeTracker;
 
     public CellPositioner(CellListManager<C> cellManager,
@@ -85,6 +86,20 @@ final class CellPositioner<C extends LayoutCell<?>> {
         return OptionalInt.empty();
     }
 
+    /**
+     * Like {@link #placeStartAt(int, double)}, but leaves the cell's node
+     * hidden: used for overscan cells bound ahead of the viewport. A cell that
+     * is already hidden is only resized and relocated, so repeated placement
+     * does not request another layout.
+     */
+    public C placeHiddenStartAt(int itemIndex, double startOffStart) {
+        C cell = getSizedCell(itemIndex);
+        relocate(cell, 0, startOffStart);
+        cell.getNode()
+            .setVisible(false);
+        return cell;
+    }
+
     /**
      * Properly resizes the cell's node, and sets its "layoutY" value, so that
      * is the last visible node in the viewport, and further offsets this value
@@ -270,16 +285,34 @@ final class CellPositioner<C extends LayoutCell<?>> {
 
     /**
      * Returns properly sized, but not properly positioned cell for the given
-     * index.
+     * index. When measuring lengths, the cell is sized to its preferred length
+     * at the cell breadth, which is recorded in the size tracker.
      */
     C getSizedCell(int itemIndex) {
         C cell = cellManager.getCell(itemIndex);
+        Node node = cell.getNode();
         double breadth = sizeTracker.breadthFor(itemIndex);
         double length = sizeTracker.lengthFor(itemIndex);
-        ((Node) cell.getNode()).resize(breadth, length);
+        if (measureLengths) {
+            double measured = node.prefHeight(breadth);
+            if (measured > 0) {
+                sizeTracker.setItemLength(itemIndex, measured);
+                length = measured;
+            }
+        }
+        node.resize(breadth, length);
         return cell;
     }
 
+    /**
+     * @param measureLengths
+     *            true to size cells to their own preferred length rather than
+     *            the cell length
+     */
+    void setMeasureLengths(boolean measureLengths) {
+        this.measureLengths = measureLengths;
+    }
+
     private void relocate(C cell, double breadth0, double length0) {
         ((Node) cell.getNode()).relocate(breadth0, length0);
     }
@@ -0,0 +1,253 @@
+package com.chiralbehaviors.layout.flowless;
+
+import java.util.Arrays;
+
+/**
+ * Prefix-sum index over the lengths of a list of items, backed by a pair of
+ * Fenwick trees. Items whose length has been {@link #set(int, double)
+ * measured} contribute that length; every other item contributes the
+ * {@link #getDefaultLength() default} estimate. Offset of an item, total
+ * length and the item at an offset are all O(log n); a measurement is an
+ * O(log n) update, and changing the default estimate is O(1).
+ *
+ * <p>The trees hold the sum and count of measured lengths only, so that a
+ * prefix is {@code measuredSum + (i - measuredCount) * default}. Structural
+ * changes (insert, remove, permute) shift the raw lengths and rebuild the
+ * trees in O(n) on the next query. Until the first measurement nothing but
+ * the size is stored.
+ */
+final class LengthIndex {
+    private double   defaultLength;
+    private boolean  dirty;
+    private int[]    knownTree;
+    private double[] lengths;
+    private double[] lengthTree;
+    private int      size;
+
+    LengthIndex(double defaultLength) {
+        this.defaultLength = defaultLength;
+    }
+
+    /** Forget every measurement. */
+    void clear() {
+        lengths = null;
+        knownTree = null;
+        lengthTree = null;
+        dirty = false;
+    }
+
+    double getDefaultLength() {
+        return defaultLength;
+    }
+
+    /**
+     * @return the item containing {@code offset}, clamped to the items; -1
+     *         when there are none
+     */
+    int indexAt(double offset) {
+        if (size == 0) {
+            return -1;
+        }
+        if (offset <= 0) {
+            return 0;
+        }
+        if (lengths == null) {
+            return defaultLength <= 0 ? 0
+                                      : (int) Math.min(size - 1,
+                                                       (long) (offset
+                                                               / defaultLength));
+        }
+        rebuildIfDirty();
+        // binary lifting for the longest prefix whose length is <= offset
+        int pos = 0;
+        int known = 0;
+        double sum = 0;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next > size) {
+                continue;
+            }
+            int nextKnown = known + knownTree[next];
+            double nextSum = sum + lengthTree[next];
+            if (nextSum + (next - nextKnown) * defaultLength <= offset) {
+                pos = next;
+                known = nextKnown;
+                sum = nextSum;
+            }
+        }
+        return Math.min(pos, size - 1);
+    }
+
+    /** Insert {@code count} unmeasured items at {@code from}. */
+    void insert(int from, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (lengths != null) {
+            double[] grown = new double[size + count];
+            System.arraycopy(lengths, 0, grown, 0, from);
+            Arrays.fill(grown, from, from + count, Double.NaN);
+            System.arraycopy(lengths, from, grown, from + count, size - from);
+            lengths = grown;
+            dirty = true;
+        }
+        size += count;
+    }
+
+    /**
+     * @return the measured length of item {@code i}, or the default estimate
+     */
+    double length(int i) {
+        if (lengths == null || i < 0 || i >= size) {
+            return defaultLength;
+        }
+        double length = lengths[i];
+        return Double.isNaN(length) ? defaultLength : length;
+    }
+
+    /**
+     * @return the summed length of the items before {@code i}
+     */
+    double offsetOf(int i) {
+        i = Math.max(0, Math.min(i, size));
+        if (lengths == null) {
+            return i * defaultLength;
+        }
+        rebuildIfDirty();
+        int known = 0;
+        double sum = 0;
+        for (int j = i; j > 0; j -= j & -j) {
+            known += knownTree[j];
+            sum += lengthTree[j];
+        }
+        return sum + (i - known) * defaultLength;
+    }
+
+    /**
+     * Reorder the items; item {@code i} moves to {@code permutation[i]}.
+     */
+    void permute(int from, int[] permutation) {
+        if (lengths == null) {
+            return;
+        }
+        double[] moved = lengths.clone();
+        for (int i = 0; i < permutation.length; i++) {
+            moved[permutation[i]] = lengths[from + i];
+        }
+        lengths = moved;
+        dirty = true;
+    }
+
+    /** Remove {@code count} items starting at {@code from}. */
+    void remove(int from, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (lengths != null) {
+            double[] shrunk = new double[size - count];
+            System.arraycopy(lengths, 0, shrunk, 0, from);
+            System.arraycopy(lengths, from + count, shrunk, from,
+                             size - from - count);
+            lengths = shrunk;
+            dirty = true;
+        }
+        size -= count;
+    }
+
+    /** Drop the items and measurements, leaving {@code size} unmeasured items. */
+    void reset(int size) {
+        clear();
+        this.size = size;
+    }
+
+    /**
+     * Record the measured length of item {@code i}.
+     *
+     * @return true if the index changed
+     */
+    boolean set(int i, double length) {
+        if (i < 0 || i >= size || length < 0 || Double.isNaN(length)) {
+            return false;
+        }
+        if (lengths == null) {
+            lengths = new double[size];
+            Arrays.fill(lengths, Double.NaN);
+            dirty = true;
+        }
+        double old = lengths[i];
+        if (old == length) {
+            return false;
+        }
+        lengths[i] = length;
+        if (!dirty) {
+            boolean wasKnown = !Double.isNaN(old);
+            update(i, wasKnown ? 0 : 1, wasKnown ? length - old : length);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the default estimate changed
+     */
+    boolean setDefaultLength(double defaultLength) {
+        if (this.defaultLength == defaultLength) {
+            return false;
+        }
+        this.defaultLength = defaultLength;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double total() {
+        return offsetOf(size);
+    }
+
+    /**
+     * Forget the measurement of item {@code i}.
+     *
+     * @return true if the index changed
+     */
+    boolean unset(int i) {
+        if (lengths == null || i < 0 || i >= size || Double.isNaN(lengths[i])) {
+            return false;
+        }
+        double old = lengths[i];
+        lengths[i] = Double.NaN;
+        if (!dirty) {
+            update(i, -1, -old);
+        }
+        return true;
+    }
+
+    /** Linear-time Fenwick construction from the raw lengths. */
+    private void rebuildIfDirty() {
+        if (!dirty) {
+            return;
+        }
+        knownTree = new int[size + 1];
+        lengthTree = new double[size + 1];
+        for (int i = 1; i <= size; i++) {
+            double length = lengths[i - 1];
+            if (!Double.isNaN(length)) {
+                knownTree[i] += 1;
+                lengthTree[i] += length;
+            }
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                knownTree[parent] += knownTree[i];
+                lengthTree[parent] += lengthTree[i];
+            }
+        }
+        dirty = false;
+    }
+
+    private void update(int i, int knownDelta, double lengthDelta) {
+        for (int j = i + 1; j <= size; j += j & -j) {
+            knownTree[j] += knownDelta;
+            lengthTree[j] += lengthDelta;
+        }
+    }
+}
@@ -32,6 +32,8 @@ final class Navigator<C extends LayoutCell<?>> extends Region
     private final MemoizationList<C> cells;
     private TargetPosition           currentPosition = TargetPosition.BEGINNING;
     private final Subscription       itemsSubscription;
+    private int                      overscanAfter;
+    private int                      overscanBefore;
     private final CellPositioner<C>  positioner;
 
     private final SizeTracker        sizeTracker;
@@ -54,6 +56,32 @@ final class Navigator<C extends LayoutCell<?>> extends Region
         Bindings.unbindContent(getChildren(), cellListManager.getNodes());
     }
 
+    /**
+     * Creates up to {@code budget} of the overscan cells that are not present
+     * yet, nearest to the viewport first and the larger side first, and
+     * places them hidden next to the visible cells.
+     *
+     * @return true if overscan cells are still missing
+     */
+    public boolean prefetch(int budget) {
+        OptionalInt firstVisible = positioner.getFirstVisibleIndex();
+        if (firstVisible.isEmpty()) {
+            return false;
+        }
+        int first = firstVisible.getAsInt();
+        int last = positioner.getLastVisibleIndex()
+                             .getAsInt();
+        int lo = Math.max(0, first - overscanBefore);
+        int hi = Math.min(cells.size() - 1, last + overscanAfter);
+        boolean afterFirst = overscanAfter >= overscanBefore;
+        budget -= prefetch(afterFirst ? last + 1 : first - 1,
+                           afterFirst ? hi : lo, budget);
+        budget -= prefetch(afterFirst ? first - 1 : last + 1,
+                           afterFirst ? lo : hi, budget);
+        placeOverscan(first, last);
+        return missingOverscan(first, last) > 0;
+    }
+
     /**
      * Sets the {@link TargetPosition} used to layout the anchor node to the
      * current position scrolled by {@code delta} and re-lays out the viewport
@@ -72,6 +100,15 @@ final class Navigator<C extends LayoutCell<?>> extends Region
         requestLayout();
     }
 
+    /**
+     * Sets how many cells beyond each edge of the viewport are kept bound,
+     * positioned and hidden, so that scrolling onto them does not bind.
+     */
+    public void setOverscan(int before, int after) {
+        overscanBefore = Math.max(0, before);
+        overscanAfter = Math.max(0, after);
+    }
+
     @Override
     public void visit(EndOffEnd targetPosition) {
         placeEndOffEndMayCrop(targetPosition.itemIndex,
@@ -207,7 +244,8 @@ final class Navigator<C extends LayoutCell<?>> extends Region
                                .orElse(5.0)
                                .intValue();
 
-        positioner.cropTo(itemIndex - itemsBefore, itemIndex + 1 + itemsAfter);
+        positioner.cropTo(itemIndex - itemsBefore - overscanBefore,
+                          itemIndex + 1 + itemsAfter + overscanAfter);
     }
 
     private double distanceFromGround(int itemIndex) {
@@ -327,7 +365,89 @@ final class Navigator<C extends LayoutCell<?>> extends Region
                                                          .getMinY() >= sizeTracker.getViewportLength()) {
             --last;
         }
-        positioner.cropTo(first, last + 1);
+        positioner.cropTo(first - overscanBefore, last + 1 + overscanAfter);
+        placeOverscan(first, last);
+    }
+
+    /**
+     * @return true if any overscan cell around the visible cells is not
+     *         present yet
+     */
+    public boolean isOverscanMissing() {
+        OptionalInt first = positioner.getFirstVisibleIndex();
+        return first.isPresent()
+               && missingOverscan(first.getAsInt(),
+                                  positioner.getLastVisibleIndex()
+                                            .getAsInt()) > 0;
+    }
+
+    /**
+     * @return the number of overscan cells not present yet
+     */
+    int missingOverscan(int first, int last) {
+        int lo = Math.max(0, first - overscanBefore);
+        int hi = Math.min(cells.size() - 1, last + overscanAfter);
+        return (hi - lo + 1) - (cells.getMemoizedCountBefore(hi + 1)
+                                - cells.getMemoizedCountBefore(lo));
+    }
+
+    /**
+     * Stack the present overscan cells hidden against the visible range
+     * [first, last], and drop any present cell not contiguous with it, so the
+     * present cells always form one run in item order.
+     */
+    private void placeOverscan(int first, int last) {
+        Node node = positioner.getVisibleCell(first)
+                              .getNode();
+        double y = node.getLayoutY() + node.getLayoutBounds()
+                                           .getMinY();
+        int lo = first;
+        while (lo > 0 && first - lo < overscanBefore
+               && cellListManager.isCellPresent(lo - 1)) {
+            --lo;
+            // Sized first: a measured length may differ from the estimate
+            C cell = positioner.placeHiddenStartAt(lo, y);
+            double length = cell.getNode()
+                                .getLayoutBounds()
+                                .getHeight();
+            y -= length;
+            positioner.shiftCellBy(cell, -length);
+        }
+        node = positioner.getVisibleCell(last)
+                         .getNode();
+        y = node.getLayoutY() + node.getLayoutBounds()
+                                    .getMinY()
+            + node.getLayoutBounds()
+                  .getHeight();
+        int hi = last;
+        while (hi < cells.size() - 1 && hi - last < overscanAfter
+               && cellListManager.isCellPresent(hi + 1)) {
+            C cell = positioner.placeHiddenStartAt(++hi, y);
+            y += cell.getNode()
+                     .getLayoutBounds()
+                     .getHeight();
+        }
+        if (overscanBefore > 0 || overscanAfter > 0) {
+            positioner.cropTo(lo, hi + 1);
+        }
+    }
+
+    /**
+     * Bind missing cells from {@code from} towards {@code to} inclusive, up
+     * to {@code budget} of them.
+     *
+     * @return the number of cells bound
+     */
+    private int prefetch(int from, int to, int budget) {
+        int step = to >= from ? 1 : -1;
+        int bound = 0;
+        for (int i = from; bound < budget && (to - i) * step >= 0; i += step) {
+            if (!cellListManager.isCellPresent(i)) {
+                cellListManager.getCell(i);
+                bound++;
+            }
+        }
+        return bound;
     }
 
     private TargetPosition getCurrentPosition() {
@@ -48,6 +48,7 @@ public class ScrollHandler {
     private VirtualFlow<?>                    flow;
     private Runnable                          afterPageScroll;
     private final EventHandler<ScrollEvent>   scrollEventHandler;
+    private final ScrollVelocity              velocity = new ScrollVelocity();
 
     public ScrollHandler(VirtualFlow<?> flow) {
         assert flow != null;
@@ -75,11 +76,21 @@ public class ScrollHandler {
         }
     }
 
+    /**
+     * @return the smoothed scroll velocity in pixels per millisecond; positive
+     *         towards the end of the flow, decaying to zero once scrolling
+     *         stops
+     */
+    public double getVelocity() {
+        return velocity.velocityAt(System.nanoTime());
+    }
+
     public boolean isDisabled() {
         return flow.isDisabled();
     }
 
     public void scroll(ScrollEvent se) {
+        velocity.record(-se.getDeltaY(), System.nanoTime());
         flow.scrollYBy(-se.getDeltaY());
     }
 
@@ -0,0 +1,51 @@
+package com.chiralbehaviors.layout.flowless;
+
+/**
+ * Exponentially smoothed scroll velocity, in pixels per millisecond; positive
+ * towards the end of the flow. Samples are weighted by the time since the
+ * previous one, and the estimate decays once scroll events stop, so a fling
+ * reads fast while it lasts and falls to zero after.
+ */
+final class ScrollVelocity {
+    /** Half-life of the estimate once scroll events stop */
+    static final double HALF_LIFE_MS = 100;
+    /** Half-life of a sample's weight in the smoothed estimate */
+    static final double SMOOTHING_MS = 32;
+    /** Assumed interval before the first sample of a gesture: one frame */
+    static final double FRAME_MS     = 16;
+    /** Samples further apart than this start a new gesture */
+    static final double GESTURE_MS   = 250;
+
+    private long        lastNanos    = Long.MIN_VALUE;
+    private double      velocity;
+
+    void record(double delta, long nanos) {
+        double elapsed = lastNanos == Long.MIN_VALUE ? Double.POSITIVE_INFINITY
+                                                     : (nanos - lastNanos)
+                                                       / 1e6;
+        lastNanos = nanos;
+        if (elapsed > GESTURE_MS) {
+            velocity = delta / FRAME_MS;
+            return;
+        }
+        double interval = Math.max(elapsed, 1);
+        double weight = 1 - Math.pow(0.5, interval / SMOOTHING_MS);
+        velocity += (delta / interval - velocity) * weight;
+    }
+
+    void reset() {
+        velocity = 0;
+        lastNanos = Long.MIN_VALUE;
+    }
+
+    /**
+     * @return the smoothed velocity as of {@code nanos}
+     */
+    double velocityAt(long nanos) {
+        if (lastNanos == Long.MIN_VALUE) {
+            return 0;
+        }
+        double idle = Math.max(0, (nanos - lastNanos) / 1e6);
+        return velocity * Math.pow(0.5, idle / HALF_LIFE_MS);
+    }
+}
@@ -1,37 +1,30 @@
 package com.chiralbehaviors.layout.flowless;
 
 import java.util.Optional;
-import java.util.function.Function;
 
 import org.reactfx.Subscription;
-import org.reactfx.collection.LiveList;
 import org.reactfx.collection.MemoizationList;
 import org.reactfx.value.Val;
 import org.reactfx.value.Var;
 
 import javafx.beans.value.ObservableObjectValue;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Bounds;
-import javafx.scene.control.IndexRange;
 
 /**
  * Estimates the size of the entire viewport (if it was actually completely
- * rendered) based on the known sizes of the {@link Cell}s whose nodes are
- * currently displayed in the viewport and an estimated average of {@link Cell}s
- * whose nodes are not displayed in the viewport. The meaning of
- * {@link #breadthForCells} and {@link #totalLengthEstimate} are dependent upon
- * which implementation of {@link OrientationHelper} is used.
+ * rendered) from a {@link LengthIndex} over the items: items whose length has
+ * been measured contribute it, the rest contribute the cell length estimate.
+ * Offsets and the total are prefix sums, so they stay exact as items of
+ * different lengths scroll by. The meaning of {@link #breadthForCells} and
+ * {@link #totalLengthEstimate} are dependent upon which implementation of
+ * {@link OrientationHelper} is used.
  */
 final class SizeTracker {
-    private static <T> Val<T> avoidFalseInvalidations(Val<T> src) {
-        Var<T> result = Var.newSimpleVar(src.getValue());
-        src.observeChanges((obs, oldVal, newVal) -> result.setValue(newVal));
-        return result;
-    }
 
     /**
-     * Stores either null or the average length of the cells' nodes currently
-     * displayed in the viewport
+     * Stores either null or the average length of the items
      */
     private final Val<Double>                           averageLengthEstimate;
     /**
@@ -39,21 +32,20 @@ final class SizeTracker {
      * viewport's breadth
      */
     private final Val<Double>                           breadthForCells;
+    private final Var<Double>                           cellLengthVar;
     private final MemoizationList<? extends Cell<?, ?>> cells;
-
+    private final LengthIndex                           index;
+    /**
+     * Bumped whenever the index changes
+     */
+    private final Var<Long>                             indexVersion = Var.newSimpleVar(0L);
+    private final ObservableList<?>                     items;
     private final Val<Double>                           lengthOffsetEstimate;
-
-    private final MemoizationList<Double>               lengths;
-
     private final Val<Double>                           maxKnownMinBreadth;
-
     private final Subscription                          subscription;
-
     private final Val<Double>                           totalLengthEstimate;
     private final ObservableObjectValue<Bounds>         viewportBounds;
     private double                                      width;
-    private final Var<Double>                           cellLengthVar;
-    private final ObservableList<?>                     items;
 
     /**
      * Constructs a SizeTracker
@@ -67,21 +59,21 @@ final class SizeTracker {
         this.viewportBounds = viewportBounds;
         this.cells = lazyCells;
         this.items = items;
+        this.index = new LengthIndex(length);
+        index.reset(items.size());
+        ListChangeListener<Object> itemsListener = this::itemsChanged;
+        items.addListener(itemsListener);
+
         this.maxKnownMinBreadth = Var.newSimpleVar(width);
         this.breadthForCells = Val.combine(maxKnownMinBreadth, viewportBounds,
                                            (a, b) -> Math.max(a, b.getWidth()));
 
-        Val<Function<Cell<?, ?>, Double>> lengthFn = avoidFalseInvalidations(breadthForCells).map(m -> cell -> cellLengthVar.getValue());
-
-        this.lengths = cells.mapDynamic(lengthFn)
-                            .memoize();
+        this.averageLengthEstimate = Val.create(() -> index.size() == 0 ? index.getDefaultLength()
+                                                                        : index.total()
+                                                                          / index.size(),
+                                                indexVersion);
 
-        LiveList<Double> knownLengths = this.lengths.memoizedItems();
-
-        this.averageLengthEstimate = cellLengthVar.map(h -> h);
-
-        this.totalLengthEstimate = Val.create(() -> cellLengthVar.getValue() * items.size(),
-                                                   items, cellLengthVar);
+        this.totalLengthEstimate = Val.create(index::total, indexVersion);
 
         Val<Integer> firstVisibleIndex = Val.create(() -> cells.getMemoizedCount() == 0 ? null
                                                                                         : cells.indexOfMemoizedItem(0),
@@ -94,28 +86,10 @@ final class SizeTracker {
                                                           .collapse(visCells -> visCells.isEmpty() ? null
                                                                                                    : visCells.get(0));
 
-        Val<Integer> knownLengthCountBeforeFirstVisibleCell = Val.create(() -> {
-            return firstVisibleIndex.getOpt()
-                                    .map(i -> lengths.getMemoizedCountBefore(Math.min(i,
-                                                                                      lengths.size())))
-                                    .orElse(0);
-        }, lengths, firstVisibleIndex);
-
-        Val<Double> totalKnownLengthBeforeFirstVisibleCell = knownLengths.reduceRange(knownLengthCountBeforeFirstVisibleCell.map(n -> new IndexRange(0,
-                                                                                                                                                     n)),
-                                                                                      (a,
-                                                                                       b) -> a
-                                                                                             + b)
-                                                                         .orElseConst(0.0);
-
-        Val<Double> unknownLengthEstimateBeforeFirstVisibleCell = Val.combine(firstVisibleIndex,
-                                                                              knownLengthCountBeforeFirstVisibleCell,
-                                                                              averageLengthEstimate,
-                                                                              (firstIdx,
-                                                                               knownCnt,
-                                                                               avgLen) -> (firstIdx
-                                                                                           - knownCnt)
-                                                                                          * avgLen);
+        Val<Double> lengthBeforeFirstVisibleCell = Val.combine(firstVisibleIndex,
+                                                               indexVersion,
+                                                               (firstIdx,
+                                                                v) -> index.offsetOf(firstIdx));
 
         Val<Double> firstCellMinY = firstVisibleCell.flatMap(node -> Val.combine(node.getNode()
                                                                                      .layoutYProperty(),
@@ -125,16 +99,16 @@ final class SizeTracker {
                                                                                   layoutBounds) -> layoutY.doubleValue()
                                                                                                    + layoutBounds.getMinY()));
 
-        lengthOffsetEstimate = Val.combine(totalKnownLengthBeforeFirstVisibleCell,
-                                           unknownLengthEstimateBeforeFirstVisibleCell,
+        lengthOffsetEstimate = Val.combine(lengthBeforeFirstVisibleCell,
                                            firstCellMinY,
-                                           (a, b, minY) -> a + b - minY)
+                                           (a, minY) -> a - minY)
                                   .orElseConst(0.0);
 
         // pinning totalLengthEstimate and lengthOffsetEstimate
         // binds it all together and enables memoization
         this.subscription = Subscription.multi(() -> totalLengthEstimate.getValue(),
-                                               () -> lengthOffsetEstimate.getValue());
+                                               () -> lengthOffsetEstimate.getValue(),
+                                               () -> items.removeListener(itemsListener));
     }
 
     public Val<Double> averageLengthEstimateProperty() {
@@ -145,6 +119,14 @@ final class SizeTracker {
         return width;
     }
 
+    /**
+     * Forget every measured length; all items fall back to the cell length.
+     */
+    public void clearItemLengths() {
+        index.clear();
+        invalidateIndex();
+    }
+
     public void dispose() {
         subscription.unsubscribe();
     }
@@ -161,10 +143,6 @@ final class SizeTracker {
         return cellLengthVar.getValue();
     }
 
-    public void setCellLength(double length) {
-        cellLengthVar.setValue(length);
-    }
-
     public double getViewportBreadth() {
         return viewportBounds.get()
                              .getWidth();
@@ -175,8 +153,16 @@ final class SizeTracker {
                              .getHeight();
     }
 
+    /**
+     * @return the item at {@code offset} along the full content length, or -1
+     *         if there are no items
+     */
+    public int itemAt(double offset) {
+        return index.indexAt(offset);
+    }
+
     public double lengthFor(int itemIndex) {
-        return lengths.get(itemIndex);
+        return index.length(itemIndex);
     }
 
     public Val<Double> lengthOffsetEstimateProperty() {
@@ -187,7 +173,60 @@ final class SizeTracker {
         return maxKnownMinBreadth;
     }
 
+    /**
+     * @return the offset of the start of item {@code itemIndex} along the full
+     *         content length
+     */
+    public double offsetOf(int itemIndex) {
+        return index.offsetOf(itemIndex);
+    }
+
+    public void setCellLength(double length) {
+        cellLengthVar.setValue(length);
+        if (index.setDefaultLength(length)) {
+            invalidateIndex();
+        }
+    }
+
+    /**
+     * Record the measured length of an item, replacing the cell length
+     * estimate for it.
+     */
+    public void setItemLength(int itemIndex, double length) {
+        if (index.set(itemIndex, length)) {
+            invalidateIndex();
+        }
+    }
+
     public Val<Double> totalLengthEstimateProperty() {
         return totalLengthEstimate;
     }
-}
\ No newline at end of file
+
+    private void invalidateIndex() {
+        indexVersion.setValue(indexVersion.getValue() + 1);
+    }
+
+    private void itemsChanged(ListChangeListener.Change<?> change) {
+        while (change.next()) {
+            int from = change.getFrom();
+            if (change.wasPermutated()) {
+                int[] permutation = new int[change.getTo() - from];
+                for (int i = 0; i < permutation.length; i++) {
+                    permutation[i] = change.getPermutation(from + i);
+                }
+                index.permute(from, permutation);
+            } else if (change.wasUpdated()) {
+                for (int i = from; i < change.getTo(); i++) {
+                    index.unset(i);
+                }
+            } else {
+                index.remove(from, change.getRemovedSize());
+                index.insert(from, change.getAddedSize());
+            }
+        }
+        if (index.size() != items.size()) { // defensive; should not happen
+            index.reset(items.size());
+        }
+        invalidateIndex();
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 
 import org.reactfx.collection.MemoizationList;
@@ -29,6 +30,7 @@ import com.chiralbehaviors.layout.cell.control.MultipleCellSelection;
 import com.chiralbehaviors.layout.cell.control.SelectionEvent;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.css.CssMetaData;
@@ -213,7 +215,11 @@ public class VirtualFlow<C extends LayoutCell<?>>
         }
     }
 
-    private static final String                      VIRTUAL_FLOW  = "virtual-flow";
+    /** Overscan cells bound per idle tick */
+    static final int                                 PREFETCH_BATCH      = 2;
+    /** How far ahead, in ms of scrolling at the current velocity, to prefetch */
+    static final double                              PREFETCH_HORIZON_MS = 250;
+    private static final String                      VIRTUAL_FLOW        = "virtual-flow";
 
     private SchemaPath                               schemaPath;
 
@@ -228,6 +234,9 @@ public class VirtualFlow<C extends LayoutCell<?>>
     private final CellPositioner<C>                  cellPositioner;
     private final Var<Double>                        lengthOffsetEstimate;
     private final Navigator<C>                       navigator;
+    private int                                      overscan;
+    private Executor                                 prefetchExecutor = Platform::runLater;
+    private boolean                                  prefetchScheduled;
     private final MultipleCellSelection<JsonNode, C> selectionModel;
     private final SizeTracker                        sizeTracker;
     {
@@ -311,6 +320,7 @@ public class VirtualFlow<C extends LayoutCell<?>>
 
     @Override
     public void dispose() {
+        overscan = 0;
         navigator.dispose();
         sizeTracker.dispose();
         cellListManager.dispose();
@@ -344,6 +354,13 @@ public class VirtualFlow<C extends LayoutCell<?>>
         return cellPositioner.getCellIfVisible(itemIndex);
     }
 
+    /**
+     * @return created, reused and disposed counts of this flow's cell pool
+     */
+    public CellPoolStats getCellPoolStats() {
+        return cellListManager.getPoolStats();
+    }
+
     @Override
     public Collection<C> getContained() {
         return cellListManager.getLazyCellList();
@@ -616,6 +633,7 @@ public class VirtualFlow<C extends LayoutCell<?>>
 
     @Override
     protected void layoutChildren() {
+        updateOverscan();
         // navigate to the target position and fill viewport
         while (true) {
             double oldLayoutBreadth = sizeTracker.getCellLayoutBreadth();
@@ -625,12 +643,106 @@ public class VirtualFlow<C extends LayoutCell<?>>
                 break;
             }
         }
+        if (overscan > 0 && navigator.isOverscanMissing()) {
+            schedulePrefetch();
+        }
+    }
+
+    /**
+     * Keep {@code cells} cells beyond each edge of the viewport bound and
+     * positioned, hidden, so that scrolling onto them shows an already bound
+     * cell. While scrolling, the side in the scroll direction is extended by
+     * the cells the current velocity covers in {@link #PREFETCH_HORIZON_MS},
+     * up to four times {@code cells}. Missing overscan cells are bound a few
+     * per idle tick rather than inside the layout pass. 0, the default of a
+     * bare flow, disables overscan; {@code AutoLayout} gives its outermost
+     * flow a non-zero default.
+     */
+    public void setOverscan(int cells) {
+        overscan = Math.max(0, cells);
+        updateOverscan();
+        requestLayout();
+    }
+
+    public int getOverscan() {
+        return overscan;
+    }
+
+    void setPrefetchExecutor(Executor executor) {
+        prefetchExecutor = executor;
+    }
+
+    /**
+     * Bound the number of idle cells the pool keeps per cell kind.
+     */
+    public void setCellPoolCapacity(int capacity) {
+        cellListManager.setPoolCapacity(capacity);
+    }
+
+    /**
+     * Pool enough cells to fill the viewport plus {@code overscan} more, built
+     * from the first item, so that scrolling reuses cells instead of creating
+     * them.
+     *
+     * @return the number of cells created
+     */
+    public int prewarmCells(int overscan) {
+        return prewarmCells(sizeTracker.getViewportLength(), overscan);
+    }
+
+    /**
+     * Like {@link #prewarmCells(int)}, for a flow that has not been laid out
+     * yet: {@code viewportLength} is the length it is about to be given.
+     *
+     * @return the number of cells created
+     */
+    public int prewarmCells(double viewportLength, int overscan) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        double avgLen = sizeTracker.getAverageLengthEstimate()
+                                   .orElse(0.0);
+        int visible = avgLen > 0 ? (int) Math.ceil(viewportLength / avgLen)
+                                 : 0;
+        return cellListManager.prewarm(items.get(0), visible + overscan);
     }
 
     public void setCellLength(double length) {
         sizeTracker.setCellLength(length);
     }
 
+    /**
+     * Record the measured length of one item. Items without a measured length
+     * are estimated at the cell length; scroll offsets and the total length
+     * are prefix sums over both.
+     */
+    public void setItemLength(int itemIndex, double length) {
+        sizeTracker.setItemLength(itemIndex, length);
+    }
+
+    /**
+     * Forget all measured item lengths.
+     */
+    public void clearItemLengths() {
+        sizeTracker.clearItemLengths();
+    }
+
+    /**
+     * Size each cell to its node's preferred height instead of the cell
+     * length, for cells whose height varies by item. Each placed cell's
+     * length is recorded with {@link #setItemLength(int, double)}, so the
+     * total length and jumps to an absolute position are exact over the items
+     * displayed so far. Off by default: layouts give every cell the computed
+     * cell length.
+     */
+    public void setMeasureCellLengths(boolean measure) {
+        cellPositioner.setMeasureLengths(measure);
+        if (!measure) {
+            clearItemLengths();
+        }
+        requestLayout();
+    }
+
     @Override
     protected double computeMinHeight(double width) {
         // Allow parent layouts (VBox, AnchorPane) to constrain our height.
@@ -724,21 +836,51 @@ public class VirtualFlow<C extends LayoutCell<?>>
         };
     }
 
-    private void jumpToAbsolutePosition(double pixels) {
-        if (items.isEmpty()) {
-            return;
+    private void prefetch() {
+        prefetchScheduled = false;
+        if (overscan > 0 && getScene() != null
+            && navigator.prefetch(PREFETCH_BATCH)) {
+            schedulePrefetch();
+        }
+    }
+
+    private void schedulePrefetch() {
+        if (!prefetchScheduled) {
+            prefetchScheduled = true;
+            prefetchExecutor.execute(this::prefetch);
         }
+    }
 
-        // guess the first visible cell and its offset in the viewport
+    /**
+     * Split the overscan between the two edges by the scroll velocity.
+     */
+    private void updateOverscan() {
+        if (overscan == 0) {
+            navigator.setOverscan(0, 0);
+            return;
+        }
+        double velocity = scrollHandler.getVelocity();
         double avgLen = sizeTracker.getAverageLengthEstimate()
                                    .orElse(0.0);
-        if (avgLen == 0.0) {
+        int ahead = avgLen > 0 ? (int) Math.min(3 * overscan,
+                                                Math.ceil(Math.abs(velocity)
+                                                          * PREFETCH_HORIZON_MS
+                                                          / avgLen))
+                               : 0;
+        navigator.setOverscan(velocity < 0 ? overscan + ahead : overscan,
+                              velocity > 0 ? overscan + ahead : overscan);
+    }
+
+    private void jumpToAbsolutePosition(double pixels) {
+        if (items.isEmpty()) {
             return;
         }
-        int first = (int) Math.floor(pixels / avgLen);
-        double firstOffset = -(pixels % avgLen);
 
-        if (first < items.size()) {
+        // locate the first visible cell and its offset in the viewport
+        int first = sizeTracker.itemAt(pixels);
+        double firstOffset = sizeTracker.offsetOf(first) - pixels;
+
+        if (pixels < sizeTracker.offsetOf(items.size())) {
             navigator.setTargetPosition(new StartOffStart(first, firstOffset));
         } else {
             navigator.setTargetPosition(new EndOffEnd(items.size() - 1, 0.0));
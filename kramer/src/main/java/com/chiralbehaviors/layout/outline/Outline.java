@@ -23,6 +23,8 @@ import java.util.OptionalInt;
 
 import com.chiralbehaviors.layout.ColumnSet;
 import com.chiralbehaviors.layout.LayoutView;
+import com.chiralbehaviors.layout.RelationLayout;
+import com.chiralbehaviors.layout.RowDiff;
 import com.chiralbehaviors.layout.SchemaPath;
 import com.chiralbehaviors.layout.cell.control.FocusTraversal;
 import com.chiralbehaviors.layout.flowless.VirtualFlow;
@@ -42,6 +44,8 @@ public class Outline extends VirtualFlow<OutlineCell> {
     private static final String SCHEMA_CLASS_TEMPLATE = "%s-outline";
     private static final String STYLE_SHEET           = "outline.css";
 
+    private final String        keyField;
+
     public Outline(double width, double cellHeight,
                    Collection<ColumnSet> columnSets, int averageCardinality,
                    LayoutView layout, FocusTraversal<?> parentTraversal,
@@ -60,12 +64,14 @@ public class Outline extends VirtualFlow<OutlineCell> {
                                                          layout.getCssClass())));
         setSchemaPath(layout.getSchemaPath());
         model.apply(this, layout.getNode());
+        keyField = RelationLayout.keyField(layout.getNode());
     }
 
     public Outline(String field) {
         super(STYLE_SHEET);
         initialize(DEFAULT_STYLE);
         getStyleClass().add(String.format(SCHEMA_CLASS_TEMPLATE, SchemaPath.sanitize(field)));
+        keyField = null;
     }
 
     @Override
@@ -75,11 +81,24 @@ public class Outline extends VirtualFlow<OutlineCell> {
         focus.unbind();
     }
 
+    @Override
+    public void rebind(JsonNode item) {
+        update(item, true);
+    }
+
     @Override
     public void updateItem(JsonNode item) {
+        update(item, false);
+    }
+
+    private void update(JsonNode item, boolean rebind) {
         OptionalInt savedIndex = getFirstVisibleIndex();
         List<JsonNode> list = SchemaNode.asList(item);
-        if (list.size() == items.size()) {
+        if (rebind) {
+            items.setAll(list);
+        } else if (RowDiff.applyKeyed(items, list, keyField)) {
+            // Keyed insert / remove / move / update applied in place
+        } else if (list.size() == items.size()) {
             for (int i = 0; i < list.size(); i++) {
                 if (!list.get(i).equals(items.get(i))) {
                     items.set(i, list.get(i));
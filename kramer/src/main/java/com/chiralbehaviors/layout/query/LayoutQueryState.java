@@ -11,6 +11,7 @@ import com.chiralbehaviors.layout.DefaultLayoutStylesheet;
 import com.chiralbehaviors.layout.LayoutPropertyKeys;
 import com.chiralbehaviors.layout.LayoutStylesheet;
 import com.chiralbehaviors.layout.SchemaPath;
+import com.chiralbehaviors.layout.StylesheetSnapshot;
 import com.chiralbehaviors.layout.style.PrimitiveStyle;
 import com.chiralbehaviors.layout.style.RelationStyle;
 import com.chiralbehaviors.layout.style.Style;
@@ -52,6 +53,16 @@ public class LayoutQueryState implements LayoutStylesheet {
         return inner.getVersion();
     }
 
+    @Override
+    public long getVersion(SchemaPath path) {
+        return inner.getVersion(path);
+    }
+
+    @Override
+    public long getSubtreeVersion(SchemaPath path) {
+        return inner.getSubtreeVersion(path);
+    }
+
     @Override
     public double getDouble(SchemaPath path, String property, double defaultValue) {
         return inner.getDouble(path, property, defaultValue);
@@ -72,6 +83,11 @@ public class LayoutQueryState implements LayoutStylesheet {
         return inner.getBoolean(path, property, defaultValue);
     }
 
+    @Override
+    public StylesheetSnapshot snapshot() {
+        return inner.snapshot();
+    }
+
     @Override
     public PrimitiveStyle primitiveStyle(SchemaPath path) {
         return inner.primitiveStyle(path);
@@ -376,45 +392,12 @@ public class LayoutQueryState implements LayoutStylesheet {
         if (value != null) {
             inner.setOverride(path, propertyKey, value);
         } else {
-            // Setting null clears the override for this specific key.
-            // DefaultLayoutStylesheet doesn't have per-key clear, so we
-            // rebuild all overrides for this path from the updated FieldState.
-            rebuildOverrides(path, updated);
+            inner.removeOverride(path, propertyKey);
         }
 
         fireChangeListeners();
     }
 
-    private void rebuildOverrides(SchemaPath path, FieldState fs) {
-        // Clear all overrides for this path by clearing and re-adding
-        // We must clear globally and rebuild all paths — but that's expensive.
-        // Instead, set the specific key to its default to "undo" it.
-        // DefaultLayoutStylesheet doesn't support per-key removal, so we
-        // use clearOverrides and rebuild. For simplicity, since setting null
-        // is infrequent, we do a full rebuild.
-        inner.clearOverrides();
-        for (var entry : fieldStates.entrySet()) {
-            applyFieldState(entry.getKey(), entry.getValue());
-        }
-    }
-
-    private void applyFieldState(SchemaPath p, FieldState fs) {
-        if (fs.visible() != null) inner.setOverride(p, LayoutPropertyKeys.VISIBLE, fs.visible());
-        if (fs.renderMode() != null) inner.setOverride(p, LayoutPropertyKeys.RENDER_MODE, fs.renderMode());
-        if (fs.hideIfEmpty() != null) inner.setOverride(p, LayoutPropertyKeys.HIDE_IF_EMPTY, fs.hideIfEmpty());
-        if (fs.sortFields() != null) inner.setOverride(p, LayoutPropertyKeys.SORT_FIELDS, fs.sortFields());
-        if (fs.filterExpression() != null) inner.setOverride(p, LayoutPropertyKeys.FILTER_EXPRESSION, fs.filterExpression());
-        if (fs.formulaExpression() != null) inner.setOverride(p, LayoutPropertyKeys.FORMULA_EXPRESSION, fs.formulaExpression());
-        if (fs.aggregateExpression() != null) inner.setOverride(p, LayoutPropertyKeys.AGGREGATE_EXPRESSION, fs.aggregateExpression());
-        if (fs.sortExpression() != null) inner.setOverride(p, LayoutPropertyKeys.SORT_EXPRESSION, fs.sortExpression());
-        if (fs.pivotField() != null) inner.setOverride(p, PIVOT_FIELD, fs.pivotField());
-        if (fs.frozen() != null) inner.setOverride(p, LayoutPropertyKeys.FROZEN, fs.frozen());
-        if (fs.aggregatePosition() != null) inner.setOverride(p, LayoutPropertyKeys.AGGREGATE_POSITION, fs.aggregatePosition());
-        if (fs.cellFormat() != null) inner.setOverride(p, LayoutPropertyKeys.CELL_FORMAT, fs.cellFormat());
-        if (fs.columnWidth() != null) inner.setOverride(p, LayoutPropertyKeys.COLUMN_WIDTH, fs.columnWidth());
-        if (fs.collapseDuplicates() != null) inner.setOverride(p, LayoutPropertyKeys.COLLAPSE_DUPLICATES, fs.collapseDuplicates());
-    }
-
     private void fireChangeListeners() {
         if (suppressDepth > 0) {
             mutatedDuringSuppression = true;
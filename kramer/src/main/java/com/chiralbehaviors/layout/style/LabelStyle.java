@@ -39,15 +39,17 @@ public class LabelStyle {
                    .getHeight();
     }
 
-    private final Font   font;
-    private final Insets insets;
-    private final double lineHeight;
+    private final Font           font;
+    private final Insets         insets;
+    private final double         lineHeight;
+    private final TextWidthCache widths;
 
     public LabelStyle(Label label) {
         Insets lInsets = label.getInsets();
         insets = lInsets;
         lineHeight = getLineHeight(label.getFont());
         font = label.getFont();
+        widths = TextWidthCache.forFont(font);
     }
 
     /**
@@ -60,6 +62,7 @@ public class LabelStyle {
         this.lineHeight = lineHeight;
         this.insets = insets;
         this.font = null;  // width() unavailable headless
+        this.widths = null;
     }
 
     public double getHeight() {
@@ -86,7 +89,7 @@ public class LabelStyle {
         if (font == null) {
             throw new UnsupportedOperationException("LabelStyle.width() requires a live JavaFX toolkit");
         }
-        return Style.textWidth(text, font) + insets.getLeft()
+        return widths.width(text) + insets.getLeft()
                + insets.getRight();
     }
 }
@@ -17,8 +17,11 @@
 package com.chiralbehaviors.layout.style;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import javafx.application.Platform;
 
@@ -50,20 +53,19 @@ import com.chiralbehaviors.layout.table.NestedTable;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 
-import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.Shape;
 import javafx.scene.text.Font;
-import javafx.scene.text.Text;
 
 /**
  * Factory for layout styles. Caches computed {@link PrimitiveStyle} and
  * {@link RelationStyle} per schema node. All measurement methods must run
  * on the JavaFX Application Thread (JAT); assertions guard this invariant.
+ * Styles backed by a {@link MeasurementStrategy} have no such restriction
+ * and may opt in to parallel measurement via {@link #setMeasurePool}; the
+ * style and layout caches are synchronized for that mode.
  */
 public class Style {
 
@@ -95,14 +97,8 @@ public class Style {
     }
 
     public static double textWidth(String string, Font textFont) {
-        Text text = new Text(string);
-        text.setFont(textFont);
-        Bounds tb = text.getBoundsInLocal();
-        return Shape.intersect(text,
-                               new Rectangle(tb.getMinX(), tb.getMinY(),
-                                             tb.getWidth(), tb.getHeight()))
-                    .getBoundsInLocal()
-                    .getWidth();
+        return TextWidthCache.forFont(textFont)
+                             .width(string);
     }
 
     public static String toString(JsonNode value) {
@@ -139,9 +135,10 @@ public class Style {
     private final ExpressionEvaluator         expressionEvaluator = new ExpressionEvaluator();
 
     private final List<String>                styleSheets          = new ArrayList<>();
-    private final IdentityHashMap<Primitive, PrimitiveStyle>  primitiveStyleCache  = new IdentityHashMap<>();
-    private final IdentityHashMap<Relation, RelationStyle>   relationStyleCache   = new IdentityHashMap<>();
-    private final IdentityHashMap<SchemaNode, SchemaNodeLayout> layoutCache = new IdentityHashMap<>();
+    private final Map<Primitive, PrimitiveStyle>  primitiveStyleCache  = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<Relation, RelationStyle>   relationStyleCache   = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<SchemaNode, SchemaNodeLayout> layoutCache = Collections.synchronizedMap(new IdentityHashMap<>());
+    private volatile ForkJoinPool                measurePool;
 
     public Style() {
         this(new LayoutObserver() {
@@ -199,6 +196,25 @@ public class Style {
         return expressionEvaluator;
     }
 
+    /**
+     * Pool used to measure sibling subtrees in parallel; null (the default)
+     * measures sequentially on the calling thread.
+     */
+    public ForkJoinPool getMeasurePool() {
+        return measurePool;
+    }
+
+    /**
+     * Opt in to parallel measurement of sibling subtrees. Intended for
+     * headless measurement with a {@link MeasurementStrategy}; CSS-measured
+     * styles must already be cached, as they can only be computed on the JAT.
+     *
+     * @param measurePool the pool to measure on, or null for sequential
+     */
+    public void setMeasurePool(ForkJoinPool measurePool) {
+        this.measurePool = measurePool;
+    }
+
     public void setStylesheet(LayoutStylesheet stylesheet) {
         if (stylesheet == null) {
             throw new NullPointerException("stylesheet must not be null");
@@ -0,0 +1,229 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout.style;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextBoundsType;
+
+/**
+ * Per-{@link Font} text width engine. Widths of simple-script strings are the
+ * kerning-free sum of cached per-character advances, so measuring a large
+ * data set is a loop over a {@code double[]} page table rather than one
+ * {@link Text} node allocation per value; a multi-line string measures as
+ * its widest line. Strings containing characters that require shaping
+ * (combining marks, bidi scripts, Indic/SE Asian scripts, surrogate pairs,
+ * joiners) or other control characters than newlines, such as tabs, fall
+ * back to a real {@link Text} layout. Both paths measure
+ * {@link TextBoundsType#LOGICAL} bounds, so a value's width does not depend
+ * on which path measured it.
+ *
+ * <p>Whole-string results are kept in a bounded LRU; hit, miss and fallback
+ * counters are exposed for diagnostics. Instances are thread safe.
+ */
+public final class TextWidthCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final Map<Font, TextWidthCache> CACHES = new ConcurrentHashMap<>();
+
+    /**
+     * @return the shared width cache for the font
+     */
+    public static TextWidthCache forFont(Font font) {
+        return CACHES.computeIfAbsent(font, TextWidthCache::new);
+    }
+
+    /**
+     * Drop all shared per-font caches.
+     */
+    public static void clearAll() {
+        CACHES.clear();
+    }
+
+    /**
+     * @return true if the character cannot be measured as an independent
+     *         advance: its rendered width depends on its neighbours, or, for
+     *         a control character such as a tab, on its position in the line
+     */
+    static boolean requiresShaping(char c) {
+        if (c < 0x20 || c == 0x7F) {
+            return true;
+        }
+        if (c < 0x0300) {
+            return false;
+        }
+        if (c <= 0x036F) { // combining diacritical marks
+            return true;
+        }
+        if (c >= 0x0590 && c <= 0x1CFF) { // Hebrew .. Vedic extensions
+            return true;
+        }
+        if (c >= 0x1DC0 && c <= 0x1DFF) { // combining marks supplement
+            return true;
+        }
+        if (c >= 0x200B && c <= 0x200F) { // zero width, joiners, bidi marks
+            return true;
+        }
+        if (c >= 0x202A && c <= 0x202E) { // bidi embeddings/overrides
+            return true;
+        }
+        if (c >= 0x20D0 && c <= 0x20FF) { // combining marks for symbols
+            return true;
+        }
+        if (c >= 0xA800 && c <= 0xABFF) { // Syloti Nagri .. Meetei Mayek
+            return true;
+        }
+        if (c >= 0xD800 && c <= 0xDFFF) { // surrogates
+            return true;
+        }
+        if (c >= 0xFB1D && c <= 0xFEFF) { // presentation forms, variation selectors
+            return true;
+        }
+        return false;
+    }
+
+    private final ToDoubleFunction<String>      advance;
+    private final ToDoubleFunction<String>      layout;
+    private final double[][]                    pages = new double[PAGE_SIZE][];
+    private final LinkedHashMap<String, Double> widths;
+
+    private long fallbacks;
+    private long hits;
+    private long misses;
+
+    private TextWidthCache(Font font) {
+        this(s -> advance(s, font), s -> layoutWidth(s, font),
+             DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param advance  measures the advance width of a single character
+     * @param layout   measures a complete string with full text layout
+     * @param capacity maximum number of whole-string widths retained
+     */
+    TextWidthCache(ToDoubleFunction<String> advance,
+                   ToDoubleFunction<String> layout, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: "
+                                               + capacity);
+        }
+        this.advance = advance;
+        this.layout = layout;
+        this.widths = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized long getFallbacks() {
+        return fallbacks;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return widths.size();
+    }
+
+    public synchronized void clear() {
+        widths.clear();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            pages[i] = null;
+        }
+        hits = 0;
+        misses = 0;
+        fallbacks = 0;
+    }
+
+    /**
+     * @return the rendered width of the string in this cache's font
+     */
+    public synchronized double width(String string) {
+        if (string == null || string.isEmpty()) {
+            return 0;
+        }
+        Double cached = widths.get(string);
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+        misses++;
+        double width = measure(string);
+        widths.put(string, width);
+        return width;
+    }
+
+    private double advance(char c) {
+        double[] page = pages[c >>> PAGE_BITS];
+        if (page == null) {
+            page = new double[PAGE_SIZE];
+            Arrays.fill(page, Double.NaN);
+            pages[c >>> PAGE_BITS] = page;
+        }
+        double w = page[c & PAGE_MASK];
+        if (Double.isNaN(w)) {
+            w = advance.applyAsDouble(String.valueOf(c));
+            page[c & PAGE_MASK] = w;
+        }
+        return w;
+    }
+
+    private double measure(String string) {
+        int length = string.length();
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c != '\n' && requiresShaping(c)) {
+                fallbacks++;
+                return layout.applyAsDouble(string);
+            }
+        }
+        double widest = 0;
+        double width = 0;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c == '\n') {
+                widest = Math.max(widest, width);
+                width = 0;
+            } else {
+                width += advance(c);
+            }
+        }
+        return Math.max(widest, width);
+    }
+
+    private static double advance(String glyph, Font font) {
+        Text text = new Text(glyph);
+        text.setFont(font);
+        text.setBoundsType(TextBoundsType.LOGICAL);
+        return text.getLayoutBounds()
+                   .getWidth();
+    }
+
+    private static double layoutWidth(String string, Font font) {
+        Text text = new Text(string);
+        text.setFont(font);
+        text.setBoundsType(TextBoundsType.LOGICAL);
+        return text.getLayoutBounds()
+                   .getWidth();
+    }
+}
@@ -17,9 +17,10 @@ public class CrosstabCell extends Region {
 
     private static final String STYLE_CLASS = "crosstab-cell";
 
-    private final Label  label;
-    private final double cellWidth;
-    private final double cellHeight;
+    private final Label    label;
+    private final double   cellWidth;
+    private final double   cellHeight;
+    private JsonNode       item;
 
     public CrosstabCell(double cellWidth, double cellHeight) {
         this.cellWidth  = Style.snap(cellWidth);
@@ -38,12 +39,18 @@ public class CrosstabCell extends Region {
         setMaxSize(this.cellWidth, this.cellHeight);
     }
 
+    /** @return the value last passed to {@link #updateItem(JsonNode)} */
+    public JsonNode getItem() {
+        return item;
+    }
+
     /**
      * Update the displayed value. A {@code null} node clears the cell.
      *
      * @param item the JSON node whose text representation is shown, or null
      */
     public void updateItem(JsonNode item) {
+        this.item = item;
         if (item == null || item.isNull()) {
             label.setText("");
         } else {
@@ -8,7 +8,6 @@ import com.chiralbehaviors.layout.style.Style;
 
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
-import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
 
 /**
@@ -18,15 +17,16 @@ import javafx.scene.layout.Region;
  * the header is a plain {@link Region} placed above the VirtualFlow so that it
  * stays stationary while rows scroll.
  *
- * <p>The header consists of an optional row-header spacer (width = rowHeaderWidth)
- * followed by one label per pivot value (each with width = pivotColumnWidth).
+ * <p>The header consists of one label per pivot value (each with width =
+ * pivotColumnWidth). Like {@link CrosstabRow}, labels are virtualized: after
+ * {@link #setViewport(double, double)} only the visible ones are realized.
  */
 public class CrosstabHeader extends Region {
 
     private static final String STYLE_CLASS = "crosstab-header";
 
-    private final List<String> pivotValues;
-    private final HBox         container;
+    private final VirtualColumns<Label> labels;
+    private final List<String>          pivotValues;
 
     /**
      * @param pivotValues      distinct pivot-column labels (insertion-ordered)
@@ -43,19 +43,15 @@ public class CrosstabHeader extends Region {
         double snappedColW = Style.snap(pivotColumnWidth);
         double snappedH    = Style.snap(height);
 
-        container = new HBox();
-        container.setAlignment(Pos.CENTER_LEFT);
-
-        for (String pv : this.pivotValues) {
-            Label lbl = new Label(pv);
+        labels = new VirtualColumns<>(this.pivotValues.size(), 0, snappedColW, () -> {
+            Label lbl = new Label();
+            lbl.setAlignment(Pos.CENTER_LEFT);
             lbl.setMinSize(snappedColW, snappedH);
             lbl.setPrefSize(snappedColW, snappedH);
             lbl.setMaxSize(snappedColW, snappedH);
             lbl.getStyleClass().add("crosstab-header-label");
-            container.getChildren().add(lbl);
-        }
-
-        getChildren().add(container);
+            return lbl;
+        }, (lbl, column) -> lbl.setText(this.pivotValues.get(column)), getChildren());
 
         double totalWidth = Style.snap(snappedColW * this.pivotValues.size());
         setMinSize(totalWidth, snappedH);
@@ -72,4 +68,23 @@ public class CrosstabHeader extends Region {
     public List<String> getPivotValues() {
         return pivotValues;
     }
+
+    /** @return number of header labels currently realized as nodes */
+    public int getRealizedCount() {
+        return labels.getRealizedCount();
+    }
+
+    /**
+     * Only realize the labels within {@code width} of {@code offset}, both
+     * measured from this header's left edge.
+     */
+    public void setViewport(double offset, double width) {
+        labels.setViewport(offset, width);
+        requestLayout();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        labels.layout(getHeight());
+    }
 }
@@ -1,14 +1,15 @@
 // SPDX-License-Identifier: Apache-2.0
 package com.chiralbehaviors.layout.table;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.chiralbehaviors.layout.PivotIndex;
 import com.chiralbehaviors.layout.style.RelationStyle;
 import com.chiralbehaviors.layout.style.Style;
 import com.fasterxml.jackson.databind.JsonNode;
 
-import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
 
 /**
@@ -21,14 +22,23 @@ import javafx.scene.layout.Region;
  * </ol>
  *
  * <p>Rows are placed inside a VirtualFlow so that large datasets scroll
- * without allocating a JavaFX node per item.
+ * without allocating a JavaFX node per item. Pivot columns are virtualized
+ * the same way horizontally: after {@link #setViewport(double, double)} only
+ * the cells intersecting the viewport exist as nodes. Cell values come from
+ * the row's entries of a {@link PivotIndex}, looked up by pivot code as cells
+ * are realized.
  */
 public class CrosstabRow extends Region {
 
     private static final String STYLE_CLASS = "crosstab-row";
 
-    private final List<CrosstabCell> dataCells = new ArrayList<>();
-    private final HBox               container;
+    private final Map<Integer, JsonNode>       assigned = new HashMap<>();
+    private final VirtualColumns<CrosstabCell> dataCells;
+    private PivotIndex                         index;
+    private final int                          pivotCount;
+    private int                                row      = -1;
+    private final Region                       rowHeader;
+    private final double                       rowHeaderWidth;
 
     /**
      * @param pivotValues      ordered list of pivot-column names
@@ -45,27 +55,24 @@ public class CrosstabRow extends Region {
         double snappedRowHdrW = Style.snap(rowHeaderWidth);
         double snappedColW    = Style.snap(pivotColumnWidth);
         double snappedH       = Style.snap(cellHeight);
-
-        container = new HBox();
+        this.rowHeaderWidth = snappedRowHdrW;
+        this.pivotCount = pivotValues.size();
 
         // Row-header placeholder — will be populated by updateItem()
-        Region rowHeader = new Region();
+        rowHeader = new Region();
         rowHeader.getStyleClass().add("crosstab-row-header");
         rowHeader.setMinSize(snappedRowHdrW, snappedH);
         rowHeader.setPrefSize(snappedRowHdrW, snappedH);
         rowHeader.setMaxSize(snappedRowHdrW, snappedH);
-        container.getChildren().add(rowHeader);
-
-        // One data cell per pivot value
-        for (int i = 0; i < pivotValues.size(); i++) {
-            CrosstabCell cell = new CrosstabCell(snappedColW, snappedH);
-            dataCells.add(cell);
-            container.getChildren().add(cell);
-        }
+        getChildren().add(rowHeader);
 
-        getChildren().add(container);
+        // Data cells for the pivot columns in the viewport (all, until one is set)
+        dataCells = new VirtualColumns<>(pivotCount, snappedRowHdrW, snappedColW,
+                                         () -> new CrosstabCell(snappedColW, snappedH),
+                                         (cell, column) -> cell.updateItem(valueAt(column)),
+                                         getChildren());
 
-        double totalWidth = Style.snap(snappedRowHdrW + snappedColW * pivotValues.size());
+        double totalWidth = Style.snap(snappedRowHdrW + snappedColW * pivotCount);
         setMinSize(totalWidth, snappedH);
         setPrefSize(totalWidth, snappedH);
         setMaxSize(totalWidth, snappedH);
@@ -73,7 +80,40 @@ public class CrosstabRow extends Region {
 
     /** @return number of pivot data cells in this row */
     public int getPivotCount() {
-        return dataCells.size();
+        return pivotCount;
+    }
+
+    /**
+     * @return the realized cell of pivot column {@code pivotIndex}, or null
+     *         if it is outside the viewport
+     */
+    public CrosstabCell getRealizedCell(int pivotIndex) {
+        return dataCells.get(pivotIndex);
+    }
+
+    /** @return number of pivot cells currently realized as nodes */
+    public int getRealizedCount() {
+        return dataCells.getRealizedCount();
+    }
+
+    /**
+     * Only realize the pivot cells within {@code width} of {@code offset},
+     * both measured from this row's left edge.
+     */
+    public void setViewport(double offset, double width) {
+        dataCells.setViewport(offset, width);
+        requestLayout();
+    }
+
+    /**
+     * Bind this row to row {@code row} of {@code index}: each pivot cell shows
+     * the item at its pivot code, looked up when the cell is realized.
+     */
+    public void updateItem(PivotIndex index, int row) {
+        this.index = index;
+        this.row = row;
+        assigned.clear();
+        dataCells.rebind();
     }
 
     /**
@@ -83,8 +123,26 @@ public class CrosstabRow extends Region {
      * @param item       JSON node value to display (may be null)
      */
     public void updatePivotCell(int pivotIndex, JsonNode item) {
-        if (pivotIndex >= 0 && pivotIndex < dataCells.size()) {
-            dataCells.get(pivotIndex).updateItem(item);
+        if (pivotIndex >= 0 && pivotIndex < pivotCount) {
+            assigned.put(pivotIndex, item);
+            CrosstabCell cell = dataCells.get(pivotIndex);
+            if (cell != null) {
+                cell.updateItem(item);
+            }
+        }
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double h = getHeight();
+        rowHeader.resizeRelocate(0, 0, rowHeaderWidth, h);
+        dataCells.layout(h);
+    }
+
+    private JsonNode valueAt(int column) {
+        if (assigned.containsKey(column)) {
+            return assigned.get(column);
         }
+        return index == null ? null : index.cell(row, column);
     }
 }
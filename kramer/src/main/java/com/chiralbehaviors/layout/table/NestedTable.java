@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.chiralbehaviors.layout.LayoutView;
+import com.chiralbehaviors.layout.RelationLayout;
+import com.chiralbehaviors.layout.RowDiff;
 import com.chiralbehaviors.layout.SchemaPath;
 import com.chiralbehaviors.layout.cell.VerticalCell;
 import com.chiralbehaviors.layout.cell.control.FocusTraversal;
@@ -29,6 +31,7 @@ import com.chiralbehaviors.layout.style.RelationStyle;
 import com.chiralbehaviors.layout.style.Style;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import javafx.collections.ObservableList;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
@@ -52,6 +55,10 @@ public class NestedTable extends VerticalCell<NestedTable> {
         return itemArray;
     }
 
+    /** Root-level aggregate footer; null when there is none. */
+    private HBox                          aggregateFooter;
+    private final String                  keyField;
+    private final LayoutView              layout;
     private final VirtualFlow<NestedCell> rows;
 
     public NestedTable(int childCardinality, LayoutView layout,
@@ -61,6 +68,8 @@ public class NestedTable extends VerticalCell<NestedTable> {
         initialize(DEFAULT_STYLE);
         getStyleClass().add(String.format(SCHEMA_CLASS_TEMPLATE,
                                           layout.getCssClass()));
+        this.layout = layout;
+        keyField = RelationLayout.keyField(layout.getNode());
         Region header = layout.buildColumnHeader();
         double width = Style.snap(layout.getJustifiedTableColumnWidth()
                                   + style.getTableHorizontalInset());
@@ -77,8 +86,8 @@ public class NestedTable extends VerticalCell<NestedTable> {
         if (rootLevel && "footer".equals(layout.getAggregatePosition())) {
             var aggResults = layout.getAggregateResults();
             if (aggResults != null && !aggResults.isEmpty()) {
-                HBox footer = buildAggregateFooter(layout, aggResults);
-                getChildren().add(footer);
+                aggregateFooter = buildAggregateFooter(layout, aggResults);
+                getChildren().add(aggregateFooter);
             }
         }
 
@@ -100,6 +109,8 @@ public class NestedTable extends VerticalCell<NestedTable> {
         super(STYLE_SHEET);
         initialize(DEFAULT_STYLE);
         getStyleClass().add(String.format(SCHEMA_CLASS_TEMPLATE, SchemaPath.sanitize(field)));
+        this.keyField = null;
+        this.layout = null;
         this.rows = null;
     }
 
@@ -132,10 +143,41 @@ public class NestedTable extends VerticalCell<NestedTable> {
         return footer;
     }
 
+    private void updateAggregateFooter(java.util.Map<String, Object> aggResults) {
+        var cells = aggregateFooter.getChildren();
+        int i = 0;
+        for (var child : layout.getChildren()) {
+            Object value = aggResults == null ? null
+                                              : aggResults.get(child.getField());
+            ((Label) cells.get(i++)).setText(value != null ? value.toString()
+                                                           : "");
+        }
+    }
+
+    @Override
+    public void rebind(JsonNode item) {
+        update(item, true);
+    }
+
     @Override
     public void updateItem(JsonNode item) {
-        rows.getItems()
-            .setAll(SchemaNode.asList(item));
+        update(item, false);
+    }
+
+    private void update(JsonNode item, boolean rebind) {
+        List<JsonNode> list = SchemaNode.asList(item);
+        ObservableList<JsonNode> items = rows.getItems();
+        RowDiff diff = rebind ? null : RowDiff.compute(items, list, keyField);
+        // Footer totals follow the changed rows before the items are replaced
+        if (aggregateFooter != null
+            && layout.updateAggregates(diff, items, list)) {
+            updateAggregateFooter(layout.getAggregateResults());
+        }
+        if (diff != null && diff.isIncremental()) {
+            diff.applyTo(items);
+        } else {
+            items.setAll(list);
+        }
         getNode().pseudoClassStateChanged(PSEUDO_CLASS_FILLED, item != null);
         getNode().pseudoClassStateChanged(PSEUDO_CLASS_EMPTY, item == null);
     }
@@ -0,0 +1,139 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout.table;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+import javafx.scene.Node;
+
+/**
+ * Horizontally virtualized run of equal-width columns. Only the columns that
+ * intersect the viewport are realized as nodes; nodes leaving the viewport
+ * are kept as spares and rebound to the columns entering it.
+ *
+ * <p>With no viewport set every column is realized, which is the behavior of
+ * an unvirtualized row.
+ */
+final class VirtualColumns<N extends Node> {
+
+    private final ObjIntConsumer<N> bind;
+    private final List<Node>        children;
+    private final double            columnWidth;
+    private final int               count;
+    private final Supplier<N>       factory;
+    private int                     first;
+    private final ArrayDeque<N>     spare    = new ArrayDeque<>();
+    private double                  viewportOffset;
+    private double                  viewportWidth = Double.POSITIVE_INFINITY;
+    private final List<N>           window   = new ArrayList<>();
+    private final double            x0;
+
+    /**
+     * @param count
+     *            number of columns
+     * @param x0
+     *            x of the first column within the parent
+     * @param columnWidth
+     *            width of every column
+     * @param factory
+     *            creates a column node
+     * @param bind
+     *            binds a node to a column index
+     * @param children
+     *            the parent's children, which realized nodes join
+     */
+    VirtualColumns(int count, double x0, double columnWidth,
+                   Supplier<N> factory, ObjIntConsumer<N> bind,
+                   List<Node> children) {
+        this.count = count;
+        this.x0 = x0;
+        this.columnWidth = columnWidth;
+        this.factory = factory;
+        this.bind = bind;
+        this.children = children;
+        realize();
+    }
+
+    /**
+     * @return the realized node of {@code column}, or null if it is outside
+     *         the viewport
+     */
+    N get(int column) {
+        int i = column - first;
+        return i >= 0 && i < window.size() ? window.get(i) : null;
+    }
+
+    int getFirstRealized() {
+        return first;
+    }
+
+    int getRealizedCount() {
+        return window.size();
+    }
+
+    /** Position every realized node in its column. */
+    void layout(double height) {
+        for (int i = 0; i < window.size(); i++) {
+            window.get(i)
+                  .resizeRelocate(x0 + (first + i) * columnWidth, 0,
+                                  columnWidth, height);
+        }
+    }
+
+    /** Rebind every realized node, e.g. after the row's data changed. */
+    void rebind() {
+        for (int i = 0; i < window.size(); i++) {
+            bind.accept(window.get(i), first + i);
+        }
+    }
+
+    /**
+     * Realize only the columns within {@code width} of {@code offset}, both
+     * in the parent's coordinates.
+     */
+    void setViewport(double offset, double width) {
+        viewportOffset = offset;
+        viewportWidth = width;
+        realize();
+    }
+
+    private void realize() {
+        int from = 0;
+        int to = count;
+        if (columnWidth > 0 && viewportWidth != Double.POSITIVE_INFINITY) {
+            from = (int) Math.max(0, Math.floor((viewportOffset - x0)
+                                                / columnWidth));
+            to = (int) Math.min(count,
+                                Math.ceil((viewportOffset + viewportWidth - x0)
+                                          / columnWidth));
+            to = Math.max(from, to);
+        }
+        if (from == first && to == first + window.size()) {
+            return;
+        }
+        List<N> next = new ArrayList<>(to - from);
+        for (int c = from; c < to; c++) {
+            next.add(get(c));
+        }
+        for (N node : window) {
+            if (!next.contains(node)) {
+                spare.add(node);
+                children.remove(node);
+            }
+        }
+        for (int i = 0; i < next.size(); i++) {
+            if (next.get(i) == null) {
+                N node = spare.isEmpty() ? factory.get() : spare.poll();
+                bind.accept(node, from + i);
+                children.add(node);
+                next.set(i, node);
+            }
+        }
+        window.clear();
+        window.addAll(next);
+        first = from;
+    }
+}
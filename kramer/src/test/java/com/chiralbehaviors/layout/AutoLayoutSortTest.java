@@ -0,0 +1,191 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.testfx.api.FxRobot;
+import org.testfx.framework.junit5.ApplicationExtension;
+import org.testfx.framework.junit5.Start;
+import org.testfx.util.WaitForAsyncUtils;
+
+import com.chiralbehaviors.layout.flowless.VirtualFlow;
+import com.chiralbehaviors.layout.schema.Primitive;
+import com.chiralbehaviors.layout.schema.Relation;
+import com.chiralbehaviors.layout.style.Style;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Labeled;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+
+/**
+ * Tests that a header-click sort, applied by rebinding rather than by a
+ * relayout, reorders the rows on screen, of the root relation and of the
+ * relations nested in its rows.
+ */
+@ExtendWith(ApplicationExtension.class)
+class AutoLayoutSortTest {
+
+    private StackPane root;
+
+    @Start
+    void start(Stage stage) {
+        root = new StackPane();
+        stage.setScene(new Scene(root, 600, 400));
+        stage.show();
+    }
+
+    @Test
+    void headerClickReordersDisplayedRows(FxRobot robot) {
+        Relation employees = new Relation("employees");
+        employees.addChild(new Primitive("name"));
+        Relation projects = new Relation("projects");
+        projects.addChild(new Primitive("project"));
+        employees.addChild(projects);
+        Style model = new Style();
+        AutoLayout autoLayout = new AutoLayout(employees, model);
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        for (int i : new int[] { 3, 0, 2, 1 }) {
+            ObjectNode employee = data.addObject()
+                                      .put("name", "Employee " + i);
+            ArrayNode work = employee.putArray("projects");
+            for (int j : new int[] { 1, 2, 0 }) {
+                work.addObject()
+                    .put("project", "Project " + i + j);
+            }
+        }
+
+        runOnFxAndWait(() -> {
+            root.getChildren()
+                .setAll(autoLayout);
+            autoLayout.measure(data);
+            autoLayout.updateItem(data);
+        });
+        layout(autoLayout);
+        assertEquals(List.of("Employee 3", "Project 31"),
+                     firstRows(autoLayout, "Employee", "Project"));
+
+        var stylesheet = (DefaultLayoutStylesheet) model.getStylesheet();
+        SchemaPath path = new SchemaPath("employees");
+        runOnFxAndWait(() -> {
+            stylesheet.setOverride(path.child("name"),
+                                   LayoutPropertyKeys.SORT_FIELDS, "name");
+            stylesheet.setOverride(path.child("projects")
+                                       .child("project"),
+                                   LayoutPropertyKeys.SORT_FIELDS, "-project");
+            autoLayout.autoLayout();
+        });
+        layout(autoLayout);
+        assertEquals(List.of("Employee 0", "Project 02"),
+                     firstRows(autoLayout, "Employee", "Project"));
+
+        runOnFxAndWait(() -> {
+            stylesheet.setOverride(path.child("name"),
+                                   LayoutPropertyKeys.SORT_FIELDS, "-name");
+            autoLayout.autoLayout();
+        });
+        layout(autoLayout);
+        assertEquals(List.of("Employee 3", "Project 32"),
+                     firstRows(autoLayout, "Employee", "Project"));
+    }
+
+    /**
+     * @return the text of the first labelled node starting with
+     *         {@code prefix} in the first visible row of the first virtual
+     *         flow below {@code container}, and of each such flow nested in
+     *         that row in turn
+     */
+    private static List<String> firstRows(Node container, String... prefixes) {
+        List<String> firsts = new ArrayList<>();
+        runOnFxAndWait(() -> {
+            Node scope = container;
+            for (String prefix : prefixes) {
+                VirtualFlow<?> flow = findVirtualFlow(scope);
+                assertNotNull(flow, "no flow of " + prefix + " rows");
+                int first = flow.getFirstVisibleIndex()
+                                .orElseThrow();
+                scope = flow.getCellIfVisible(first)
+                            .orElseThrow()
+                            .getNode();
+                List<String> texts = new ArrayList<>();
+                collectTexts(scope, prefix, texts);
+                assertFalse(texts.isEmpty(), "no " + prefix + " shown");
+                firsts.add(texts.get(0));
+            }
+        });
+        return firsts;
+    }
+
+    private static void collectTexts(Node node, String prefix,
+                                     List<String> texts) {
+        if (node instanceof Labeled labeled && labeled.getText() != null
+            && labeled.getText()
+                      .startsWith(prefix)) {
+            texts.add(labeled.getText());
+        }
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                collectTexts(child, prefix, texts);
+            }
+        }
+    }
+
+    private static VirtualFlow<?> findVirtualFlow(Node node) {
+        if (node instanceof VirtualFlow<?> vf && vf.getItemCount() > 0) {
+            return vf;
+        }
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                VirtualFlow<?> found = findVirtualFlow(child);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void layout(AutoLayout autoLayout) {
+        WaitForAsyncUtils.waitForFxEvents();
+        runOnFxAndWait(autoLayout::layout);
+        WaitForAsyncUtils.waitForFxEvents();
+        runOnFxAndWait(autoLayout::layout);
+        WaitForAsyncUtils.waitForFxEvents();
+    }
+
+    private static void runOnFxAndWait(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+            return;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                action.run();
+            } finally {
+                latch.countDown();
+            }
+        });
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS),
+                       "Timed out waiting for FX thread");
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            fail("Interrupted waiting for FX thread");
+        }
+    }
+}
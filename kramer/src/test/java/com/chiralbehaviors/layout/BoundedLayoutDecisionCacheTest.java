@@ -0,0 +1,123 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link BoundedLayoutDecisionCache}: LRU and weight bounds, stale
+ * stylesheet eviction and hit/miss/eviction accounting.
+ */
+class BoundedLayoutDecisionCacheTest {
+
+    private static final SchemaPath ROOT = new SchemaPath("root");
+
+    private static LayoutDecisionKey key(double width, long version) {
+        return LayoutDecisionKey.of(ROOT, width, 3, version);
+    }
+
+    private static LayoutResult leaf() {
+        return new LayoutResult(RelationRenderMode.TABLE, null, false, 0, 0,
+                                0, List.of());
+    }
+
+    private static LayoutResult tree(int children) {
+        var kids = new ArrayList<LayoutResult>();
+        for (int i = 0; i < children; i++) {
+            kids.add(leaf());
+        }
+        return new LayoutResult(RelationRenderMode.TABLE, null, false, 0, 0,
+                                0, kids);
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        var cache = new BoundedLayoutDecisionCache();
+        assertNull(cache.get(key(100, 0)));
+        cache.put(key(100, 0), leaf());
+        assertNotNull(cache.get(key(100, 0)));
+        assertNotNull(cache.get(key(105, 0)), "same width bucket");
+        assertTrue(cache.containsKey(key(100, 0)));
+
+        var stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses(), "containsKey is not a lookup");
+        assertEquals(0, stats.evictions());
+        assertEquals(1, stats.size());
+        assertEquals(1, stats.weight());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondEntryBound() {
+        var cache = new BoundedLayoutDecisionCache(2, 1_000);
+        cache.put(key(100, 0), leaf());
+        cache.put(key(200, 0), leaf());
+        cache.get(key(100, 0)); // 200 is now eldest
+        cache.put(key(300, 0), leaf());
+
+        assertTrue(cache.containsKey(key(100, 0)));
+        assertFalse(cache.containsKey(key(200, 0)));
+        assertTrue(cache.containsKey(key(300, 0)));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void evictsBeyondWeightBound() {
+        var cache = new BoundedLayoutDecisionCache(100, 10);
+        cache.put(key(100, 0), tree(4)); // weight 5
+        cache.put(key(200, 0), tree(4)); // weight 10
+        assertEquals(10, cache.stats().weight());
+        cache.put(key(300, 0), leaf());
+
+        assertFalse(cache.containsKey(key(100, 0)));
+        assertEquals(2, cache.size());
+        assertEquals(6, cache.stats().weight());
+    }
+
+    @Test
+    void retainsSingleOversizedEntry() {
+        var cache = new BoundedLayoutDecisionCache(4, 2);
+        cache.put(key(100, 0), tree(5));
+        assertTrue(cache.containsKey(key(100, 0)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void newStylesheetVersionEvictsStaleEntries() {
+        var cache = new BoundedLayoutDecisionCache();
+        cache.put(key(100, 1), leaf());
+        cache.put(key(200, 1), tree(2));
+        cache.put(key(100, 2), leaf());
+
+        assertFalse(cache.containsKey(key(100, 1)));
+        assertFalse(cache.containsKey(key(200, 1)));
+        assertTrue(cache.containsKey(key(100, 2)));
+        var stats = cache.stats();
+        assertEquals(2, stats.evictions());
+        assertEquals(1, stats.weight());
+    }
+
+    @Test
+    void replacingEntryKeepsWeightConsistent() {
+        var cache = new BoundedLayoutDecisionCache();
+        cache.put(key(100, 0), tree(3));
+        cache.put(key(100, 0), leaf());
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.stats().weight());
+        cache.clear();
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.stats().weight());
+    }
+
+    @Test
+    void rejectsNonPositiveBounds() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new BoundedLayoutDecisionCache(0, 10));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new BoundedLayoutDecisionCache(10, 0));
+    }
+}
@@ -7,6 +7,7 @@ import static org.mockito.Mockito.*;
 
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -112,6 +113,51 @@ class CrosstabTest {
         assertEquals(2, ref.get().getPivotCount());
     }
 
+    @Test
+    void crosstabRowRealizesOnlyPivotCellsInViewport() throws Exception {
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < 5_000; i++) {
+            data.addObject().put("sku", "sku-" + i).put("qty", i);
+        }
+        PivotIndex index = PivotIndex.build(data, "sku");
+        AtomicReference<CrosstabRow> ref = new AtomicReference<>();
+        Platform.runLater(() -> {
+            var row = new CrosstabRow(index.values(), 100.0, 50.0, 20.0,
+                                      TestLayouts.mockRelationStyle());
+            row.setViewport(1_000.0, 300.0);
+            row.updateItem(index, 20);
+            ref.set(row);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+
+        CrosstabRow row = ref.get();
+        assertEquals(5_000, row.getPivotCount());
+        assertEquals(6, row.getRealizedCount(),
+                     "only columns 18..23 intersect [1000, 1300)");
+        assertNull(row.getRealizedCell(0));
+        assertSame(data.get(20), row.getRealizedCell(20).getItem(),
+                   "the realized cell is bound through the pivot index");
+        assertNull(row.getRealizedCell(21).getItem());
+    }
+
+    @Test
+    void crosstabHeaderRealizesOnlyVisibleLabels() throws Exception {
+        List<String> pivotValues = IntStream.range(0, 2_000)
+                                            .mapToObj(i -> "p" + i)
+                                            .toList();
+        AtomicReference<CrosstabHeader> ref = new AtomicReference<>();
+        Platform.runLater(() -> {
+            var header = new CrosstabHeader(pivotValues, 40.0, 20.0,
+                                            TestLayouts.mockRelationStyle());
+            header.setViewport(0, 200.0);
+            ref.set(header);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+
+        assertEquals(2_000, ref.get().getPivotCount());
+        assertEquals(5, ref.get().getRealizedCount());
+    }
+
     // ------------------------------------------------------------------ //
     //  CrosstabCell construction                                           //
     // ------------------------------------------------------------------ //
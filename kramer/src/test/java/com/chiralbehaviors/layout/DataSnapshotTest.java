@@ -6,12 +6,13 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-import java.util.List;
+import java.util.BitSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 
+import com.chiralbehaviors.layout.DataSnapshot.Fingerprint;
 import com.chiralbehaviors.layout.schema.Primitive;
 import com.chiralbehaviors.layout.schema.Relation;
 import com.chiralbehaviors.layout.style.PrimitiveStyle;
@@ -172,12 +173,18 @@ class DataSnapshotTest {
         ArrayNode data = buildData("name", "Alice", "Bob", "Carol");
         RelationLayout rl = buildAndMeasure("root", data, "name");
 
-        Map<SchemaPath, List<String>> snapshot = DataSnapshot.buildSnapshot(rl, data);
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data);
 
         assertFalse(snapshot.isEmpty(), "Snapshot must not be empty");
         SchemaPath namePath = new SchemaPath("root", "name");
         assertTrue(snapshot.containsKey(namePath), "Snapshot must contain root/name");
-        assertEquals(List.of("Alice", "Bob", "Carol"), snapshot.get(namePath));
+        Fingerprint names = snapshot.get(namePath);
+        assertEquals(3, names.size());
+        assertEquals(DataSnapshot.hash("Alice"), names.rowHash(0));
+        assertEquals(DataSnapshot.hash("Carol"), names.rowHash(2));
+        assertEquals(names, DataSnapshot.buildSnapshot(rl, data.deepCopy())
+                                        .get(namePath),
+                     "Equal content must produce equal fingerprints");
     }
 
     @Test
@@ -186,24 +193,41 @@ class DataSnapshotTest {
                                     "age",  new String[]{"30", "25"});
         RelationLayout rl = buildAndMeasure("root", data, "name", "age");
 
-        Map<SchemaPath, List<String>> snapshot = DataSnapshot.buildSnapshot(rl, data);
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data);
 
-        assertEquals(List.of("Alice", "Bob"), snapshot.get(new SchemaPath("root", "name")));
-        assertEquals(List.of("30", "25"),     snapshot.get(new SchemaPath("root", "age")));
+        Fingerprint names = snapshot.get(new SchemaPath("root", "name"));
+        Fingerprint ages = snapshot.get(new SchemaPath("root", "age"));
+        assertEquals(DataSnapshot.hash("Bob"), names.rowHash(1));
+        assertEquals(DataSnapshot.hash("30"), ages.rowHash(0));
+        assertNotEquals(names, ages);
     }
 
     @Test
-    void buildSnapshotEmptyDataProducesEmptyLists() {
+    void buildSnapshotEmptyDataProducesEmptyFingerprints() {
         // Measure with real data so children are populated
         ArrayNode initData = buildData("name", "Alice");
         RelationLayout rl = buildAndMeasure("root", initData, "name");
 
         ArrayNode empty = JsonNodeFactory.instance.arrayNode();
-        Map<SchemaPath, List<String>> snapshot = DataSnapshot.buildSnapshot(rl, empty);
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, empty);
 
         SchemaPath namePath = new SchemaPath("root", "name");
         assertTrue(snapshot.containsKey(namePath), "Snapshot key must exist even for empty data");
-        assertEquals(List.of(), snapshot.get(namePath));
+        assertEquals(0, snapshot.get(namePath).size());
+    }
+
+    @Test
+    void fingerprintSizeIsIndependentOfValueLength() {
+        ArrayNode data = buildData("text", "a".repeat(100_000), "b".repeat(100_000));
+        RelationLayout rl = buildAndMeasure("root", data, "text");
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data);
+
+        // One hash per row; changing the last char of a long value is detected
+        ArrayNode changed = buildData("text", "a".repeat(100_000),
+                                      "b".repeat(99_999) + "c");
+        Set<SchemaPath> paths = DataSnapshot.detectChangedPaths(rl, changed, snapshot);
+        assertEquals(Set.of(new SchemaPath("root", "text")), paths);
+        assertEquals(2, snapshot.get(new SchemaPath("root", "text")).size());
     }
 
     // -----------------------------------------------------------------------
@@ -233,7 +257,7 @@ class DataSnapshotTest {
         ArrayNode data = buildData("name", "Alice", "Bob");
         RelationLayout rl = buildAndMeasure("root", data, "name");
 
-        Map<SchemaPath, List<String>> snapshot = DataSnapshot.buildSnapshot(rl, data);
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data);
 
         // Same data again → nothing changed
         Set<SchemaPath> changed = DataSnapshot.detectChangedPaths(rl, data, snapshot);
@@ -250,7 +274,7 @@ class DataSnapshotTest {
                                      "age",  new String[]{"30", "25"});
         RelationLayout rl = buildAndMeasure("root", data1, "name", "age");
 
-        Map<SchemaPath, List<String>> snapshot = DataSnapshot.buildSnapshot(rl, data1);
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data1);
 
         // Change 'name' only; 'age' stays the same
         ArrayNode data2 = buildData2("name", new String[]{"Alice", "Charlie"},
@@ -262,6 +286,85 @@ class DataSnapshotTest {
         assertFalse(changed.contains(new SchemaPath("root", "age")));
     }
 
+    // -----------------------------------------------------------------------
+    // DataSnapshot.detectChangedRows()
+    // -----------------------------------------------------------------------
+
+    @Test
+    void changedRowsReported() {
+        ArrayNode data1 = buildData2("name", new String[]{"Alice", "Bob", "Carol", "Dave"},
+                                     "age",  new String[]{"30", "25", "41", "52"});
+        RelationLayout rl = buildAndMeasure("root", data1, "name", "age");
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data1);
+
+        ArrayNode data2 = buildData2("name", new String[]{"Alice", "Robert", "Carol", "David"},
+                                     "age",  new String[]{"30", "25", "41", "52"});
+        Map<SchemaPath, BitSet> changed = DataSnapshot.detectChangedRows(rl, data2, snapshot);
+
+        assertEquals(Set.of(new SchemaPath("root", "name")), changed.keySet());
+        assertEquals(BitSet.valueOf(new long[] { 0b1010 }),
+                     changed.get(new SchemaPath("root", "name")));
+    }
+
+    @Test
+    void changedRowsOnColdStartCoverEveryRow() {
+        ArrayNode data = buildData("name", "Alice", "Bob", "Carol");
+        RelationLayout rl = buildAndMeasure("root", data, "name");
+
+        Map<SchemaPath, BitSet> changed = DataSnapshot.detectChangedRows(rl, data,
+                                                                         DataSnapshot.EMPTY);
+        assertEquals(3, changed.get(new SchemaPath("root", "name")).cardinality());
+        assertTrue(DataSnapshot.detectChangedRows(rl, data,
+                                                  DataSnapshot.buildSnapshot(rl, data))
+                               .isEmpty());
+    }
+
+    @Test
+    void keyedInsertReportsOnlyNewRows() {
+        ArrayNode data1 = buildData2("id", new String[]{"1", "2", "3"},
+                                     "age", new String[]{"30", "25", "41"});
+        RelationLayout rl = buildAndMeasure("root", data1, "id", "age");
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data1);
+
+        // Insert at the front shifts every position but only adds one key
+        ArrayNode data2 = buildData2("id", new String[]{"0", "1", "2", "3"},
+                                     "age", new String[]{"19", "30", "25", "41"});
+        Map<SchemaPath, BitSet> changed = DataSnapshot.detectChangedRows(rl, data2, snapshot);
+
+        assertEquals(BitSet.valueOf(new long[] { 1 }),
+                     changed.get(new SchemaPath("root", "age")));
+        assertEquals(BitSet.valueOf(new long[] { 1 }),
+                     changed.get(new SchemaPath("root", "id")));
+    }
+
+    @Test
+    void keyedRemovalReportsPathWithoutRows() {
+        ArrayNode data1 = buildData2("id", new String[]{"1", "2", "3"},
+                                     "age", new String[]{"30", "25", "41"});
+        RelationLayout rl = buildAndMeasure("root", data1, "id", "age");
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data1);
+
+        ArrayNode data2 = buildData2("id", new String[]{"1", "3"},
+                                     "age", new String[]{"30", "41"});
+        Map<SchemaPath, BitSet> changed = DataSnapshot.detectChangedRows(rl, data2, snapshot);
+
+        assertEquals(2, changed.size());
+        assertTrue(changed.get(new SchemaPath("root", "age")).isEmpty());
+    }
+
+    @Test
+    void unkeyedRowCountChangeStillReportsEveryRow() {
+        ArrayNode data1 = buildData2("city", new String[]{"Oslo"},
+                                     "age",  new String[]{"30"});
+        RelationLayout rl = buildAndMeasure("root", data1, "city", "age");
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data1);
+
+        ArrayNode data2 = buildData2("city", new String[]{"Oslo", "Rome"},
+                                     "age",  new String[]{"30", "25"});
+        Map<SchemaPath, BitSet> changed = DataSnapshot.detectChangedRows(rl, data2, snapshot);
+        assertEquals(2, changed.get(new SchemaPath("root", "age")).cardinality());
+    }
+
     // -----------------------------------------------------------------------
     // DataSnapshot.detectChangedPaths() — row count change → full rebuild
     // -----------------------------------------------------------------------
@@ -272,7 +375,7 @@ class DataSnapshotTest {
                                      "age",  new String[]{"30"});
         RelationLayout rl = buildAndMeasure("root", data1, "name", "age");
 
-        Map<SchemaPath, List<String>> snapshot = DataSnapshot.buildSnapshot(rl, data1);
+        Map<SchemaPath, Fingerprint> snapshot = DataSnapshot.buildSnapshot(rl, data1);
 
         // Two rows now
         ArrayNode data2 = buildData2("name", new String[]{"Alice", "Bob"},
@@ -0,0 +1,119 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LayoutPipeline}: prepare off the installer thread, install
+ * on it, and drop superseded requests.
+ */
+class LayoutPipelineTest {
+
+    @Test
+    void synchronousWithoutWorker() {
+        List<String> installed = new ArrayList<>();
+        var pipeline = new LayoutPipeline(Runnable::run);
+        assertFalse(pipeline.isAsync());
+        pipeline.submit(ticket -> "done", installed::add);
+        assertEquals(List.of("done"), installed);
+    }
+
+    @Test
+    void supersededRequestsAreNeverInstalled() {
+        Queue<Runnable> worker = new ArrayDeque<>();
+        Queue<Runnable> fx = new ArrayDeque<>();
+        List<Integer> installed = new ArrayList<>();
+        var pipeline = new LayoutPipeline(fx::add);
+        pipeline.setWorker(worker::add);
+
+        for (int i = 0; i < 3; i++) {
+            int request = i;
+            pipeline.submit(ticket -> request, installed::add);
+        }
+        worker.forEach(Runnable::run);
+        fx.forEach(Runnable::run);
+        assertEquals(List.of(2), installed, "only the latest request installs");
+    }
+
+    @Test
+    void cancellationStopsPrepareAtCheckpoint() {
+        Queue<Runnable> worker = new ArrayDeque<>();
+        Queue<Runnable> fx = new ArrayDeque<>();
+        List<String> phases = new ArrayList<>();
+        var pipeline = new LayoutPipeline(fx::add);
+        pipeline.setWorker(worker::add);
+
+        pipeline.submit(ticket -> {
+            phases.add("measure");
+            pipeline.cancel(); // a newer request arrives mid-prepare
+            if (ticket.isCancelled()) {
+                return null;
+            }
+            phases.add("layout");
+            return "stale";
+        }, r -> phases.add("install"));
+        worker.forEach(Runnable::run);
+        fx.forEach(Runnable::run);
+        assertEquals(List.of("measure"), phases);
+        assertTrue(fx.isEmpty(), "nothing is handed to the installer");
+    }
+
+    @Test
+    void busyUntilCancelledPreparesReturnThenIdleAfterInstall() {
+        Queue<Runnable> worker = new ArrayDeque<>();
+        Queue<Runnable> fx = new ArrayDeque<>();
+        List<String> events = new ArrayList<>();
+        var pipeline = new LayoutPipeline(fx::add);
+        pipeline.setWorker(worker::add);
+        pipeline.setIdleListener(() -> events.add("idle"));
+
+        pipeline.submit(ticket -> "first", r -> events.add("install " + r));
+        pipeline.cancel();
+        assertTrue(pipeline.isBusy(), "a cancelled prepare may still be running");
+        pipeline.submit(ticket -> "second", r -> events.add("install " + r));
+        worker.poll()
+              .run();
+        assertTrue(pipeline.isBusy());
+        worker.poll()
+              .run();
+        assertFalse(pipeline.isBusy());
+        fx.forEach(Runnable::run);
+        assertEquals(List.of("install second", "idle"), events);
+    }
+
+    @Test
+    void installRunsOnInstallerAfterBackgroundPrepare() throws Exception {
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        ExecutorService installer = Executors.newSingleThreadExecutor();
+        try {
+            var pipeline = new LayoutPipeline(installer);
+            pipeline.setWorker(background);
+            CountDownLatch done = new CountDownLatch(1);
+            Thread[] threads = new Thread[2];
+            pipeline.submit(ticket -> {
+                threads[0] = Thread.currentThread();
+                return Boolean.TRUE;
+            }, r -> {
+                threads[1] = Thread.currentThread();
+                done.countDown();
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertNotSame(Thread.currentThread(), threads[0]);
+            assertNotSame(threads[0], threads[1]);
+        } finally {
+            background.shutdownNow();
+            installer.shutdownNow();
+        }
+    }
+}
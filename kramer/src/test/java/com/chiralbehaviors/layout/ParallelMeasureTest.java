@@ -0,0 +1,144 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.chiralbehaviors.layout.schema.Primitive;
+import com.chiralbehaviors.layout.schema.Relation;
+import com.chiralbehaviors.layout.style.Style;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests for opt-in fork/join measurement of sibling subtrees in
+ * RelationLayout.measure(). Parallel and sequential measurement must produce
+ * identical results.
+ */
+class ParallelMeasureTest {
+
+    private static final JsonNodeFactory NF = JsonNodeFactory.instance;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static Relation wideSchema() {
+        Relation root = new Relation("orders");
+        for (int i = 0; i < 6; i++) {
+            root.addChild(new Primitive("field" + i));
+        }
+        for (int r = 0; r < 3; r++) {
+            Relation nested = new Relation("lines" + r);
+            for (int i = 0; i < 4; i++) {
+                nested.addChild(new Primitive("col" + i));
+            }
+            Relation deeper = new Relation("notes");
+            deeper.addChild(new Primitive("text"));
+            nested.addChild(deeper);
+            root.addChild(nested);
+        }
+        return root;
+    }
+
+    private static ArrayNode data(int rows) {
+        ArrayNode data = NF.arrayNode();
+        for (int row = 0; row < rows; row++) {
+            ObjectNode item = data.addObject();
+            for (int i = 0; i < 6; i++) {
+                item.put("field" + i, "v" + (row * (i + 1) % 97) + "x".repeat(i));
+            }
+            for (int r = 0; r < 3; r++) {
+                ArrayNode lines = item.putArray("lines" + r);
+                for (int l = 0; l < (row + r) % 5; l++) {
+                    ObjectNode line = lines.addObject();
+                    for (int i = 0; i < 4; i++) {
+                        line.put("col" + i, row * l + i);
+                    }
+                    line.putArray("notes")
+                        .addObject()
+                        .put("text", "note " + "y".repeat(l + r));
+                }
+            }
+        }
+        return data;
+    }
+
+    private static RelationLayout measure(Style style, Relation schema,
+                                          JsonNode data) {
+        RelationLayout layout = style.layout(schema);
+        layout.buildPaths(new SchemaPath("orders"), style);
+        layout.measure(data, n -> n, style);
+        return layout;
+    }
+
+    private static void assertSameMeasure(MeasureResult expected,
+                                          MeasureResult actual) {
+        assertEquals(expected.columnWidth(), actual.columnWidth());
+        assertEquals(expected.labelWidth(), actual.labelWidth());
+        assertEquals(expected.dataWidth(), actual.dataWidth());
+        assertEquals(expected.maxWidth(), actual.maxWidth());
+        assertEquals(expected.averageCardinality(), actual.averageCardinality());
+        assertEquals(expected.averageChildCardinality(),
+                     actual.averageChildCardinality());
+        assertEquals(expected.maxCardinality(), actual.maxCardinality());
+        assertEquals(expected.contentStats(), actual.contentStats());
+        assertEquals(expected.numericStats(), actual.numericStats());
+        assertEquals(expected.childResults().size(),
+                     actual.childResults().size());
+        for (int i = 0; i < expected.childResults().size(); i++) {
+            assertSameMeasure(expected.childResults().get(i),
+                              actual.childResults().get(i));
+        }
+    }
+
+    @Test
+    void measurePoolDefaultsToSequential() {
+        assertNull(new Style(new FixedCharWidthStrategy()).getMeasurePool());
+    }
+
+    @Test
+    void parallelMatchesSequential() {
+        ArrayNode data = data(200);
+
+        Style sequential = new Style(new FixedCharWidthStrategy());
+        RelationLayout expected = measure(sequential, wideSchema(), data);
+
+        Style parallel = new Style(new FixedCharWidthStrategy());
+        parallel.setMeasurePool(pool);
+        RelationLayout actual = measure(parallel, wideSchema(), data);
+
+        assertSameMeasure(expected.getMeasureResult(),
+                          actual.getMeasureResult());
+        assertEquals(expected.getChildren().stream().map(SchemaNodeLayout::getField).toList(),
+                     actual.getChildren().stream().map(SchemaNodeLayout::getField).toList(),
+                     "child order must be deterministic");
+    }
+
+    @Test
+    void childrenMeasuredOnPoolThreads() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Style style = new Style(new FixedCharWidthStrategy()) {
+            @Override
+            public PrimitiveLayout layout(Primitive p) {
+                threads.add(Thread.currentThread().getName());
+                return super.layout(p);
+            }
+        };
+        style.setMeasurePool(pool);
+        measure(style, wideSchema(), data(20));
+        assertTrue(threads.stream().anyMatch(t -> t.contains("ForkJoinPool")),
+                   "nested children should be resolved on pool workers: " + threads);
+    }
+}
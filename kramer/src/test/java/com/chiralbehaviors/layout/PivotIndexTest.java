@@ -0,0 +1,67 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * Tests for {@link PivotIndex}: dictionary codes and the sparse row × pivot
+ * cell matrix.
+ */
+class PivotIndexTest {
+
+    @Test
+    void valuesAreCodedInFirstSeenOrder() {
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        for (String month : new String[] { "feb", "jan", "feb", "mar" }) {
+            data.addObject()
+                .put("month", month);
+        }
+        PivotIndex index = PivotIndex.build(data, "month");
+        assertEquals(List.of("feb", "jan", "mar"), index.values());
+        assertEquals(3, index.pivotCount());
+        assertEquals(1, index.codeOf("jan"));
+        assertEquals(-1, index.codeOf("dec"));
+        assertEquals("mar", index.value(2));
+    }
+
+    @Test
+    void matrixHoldsOneEntryPerItemWithAValue() {
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        data.addObject()
+            .put("sku", "a");
+        data.addObject()
+            .putNull("sku");
+        data.addObject();
+        data.addObject()
+            .put("sku", "b");
+        PivotIndex index = PivotIndex.build(data, "sku");
+        assertEquals(4, index.rowCount());
+        assertEquals(2, index.entryCount());
+        assertSame(data.get(0), index.cell(0, index.codeOf("a")));
+        assertNull(index.cell(0, index.codeOf("b")));
+        assertNull(index.cell(1, 0));
+        assertSame(data.get(3), index.cell(3, 1));
+        assertNull(index.cell(9, 0), "rows out of range are empty");
+    }
+
+    @Test
+    void thousandsOfDistinctValues() {
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < 10_000; i++) {
+            data.addObject()
+                .put("day", "d" + (i % 3_000));
+        }
+        PivotIndex index = PivotIndex.build(data, "day");
+        assertEquals(3_000, index.pivotCount());
+        assertEquals(10_000, index.entryCount());
+        assertSame(data.get(9_999), index.cell(9_999, index.codeOf("d999")));
+        assertEquals(3_000, index.values().size());
+    }
+}
@@ -114,6 +114,9 @@ class PivotStatsTest {
         assertEquals(3, values.size(), "should have 3 distinct pivot values");
         assertTrue(values.containsAll(List.of("open", "closed", "pending")));
         assertEquals(3, result.pivotStats().pivotCount());
+
+        assertEquals(List.of("open", "closed", "pending"), values,
+                     "first-seen order");
     }
 
     @Test
@@ -348,4 +348,35 @@ class PrimitiveConvergenceTest {
         layout.measure(data, n -> n, model);
         assertTrue(layout.isConverged(), "Should converge after 5 stable calls with k=5");
     }
+
+    // --- Test 10: overrides on other paths and render-only overrides keep convergence ---
+
+    @Test
+    void convergenceSurvivesUnrelatedOverrides() {
+        PrimitiveStyle style = TestLayouts.mockPrimitiveStyle(1.0);
+        PrimitiveLayout layout = new PrimitiveLayout(new Primitive("text"), style);
+        SchemaPath path = new SchemaPath("table", "text");
+        layout.setSchemaPath(path);
+        DefaultLayoutStylesheet sheet = new DefaultLayoutStylesheet(null);
+        Style model = modelWith(sheet);
+
+        ArrayNode data = buildVariableDataset(35);
+        for (int i = 0; i < DEFAULT_K; i++) {
+            layout.measure(data, n -> n, model);
+        }
+        assertTrue(layout.isConverged());
+
+        sheet.setOverride(new SchemaPath("table", "other"), "stat-min-samples", 10);
+        sheet.setOverride(path, LayoutPropertyKeys.CELL_FORMAT, "%.2f");
+        layout.measure(data, n -> n, model);
+        assertTrue(layout.isConverged(),
+            "Sibling and render-only overrides must not reset convergence");
+        assertEquals("%.2f", layout.getCellFormat(),
+            "Render-only properties are refreshed while frozen");
+
+        sheet.setOverride(new SchemaPath("table"), LayoutPropertyKeys.FILTER_EXPRESSION, "$x > 1");
+        layout.measure(data, n -> n, model);
+        assertFalse(layout.isConverged(),
+            "A measure-affecting override on an ancestor resets convergence");
+    }
 }
@@ -0,0 +1,116 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.chiralbehaviors.layout.schema.Primitive;
+import com.chiralbehaviors.layout.style.PrimitiveStyle;
+import com.chiralbehaviors.layout.style.Style;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * Tests for the fused single-pass statistics scan in PrimitiveLayout.measure():
+ * every value is measured once, and all derived statistics agree with the
+ * multi-pass semantics.
+ */
+class PrimitiveFusedScanTest {
+
+    private static final JsonNodeFactory NF = JsonNodeFactory.instance;
+
+    @Test
+    void eachValueMeasuredExactlyOnce() {
+        PrimitiveStyle style = TestLayouts.mockPrimitiveStyle(7.0);
+        PrimitiveLayout layout = new PrimitiveLayout(new Primitive("name"), style);
+
+        ArrayNode data = NF.arrayNode();
+        for (int i = 0; i < 100; i++) {
+            data.add("value-" + i);
+        }
+        layout.measure(data, n -> n, mock(Style.class));
+
+        verify(style, times(100)).width(any(JsonNode.class));
+        assertEquals(PrimitiveRenderMode.TEXT, layout.getRenderMode());
+    }
+
+    @Test
+    void scalarNumericProducesBarAndRange() {
+        PrimitiveStyle style = TestLayouts.mockPrimitiveStyle(7.0);
+        PrimitiveLayout layout = new PrimitiveLayout(new Primitive("price"), style);
+
+        ArrayNode data = NF.arrayNode();
+        for (int i = 1; i <= 40; i++) {
+            data.add(i * 2.5);
+        }
+        layout.measure(data, n -> n, mock(Style.class));
+
+        verify(style, times(40)).width(any(JsonNode.class));
+        assertEquals(PrimitiveRenderMode.BAR, layout.getRenderMode());
+        NumericStats stats = layout.getMeasureResult().numericStats();
+        assertEquals(2.5, stats.numericMin());
+        assertEquals(100.0, stats.numericMax());
+        assertNotNull(layout.getMeasureResult().contentStats());
+    }
+
+    @Test
+    void arrayNumericProducesSparklineQuartiles() {
+        PrimitiveStyle style = TestLayouts.mockPrimitiveStyle(7.0);
+        PrimitiveLayout layout = new PrimitiveLayout(new Primitive("series"), style);
+
+        ArrayNode data = NF.arrayNode();
+        ArrayNode a = data.addArray();
+        ArrayNode b = data.addArray();
+        for (int i = 1; i <= 4; i++) {
+            a.add(i);
+            b.add(i + 4);
+        }
+        layout.measure(data, n -> n, mock(Style.class));
+
+        verify(style, times(8)).width(any(JsonNode.class));
+        assertEquals(PrimitiveRenderMode.SPARKLINE, layout.getRenderMode());
+        SparklineStats stats = layout.getMeasureResult().sparklineStats();
+        assertEquals(1.0, stats.seriesMin());
+        assertEquals(8.0, stats.seriesMax());
+        assertEquals(3.0, stats.q1());
+        assertEquals(7.0, stats.q3());
+        assertEquals(8, stats.seriesLength());
+    }
+
+    @Test
+    void numericFollowedByTextFallsBackToBadge() {
+        PrimitiveStyle style = TestLayouts.mockPrimitiveStyle(7.0);
+        PrimitiveLayout layout = new PrimitiveLayout(new Primitive("mixed"), style);
+
+        ArrayNode data = NF.arrayNode();
+        data.add(1);
+        data.add(2);
+        data.add("n/a");
+        layout.measure(data, n -> n, mock(Style.class));
+
+        assertEquals(PrimitiveRenderMode.BADGE, layout.getRenderMode());
+        assertEquals(List.of("1", "2", "n/a"), layout.getBadgeValues());
+    }
+
+    @Test
+    void highCardinalityStopsTrackingDistinctValues() {
+        PrimitiveStyle style = TestLayouts.mockPrimitiveStyle(7.0);
+        PrimitiveLayout layout = new PrimitiveLayout(new Primitive("id"), style);
+
+        ArrayNode data = NF.arrayNode();
+        for (int i = 0; i < 10_000; i++) {
+            data.add("id-" + i);
+        }
+        layout.measure(data, n -> n, mock(Style.class));
+
+        assertEquals(PrimitiveRenderMode.TEXT, layout.getRenderMode());
+        assertNull(layout.getBadgeValues());
+        assertEquals(10_000, layout.getMeasureResult().contentStats().sampleCount());
+    }
+}
@@ -0,0 +1,109 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the streaming quantile sketch used by PrimitiveLayout.measure().
+ */
+class QuantileSketchTest {
+
+    @Test
+    void emptySketchReturnsNaN() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(sketch.isEmpty());
+        assertTrue(Double.isNaN(sketch.valueAtRank(0)));
+    }
+
+    @Test
+    void exactBelowK() {
+        QuantileSketch sketch = new QuantileSketch(64);
+        double[] values = new double[50];
+        Random random = new Random(7);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1000);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        assertTrue(sketch.isExact());
+        for (int r = 0; r < values.length; r++) {
+            assertEquals(values[r], sketch.valueAtRank(r), "rank " + r);
+        }
+        assertEquals(values[25], sketch.quantile(0.5));
+        assertEquals(values[0], sketch.min());
+        assertEquals(values[49], sketch.max());
+    }
+
+    @Test
+    void rankErrorBoundedOnLargeStream() {
+        int n = 200_000;
+        QuantileSketch sketch = new QuantileSketch(200);
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            sketch.add(random.nextDouble());
+        }
+        assertFalse(sketch.isExact());
+        assertEquals(n, sketch.count());
+        // uniform [0,1): value at rank r is ~ r/n
+        for (double q : new double[] { 0.1, 0.25, 0.5, 0.75, 0.9 }) {
+            assertEquals(q, sketch.quantile(q), 0.02, "q=" + q);
+        }
+    }
+
+    @Test
+    void mergeMatchesSingleStream() {
+        QuantileSketch a = new QuantileSketch(100);
+        QuantileSketch b = new QuantileSketch(100);
+        QuantileSketch all = new QuantileSketch(100);
+        for (int i = 0; i < 50_000; i++) {
+            double v = i % 1000;
+            (i % 2 == 0 ? a : b).add(v);
+            all.add(v);
+        }
+        a.merge(b);
+        assertEquals(all.count(), a.count());
+        assertEquals(0.0, a.min());
+        assertEquals(999.0, a.max());
+        assertEquals(all.quantile(0.5), a.quantile(0.5), 30.0);
+        assertEquals(900.0, a.quantile(0.9), 30.0);
+    }
+
+    @Test
+    void mergeOfSmallSketchesStaysExact() {
+        QuantileSketch a = new QuantileSketch(16);
+        QuantileSketch b = new QuantileSketch(16);
+        for (int i = 0; i < 8; i++) {
+            a.add(i);
+            b.add(15 - i);
+        }
+        a.merge(b);
+        assertTrue(a.isExact());
+        for (int r = 0; r < 16; r++) {
+            assertEquals(r, a.valueAtRank(r));
+        }
+    }
+
+    @Test
+    void deterministicForIdenticalInput() {
+        QuantileSketch a = new QuantileSketch(32);
+        QuantileSketch b = new QuantileSketch(32);
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+            double v = random.nextGaussian();
+            a.add(v);
+            b.add(v);
+        }
+        assertEquals(a.quantile(0.9), b.quantile(0.9));
+    }
+
+    @Test
+    void rejectsTinyK() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new QuantileSketch(QuantileSketch.MIN_K - 1));
+    }
+}
@@ -0,0 +1,191 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.chiralbehaviors.layout.RowDiff.Insert;
+import com.chiralbehaviors.layout.RowDiff.Move;
+import com.chiralbehaviors.layout.RowDiff.Remove;
+import com.chiralbehaviors.layout.RowDiff.Update;
+import com.chiralbehaviors.layout.schema.Primitive;
+import com.chiralbehaviors.layout.schema.Relation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * Tests for {@link RowDiff}: keyed insert / remove / move / update diffing of
+ * row lists.
+ */
+class RowDiffTest {
+
+    private static JsonNode row(int id, String value) {
+        ObjectNode row = JsonNodeFactory.instance.objectNode();
+        row.put("id", id);
+        row.put("value", value);
+        return row;
+    }
+
+    private static List<JsonNode> rows(int... ids) {
+        List<JsonNode> rows = new ArrayList<>();
+        for (int id : ids) {
+            rows.add(row(id, "v" + id));
+        }
+        return rows;
+    }
+
+    @Test
+    void appendIsOneRangeInsert() {
+        List<JsonNode> before = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            before.add(row(i, "v" + i));
+        }
+        List<JsonNode> after = new ArrayList<>(before);
+        for (int i = 0; i < 10; i++) {
+            after.add(row(100_000 + i, "new"));
+        }
+
+        RowDiff diff = RowDiff.compute(before, after, "id");
+        assertEquals(10, diff.getOperations()
+                             .size());
+        assertTrue(diff.getOperations()
+                       .stream()
+                       .allMatch(op -> op instanceof Insert));
+
+        ObservableList<JsonNode> items = FXCollections.observableArrayList(before);
+        List<String> changes = new ArrayList<>();
+        items.addListener((ListChangeListener<JsonNode>) c -> {
+            while (c.next()) {
+                changes.add(c.getFrom() + "+" + c.getAddedSize() + "-"
+                            + c.getRemovedSize());
+            }
+        });
+        assertTrue(RowDiff.applyKeyed(items, after, "id"));
+        assertEquals(List.of("100000+10-0"), changes);
+        assertEquals(after, items);
+    }
+
+    @Test
+    void removesUpdatesAndMoves() {
+        List<JsonNode> before = rows(1, 2, 3, 4, 5);
+        List<JsonNode> after = List.of(row(2, "v2"), row(3, "changed"),
+                                       row(4, "v4"), row(1, "v1"), row(6, "v6"));
+        RowDiff diff = RowDiff.compute(before, after, "id");
+
+        assertEquals(List.of(new Remove(4), new Move(0, 3, after.get(3)),
+                             new Insert(4, after.get(4)),
+                             new Update(1, after.get(1))),
+                     diff.getOperations());
+        assertEquals(3, diff.structuralChanges());
+
+        List<JsonNode> items = new ArrayList<>(before);
+        diff.applyTo(items);
+        assertEquals(after, items);
+    }
+
+    @Test
+    void unchangedRowsKeepTheirNodes() {
+        List<JsonNode> before = rows(1, 2, 3);
+        List<JsonNode> after = rows(1, 2, 3);
+        RowDiff diff = RowDiff.compute(before, after, "id");
+        assertTrue(diff.isEmpty());
+        List<JsonNode> items = new ArrayList<>(before);
+        diff.applyTo(items);
+        assertSame(before.get(0), items.get(0));
+    }
+
+    @Test
+    void numericKeysMatchAcrossNodeTypes() {
+        List<JsonNode> before = rows(1, 2, 3);
+        List<JsonNode> after = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            ObjectNode row = JsonNodeFactory.instance.objectNode();
+            row.put("id", (long) id);
+            row.put("value", "v" + id);
+            after.add(row);
+        }
+        assertEquals(RowDiff.key(before.get(0), "id"),
+                     RowDiff.key(after.get(0), "id"));
+        RowDiff diff = RowDiff.compute(before, after, "id");
+        assertTrue(diff.getOperations()
+                       .stream()
+                       .allMatch(op -> op instanceof Update),
+                   "rows are matched, not removed and reinserted");
+        List<JsonNode> items = new ArrayList<>(before);
+        diff.applyTo(items);
+        assertEquals(after, items);
+    }
+
+    @Test
+    void unkeyableRowsHaveNoDiff() {
+        assertNull(RowDiff.compute(rows(1, 2), rows(1, 2), null));
+        assertNull(RowDiff.compute(rows(1, 1), rows(1), "id"), "duplicate old key");
+        assertNull(RowDiff.compute(rows(1), rows(2, 2), "id"), "duplicate new key");
+        assertNull(RowDiff.compute(rows(1), rows(1), "missing"));
+    }
+
+    @Test
+    void wholesaleReorderFallsBack() {
+        ObservableList<JsonNode> items = FXCollections.observableArrayList(rows(1, 2, 3, 4, 5, 6));
+        List<JsonNode> reversed = new ArrayList<>(items);
+        Collections.reverse(reversed);
+        assertFalse(RowDiff.applyKeyed(items, reversed, "id"));
+        assertEquals(rows(1, 2, 3, 4, 5, 6), items, "unchanged on fallback");
+    }
+
+    @Test
+    void randomEditsReproduceTarget() {
+        Random random = new Random(0x5eed);
+        for (int trial = 0; trial < 500; trial++) {
+            int n = random.nextInt(40);
+            List<JsonNode> before = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                before.add(row(i, "v"));
+            }
+            List<JsonNode> after = new ArrayList<>();
+            for (JsonNode row : before) {
+                int roll = random.nextInt(10);
+                if (roll == 0) {
+                    continue; // removed
+                }
+                after.add(roll == 1 ? row(row.get("id")
+                                             .asInt(),
+                                          "edited")
+                                    : row);
+            }
+            for (int k = random.nextInt(5); k > 0; k--) {
+                after.add(random.nextInt(after.size() + 1), row(1000 + k, "new"));
+            }
+            if (after.size() > 1 && random.nextBoolean()) {
+                after.add(random.nextInt(after.size()),
+                          after.remove(random.nextInt(after.size())));
+            }
+
+            RowDiff diff = RowDiff.compute(before, after, "id");
+            List<JsonNode> items = new ArrayList<>(before);
+            diff.applyTo(items);
+            assertEquals(after, items, "trial " + trial + ": " + diff);
+        }
+    }
+
+    @Test
+    void keyFieldFollowsAutoSortCandidates() {
+        Relation relation = new Relation("items");
+        relation.addChild(new Primitive("name"));
+        assertEquals("name", RelationLayout.keyField(relation));
+        relation.addChild(new Primitive("id"));
+        assertEquals("id", RelationLayout.keyField(relation));
+        assertNull(RelationLayout.keyField(new Relation("empty")));
+    }
+}
@@ -0,0 +1,177 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.chiralbehaviors.layout.schema.Primitive;
+import com.chiralbehaviors.layout.schema.Relation;
+import com.chiralbehaviors.layout.schema.SchemaNode;
+import com.chiralbehaviors.layout.style.PrimitiveStyle;
+import com.chiralbehaviors.layout.style.Style;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests for {@link RowPipelineCache} and its use by
+ * RelationLayout.measure() / extractFrom().
+ */
+class RowPipelineCacheTest {
+
+    private static Style mockModel(Relation schema) {
+        Style model = mock(Style.class);
+        PrimitiveStyle primStyle = TestLayouts.mockPrimitiveStyle(7.0);
+        for (SchemaNode child : schema.getChildren()) {
+            if (child instanceof Primitive p) {
+                PrimitiveLayout pl = new PrimitiveLayout(p, primStyle);
+                when(model.layout(p)).thenReturn(pl);
+            }
+        }
+        when(model.layout(any(SchemaNode.class))).thenAnswer(inv -> {
+            SchemaNode n = inv.getArgument(0);
+            if (n instanceof Primitive p) return model.layout(p);
+            return model.layout((Relation) n);
+        });
+        return model;
+    }
+
+    private static ArrayNode names(String... names) {
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        for (String name : names) {
+            ObjectNode row = JsonNodeFactory.instance.objectNode();
+            row.put("name", name);
+            data.add(row);
+        }
+        return data;
+    }
+
+    private static ObjectNode parent(String field, JsonNode items) {
+        ObjectNode parent = JsonNodeFactory.instance.objectNode();
+        parent.set(field, items);
+        return parent;
+    }
+
+    private static RelationLayout sortedLayout() {
+        Relation schema = new Relation("items");
+        schema.addChild(new Primitive("name"));
+        schema.setSortFields(List.of("name"));
+        return new RelationLayout(schema, TestLayouts.mockRelationStyle());
+    }
+
+    @Test
+    void measureSeedsExtractFrom() {
+        RelationLayout layout = sortedLayout();
+        ArrayNode data = names("c", "a", "b");
+        layout.measure(data, n -> n, mockModel(layout.getNode()));
+
+        JsonNode first = layout.extractFrom(parent("items", data));
+        JsonNode second = layout.extractFrom(parent("items", data));
+        assertSame(first, second);
+        assertEquals("a", first.get(0)
+                               .get("name")
+                               .asText());
+        assertEquals(2, layout.getPipelineCache()
+                              .getHits());
+        assertEquals("c", data.get(0)
+                              .get("name")
+                              .asText(), "source array is not reordered");
+    }
+
+    @Test
+    void eachChildArrayIsProcessedOnce() {
+        RelationLayout layout = sortedLayout();
+        layout.measure(names("x"), n -> n, mockModel(layout.getNode()));
+        ArrayNode rowA = names("b", "a");
+        ArrayNode rowB = names("d", "c");
+
+        JsonNode a = layout.extractFrom(parent("items", rowA));
+        JsonNode b = layout.extractFrom(parent("items", rowB));
+        assertSame(a, layout.extractFrom(parent("items", rowA)));
+        assertSame(b, layout.extractFrom(parent("items", rowB)));
+        RowPipelineCache cache = layout.getPipelineCache();
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+
+        // Equal content but a different node is a different source
+        assertNotSame(a, layout.extractFrom(parent("items", rowA.deepCopy())));
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void remeasureInvalidates() {
+        RelationLayout layout = sortedLayout();
+        Style model = mockModel(layout.getNode());
+        ArrayNode data = names("b", "a");
+        layout.measure(names("x"), n -> n, model);
+        JsonNode before = layout.extractFrom(parent("items", data));
+        layout.measure(names("y"), n -> n, model);
+        assertNotSame(before, layout.extractFrom(parent("items", data)));
+    }
+
+    @Test
+    void rowsChangedInPlaceAreProcessedAgain() {
+        RelationLayout layout = sortedLayout();
+        layout.measure(names("x"), n -> n, mockModel(layout.getNode()));
+        ArrayNode data = names("b", "a");
+        assertEquals("a", layout.extractFrom(parent("items", data))
+                                .get(0)
+                                .get("name")
+                                .asText());
+
+        ((ObjectNode) data.get(0)).put("name", "0");
+        layout.rowsChanged();
+        assertEquals("0", layout.extractFrom(parent("items", data))
+                                .get(0)
+                                .get("name")
+                                .asText());
+    }
+
+    @Test
+    void inactivePipelineBypassesCache() {
+        Relation schema = new Relation("items");
+        schema.addChild(new Primitive("name"));
+        RelationLayout layout = new RelationLayout(schema,
+                                                   TestLayouts.mockRelationStyle());
+        ArrayNode data = names("b", "a");
+        layout.measure(data, n -> n, mockModel(schema));
+        assertSame(data, layout.extractFrom(parent("items", data)));
+        assertEquals(0, layout.getPipelineCache()
+                              .getMisses());
+    }
+
+    @Test
+    void keysOnIdentityAndVersion() {
+        var cache = new RowPipelineCache();
+        ArrayNode source = names("a");
+        ArrayNode result = names("b");
+        cache.put(source, 1, result);
+        assertSame(result, cache.get(source, 1));
+        assertNull(cache.get(source, 2));
+        assertNull(cache.get(source.deepCopy(), 1));
+
+        cache.put(source, 3, source);
+        assertSame(source, cache.get(source, 3), "unchanged results round-trip");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        var cache = new RowPipelineCache(2);
+        ArrayNode a = names("a"), b = names("b"), c = names("c");
+        cache.put(a, 0, a);
+        cache.put(b, 0, b);
+        cache.get(a, 0);
+        cache.put(c, 0, c);
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(a, 0));
+        assertNull(cache.get(b, 0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new RowPipelineCache(0));
+    }
+}
@@ -0,0 +1,163 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.chiralbehaviors.layout.expression.ExpressionEvaluator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests for {@link RowView}: the zero-copy row pipeline shared by
+ * RelationLayout.measure() and extractFrom().
+ */
+class RowViewTest {
+
+    private static ArrayNode rows(Object... nameScore) {
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < nameScore.length; i += 2) {
+            ObjectNode row = JsonNodeFactory.instance.objectNode();
+            row.put("name", (String) nameScore[i]);
+            row.put("score", (Integer) nameScore[i + 1]);
+            data.add(row);
+        }
+        return data;
+    }
+
+    private static List<String> names(Iterable<JsonNode> data) {
+        List<String> names = new ArrayList<>();
+        data.forEach(r -> names.add(r.get("name")
+                                     .asText()));
+        return names;
+    }
+
+    private static final Comparator<JsonNode> BY_SCORE = Comparator.comparingInt(r -> r.get("score")
+                                                                                        .asInt());
+
+    @Test
+    void unmodifiedViewReturnsSource() {
+        ArrayNode data = rows("a", 1, "b", 2);
+        assertSame(data, new RowView(data).toJsonNode());
+        assertSame(data, new RowView(data).sort(null)
+                                           .toJsonNode());
+    }
+
+    @Test
+    void sortIsStableAndLeavesSourceUntouched() {
+        ArrayNode data = rows("c", 2, "a", 1, "d", 2, "b", 1);
+        ArrayNode before = data.deepCopy();
+        JsonNode sorted = new RowView(data).sort(BY_SCORE)
+                                           .toJsonNode();
+        assertEquals(List.of("a", "b", "c", "d"), names(sorted));
+        assertEquals(before, data);
+        // Rows are shared, not copied
+        assertSame(data.get(1), sorted.get(0));
+    }
+
+    @Test
+    void sortsLargeInputStably() {
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < 1000; i++) {
+            ObjectNode row = JsonNodeFactory.instance.objectNode();
+            row.put("name", String.valueOf(i));
+            row.put("score", (i * 7919) % 13);
+            data.add(row);
+        }
+        int[] order = new RowView(data).sort(BY_SCORE)
+                                       .permutation();
+        for (int k = 1; k < order.length; k++) {
+            int prev = data.get(order[k - 1])
+                           .get("score")
+                           .asInt();
+            int cur = data.get(order[k])
+                          .get("score")
+                          .asInt();
+            assertTrue(prev < cur || (prev == cur && order[k - 1] < order[k]),
+                       "unstable at " + k);
+        }
+    }
+
+    @Test
+    void filterClearsSelectionBits() {
+        ArrayNode data = rows("a", 1, "b", 5, "c", 3);
+        RowView view = new RowView(data).filter(r -> r.get("score")
+                                                      .asInt() > 2);
+        assertFalse(view.isSelected(0));
+        assertTrue(view.isSelected(1));
+        assertEquals(2, view.size());
+        assertArrayEquals(new int[] { 1, 2 }, view.permutation());
+        view.sort(BY_SCORE);
+        assertEquals(List.of("c", "b"), names(view.toJsonNode()));
+        assertEquals(List.of("c", "b"), names(view.rows()));
+    }
+
+    @Test
+    void filteringNonArrayYieldsArrayOfElements() {
+        ObjectNode single = JsonNodeFactory.instance.objectNode();
+        single.set("x", rows("a", 1).get(0));
+        JsonNode result = new RowView(single).filter(r -> true)
+                                             .toJsonNode();
+        assertTrue(result.isArray());
+        assertEquals(1, result.size());
+        assertTrue(new RowView(null).filter(r -> true)
+                                    .toJsonNode()
+                                    .isEmpty());
+    }
+
+    @Test
+    void unfilteredNullOrNonArrayIsPassedThrough() {
+        ObjectNode single = JsonNodeFactory.instance.objectNode();
+        assertSame(single, new RowView(single).sort(BY_SCORE)
+                                              .collapseDuplicates()
+                                              .toJsonNode());
+        assertNull(new RowView(null).toJsonNode());
+    }
+
+    @Test
+    void formulasOverlayOnlyVisibleRows() throws Exception {
+        var evaluator = new ExpressionEvaluator();
+        var formulas = List.of(Map.entry("doubled", evaluator.compile("$score * 2")),
+                               Map.entry("quad", evaluator.compile("$doubled * 2")));
+        ArrayNode data = rows("a", 1, "b", 2, "c", 3);
+        RowView view = new RowView(data).filter(r -> !r.get("name")
+                                                       .asText()
+                                                       .equals("b"))
+                                        .applyFormulas(formulas, evaluator);
+        JsonNode result = view.toJsonNode();
+        assertEquals(2, result.size());
+        assertEquals(12.0, result.get(1)
+                                 .get("quad")
+                                 .asDouble());
+        assertEquals("c", result.get(1)
+                                .get("name")
+                                .asText());
+        assertFalse(data.get(2)
+                        .has("doubled"), "source row must not be mutated");
+        // A later sort may use the overlaid fields
+        view.sort(Comparator.comparingDouble((JsonNode r) -> r.get("quad")
+                                                             .asDouble())
+                            .reversed());
+        assertEquals(List.of("c", "a"), names(view.toJsonNode()));
+    }
+
+    @Test
+    void collapsesConsecutiveDuplicatesInViewOrder() {
+        ArrayNode data = rows("a", 1, "b", 2, "a", 1, "a", 1);
+        assertEquals(List.of("a", "b", "a"),
+                     names(new RowView(data).collapseDuplicates()
+                                            .toJsonNode()));
+        assertEquals(List.of("a", "b"),
+                     names(new RowView(data).sort(BY_SCORE)
+                                            .collapseDuplicates()
+                                            .toJsonNode()));
+    }
+}
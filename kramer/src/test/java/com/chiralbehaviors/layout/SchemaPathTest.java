@@ -54,6 +54,77 @@ class SchemaPathTest {
         assertEquals(path1.hashCode(), path2.hashCode());
     }
 
+    @Test
+    void childLookupIsInterned() {
+        var root = new SchemaPath("interned");
+        var child = root.child("name");
+        assertSame(child, root.child("name"), "child() returns the canonical node");
+        assertSame(child, new SchemaPath("interned").child("name"));
+        assertSame(child, new SchemaPath("interned", "name").child("x")
+                                                             .parent());
+        assertEquals(child.id(), new SchemaPath(List.of("interned", "name")).id());
+        assertNotEquals(child.id(), root.id());
+        assertTrue(child.id() < SchemaPath.internedCount());
+    }
+
+    @Test
+    void parentPointerAndDepth() {
+        var leaf = new SchemaPath("root", "items", "name");
+        assertEquals(3, leaf.depth());
+        assertEquals(new SchemaPath("root", "items"), leaf.parent());
+        assertNull(leaf.parent()
+                       .parent()
+                       .parent());
+        assertTrue(leaf.isDescendantOf(new SchemaPath("root")));
+        assertTrue(leaf.isDescendantOf(new SchemaPath("root", "items")));
+        assertFalse(leaf.isDescendantOf(leaf));
+        assertFalse(leaf.isDescendantOf(new SchemaPath("items")));
+        assertFalse(new SchemaPath("root").isDescendantOf(leaf));
+    }
+
+    @Test
+    void droppedPathsAreCollectedAndTheirIdsReused() throws InterruptedException {
+        var kept = new SchemaPath("weak", "kept");
+        int before = SchemaPath.internedCount();
+        int created = 0;
+        for (int round = 0; round < 20
+                            && SchemaPath.internedCount() - before < 50_000; round++) {
+            for (int i = 0; i < 10_000; i++) {
+                new SchemaPath("weak-" + created++, "leaf");
+            }
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(SchemaPath.internedCount() - before < created,
+                   "ids of dropped paths are reused");
+        // A path in use keeps its node, and its id, across collections
+        assertSame(kept.parent(), new SchemaPath("weak").child("kept")
+                                                        .parent());
+        assertEquals(kept, new SchemaPath("weak", "kept"));
+    }
+
+    @Test
+    void emptyPathRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SchemaPath(List.of()));
+    }
+
+    @Test
+    void pathMapIndexesById() {
+        var map = new SchemaPathMap<String>();
+        var a = new SchemaPath("map", "a");
+        var b = new SchemaPath("map", "b");
+        assertNull(map.put(a, "A"));
+        map.put(b, "B");
+        assertEquals("A", map.get(new SchemaPath("map", "a")));
+        assertEquals(2, map.size());
+        assertEquals("A", map.remove(a));
+        assertFalse(map.containsKey(a));
+        assertEquals("B", map.computeIfAbsent(b, p -> "other"));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(b));
+    }
+
     @Test
     void immutableSegments() {
         var path = new SchemaPath("root");
@@ -0,0 +1,110 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.chiralbehaviors.layout.expression.ExpressionEvaluator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests for {@link SortKeys}: sorting on extracted key columns orders rows
+ * exactly like comparing the rows themselves, sequentially and in parallel.
+ */
+class SortKeysTest {
+
+    /**
+     * Rows with a numeric field, a text field, and a field mixing numbers,
+     * text, nulls and missing values; few distinct values, so stability is
+     * exercised.
+     */
+    private static ArrayNode data(int size, long seed) {
+        Random random = new Random(seed);
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < size; i++) {
+            ObjectNode row = JsonNodeFactory.instance.objectNode();
+            row.put("id", i);
+            row.put("score", random.nextInt(20) / 2.0);
+            row.put("name", "n" + random.nextInt(30));
+            switch (random.nextInt(5)) {
+                case 0 -> row.put("mixed", random.nextInt(10));
+                case 1 -> row.put("mixed", "" + random.nextInt(10));
+                case 2 -> row.put("mixed", "t" + random.nextInt(5));
+                case 3 -> row.putNull("mixed");
+                default -> {
+                }
+            }
+            data.add(row);
+        }
+        return data;
+    }
+
+    private static void assertSameOrder(ArrayNode data, Comparator<JsonNode> keys) {
+        // A plain lambda compares rows, bypassing key extraction
+        Comparator<JsonNode> rowwise = (a, b) -> keys.compare(a, b);
+        int[] expected = new RowView(data).sort(rowwise)
+                                          .permutation();
+        int[] actual = new RowView(data).sort(keys)
+                                        .permutation();
+        assertArrayEquals(expected, actual);
+    }
+
+    private static Comparator<JsonNode> fields(String... fields) {
+        Comparator<JsonNode> cmp = RelationLayout.fieldComparator(fields[0]);
+        for (int i = 1; i < fields.length; i++) {
+            cmp = cmp.thenComparing(RelationLayout.fieldComparator(fields[i]));
+        }
+        return cmp;
+    }
+
+    @Test
+    void chainedFieldsStayKeyed() {
+        assertInstanceOf(SortKeys.class, fields("name", "-score"));
+    }
+
+    @Test
+    void expressionKeysMatchRowComparison() throws Exception {
+        var evaluator = new ExpressionEvaluator();
+        ArrayNode data = data(500, 3);
+        Comparator<JsonNode> numeric = SortKeys.expression(evaluator.specialize(evaluator.compile("$score * -1")));
+        assertSameOrder(data, numeric.thenComparing(fields("name")));
+        Comparator<JsonNode> text = SortKeys.expression(evaluator.specialize(evaluator.compile("$mixed")));
+        assertSameOrder(data, text);
+    }
+
+    @Test
+    void fieldKeysMatchRowComparison() {
+        ArrayNode data = data(500, 1);
+        assertSameOrder(data, fields("score"));
+        assertSameOrder(data, fields("-name", "score"));
+        assertSameOrder(data, fields("mixed"));
+        assertSameOrder(data, fields("-mixed", "-score"));
+        assertSameOrder(data, fields("absent"));
+    }
+
+    @Test
+    void parallelSortIsStable() {
+        ArrayNode data = data(SortKeys.PARALLEL_THRESHOLD * 4 + 7, 2);
+        assertSameOrder(data, fields("name", "-score"));
+        assertSameOrder(data, fields("mixed"));
+    }
+
+    @Test
+    void sortArrayNodeReordersInPlace() {
+        ArrayNode data = data(100, 4);
+        ArrayNode copy = data.deepCopy();
+        assertSame(data, RelationLayout.sortArrayNode(data, fields("score")));
+        int[] order = new RowView(copy).sort(fields("score"))
+                                       .permutation();
+        for (int i = 0; i < order.length; i++) {
+            assertEquals(copy.get(order[i]), data.get(i));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.chiralbehaviors.layout.schema.Primitive;
+import com.chiralbehaviors.layout.schema.Relation;
+import com.chiralbehaviors.layout.schema.SchemaNode;
+import com.chiralbehaviors.layout.style.PrimitiveStyle;
+import com.chiralbehaviors.layout.style.Style;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests for {@link SortPermutationCache} and the column sort path of
+ * RelationLayout that uses it.
+ */
+class SortPermutationCacheTest {
+
+    private static Style mockModel(Relation schema, LayoutStylesheet stylesheet) {
+        Style model = mock(Style.class);
+        PrimitiveStyle primStyle = TestLayouts.mockPrimitiveStyle(7.0);
+        for (SchemaNode child : schema.getChildren()) {
+            if (child instanceof Primitive p) {
+                PrimitiveLayout pl = new PrimitiveLayout(p, primStyle);
+                when(model.layout(p)).thenReturn(pl);
+            }
+        }
+        when(model.layout(any(SchemaNode.class))).thenAnswer(inv -> {
+            SchemaNode n = inv.getArgument(0);
+            if (n instanceof Primitive p) return model.layout(p);
+            return model.layout((Relation) n);
+        });
+        when(model.getStylesheet()).thenReturn(stylesheet);
+        return model;
+    }
+
+    /** Rows with tied scores, missing scores and distinct names. */
+    private static ArrayNode rows(int size) {
+        ArrayNode data = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < size; i++) {
+            ObjectNode row = JsonNodeFactory.instance.objectNode();
+            row.put("name", "n" + (i * 37 % size));
+            if (i % 7 != 0) {
+                row.put("score", i % 5);
+            }
+            data.add(row);
+        }
+        return data;
+    }
+
+    private static int[] sorted(ArrayNode data, String... fields) {
+        return new RowView(data).sort(SortKeys.fields(List.of(fields)))
+                                .permutation();
+    }
+
+    private static ObjectNode parent(JsonNode items) {
+        ObjectNode parent = JsonNodeFactory.instance.objectNode();
+        parent.set("items", items);
+        return parent;
+    }
+
+    private static List<String> names(JsonNode rows, int count) {
+        return IntStream.range(0, count)
+                        .mapToObj(i -> rows.get(i)
+                                           .get("name")
+                                           .asText())
+                        .toList();
+    }
+
+    @Test
+    void oppositeDirectionIsDerivedFromCachedSort() {
+        var cache = new SortPermutationCache();
+        ArrayNode data = rows(100);
+        List<String> asc = List.of("score");
+        List<String> desc = List.of("-score");
+        assertArrayEquals(sorted(data, "score"),
+                          cache.permutation(data, asc, SortKeys.fields(asc)));
+        assertArrayEquals(sorted(data, "-score"),
+                          cache.permutation(data, desc,
+                                            SortKeys.fields(desc)));
+        assertEquals(1, cache.getReversals());
+        assertEquals(2, cache.getMisses());
+
+        // Returning to an earlier sort reuses its permutation
+        assertSame(cache.permutation(data, asc, SortKeys.fields(asc)),
+                   cache.permutation(data, asc, SortKeys.fields(asc)));
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void arrayResizedInPlaceIsAMiss() {
+        var cache = new SortPermutationCache();
+        ArrayNode data = rows(100);
+        List<String> asc = List.of("score");
+        List<String> desc = List.of("-score");
+        cache.permutation(data, asc, SortKeys.fields(asc));
+        data.add(JsonNodeFactory.instance.objectNode()
+                                         .put("score", 9));
+        assertArrayEquals(sorted(data, "score"),
+                          cache.permutation(data, asc, SortKeys.fields(asc)));
+        assertEquals(0, cache.getHits());
+        data.remove(0);
+        assertArrayEquals(sorted(data, "-score"),
+                          cache.permutation(data, desc,
+                                            SortKeys.fields(desc)));
+        assertEquals(0, cache.getReversals(), "a stale order is not reversed");
+    }
+
+    @Test
+    void mixedAndMultiFieldSortsAreNotReversed() {
+        var cache = new SortPermutationCache();
+        ArrayNode data = rows(100);
+        data.add(JsonNodeFactory.instance.objectNode()
+                                         .put("score", "text"));
+        cache.permutation(data, List.of("score"),
+                          SortKeys.fields(List.of("score")));
+        assertArrayEquals(sorted(data, "-score"),
+                          cache.permutation(data, List.of("-score"),
+                                            SortKeys.fields(List.of("-score"))));
+
+        List<String> both = List.of("score", "name");
+        List<String> reversed = List.of("-score", "-name");
+        cache.permutation(data, both, SortKeys.fields(both));
+        assertArrayEquals(sorted(data, "-score", "-name"),
+                          cache.permutation(data, reversed,
+                                            SortKeys.fields(reversed)));
+        assertEquals(0, cache.getReversals());
+    }
+
+    @Test
+    void valueChangedInPlaceIsNotServedAStaleOrder() {
+        Relation schema = new Relation("items");
+        schema.addChild(new Primitive("name"));
+        schema.addChild(new Primitive("score"));
+        RelationLayout layout = new RelationLayout(schema,
+                                                   TestLayouts.mockRelationStyle());
+        var stylesheet = new DefaultLayoutStylesheet(null);
+        Style model = mockModel(schema, stylesheet);
+        SchemaPath path = new SchemaPath("items");
+        layout.buildPaths(path, model);
+        stylesheet.setOverride(path.child("name"), LayoutPropertyKeys.SORT_FIELDS,
+                               "name");
+        ArrayNode data = rows(100);
+        layout.measure(data, n -> n, model);
+        assertEquals(List.of("n0", "n1", "n10"),
+                     names(layout.extractFrom(parent(data)), 3));
+
+        // Same array, same length, one value changed
+        ((ObjectNode) data.get(5)).put("name", "a");
+        layout.measure(data, n -> n, model);
+        assertEquals(List.of("a", "n0", "n1"),
+                     names(layout.extractFrom(parent(data)), 3));
+
+        ((ObjectNode) data.get(6)).put("name", "b");
+        layout.rowsChanged();
+        assertEquals(0, layout.getSortPermutations()
+                              .size());
+        assertArrayEquals(sorted(data, "name"),
+                          layout.getSortPermutations()
+                                .permutation(data, List.of("name"),
+                                             SortKeys.fields(List.of("name"))));
+    }
+
+    @Test
+    void columnSortIsAppliedWithoutRemeasure() {
+        Relation schema = new Relation("items");
+        schema.addChild(new Primitive("name"));
+        schema.addChild(new Primitive("score"));
+        RelationLayout layout = new RelationLayout(schema,
+                                                   TestLayouts.mockRelationStyle());
+        var stylesheet = new DefaultLayoutStylesheet(null);
+        Style model = mockModel(schema, stylesheet);
+        SchemaPath path = new SchemaPath("items");
+        layout.buildPaths(path, model);
+        ArrayNode data = rows(100);
+        layout.measure(data, n -> n, model);
+        MeasureResult measured = layout.getMeasureResult();
+        assertEquals(names(data, 3), names(layout.extractFrom(parent(data)), 3));
+
+        // A header click sorts by the column's own path
+        stylesheet.setOverride(path.child("name"), LayoutPropertyKeys.SORT_FIELDS,
+                               "name");
+        assertTrue(layout.resort(model));
+        assertEquals(List.of("n0", "n1", "n10"),
+                     names(layout.extractFrom(parent(data)), 3));
+
+        stylesheet.setOverride(path.child("name"), LayoutPropertyKeys.SORT_FIELDS,
+                               "-name");
+        assertTrue(layout.resort(model));
+        assertEquals(List.of("n99", "n98", "n97"),
+                     names(layout.extractFrom(parent(data)), 3));
+        assertEquals(1, layout.getSortPermutations()
+                              .getReversals());
+
+        stylesheet.setOverride(path.child("name"), LayoutPropertyKeys.SORT_FIELDS,
+                               "name");
+        assertTrue(layout.resort(model));
+        assertEquals(List.of("n0", "n1", "n10"),
+                     names(layout.extractFrom(parent(data)), 3));
+        assertEquals(1, layout.getSortPermutations()
+                              .getHits());
+        assertSame(measured, layout.getMeasureResult());
+    }
+
+    @Test
+    void sortOfPivotedRelationRequiresRemeasure() {
+        Relation schema = new Relation("items");
+        schema.addChild(new Primitive("name"));
+        schema.addChild(new Primitive("score"));
+        RelationLayout layout = new RelationLayout(schema,
+                                                   TestLayouts.mockRelationStyle());
+        var stylesheet = new DefaultLayoutStylesheet(null);
+        Style model = mockModel(schema, stylesheet);
+        SchemaPath path = new SchemaPath("items");
+        layout.buildPaths(path, model);
+        stylesheet.setOverride(path, LayoutPropertyKeys.PIVOT_FIELD, "score");
+        layout.measure(rows(100), n -> n, model);
+
+        assertTrue(layout.resort(model), "unchanged sort");
+        stylesheet.setOverride(path, LayoutPropertyKeys.SORT_FIELDS, "name");
+        assertFalse(layout.resort(model));
+    }
+}
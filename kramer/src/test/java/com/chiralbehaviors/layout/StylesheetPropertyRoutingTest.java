@@ -151,35 +151,33 @@ class StylesheetPropertyRoutingTest {
 
     @Test
     void hideIfEmptyFromRelationOverridesStylesheetWhenNonNull() {
-        Relation schema = new Relation("items");
-        schema.addChild(new Primitive("name"));
-        schema.addChild(new Primitive("value"));
+        Relation schema = buildParentChild();
         // Relation explicitly sets hideIfEmpty=false
         schema.setHideIfEmpty(false);
 
-        SchemaPath path = new SchemaPath("items");
+        SchemaPath path = new SchemaPath("root");
 
         LayoutStylesheet stylesheet = mock(LayoutStylesheet.class);
-        // Stylesheet says true — but Relation says false, so stylesheet must NOT be consulted
-        // for hide-if-empty (Relation takes priority when non-null).
+        // Stylesheet says true — but Relation says false, so Relation wins
+        // (Relation takes priority when non-null).
+        when(stylesheet.getBoolean(eq(path), eq(LayoutPropertyKeys.HIDE_IF_EMPTY), anyBoolean()))
+            .thenReturn(true);
         when(stylesheet.getString(any(), any(), any())).thenReturn("");
 
-        Style model = buildMockModel(schema, stylesheet);
+        Relation itemsSchema = (Relation) schema.getChildren()
+                                                .get(0);
+        Style model = buildMockModel(itemsSchema, stylesheet);
+        RelationLayout itemsLayout = buildLayout(itemsSchema);
+        when(model.layout(itemsSchema)).thenReturn(itemsLayout);
 
         RelationLayout layout = buildLayout(schema);
         layout.buildPaths(path, model);
 
-        ArrayNode data = JsonNodeFactory.instance.arrayNode();
-        ObjectNode row = JsonNodeFactory.instance.objectNode();
-        row.put("name", "Alice");
-        row.put("value", "1");
-        data.add(row);
+        // First row has an empty nested array; it must survive measure.
+        layout.measure(buildNestedData(false), n -> n, model);
 
-        layout.measure(data, n -> n, model);
-
-        // Stylesheet must NOT be called for hide-if-empty when Relation value is non-null
-        verify(stylesheet, never())
-            .getBoolean(eq(path), eq(LayoutPropertyKeys.HIDE_IF_EMPTY), anyBoolean());
+        assertEquals(2, layout.maxCardinality,
+                     "stylesheet hide-if-empty must not filter rows when Relation value is non-null");
     }
 
     // -----------------------------------------------------------------------
@@ -807,6 +807,62 @@ class StylesheetPropertyTest {
                    "Version must increase for override on different path");
     }
 
+    @Test
+    void perPathVersionsTrackMeasureAffectingChanges() {
+        DefaultLayoutStylesheet sheet = new DefaultLayoutStylesheet(null);
+        SchemaPath root = new SchemaPath("stamped");
+        SchemaPath a = root.child("a");
+        SchemaPath b = root.child("b");
+
+        sheet.setOverride(a, LayoutPropertyKeys.COLUMN_WIDTH, 80.0);
+        long stamp = sheet.getVersion();
+        assertEquals(stamp, sheet.getVersion(a));
+        assertEquals(0L, sheet.getVersion(b), "sibling is untouched");
+        assertEquals(0L, sheet.getVersion(root), "ancestor's own stamp is untouched");
+        assertEquals(stamp, sheet.getSubtreeVersion(root));
+
+        sheet.setOverride(a, LayoutPropertyKeys.CELL_FORMAT, "%d");
+        sheet.setOverride(a, LayoutPropertyKeys.COLUMN_WIDTH, 80.0);
+        assertEquals(stamp, sheet.getVersion(a),
+                     "render-only and unchanged values leave the stamp");
+        assertEquals(stamp, sheet.getSubtreeVersion(root));
+
+        sheet.setOverride(root, LayoutPropertyKeys.SORT_FIELDS, "a");
+        assertEquals(sheet.getVersion(), sheet.getVersion(b),
+                     "a path sees changes to its ancestors");
+
+        sheet.clearOverrides();
+        assertEquals(sheet.getVersion(), sheet.getVersion(a));
+        assertEquals(sheet.getVersion(), sheet.getSubtreeVersion(root));
+    }
+
+    @Test
+    void removeOverrideRestampsOnlyItsPath() {
+        DefaultLayoutStylesheet sheet = new DefaultLayoutStylesheet(null);
+        SchemaPath root = new SchemaPath("removed");
+        SchemaPath a = root.child("a");
+        SchemaPath b = root.child("b");
+
+        sheet.setOverride(a, LayoutPropertyKeys.COLUMN_WIDTH, 80.0);
+        sheet.setOverride(a, LayoutPropertyKeys.CELL_FORMAT, "%d");
+        sheet.setOverride(b, LayoutPropertyKeys.COLUMN_WIDTH, 60.0);
+        long stampB = sheet.getVersion(b);
+
+        sheet.removeOverride(a, LayoutPropertyKeys.COLUMN_WIDTH);
+        assertEquals(42.0, sheet.getDouble(a, LayoutPropertyKeys.COLUMN_WIDTH, 42.0));
+        assertEquals("%d", sheet.getString(a, LayoutPropertyKeys.CELL_FORMAT, null));
+        assertEquals(sheet.getVersion(), sheet.getVersion(a));
+        assertEquals(stampB, sheet.getVersion(b), "other overridden paths keep their stamp");
+        assertEquals(sheet.getVersion(), sheet.getSubtreeVersion(root));
+
+        long stampA = sheet.getVersion(a);
+        sheet.removeOverride(a, LayoutPropertyKeys.CELL_FORMAT);
+        assertEquals(stampA, sheet.getVersion(a), "render-only removal leaves the stamp");
+        long version = sheet.getVersion();
+        sheet.removeOverride(a, LayoutPropertyKeys.CELL_FORMAT);
+        assertEquals(version, sheet.getVersion(), "removing an absent override is a no-op");
+    }
+
     /**
      * F4: Snap disabled (default 0.0) should behave like before.
      */
@@ -0,0 +1,107 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.chiralbehaviors.layout.StylesheetSnapshot.PathProperties;
+import com.chiralbehaviors.layout.query.LayoutQueryState;
+import com.chiralbehaviors.layout.style.Style;
+
+/**
+ * Tests for {@link StylesheetSnapshot}: typed per-path records compiled once
+ * per stylesheet version.
+ */
+class StylesheetSnapshotTest {
+
+    @Test
+    void unsetPathsCompileToDefaults() {
+        var stylesheet = new DefaultLayoutStylesheet(new Style());
+        PathProperties props = stylesheet.snapshot()
+                                         .properties(new SchemaPath("snap", "plain"));
+        assertTrue(props.visible());
+        assertEquals("auto", props.renderMode());
+        assertFalse(props.hideIfEmpty());
+        assertEquals(List.of(), props.sortFields());
+        assertNull(props.filterExpression());
+        assertEquals("", props.pivotField());
+        assertEquals(-1.0, props.columnWidth());
+        assertEquals(PrimitiveLayout.MIN_SAMPLES, props.statMinSamples());
+        assertEquals(QuantileSketch.DEFAULT_K, props.statSketchK());
+        assertEquals(10, props.badgeCardinalityThreshold());
+    }
+
+    @Test
+    void overridesAreTyped() {
+        var stylesheet = new DefaultLayoutStylesheet(new Style());
+        var path = new SchemaPath("snap", "typed");
+        stylesheet.setOverride(path, LayoutPropertyKeys.SORT_FIELDS, "a,b");
+        stylesheet.setOverride(path, LayoutPropertyKeys.VISIBLE, false);
+        stylesheet.setOverride(path, LayoutPropertyKeys.COLUMN_WIDTH, 120);
+        stylesheet.setOverride(path, LayoutPropertyKeys.STAT_CONVERGENCE_K, 5);
+
+        PathProperties props = stylesheet.snapshot()
+                                         .properties(path);
+        assertEquals(List.of("a", "b"), props.sortFields());
+        assertFalse(props.visible());
+        assertEquals(120.0, props.columnWidth());
+        assertEquals(5, props.statConvergenceK());
+    }
+
+    @Test
+    void snapshotIsReusedUntilVersionChanges() {
+        var stylesheet = new DefaultLayoutStylesheet(new Style());
+        var path = new SchemaPath("snap", "versioned");
+        StylesheetSnapshot first = stylesheet.snapshot();
+        assertSame(first, stylesheet.snapshot());
+        assertSame(first.properties(path), first.properties(path));
+        assertTrue(first.properties(path)
+                        .visible());
+
+        stylesheet.setOverride(path, LayoutPropertyKeys.VISIBLE, false);
+        StylesheetSnapshot second = stylesheet.snapshot();
+        assertNotSame(first, second);
+        assertEquals(stylesheet.getVersion(), second.getVersion());
+        assertFalse(second.properties(path)
+                          .visible());
+        assertTrue(first.properties(path)
+                        .visible(),
+                   "an older snapshot keeps the values it compiled");
+    }
+
+    @Test
+    void decoratorIsResolvedOncePerPath() {
+        LayoutStylesheet stylesheet = mock(LayoutStylesheet.class);
+        when(stylesheet.getString(any(), any(), any())).thenAnswer(inv -> inv.getArgument(2));
+        when(stylesheet.getBoolean(any(), any(), anyBoolean())).thenAnswer(inv -> inv.getArgument(2));
+        var path = new SchemaPath("snap", "decorated");
+
+        StylesheetSnapshot snapshot = StylesheetSnapshot.of(stylesheet);
+        for (int i = 0; i < 100; i++) {
+            snapshot.properties(path);
+        }
+        verify(stylesheet, times(1)).getBoolean(eq(path),
+                                                eq(LayoutPropertyKeys.VISIBLE),
+                                                anyBoolean());
+        assertEquals(1, snapshot.size());
+    }
+
+    @Test
+    void queryStateSharesItsInnerSnapshot() {
+        var state = new LayoutQueryState(new Style());
+        var path = new SchemaPath("snap", "query");
+        StylesheetSnapshot before = state.snapshot();
+        assertSame(before, state.snapshot());
+
+        state.setRenderMode(path, "bar");
+        assertNotSame(before, state.snapshot());
+        assertEquals("bar", state.snapshot()
+                                 .properties(path)
+                                 .renderMode());
+    }
+}
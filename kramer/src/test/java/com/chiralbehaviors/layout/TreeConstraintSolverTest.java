@@ -0,0 +1,254 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link TreeConstraintSolver}: agreement with
+ * {@link ExhaustiveConstraintSolver} on random trees, and scaling past the
+ * exhaustive threshold, incremental re-solve of changed subtrees, and memo
+ * hits across a resize.
+ */
+class TreeConstraintSolverTest {
+
+    private static final ConstraintSolver EXHAUSTIVE = new ExhaustiveConstraintSolver();
+    private static final ConstraintSolver TREE       = new TreeConstraintSolver();
+
+    /**
+     * Random tree of {@code size} nodes whose widths straddle the fit
+     * thresholds so every mode is regularly feasible and infeasible.
+     */
+    private static RelationConstraint randomTree(Random random, int size) {
+        int[] remaining = { size - 1 };
+        return randomNode(random, new SchemaPath("root"), remaining);
+    }
+
+    private static RelationConstraint randomNode(Random random, SchemaPath path,
+                                                 int[] remaining) {
+        List<RelationConstraint> children = new ArrayList<>();
+        int fanout = remaining[0] == 0 ? 0 : 1 + random.nextInt(Math.min(3, remaining[0]));
+        remaining[0] -= fanout;
+        for (int i = 0; i < fanout; i++) {
+            children.add(null);
+        }
+        for (int i = 0; i < fanout; i++) {
+            // Distribute leftover budget depth-first so trees get deep as well as wide
+            children.set(i, randomNode(random, path.child("c" + i), remaining));
+        }
+        double tableWidth = 50 + random.nextInt(100);
+        boolean eligible = random.nextInt(3) == 0;
+        return new RelationConstraint(path,
+                                      random.nextInt(10) == 0 ? Double.MAX_VALUE : tableWidth,
+                                      tableWidth,
+                                      random.nextInt(10),
+                                      60 + random.nextInt(100),
+                                      random.nextBoolean() ? Double.MAX_VALUE
+                                                           : 40 + random.nextInt(100),
+                                      children,
+                                      random.nextInt(12) == 0,
+                                      eligible ? 40 + random.nextInt(100) : 0,
+                                      eligible);
+    }
+
+    private static int count(Map<SchemaPath, RelationRenderMode> modes,
+                             RelationRenderMode mode) {
+        return (int) modes.values()
+                          .stream()
+                          .filter(m -> m == mode)
+                          .count();
+    }
+
+    @Test
+    void matchesExhaustiveOnRandomTrees() {
+        Random random = new Random(0x5EED);
+        for (int trial = 0; trial < 500; trial++) {
+            int size = 1 + random.nextInt(12);
+            RelationConstraint root = randomTree(random, size);
+            assertEquals(EXHAUSTIVE.solve(root), TREE.solve(root),
+                         "trial " + trial + ", " + size + " nodes");
+        }
+    }
+
+    @Test
+    void singleLeafInEveryMode() {
+        var fitsTable = new RelationConstraint(new SchemaPath("t"), 80, 80, 5,
+                                               100, Double.MAX_VALUE, List.of(),
+                                               false, 0, false);
+        assertEquals(RelationRenderMode.TABLE,
+                     TREE.solve(fitsTable).get(new SchemaPath("t")));
+
+        var tooWide = new RelationConstraint(new SchemaPath("o"), 200, 200, 5,
+                                             100, Double.MAX_VALUE, List.of(),
+                                             false, 0, false);
+        assertEquals(RelationRenderMode.OUTLINE,
+                     TREE.solve(tooWide).get(new SchemaPath("o")));
+
+        var crosstab = new RelationConstraint(new SchemaPath("x"), 200, 200, 5,
+                                              100, Double.MAX_VALUE, List.of(),
+                                              false, 50, true);
+        assertEquals(RelationRenderMode.CROSSTAB,
+                     TREE.solve(crosstab).get(new SchemaPath("x")));
+
+        var pinned = new RelationConstraint(new SchemaPath("p"), 10, 10, 5,
+                                            100, Double.MAX_VALUE, List.of(),
+                                            true, 0, false);
+        assertEquals(RelationRenderMode.CROSSTAB,
+                     TREE.solve(pinned).get(new SchemaPath("p")));
+    }
+
+    @Test
+    void prefersParentOutlineWhenItUnlocksMoreTables() {
+        // Parent fits as TABLE, but then each child only gets 30px and must be
+        // OUTLINE. Rendering the parent as OUTLINE lets both children be TABLE.
+        SchemaPath root = new SchemaPath("root");
+        List<RelationConstraint> children = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            children.add(new RelationConstraint(root.child("c" + i), 50, 50, 0,
+                                                100, 30, List.of(), false, 0,
+                                                false));
+        }
+        var parent = new RelationConstraint(root, 90, 90, 0, 100,
+                                            Double.MAX_VALUE, children, false,
+                                            0, false);
+        Map<SchemaPath, RelationRenderMode> modes = TREE.solve(parent);
+        assertEquals(RelationRenderMode.OUTLINE, modes.get(root));
+        assertEquals(RelationRenderMode.TABLE, modes.get(root.child("c0")));
+        assertEquals(RelationRenderMode.TABLE, modes.get(root.child("c1")));
+        assertEquals(EXHAUSTIVE.solve(parent), modes);
+    }
+
+    @Test
+    void solvesHundredsOfRelations() {
+        Random random = new Random(42);
+        RelationConstraint root = randomTree(random, 600);
+        Map<SchemaPath, RelationRenderMode> modes = TREE.solve(root);
+        assertEquals(600, modes.size());
+        assertFalse(modes.containsValue(RelationRenderMode.AUTO));
+        assertTrue(count(modes, RelationRenderMode.TABLE) > 0);
+    }
+
+    @Test
+    void staysGloballyOptimalPastExhaustiveThreshold() {
+        // 20 copies of the parent/child trade-off above: 61 relations is well
+        // past the exhaustive solver's enumeration limit.
+        SchemaPath root = new SchemaPath("root");
+        List<RelationConstraint> groups = new ArrayList<>();
+        for (int g = 0; g < 20; g++) {
+            SchemaPath group = root.child("g" + g);
+            List<RelationConstraint> leaves = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                leaves.add(new RelationConstraint(group.child("c" + i), 50, 50,
+                                                  0, 100, 30, List.of(), false,
+                                                  0, false));
+            }
+            groups.add(new RelationConstraint(group, 90, 90, 0, 100,
+                                              Double.MAX_VALUE, leaves, false,
+                                              0, false));
+        }
+        var tree = new RelationConstraint(root, 5000, 5000, 0, 100,
+                                          Double.MAX_VALUE, groups, false, 0,
+                                          false);
+        Map<SchemaPath, RelationRenderMode> modes = TREE.solve(tree);
+        assertEquals(40, count(modes, RelationRenderMode.TABLE));
+        for (int g = 0; g < 20; g++) {
+            assertEquals(RelationRenderMode.OUTLINE,
+                         modes.get(root.child("g" + g)));
+        }
+    }
+
+    private static RelationConstraint wideTree(int groups, int changedGroup,
+                                               double changedWidth) {
+        SchemaPath root = new SchemaPath("root");
+        List<RelationConstraint> children = new ArrayList<>();
+        for (int g = 0; g < groups; g++) {
+            SchemaPath group = root.child("g" + g);
+            List<RelationConstraint> leaves = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                double w = g == changedGroup && i == 0 ? changedWidth : 50;
+                leaves.add(new RelationConstraint(group.child("c" + i), w, w, 0,
+                                                  100, 30, List.of(), false, 0,
+                                                  false));
+            }
+            children.add(new RelationConstraint(group, 90, 90, 0, 100,
+                                                Double.MAX_VALUE, leaves, false,
+                                                0, false));
+        }
+        return new RelationConstraint(root, 5000, 5000, 0, 6000,
+                                      Double.MAX_VALUE, children, false, 0,
+                                      false);
+    }
+
+    @Test
+    void resolvesOnlyTheDirtyPath() {
+        var solver = new TreeConstraintSolver();
+        solver.solve(wideTree(50, 7, 50));
+        long initial = solver.getMisses();
+        assertTrue(initial >= 200, "first solve evaluates every node");
+
+        var changed = wideTree(50, 7, 150);
+        Map<SchemaPath, RelationRenderMode> modes = solver.solve(changed);
+        long resolved = solver.getMisses() - initial;
+        // root, the changed group and its three leaves, in at most two contexts
+        assertTrue(resolved <= 10, "re-evaluated " + resolved);
+        assertEquals(new TreeConstraintSolver().solve(changed), modes);
+        assertEquals(RelationRenderMode.OUTLINE,
+                     modes.get(new SchemaPath("root", "g7", "c0")));
+
+        long before = solver.getMisses();
+        solver.solve(wideTree(50, 7, 150));
+        assertEquals(before, solver.getMisses(), "identical tree is fully memoised");
+    }
+
+    @Test
+    void resizeWithinTheSameFitsIsFullyMemoised() {
+        var solver = new TreeConstraintSolver();
+        Random random = new Random(11);
+        RelationConstraint root = randomTree(random, 200);
+        solver.solve(root);
+        long hits = solver.getHits();
+        long misses = solver.getMisses();
+
+        // A few pixels of resize moves every width but flips no fit test
+        RelationConstraint resized = shift(root, 0.5);
+        Map<SchemaPath, RelationRenderMode> modes = solver.solve(resized);
+        assertEquals(misses, solver.getMisses(), "no subtree re-evaluated");
+        assertTrue(solver.getHits() > hits);
+        assertEquals(new TreeConstraintSolver().solve(resized), modes);
+    }
+
+    /** Every width of {@code node}'s subtree moved by {@code delta}. */
+    private static RelationConstraint shift(RelationConstraint node,
+                                            double delta) {
+        List<RelationConstraint> children = new ArrayList<>();
+        for (RelationConstraint child : node.children()) {
+            children.add(shift(child, delta));
+        }
+        return new RelationConstraint(node.path(),
+                                      node.tableWidth() + delta,
+                                      node.readableTableWidth() + delta,
+                                      node.nestedHorizontalInset(),
+                                      node.availableWidthAsOutline() + delta,
+                                      node.availableWidthAsTable() + delta,
+                                      children, node.hardCrosstab(),
+                                      node.crosstabWidth() + delta,
+                                      node.crosstabEligible());
+    }
+
+    @Test
+    void evictionDoesNotChangeResults() {
+        var solver = new TreeConstraintSolver(8);
+        Random random = new Random(7);
+        for (int trial = 0; trial < 100; trial++) {
+            RelationConstraint root = randomTree(random, 1 + random.nextInt(12));
+            assertEquals(EXHAUSTIVE.solve(root), solver.solve(root),
+                         "trial " + trial);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2016 Chiral Behaviors, LLC, all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chiralbehaviors.layout.expression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests for {@link AggregatePlan}: one pass over the rows yields the values
+ * of every planned aggregate, equal to evaluating each aggregate on its own
+ * through boxed values and a stream reduction.
+ */
+class AggregatePlanTest {
+
+    private static final List<String> AGGREGATES = List.of("sum($a)", "avg($a)",
+                                                           "min($a)", "max($a)",
+                                                           "count()", "sum($b)",
+                                                           "max($b * 2)",
+                                                           "avg($missing)");
+
+    /** The per-aggregate evaluation the plan replaces. */
+    private static Object reference(ExpressionEvaluator eval,
+                                    Expr.AggregateCall call,
+                                    List<JsonNode> rows) {
+        if ("count".equals(call.fn())) {
+            return (double) rows.size();
+        }
+        var values = new ArrayList<Double>();
+        for (var row : rows) {
+            Double num = ExpressionEvaluator.toNumber(eval.evaluate(call.arg(),
+                                                                   row));
+            if (num != null) {
+                values.add(num);
+            }
+        }
+        if (values.isEmpty()) {
+            return null;
+        }
+        var stream = values.stream()
+                           .mapToDouble(Double::doubleValue);
+        return switch (call.fn()) {
+            case "sum" -> stream.sum();
+            case "avg" -> stream.average()
+                                .getAsDouble();
+            case "min" -> stream.min()
+                                .getAsDouble();
+            case "max" -> stream.max()
+                                .getAsDouble();
+            default -> null;
+        };
+    }
+
+    /** Live results agree with a fresh pass; min and max exactly. */
+    private static void assertMatches(AggregatePlan plan,
+                                      ExpressionEvaluator eval,
+                                      AggregatePlan.Results live,
+                                      List<JsonNode> rows) throws ParseException {
+        var fresh = plan.evaluate(rows);
+        for (String aggregate : AGGREGATES) {
+            var call = (Expr.AggregateCall) eval.compile(aggregate);
+            Object expected = fresh.value(call);
+            Object actual = live.value(call);
+            if (expected == null) {
+                assertNull(actual, aggregate);
+            } else if (aggregate.startsWith("sum") || aggregate.startsWith("avg")) {
+                assertEquals((Double) expected, (Double) actual,
+                             1e-6 * Math.max(1, Math.abs((Double) expected)),
+                             aggregate);
+            } else {
+                assertEquals(expected, actual, aggregate);
+            }
+        }
+    }
+
+    private static Object keyOf(Map<Integer, JsonNode> tracked, JsonNode row) {
+        for (var entry : tracked.entrySet()) {
+            if (entry.getValue() == row) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /** Rows mixing numbers, numeric text, text, nulls and missing fields. */
+    private static List<JsonNode> rows(int size, long seed) {
+        Random random = new Random(seed);
+        List<JsonNode> rows = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ObjectNode row = JsonNodeFactory.instance.objectNode();
+            switch (random.nextInt(5)) {
+                case 0 -> row.put("a", random.nextDouble() * 1e6);
+                case 1 -> row.put("a", random.nextInt(1000));
+                case 2 -> row.put("a", Double.toString(random.nextGaussian()));
+                case 3 -> row.put("a", "text");
+                default -> row.putNull("a");
+            }
+            if (random.nextBoolean()) {
+                row.put("b", random.nextInt(100) - 50);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    void sharedArgumentsAreAccumulatedOnce() throws ParseException {
+        var eval = new ExpressionEvaluator();
+        var plan = new AggregatePlan(eval);
+        for (String aggregate : AGGREGATES) {
+            assertTrue(plan.add(eval.compile(aggregate)));
+        }
+        assertFalse(plan.add(eval.compile("$a + 1")));
+        assertEquals(4, plan.argumentCount(), "$a, $b, $b * 2 and $missing");
+    }
+
+    @Test
+    void onePassMatchesPerAggregateEvaluation() throws ParseException {
+        var eval = new ExpressionEvaluator();
+        List<JsonNode> rows = rows(2_000, 1);
+        var plan = new AggregatePlan(eval);
+        for (String aggregate : AGGREGATES) {
+            plan.add(eval.compile(aggregate));
+        }
+        var results = plan.evaluate(rows);
+        for (String aggregate : AGGREGATES) {
+            var call = (Expr.AggregateCall) eval.compile(aggregate);
+            assertEquals(reference(eval, call, rows), results.value(call),
+                         aggregate);
+            assertEquals(reference(eval, call, rows),
+                         eval.evaluateAggregate(call, rows), aggregate);
+        }
+        assertNull(results.value((Expr.AggregateCall) eval.compile("avg($missing)")));
+    }
+
+    @Test
+    void liveAggregatesFollowInsertsRemovesAndUpdates() throws ParseException {
+        var eval = new ExpressionEvaluator();
+        var plan = new AggregatePlan(eval);
+        for (String aggregate : AGGREGATES) {
+            plan.add(eval.compile(aggregate));
+        }
+        List<JsonNode> pool = rows(3_000, 4);
+        // Tracked rows by key; keys index pool rows, updates swap the row
+        Map<Integer, JsonNode> tracked = new LinkedHashMap<>();
+        for (int k = 0; k < 200; k++) {
+            tracked.put(k, pool.get(k));
+        }
+        var live = plan.maintain(List.copyOf(tracked.values()),
+                                 row -> keyOf(tracked, row));
+        assertNotNull(live);
+        Random random = new Random(5);
+        for (int step = 0; step < 2_000; step++) {
+            int key = random.nextInt(400);
+            JsonNode row = pool.get(random.nextInt(pool.size()));
+            if (!tracked.containsKey(key)) {
+                assertTrue(live.insert(key, row));
+                tracked.put(key, row);
+            } else if (random.nextBoolean()) {
+                assertTrue(live.remove(key));
+                tracked.remove(key);
+            } else {
+                assertTrue(live.update(key, row));
+                tracked.put(key, row);
+            }
+            if (step % 100 == 0 || tracked.size() < 3) {
+                assertMatches(plan, eval, live.results(),
+                              List.copyOf(tracked.values()));
+            }
+        }
+        assertFalse(live.remove(-1));
+        assertFalse(live.update(-1, pool.get(0)));
+        assertFalse(live.insert(tracked.keySet()
+                                       .iterator()
+                                       .next(),
+                                pool.get(0)));
+        assertEquals(tracked.size(), live.size());
+        assertMatches(plan, eval, live.results(), List.copyOf(tracked.values()));
+    }
+
+    @Test
+    void maintainRejectsMissingAndDuplicateKeys() throws ParseException {
+        var eval = new ExpressionEvaluator();
+        var plan = new AggregatePlan(eval);
+        plan.add(eval.compile("sum($b)"));
+        List<JsonNode> rows = rows(10, 6);
+        assertNull(plan.maintain(rows, row -> null));
+        assertNull(plan.maintain(rows, row -> "same"));
+        assertNotNull(plan.maintain(rows, row -> row));
+    }
+
+    @Test
+    void nestedAggregatesResolveAgainstOnePass() throws ParseException {
+        var eval = new ExpressionEvaluator();
+        List<JsonNode> rows = rows(500, 2);
+        var plan = new AggregatePlan(eval);
+        Expr ratio = eval.compile("sum($b) / count()");
+        Expr spread = eval.compile("round(max($b) - min($b))");
+        plan.add(ratio);
+        plan.add(spread);
+        assertEquals(1, plan.argumentCount());
+        var results = plan.evaluate(rows);
+        double sum = (Double) reference(eval,
+                                        (Expr.AggregateCall) eval.compile("sum($b)"),
+                                        rows);
+        assertEquals(sum / rows.size(), results.evaluate(ratio));
+        double max = (Double) reference(eval,
+                                        (Expr.AggregateCall) eval.compile("max($b)"),
+                                        rows);
+        double min = (Double) reference(eval,
+                                        (Expr.AggregateCall) eval.compile("min($b)"),
+                                        rows);
+        assertEquals((double) Math.round(max - min), results.evaluate(spread));
+    }
+
+    @Test
+    void parallelChunksMergeToTheSequentialResult() throws ParseException {
+        var eval = new ExpressionEvaluator();
+        List<JsonNode> rows = rows(AggregatePlan.CHUNK_ROWS * 3 + 11, 3);
+        var plan = new AggregatePlan(eval);
+        for (String aggregate : AGGREGATES) {
+            plan.add(eval.compile(aggregate));
+        }
+        var sequential = plan.evaluate(rows);
+        var pool = new ForkJoinPool(4);
+        try {
+            var parallel = plan.evaluate(rows, pool);
+            for (String aggregate : AGGREGATES) {
+                var call = (Expr.AggregateCall) eval.compile(aggregate);
+                Object expected = sequential.value(call);
+                Object actual = parallel.value(call);
+                if (expected == null) {
+                    assertNull(actual, aggregate);
+                } else {
+                    assertEquals((Double) expected, (Double) actual,
+                                 Math.abs((Double) expected) * 1e-12,
+                                 aggregate);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
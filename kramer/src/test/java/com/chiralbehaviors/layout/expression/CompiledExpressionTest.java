@@ -0,0 +1,290 @@
+/**
+ * Copyright (c) 2016 Chiral Behaviors, LLC, all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chiralbehaviors.layout.expression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Differential tests for {@link CompiledExpression}: every expression must
+ * produce exactly the interpreter's result on every row.
+ */
+class CompiledExpressionTest {
+
+    private static final JsonNodeFactory NF = JsonNodeFactory.instance;
+
+    /** Expressions from ExpressionEvaluatorTest plus mixed-type edge cases. */
+    private static final List<String> EXPRESSIONS = List.of(
+        "42", "\"hello\"", "true", "false", "null",
+        "$a", "$b", "$flag", "$missing", "${customer.address.city}",
+        "${customer.tier} == \"premium\"", "${customer.phone.area}",
+        "$a + $b", "$a - $b", "$a * $b", "$a / $b", "$a + \"x\"",
+        "$a + 1", "1 + 2 * 3", "($a + 1) * ($b - 2) / 4", "$a / 0",
+        "-$a", "!$a", "!$flag", "-(1 + 2)",
+        "$a == $b", "$a != $b", "$a < $b", "$a > $b", "$a <= $b", "$a >= $b",
+        "$a == 5", "$a != 5", "$a < 10", "$a >= 5", "5 < $a", "$a == null",
+        "$a == \"5\"", "$a < \"m\"", "$flag == true", "$a == $a",
+        "$a && $b", "$a || $b", "$a && true", "$flag || $missing",
+        "$a > 0 && $b != \"done\"",
+        "len($a)", "upper($a)", "lower($a)", "abs($a)", "round($a)",
+        "abs($a - $b)", "round($a / 3)", "len($a) + len($b)",
+        "upper($a) + \" \" + lower($b)",
+        "if($flag, $a, $b)", "if($a > 0, $a * (1 - $b), $a)",
+        "if($flag, 1, 2) + 1", "if($a, \"yes\", 0)");
+
+    private static List<JsonNode> rows() {
+        List<JsonNode> rows = new ArrayList<>();
+        Object[] values = { 10, 5, 0, -3.5, -0.0, "5", "12.5", "abc", "",
+                            "NaN", "m", true, false, null };
+        for (Object a : values) {
+            for (Object b : values) {
+                ObjectNode row = NF.objectNode();
+                put(row, "a", a);
+                put(row, "b", b);
+                put(row, "flag", a);
+                rows.add(row);
+            }
+        }
+        ObjectNode nested = NF.objectNode();
+        ObjectNode customer = nested.putObject("customer");
+        customer.putObject("address")
+                .put("city", "Portland");
+        customer.put("tier", "premium");
+        nested.putArray("a")
+              .add(1);
+        rows.add(nested);
+        rows.add(NF.objectNode());
+        rows.add(NF.arrayNode());
+        rows.add(NF.textNode("scalar"));
+        return rows;
+    }
+
+    private static void put(ObjectNode row, String key, Object value) {
+        switch (value) {
+            case null -> row.putNull(key);
+            case Integer i -> row.put(key, i);
+            case Double d -> row.put(key, d);
+            case String s -> row.put(key, s);
+            case Boolean b -> row.put(key, b);
+            default -> throw new IllegalArgumentException(String.valueOf(value));
+        }
+    }
+
+    private final ExpressionEvaluator eval = new ExpressionEvaluator();
+
+    @Test
+    void matchesInterpreterOnEveryRow() throws ParseException {
+        List<JsonNode> rows = rows();
+        for (String expression : EXPRESSIONS) {
+            Expr ast = Parser.parse(expression);
+            CompiledExpression compiled = eval.specialize(ast);
+            for (JsonNode row : rows) {
+                Object expected = eval.evaluate(ast, row);
+                String where = expression + " on " + row;
+                assertEquals(expected, compiled.evaluate(row), where);
+                assertEquals(eval.toBoolean(expected), compiled.test(row), where);
+                Double number = ExpressionEvaluator.toNumber(expected);
+                double sentinel = -12345.678;
+                assertEquals(number == null ? sentinel : number,
+                             compiled.evaluateDouble(row, sentinel), where);
+            }
+        }
+    }
+
+    @Test
+    void batchMatchesRowEvaluation() throws ParseException {
+        List<JsonNode> rows = rows();
+        RowBatch batch = new RowBatch(rows);
+        double sentinel = -12345.678;
+        for (String expression : EXPRESSIONS) {
+            CompiledExpression compiled = eval.specialize(Parser.parse(expression));
+            Object[] values = compiled.evaluate(batch);
+            double[] numbers = compiled.evaluateDoubles(batch, sentinel);
+            BitSet selected = compiled.select(batch);
+            ColumnValues column = compiled.evaluateColumn(batch);
+            assertEquals(compiled.isNumeric(), column.isNumeric(), expression);
+            for (int i = 0; i < rows.size(); i++) {
+                JsonNode row = rows.get(i);
+                String where = expression + " on " + row;
+                assertEquals(compiled.evaluate(row), values[i], where);
+                assertEquals(ExpressionEvaluator.toJsonNode(values[i]),
+                             column.get(i), where);
+                assertEquals(compiled.evaluateDouble(row, sentinel), numbers[i],
+                             where);
+                assertEquals(compiled.test(row), selected.get(i), where);
+            }
+        }
+    }
+
+    @Test
+    void batchLogicalOperatorsShortCircuitAggregates() throws ParseException {
+        RowBatch batch = new RowBatch(List.of(NF.objectNode()
+                                                .put("x", 1),
+                                              NF.objectNode()
+                                                .put("x", -1)));
+        var guarded = eval.specialize(Parser.parse("$x < 0 && sum($x) > 0"));
+        assertThrows(IllegalStateException.class, () -> guarded.select(batch));
+        var never = eval.specialize(Parser.parse("$x > 5 && sum($x) > 0"));
+        assertTrue(never.select(batch)
+                        .isEmpty());
+        var always = eval.specialize(Parser.parse("$x == $x || sum($x) > 0"));
+        assertEquals(2, always.select(batch)
+                              .cardinality());
+    }
+
+    @Test
+    void invalidatedColumnsAreExtractedAgain() throws ParseException {
+        ObjectNode row = NF.objectNode()
+                           .put("a", 1);
+        RowBatch batch = RowBatch.of(NF.arrayNode()
+                                       .add(row));
+        var compiled = eval.specialize(Parser.parse("$a * 2"));
+        assertArrayEquals(new double[] { 2 }, compiled.evaluateDoubles(batch, 0));
+        row.put("a", 4);
+        assertArrayEquals(new double[] { 2 }, compiled.evaluateDoubles(batch, 0),
+                          "columns are cached");
+        batch.invalidate("a");
+        assertArrayEquals(new double[] { 8 }, compiled.evaluateDoubles(batch, 0));
+    }
+
+    @Test
+    void putFieldsOverlayTheRows() throws ParseException {
+        ObjectNode row = NF.objectNode()
+                           .put("a", 1)
+                           .put("b", "x");
+        RowBatch batch = RowBatch.of(NF.arrayNode()
+                                       .add(row)
+                                       .add("scalar"));
+        assertSame(row, batch.row(0));
+        batch.put("a", ColumnValues.of(NF.numberNode(5.0), NF.numberNode(7.0)));
+        assertArrayEquals(new double[] { 10, 14 },
+                          eval.specialize(Parser.parse("$a * 2"))
+                              .evaluateDoubles(batch, 0));
+        JsonNode merged = batch.row(0);
+        assertEquals(5.0, merged.get("a")
+                                .asDouble());
+        batch.put("c", ColumnValues.of(NF.textNode("y"), NF.nullNode()));
+        assertEquals("y", merged.get("c")
+                                .asText(), "materialized rows follow later fields");
+        assertEquals("xy", eval.specialize(Parser.parse("$b + $c"))
+                               .evaluate(batch)[0]);
+        assertEquals(2, batch.row(1)
+                             .size());
+        assertEquals(1, row.get("a")
+                           .asInt(), "source row must not be mutated");
+        assertFalse(row.has("c"));
+        assertThrows(IllegalArgumentException.class,
+                     () -> batch.put("d", ColumnValues.of(NF.nullNode())));
+    }
+
+    @Test
+    void numericColumnsAreReadWithoutMaterializingRows() throws ParseException {
+        RowBatch batch = new RowBatch(List.of(NF.objectNode()
+                                                .put("a", 2),
+                                              NF.objectNode()
+                                                .put("a", "x")));
+        ColumnValues doubled = eval.specialize(Parser.parse("$a * 2"))
+                                   .evaluateColumn(batch);
+        assertTrue(doubled.isNumeric());
+        assertEquals(4.0, doubled.getDouble(0, -1));
+        assertEquals(-1.0, doubled.getDouble(1, -1), "null is ifNull");
+        assertTrue(doubled.get(1)
+                          .isNull());
+        batch.put("b", doubled);
+        assertArrayEquals(new double[] { 5, -1 },
+                          eval.specialize(Parser.parse("$b + 1"))
+                              .evaluateDoubles(batch, -1));
+        assertTrue(eval.specialize(Parser.parse("$b > 3"))
+                       .select(batch)
+                       .get(0));
+        assertEquals(4.0, batch.row(0)
+                               .get("b")
+                               .doubleValue());
+    }
+
+    @Test
+    void numericExpressionsAreTypedNumeric() throws ParseException {
+        assertTrue(eval.specialize(Parser.parse("$a * 2 + 1"))
+                       .isNumeric());
+        assertTrue(eval.specialize(Parser.parse("abs(-$a)"))
+                       .isNumeric());
+        assertFalse(eval.specialize(Parser.parse("$a + 1"))
+                        .isNumeric(), "+ may concatenate strings");
+        assertFalse(eval.specialize(Parser.parse("$a"))
+                        .isNumeric());
+    }
+
+    @Test
+    void specializeIsCachedAndInvalidated() throws ParseException {
+        Expr ast = eval.compile("$a + $b");
+        CompiledExpression first = eval.specialize(ast);
+        assertSame(first, eval.specialize(ast));
+        assertSame(ast, first.getExpr());
+        eval.invalidateCache();
+        assertNotSame(first, eval.specialize(ast));
+    }
+
+    @Test
+    void aggregateInRowContextStillThrows() {
+        var compiled = eval.specialize(new Expr.AggregateCall("sum",
+                                                              new Expr.FieldRef(List.of("x"))));
+        assertThrows(IllegalStateException.class,
+                     () -> compiled.evaluate(NF.objectNode()));
+    }
+
+    @Test
+    void unknownFunctionIsNull() {
+        var compiled = eval.specialize(new Expr.ScalarCall("nope",
+                                                           List.of(new Expr.Literal(1.0))));
+        assertNull(compiled.evaluate(NF.objectNode()));
+    }
+
+    @Test
+    void filterOverManyRowsAgreesWithInterpreter() throws ParseException {
+        Expr ast = Parser.parse("$price * $qty > 500 && $status != \"void\"");
+        CompiledExpression compiled = eval.specialize(ast);
+        int interpreted = 0;
+        int fast = 0;
+        List<JsonNode> rows = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            ObjectNode row = NF.objectNode();
+            row.put("price", i % 97);
+            row.put("qty", i % 13);
+            row.put("status", i % 5 == 0 ? "void" : "ok");
+            rows.add(row);
+            if (eval.toBoolean(eval.evaluate(ast, row))) {
+                interpreted++;
+            }
+            if (compiled.test(row)) {
+                fast++;
+            }
+        }
+        assertEquals(interpreted, fast);
+        assertTrue(fast > 0);
+        assertEquals(interpreted, compiled.select(new RowBatch(rows))
+                                          .cardinality());
+    }
+}
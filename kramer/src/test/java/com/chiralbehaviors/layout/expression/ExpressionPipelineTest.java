@@ -29,6 +29,7 @@ import com.chiralbehaviors.layout.DefaultLayoutStylesheet;
 import com.chiralbehaviors.layout.LayoutPropertyKeys;
 import com.chiralbehaviors.layout.PrimitiveLayout;
 import com.chiralbehaviors.layout.RelationLayout;
+import com.chiralbehaviors.layout.RowDiff;
 import com.chiralbehaviors.layout.SchemaPath;
 import com.chiralbehaviors.layout.TestLayouts;
 import com.chiralbehaviors.layout.schema.Primitive;
@@ -391,6 +392,73 @@ class ExpressionPipelineTest {
         assertEquals(600.0, aggregates.get("revenue"));
     }
 
+    @Test
+    void footerAggregatesFollowRowDiffs() {
+        Relation schema = new Relation("items");
+        schema.addChild(new Primitive("name"));
+        schema.addChild(new Primitive("revenue"));
+
+        var stylesheet = new DefaultLayoutStylesheet(new Style(
+            new com.chiralbehaviors.layout.ConfiguredMeasurementStrategy()));
+        SchemaPath rootPath = new SchemaPath("items");
+        stylesheet.setOverride(rootPath, LayoutPropertyKeys.AGGREGATE_POSITION,
+            "footer");
+        stylesheet.setOverride(rootPath.child("revenue"),
+            LayoutPropertyKeys.AGGREGATE_EXPRESSION, "sum($revenue)");
+        stylesheet.setOverride(rootPath.child("name"),
+            LayoutPropertyKeys.AGGREGATE_EXPRESSION, "max($revenue)");
+
+        var layout = buildLayout(schema);
+        layout.setSchemaPath(rootPath);
+        var model = mockModel(schema, stylesheet);
+
+        ArrayNode data = buildData(new String[][] {
+            { "A", "100" },
+            { "B", "200" },
+            { "C", "300" }
+        }, "name", "revenue");
+        layout.measure(data, n -> n, model);
+        assertEquals(600.0, layout.getAggregateResults().get("revenue"));
+
+        // Remove B, update C, insert D
+        List<JsonNode> before = SchemaNode.asList(data);
+        List<JsonNode> after = SchemaNode.asList(buildData(new String[][] {
+            { "A", "100" },
+            { "C", "50" },
+            { "D", "400" }
+        }, "name", "revenue"));
+        var diff = RowDiff.compute(before, after, "name");
+        assertTrue(layout.updateAggregates(diff, before, after));
+        assertEquals(550.0, layout.getAggregateResults().get("revenue"));
+        assertEquals(400.0, layout.getAggregateResults().get("name"));
+
+        // The maximum's row is removed
+        List<JsonNode> last = after.subList(0, 2);
+        diff = RowDiff.compute(after, last, "name");
+        assertTrue(layout.updateAggregates(diff, after, last));
+        assertEquals(150.0, layout.getAggregateResults().get("revenue"));
+        assertEquals(100.0, layout.getAggregateResults().get("name"));
+
+        // Without a diff the aggregates are rebuilt from the new rows
+        assertTrue(layout.updateAggregates(null, last, before));
+        assertEquals(600.0, layout.getAggregateResults().get("revenue"));
+
+        // C changes and moves to the front, as on a feed sorted by revenue:
+        // the diff reports only a move
+        List<JsonNode> moved = SchemaNode.asList(buildData(new String[][] {
+            { "C", "900" },
+            { "A", "100" },
+            { "B", "200" }
+        }, "name", "revenue"));
+        diff = RowDiff.compute(before, moved, "name");
+        assertTrue(diff.getOperations()
+                       .stream()
+                       .allMatch(RowDiff.Move.class::isInstance), diff.getOperations().toString());
+        assertTrue(layout.updateAggregates(diff, before, moved));
+        assertEquals(1200.0, layout.getAggregateResults().get("revenue"));
+        assertEquals(900.0, layout.getAggregateResults().get("name"));
+    }
+
     // --- Expression cache invalidation ---
 
     @Test
@@ -0,0 +1,114 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout.flowless;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.chiralbehaviors.layout.cell.LayoutCell;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import javafx.scene.layout.Region;
+
+/**
+ * Tests for {@link CellPool}: reuse by kind, capacity, pre-warming and the
+ * reuse counters.
+ */
+class CellPoolTest {
+
+    static class PooledCell implements LayoutCell<Region> {
+        boolean  disposed;
+        JsonNode item;
+        boolean  reusable = true;
+
+        PooledCell(JsonNode item) {
+            this.item = item;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isReusable() {
+            return reusable;
+        }
+
+        @Override
+        public void reset() {
+            item = null;
+        }
+
+        @Override
+        public void updateItem(JsonNode item) {
+            this.item = item;
+        }
+    }
+
+    @Test
+    void returnedCellsAreReused() {
+        var pool = new CellPool<PooledCell>(PooledCell::new);
+        PooledCell first = pool.getCell(new IntNode(1));
+        pool.acceptCell(first);
+        PooledCell second = pool.getCell(new IntNode(2));
+        assertSame(first, second);
+        assertEquals(new IntNode(2), second.item);
+        assertEquals(new CellPoolStats(1, 1, 0, 0), pool.getStats());
+    }
+
+    @Test
+    void cellsAreOnlyReusedForTheirOwnKind() {
+        var pool = new CellPool<PooledCell>(PooledCell::new,
+                                            JsonNode::getNodeType);
+        PooledCell number = pool.getCell(new IntNode(1));
+        pool.acceptCell(number);
+        PooledCell text = pool.getCell(new TextNode("a"));
+        assertNotSame(number, text);
+        assertSame(number, pool.getCell(new IntNode(2)));
+        assertEquals(2, pool.getStats()
+                            .created());
+    }
+
+    @Test
+    void surplusCellsAreDisposed() {
+        var pool = new CellPool<PooledCell>(PooledCell::new);
+        pool.setCapacity(2);
+        List<PooledCell> cells = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            cells.add(pool.getCell(new IntNode(i)));
+        }
+        cells.forEach(pool::acceptCell);
+        assertEquals(new CellPoolStats(4, 0, 2, 2), pool.getStats());
+        assertTrue(cells.get(2).disposed);
+
+        pool.setCapacity(1);
+        assertEquals(1, pool.getStats()
+                            .pooled());
+
+        PooledCell unreusable = pool.getCell(new IntNode(9));
+        unreusable.reusable = false;
+        pool.acceptCell(unreusable);
+        assertTrue(unreusable.disposed);
+    }
+
+    @Test
+    void prewarmedCellsServeTheFirstRequests() {
+        var pool = new CellPool<PooledCell>(PooledCell::new);
+        assertEquals(5, pool.prewarm(new IntNode(0), 5));
+        assertEquals(0, pool.prewarm(new IntNode(0), 5), "already warm");
+        for (int i = 0; i < 5; i++) {
+            pool.getCell(new IntNode(i));
+        }
+        assertEquals(new CellPoolStats(5, 5, 0, 0), pool.getStats());
+
+        pool.dispose();
+        assertEquals(0, pool.getStats()
+                            .pooled());
+    }
+}
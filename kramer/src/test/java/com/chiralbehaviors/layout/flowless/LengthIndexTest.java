@@ -0,0 +1,95 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout.flowless;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LengthIndex}: prefix sums over measured and estimated item
+ * lengths, and offset to item lookup.
+ */
+class LengthIndexTest {
+
+    @Test
+    void unmeasuredItemsUseDefaultLength() {
+        var index = new LengthIndex(20);
+        index.reset(1_000_000);
+        assertEquals(20_000_000.0, index.total());
+        assertEquals(200.0, index.offsetOf(10));
+        assertEquals(10, index.indexAt(205));
+        assertEquals(999_999, index.indexAt(1e12));
+        assertEquals(0, index.indexAt(-5));
+
+        assertTrue(index.setDefaultLength(10));
+        assertEquals(10_000_000.0, index.total());
+    }
+
+    @Test
+    void measuredLengthsShiftLaterOffsets() {
+        var index = new LengthIndex(10);
+        index.reset(5);
+        index.set(1, 50);
+        assertEquals(10.0, index.offsetOf(1));
+        assertEquals(60.0, index.offsetOf(2));
+        assertEquals(90.0, index.total());
+        assertEquals(1, index.indexAt(59.9));
+        assertEquals(2, index.indexAt(60));
+
+        index.setDefaultLength(20);
+        assertEquals(20.0, index.offsetOf(1));
+        assertEquals(130.0, index.total(), "measured lengths ignore the default");
+
+        assertTrue(index.unset(1));
+        assertEquals(100.0, index.total());
+        assertFalse(index.set(7, 5), "out of range");
+    }
+
+    @Test
+    void structuralChangesKeepMeasurementsWithTheirItems() {
+        var index = new LengthIndex(10);
+        index.reset(4);
+        index.set(0, 1);
+        index.set(3, 4);
+        index.insert(1, 2); // 1, ?, ?, ?, ?, 4
+        assertEquals(6, index.size());
+        assertEquals(4.0, index.length(5));
+        assertEquals(45.0, index.total());
+
+        index.remove(0, 2); // ?, ?, ?, 4
+        assertEquals(34.0, index.total());
+        assertEquals(4.0, index.length(3));
+
+        index.permute(0, new int[] { 3, 2, 1, 0 }); // 4, ?, ?, ?
+        assertEquals(4.0, index.length(0));
+        assertEquals(4.0, index.offsetOf(1));
+    }
+
+    @Test
+    void agreesWithLinearScan() {
+        Random random = new Random(17);
+        int size = 2_000;
+        double[] expected = new double[size];
+        var index = new LengthIndex(15);
+        index.reset(size);
+        Arrays.fill(expected, 15);
+        for (int round = 0; round < 5_000; round++) {
+            int i = random.nextInt(size);
+            double length = random.nextInt(100);
+            index.set(i, length);
+            expected[i] = length;
+        }
+        double prefix = 0;
+        for (int i = 0; i < size; i++) {
+            assertEquals(prefix, index.offsetOf(i), 1e-6);
+            if (expected[i] > 0) {
+                assertEquals(i, index.indexAt(prefix + expected[i] / 2));
+            }
+            prefix += expected[i];
+        }
+        assertEquals(prefix, index.total(), 1e-6);
+    }
+}
@@ -0,0 +1,52 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout.flowless;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ScrollVelocity}: smoothing across a gesture and decay after
+ * it.
+ */
+class ScrollVelocityTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void steadyScrollingConvergesOnTheRate() {
+        var velocity = new ScrollVelocity();
+        assertEquals(0.0, velocity.velocityAt(0));
+        for (int i = 0; i < 30; i++) {
+            velocity.record(40, i * 16 * MS);
+        }
+        assertEquals(2.5, velocity.velocityAt(29 * 16 * MS), 0.01);
+    }
+
+    @Test
+    void directionIsSigned() {
+        var velocity = new ScrollVelocity();
+        velocity.record(-40, 0);
+        velocity.record(-40, 16 * MS);
+        assertTrue(velocity.velocityAt(16 * MS) < 0);
+    }
+
+    @Test
+    void decaysAfterScrollingStops() {
+        var velocity = new ScrollVelocity();
+        velocity.record(32, 0);
+        double start = velocity.velocityAt(0);
+        assertEquals(start / 2,
+                     velocity.velocityAt((long) (ScrollVelocity.HALF_LIFE_MS
+                                                 * MS)),
+                     1e-9);
+        assertTrue(velocity.velocityAt(2_000 * MS) < 1e-5);
+    }
+
+    @Test
+    void pauseStartsANewGesture() {
+        var velocity = new ScrollVelocity();
+        velocity.record(400, 0);
+        velocity.record(16, 1_000 * MS);
+        assertEquals(1.0, velocity.velocityAt(1_000 * MS), 1e-9);
+    }
+}
@@ -3,7 +3,9 @@ package com.chiralbehaviors.layout.flowless;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -76,6 +78,120 @@ class VirtualFlowScrollTest {
         });
     }
 
+    // --- overscan prefetch ---
+
+    @Test
+    void overscanCellsArePreboundHiddenAndReusedOnScroll(FxRobot robot) {
+        ensureWindowSize(300, VF_HEIGHT);
+        Queue<Runnable> idle = new ArrayDeque<>();
+        runOnFxAndWait(() -> {
+            vf.setPrefetchExecutor(idle::add);
+            vf.setOverscan(2);
+            addItemsAndReset(vf, 20);
+            vf.layout();
+            for (int tick = 0; !idle.isEmpty(); tick++) {
+                assertTrue(tick < 10, "prefetch settles");
+                idle.poll().run();
+                vf.layout();
+            }
+        });
+
+        runOnFxAndWait(() -> {
+            int lastVisible = vf.getLastVisibleIndex().getAsInt();
+            assertEquals(3, lastVisible, "overscan cells stay hidden");
+            assertEquals(lastVisible + 1 + 2, vf.getCellPoolStats().created(),
+                         "visible cells plus two prebound below");
+            assertEquals(0.0, vf.lengthOffsetEstimateProperty().getValue(), 0.01);
+
+            vf.scrollYBy(CELL_HEIGHT);
+            vf.layout();
+            assertEquals(CELL_HEIGHT, vf.lengthOffsetEstimateProperty().getValue(), 0.01,
+                         "hidden overscan above keeps the offset exact");
+            assertEquals(6, vf.getCellPoolStats().created(),
+                         "scrolling onto a prebound cell does not bind");
+        });
+    }
+
+    // --- prewarm ---
+
+    @Test
+    void prewarmBeforeFirstLayoutServesTheVisibleCells(FxRobot robot) {
+        ensureWindowSize(300, VF_HEIGHT);
+        runOnFxAndWait(() -> {
+            VirtualFlow<TestCell> fresh = createVirtualFlow();
+            for (int i = 0; i < 20; i++) {
+                fresh.getItems().add(IntNode.valueOf(i));
+            }
+            // Not laid out yet: the caller supplies the viewport length
+            assertEquals(4 + 2, fresh.prewarmCells(VF_HEIGHT, 2));
+            root.getChildren().setAll(fresh);
+            fresh.showAsFirst(0);
+            root.layout();
+            fresh.layout();
+            assertEquals(6, fresh.getCellPoolStats().created(), "no cell created by layout");
+            assertEquals(4, fresh.getCellPoolStats().reused());
+            root.getChildren().setAll(vf);
+        });
+    }
+
+    // --- measured cell lengths ---
+
+    @Test
+    void measuredVariableLengthsMakeJumpsExact(FxRobot robot) {
+        ensureWindowSize(300, VF_HEIGHT);
+        int count = 40;
+        double[] offsets = new double[count + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[i + 1] = offsets[i] + VariableCell.heightOf(i);
+        }
+        AtomicReference<VirtualFlow<VariableCell>> flow = new AtomicReference<>();
+        runOnFxAndWait(() -> {
+            VirtualFlow<VariableCell> variable = new VirtualFlow<>("default.css", CELL_WIDTH,
+                                                                   CELL_HEIGHT,
+                                                                   FXCollections.observableArrayList(),
+                                                                   (item, focus) -> new VariableCell(item.asInt()),
+                                                                   null, Collections.emptyList());
+            variable.setMeasureCellLengths(true);
+            root.getChildren().setAll(variable);
+            addItemsAndReset(variable, count);
+            variable.layout();
+            // Scroll through once so that every item has been measured
+            for (int i = 0; i < count; i++) {
+                variable.show(i);
+                variable.layout();
+            }
+            flow.set(variable);
+        });
+
+        runOnFxAndWait(() -> {
+            VirtualFlow<VariableCell> variable = flow.get();
+            assertEquals(offsets[count], variable.totalLengthEstimateProperty().getValue(), 0.01,
+                         "total is the sum of measured lengths");
+
+            variable.showAsFirst(25);
+            variable.layout();
+            assertEquals(offsets[25], variable.lengthOffsetEstimateProperty().getValue(), 0.01);
+
+            double target = offsets[7] + 5;
+            variable.setLengthOffset(target);
+            variable.layout();
+            assertEquals(7, variable.getFirstVisibleIndex().getAsInt());
+            assertEquals(-5, variable.getCell(7).getNode().getLayoutY(), 0.01,
+                         "jump lands inside the measured item");
+            assertEquals(target, variable.lengthOffsetEstimateProperty().getValue(), 0.01);
+
+            variable.show(30);
+            variable.layout();
+            Pane cell = variable.getCell(30).getNode();
+            assertEquals(VariableCell.heightOf(30), cell.getHeight(), 0.01);
+            assertEquals(VF_HEIGHT, cell.getLayoutY() + cell.getHeight(), 0.01,
+                         "show(int) scrolls the item's bottom edge exactly into view");
+            assertEquals(offsets[31] - VF_HEIGHT,
+                         variable.lengthOffsetEstimateProperty().getValue(), 0.01);
+        });
+        runOnFxAndWait(() -> root.getChildren().setAll(vf));
+    }
+
     // --- canScrollVertically ---
 
     @Test
@@ -668,6 +784,29 @@ class VirtualFlowScrollTest {
         }
     }
 
+    /**
+     * A LayoutCell whose preferred height depends on its item.
+     */
+    static class VariableCell extends Pane implements LayoutCell<Pane> {
+        static double heightOf(int item) {
+            return 12.0 + (item % 4) * 9.0;
+        }
+
+        VariableCell(int item) {
+            setPrefSize(CELL_WIDTH, heightOf(item));
+        }
+
+        @Override
+        public void updateItem(JsonNode item) {
+            setPrefSize(CELL_WIDTH, heightOf(item.asInt()));
+        }
+
+        @Override
+        public Pane getNode() {
+            return this;
+        }
+    }
+
     /**
      * A LayoutCell that contains an inner VirtualFlow, for testing nested scroll.
      */
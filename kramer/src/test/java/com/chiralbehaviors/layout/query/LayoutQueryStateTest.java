@@ -207,6 +207,22 @@ class LayoutQueryStateTest {
         assertTrue(v2 > v1);
     }
 
+    @Test
+    void clearingAPropertyRestampsOnlyItsPath() {
+        SchemaPath other = new SchemaPath("clearing", "other");
+        SchemaPath target = new SchemaPath("clearing", "target");
+        queryState.setColumnWidth(other, 60.0);
+        queryState.setColumnWidth(target, 80.0);
+        queryState.setCellFormat(target, "%d");
+        long otherStamp = queryState.getVersion(other);
+
+        queryState.setColumnWidth(target, null);
+        assertEquals(otherStamp, queryState.getVersion(other));
+        assertEquals(queryState.getVersion(), queryState.getVersion(target));
+        assertEquals("%d", queryState.getString(target, LayoutPropertyKeys.CELL_FORMAT, null));
+        assertEquals(60.0, queryState.getDouble(other, LayoutPropertyKeys.COLUMN_WIDTH, 0.0));
+    }
+
     // --- Change listener ---
 
     @Test
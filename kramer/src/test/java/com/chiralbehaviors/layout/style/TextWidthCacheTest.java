@@ -0,0 +1,129 @@
+// SPDX-License-Identifier: Apache-2.0
+package com.chiralbehaviors.layout.style;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the glyph-advance text width cache. Uses injected measurement
+ * functions so no JavaFX font rasterizer is required.
+ */
+class TextWidthCacheTest {
+
+    private final AtomicInteger advanceCalls = new AtomicInteger();
+    private final AtomicInteger layoutCalls  = new AtomicInteger();
+
+    private TextWidthCache cache(int capacity) {
+        return new TextWidthCache(s -> {
+            advanceCalls.incrementAndGet();
+            return s.charAt(0) == 'W' ? 10.0 : 5.0;
+        }, s -> {
+            layoutCalls.incrementAndGet();
+            return 3.0 * s.length();
+        }, capacity);
+    }
+
+    @Test
+    void widthIsSumOfAdvances() {
+        TextWidthCache cache = cache(16);
+        assertEquals(20.0, cache.width("Wab"));
+        assertEquals(0.0, cache.width(""));
+        assertEquals(0.0, cache.width(null));
+    }
+
+    @Test
+    void glyphAdvancesMeasuredOncePerCharacter() {
+        TextWidthCache cache = cache(16);
+        cache.width("aaaa");
+        cache.width("abab");
+        cache.width("baba");
+        assertEquals(2, advanceCalls.get(),
+                     "each distinct character must be measured exactly once");
+    }
+
+    @Test
+    void repeatedStringsHitCache() {
+        TextWidthCache cache = cache(16);
+        cache.width("hello");
+        cache.width("hello");
+        cache.width("world");
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void lruEvictsLeastRecentlyUsed() {
+        TextWidthCache cache = cache(2);
+        cache.width("a");
+        cache.width("b");
+        cache.width("a");
+        cache.width("c");
+        assertEquals(2, cache.size());
+        long misses = cache.getMisses();
+        cache.width("a");
+        assertEquals(misses, cache.getMisses(), "recently used entry retained");
+        cache.width("b");
+        assertEquals(misses + 1, cache.getMisses(), "eldest entry evicted");
+    }
+
+    @Test
+    void complexScriptsFallBackToLayout() {
+        TextWidthCache cache = cache(16);
+        assertEquals(9.0, cache.width("éx"));
+        assertEquals(6.0, cache.width("של"));
+        assertEquals(2, layoutCalls.get());
+        assertEquals(2, cache.getFallbacks());
+        assertEquals(0, advanceCalls.get());
+    }
+
+    @Test
+    void multiLineValueIsItsWidestLine() {
+        TextWidthCache cache = cache(16);
+        assertEquals(15.0, cache.width("Wa\nabc"));
+        assertEquals(20.0, cache.width("a\nWW\n"));
+        assertEquals(5.0, cache.width("\na"));
+        assertEquals(0, cache.getFallbacks());
+    }
+
+    @Test
+    void tabsAndOtherControlsFallBackToLayout() {
+        TextWidthCache cache = cache(16);
+        assertEquals(9.0, cache.width("a\tb"));
+        assertEquals(12.0, cache.width("a\r\nb"));
+        assertEquals(2, cache.getFallbacks());
+        assertTrue(TextWidthCache.requiresShaping('\t'));
+        assertTrue(TextWidthCache.requiresShaping('\u007F'));
+        assertFalse(TextWidthCache.requiresShaping(' '));
+    }
+
+    @Test
+    void cjkUsesAdvances() {
+        assertFalse(TextWidthCache.requiresShaping('中'));
+        assertFalse(TextWidthCache.requiresShaping('é'));
+        assertTrue(TextWidthCache.requiresShaping('ا'));
+        assertTrue(TextWidthCache.requiresShaping('‍'));
+        assertTrue(TextWidthCache.requiresShaping('\uD83D'));
+    }
+
+    @Test
+    void clearResetsCountersAndGlyphs() {
+        TextWidthCache cache = cache(16);
+        cache.width("ab");
+        cache.width("ab");
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+        cache.width("ab");
+        assertEquals(4, advanceCalls.get(), "glyph pages rebuilt after clear");
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> cache(0));
+    }
+}